@@ -221,6 +221,7 @@ public interface Ids {
 
    int PUBLISHER_TRANSFORMERS = 151;
    int PREPARE_RESPONSE = 152;
+   int LOAD_AWARE_CONSISTENT_HASH_FACTORY = 153;
 
    int COUNTER_CONFIGURATION = 2000; //from counter
    int COUNTER_STATE = 2001; //from counter
@@ -44,6 +44,7 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.InvalidateHotKeysCommand;
 import org.infinispan.commands.remote.RenewBiasCommand;
 import org.infinispan.commands.remote.RevokeBiasCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -51,6 +52,7 @@
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTxInfoCommand;
 import org.infinispan.commands.remote.recovery.TxCompletionNotificationCommand;
+import org.infinispan.commands.statetransfer.ConflictResolutionDigestCommand;
 import org.infinispan.commands.statetransfer.ConflictResolutionStartCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateConfirmRevokedCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateGetKeysCommand;
@@ -444,13 +446,16 @@ default SingleRpcCommand buildSingleRpcCommand(ReplicableCommand call) {
 
    ConflictResolutionStartCommand buildConflictResolutionStartCommand(int topologyId, IntSet segments);
 
+   ConflictResolutionDigestCommand buildConflictResolutionDigestCommand(int topologyId, IntSet segments);
+
    StateTransferCancelCommand buildStateTransferCancelCommand(int topologyId, IntSet segments);
 
    StateTransferGetListenersCommand buildStateTransferGetListenersCommand(int topologyId);
 
    StateTransferGetTransactionsCommand buildStateTransferGetTransactionsCommand(int topologyId, IntSet segments);
 
-   StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments);
+   StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments,
+                                                            Map<Integer, Long> segmentDigests);
 
    ScatteredStateGetKeysCommand buildScatteredStateGetKeysCommand(int topologyId, IntSet segments);
 
@@ -595,6 +600,8 @@ <K, V, R> TxReadOnlyManyCommand<K, V, R> buildTxReadOnlyManyCommand(Collection<?
 
    RenewBiasCommand buildRenewBiasCommand(Object[] keys);
 
+   InvalidateHotKeysCommand buildInvalidateHotKeysCommand(Collection<?> keys);
+
    SingleKeyBackupWriteCommand buildSingleKeyBackupWriteCommand();
 
    SingleKeyFunctionalBackupWriteCommand buildSingleKeyFunctionalBackupWriteCommand();
@@ -45,6 +45,7 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.InvalidateHotKeysCommand;
 import org.infinispan.commands.remote.RenewBiasCommand;
 import org.infinispan.commands.remote.RevokeBiasCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -52,6 +53,7 @@
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTxInfoCommand;
 import org.infinispan.commands.remote.recovery.TxCompletionNotificationCommand;
+import org.infinispan.commands.statetransfer.ConflictResolutionDigestCommand;
 import org.infinispan.commands.statetransfer.ConflictResolutionStartCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateConfirmRevokedCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateGetKeysCommand;
@@ -349,6 +351,11 @@ public ConflictResolutionStartCommand buildConflictResolutionStartCommand(int to
       return new ConflictResolutionStartCommand(cacheName, topologyId, segments);
    }
 
+   @Override
+   public ConflictResolutionDigestCommand buildConflictResolutionDigestCommand(int topologyId, IntSet segments) {
+      return new ConflictResolutionDigestCommand(cacheName, topologyId, segments);
+   }
+
    @Override
    public ScatteredStateConfirmRevokedCommand buildScatteredStateConfirmRevokeCommand(int topologyId, IntSet segments) {
       return new ScatteredStateConfirmRevokedCommand(cacheName, topologyId, segments);
@@ -375,8 +382,9 @@ public StateTransferGetTransactionsCommand buildStateTransferGetTransactionsComm
    }
 
    @Override
-   public StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments) {
-      return new StateTransferStartCommand(cacheName, topologyId, segments);
+   public StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments,
+                                                                   Map<Integer, Long> segmentDigests) {
+      return new StateTransferStartCommand(cacheName, topologyId, segments, segmentDigests);
    }
 
    @Override
@@ -619,6 +627,11 @@ public RevokeBiasCommand buildRevokeBiasCommand(Address ackTarget, long id, int
       return new RevokeBiasCommand(cacheName, ackTarget, id, topologyId, keys);
    }
 
+   @Override
+   public InvalidateHotKeysCommand buildInvalidateHotKeysCommand(Collection<?> keys) {
+      return new InvalidateHotKeysCommand(cacheName, keys);
+   }
+
    @Override
    public RenewBiasCommand buildRenewBiasCommand(Object[] keys) {
       return new RenewBiasCommand(cacheName, keys);
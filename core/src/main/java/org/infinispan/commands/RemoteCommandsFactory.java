@@ -32,6 +32,7 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.InvalidateHotKeysCommand;
 import org.infinispan.commands.remote.RenewBiasCommand;
 import org.infinispan.commands.remote.RevokeBiasCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -39,6 +40,7 @@
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTxInfoCommand;
 import org.infinispan.commands.remote.recovery.TxCompletionNotificationCommand;
+import org.infinispan.commands.statetransfer.ConflictResolutionDigestCommand;
 import org.infinispan.commands.statetransfer.ConflictResolutionStartCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateConfirmRevokedCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateGetKeysCommand;
@@ -57,6 +59,7 @@
 import org.infinispan.commands.topology.RebalancePolicyUpdateCommand;
 import org.infinispan.commands.topology.RebalanceStartCommand;
 import org.infinispan.commands.topology.RebalanceStatusRequestCommand;
+import org.infinispan.commands.topology.SegmentLoadRequestCommand;
 import org.infinispan.commands.topology.TopologyUpdateCommand;
 import org.infinispan.commands.topology.TopologyUpdateStableCommand;
 import org.infinispan.commands.triangle.MultiEntriesFunctionalBackupWriteCommand;
@@ -263,6 +266,9 @@ public ReplicableCommand fromStream(byte id, byte type) {
             case CacheAvailabilityUpdateCommand.COMMAND_ID:
                command = new CacheAvailabilityUpdateCommand();
                break;
+            case SegmentLoadRequestCommand.COMMAND_ID:
+               command = new SegmentLoadRequestCommand();
+               break;
             case IracPutKeyValueCommand.COMMAND_ID:
                command = new IracPutKeyValueCommand();
                break;
@@ -321,6 +327,9 @@ public CacheRpcCommand fromStream(byte id, byte type, ByteString cacheName) {
             case ConflictResolutionStartCommand.COMMAND_ID:
                command = new ConflictResolutionStartCommand(cacheName);
                break;
+            case ConflictResolutionDigestCommand.COMMAND_ID:
+               command = new ConflictResolutionDigestCommand(cacheName);
+               break;
             case ScatteredStateConfirmRevokedCommand.COMMAND_ID:
                command = new ScatteredStateConfirmRevokedCommand(cacheName);
                break;
@@ -426,6 +435,9 @@ public CacheRpcCommand fromStream(byte id, byte type, ByteString cacheName) {
             case RenewBiasCommand.COMMAND_ID:
                command = new RenewBiasCommand(cacheName);
                break;
+            case InvalidateHotKeysCommand.COMMAND_ID:
+               command = new InvalidateHotKeysCommand(cacheName);
+               break;
             case ReductionPublisherRequestCommand.COMMAND_ID:
                command = new ReductionPublisherRequestCommand<>(cacheName);
                break;
@@ -18,6 +18,7 @@
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextFactory;
 import org.infinispan.context.impl.FlagBitSets;
+import org.infinispan.distribution.HotKeyManager;
 import org.infinispan.distribution.ch.KeyPartitioner;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.interceptors.AsyncInterceptorChain;
@@ -44,6 +45,7 @@ public class ClusteredGetCommand extends BaseClusteredReadCommand implements Seg
    private Object key;
 
    private boolean isWrite;
+   private boolean hotKey;
    private Integer segment;
 
    private ClusteredGetCommand() {
@@ -74,6 +76,14 @@ public CompletionStage<?> invokeAsync(ComponentRegistry componentRegistry) throw
       // as our caller is already calling the ClusteredGetCommand on all the relevant nodes
       // CACHE_MODE_LOCAL is not used as it can be used when we want to ignore the ownership with respect to reads
       long flagBitSet = EnumUtil.bitSetOf(Flag.SKIP_REMOTE_LOOKUP);
+      // Register the origin as a holder before reading, so that a concurrent write either invalidates its replica
+      // or is visible in the response
+      if (hotKey) {
+         HotKeyManager hotKeyManager = componentRegistry.getComponent(HotKeyManager.class);
+         if (hotKeyManager != null) {
+            hotKeyManager.addHolder(key, getOrigin());
+         }
+      }
       int segmentToUse;
       if (segment != null) {
          segmentToUse = segment;
@@ -136,6 +146,7 @@ public void writeTo(ObjectOutput output) throws IOException {
       }
       output.writeLong(FlagBitSets.copyWithoutRemotableFlags(getFlagsBitSet()));
       output.writeBoolean(isWrite);
+      output.writeBoolean(hotKey);
    }
 
    @Override
@@ -147,6 +158,7 @@ public void readFrom(ObjectInput input) throws IOException, ClassNotFoundExcepti
       }
       setFlagsBitSet(input.readLong());
       isWrite = input.readBoolean();
+      hotKey = input.readBoolean();
    }
 
    @Override
@@ -172,6 +184,7 @@ public String toString() {
          .append(", flags=").append(printFlags())
          .append(", topologyId=").append(topologyId)
          .append(", isWrite=").append(isWrite)
+         .append(", hotKey=").append(hotKey)
          .append("}")
          .toString();
    }
@@ -184,6 +197,17 @@ public void setWrite(boolean write) {
       isWrite = write;
    }
 
+   public boolean isHotKey() {
+      return hotKey;
+   }
+
+   /**
+    * Asks the owner to remember the origin as a holder of a replica of the key, see {@link HotKeyManager}.
+    */
+   public void setHotKey(boolean hotKey) {
+      this.hotKey = hotKey;
+   }
+
    @Override
    public int getSegment() {
       return segment;
@@ -0,0 +1,80 @@
+package org.infinispan.commands.remote;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.commons.marshall.MarshallUtil;
+import org.infinispan.distribution.HotKeyManager;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.util.ByteString;
+import org.infinispan.util.concurrent.CompletableFutures;
+
+/**
+ * Informs a node that its replicas of some hot keys are stale, because the keys were written.
+ *
+ * @see HotKeyManager
+ * @since 12.1
+ */
+public class InvalidateHotKeysCommand extends BaseRpcCommand {
+   public static final byte COMMAND_ID = 34;
+
+   private Collection<?> keys;
+
+   public InvalidateHotKeysCommand() {
+      super(null);
+   }
+
+   public InvalidateHotKeysCommand(ByteString cacheName) {
+      super(cacheName);
+   }
+
+   public InvalidateHotKeysCommand(ByteString cacheName, Collection<?> keys) {
+      super(cacheName);
+      this.keys = keys;
+   }
+
+   @Override
+   public CompletionStage<?> invokeAsync(ComponentRegistry componentRegistry) throws Throwable {
+      HotKeyManager hotKeyManager = componentRegistry.getComponent(HotKeyManager.class);
+      if (hotKeyManager != null) {
+         hotKeyManager.invalidateReplicas(keys);
+      }
+      return CompletableFutures.completedNull();
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   public Collection<?> getKeys() {
+      return keys;
+   }
+
+   @Override
+   public void writeTo(ObjectOutput output) throws IOException {
+      MarshallUtil.marshallCollection(keys, output);
+   }
+
+   @Override
+   public void readFrom(ObjectInput input) throws IOException, ClassNotFoundException {
+      keys = MarshallUtil.unmarshallCollection(input, ArrayList::new);
+   }
+
+   @Override
+   public String toString() {
+      return "InvalidateHotKeysCommand{" +
+            "cacheName=" + cacheName +
+            ", keys=" + keys +
+            '}';
+   }
+}
@@ -0,0 +1,48 @@
+package org.infinispan.commands.statetransfer;
+
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.statetransfer.StateProvider;
+import org.infinispan.util.ByteString;
+
+/**
+ * Request the digests of the local entries of a set of segments, so that conflict resolution only requests the
+ * entries of the segments whose replicas differ.
+ *
+ * @since 12.1
+ * @see org.infinispan.statetransfer.SegmentDigests
+ */
+public class ConflictResolutionDigestCommand extends AbstractStateTransferCommand {
+
+   public static final byte COMMAND_ID = 113;
+
+   // For command id uniqueness test only
+   public ConflictResolutionDigestCommand() {
+      this(null);
+   }
+
+   public ConflictResolutionDigestCommand(ByteString cacheName) {
+      super(COMMAND_ID, cacheName);
+   }
+
+   public ConflictResolutionDigestCommand(ByteString cacheName, int topologyId, IntSet segments) {
+      super(COMMAND_ID, cacheName, topologyId, segments);
+   }
+
+   @Override
+   public CompletionStage<?> invokeAsync(ComponentRegistry registry) throws Throwable {
+      StateProvider stateProvider = registry.getStateTransferManager().getStateProvider();
+      return stateProvider.computeSegmentDigests(segments);
+   }
+
+   @Override
+   public String toString() {
+      return "ConflictResolutionDigestCommand{" +
+            "topologyId=" + topologyId +
+            ", segments=" + segments +
+            ", cacheName=" + cacheName +
+            '}';
+   }
+}
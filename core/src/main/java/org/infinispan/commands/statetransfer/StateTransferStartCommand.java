@@ -1,5 +1,10 @@
 package org.infinispan.commands.statetransfer;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletionStage;
 
 import org.infinispan.commons.util.IntSet;
@@ -18,6 +23,9 @@ public class StateTransferStartCommand extends AbstractStateTransferCommand {
 
    public static final byte COMMAND_ID = 116;
 
+   // The digests of the segments the requester already holds, the provider skips the segments that did not change
+   private Map<Integer, Long> segmentDigests;
+
    // For command id uniqueness test only
    public StateTransferStartCommand() {
       this(null);
@@ -28,21 +36,60 @@ public StateTransferStartCommand(ByteString cacheName) {
    }
 
    public StateTransferStartCommand(ByteString cacheName, int topologyId, IntSet segments) {
+      this(cacheName, topologyId, segments, null);
+   }
+
+   public StateTransferStartCommand(ByteString cacheName, int topologyId, IntSet segments,
+                                    Map<Integer, Long> segmentDigests) {
       super(COMMAND_ID, cacheName, topologyId, segments);
+      this.segmentDigests = segmentDigests;
+   }
+
+   public Map<Integer, Long> getSegmentDigests() {
+      return segmentDigests;
    }
 
    @Override
    public CompletionStage<?> invokeAsync(ComponentRegistry registry) throws Throwable {
       StateProvider stateProvider = registry.getStateTransferManager().getStateProvider();
-      stateProvider.startOutboundTransfer(origin, topologyId, segments, true);
+      stateProvider.startOutboundTransfer(origin, topologyId, segments, true, segmentDigests);
       return CompletableFutures.completedNull();
    }
 
+   @Override
+   public void writeTo(ObjectOutput output) throws IOException {
+      super.writeTo(output);
+      if (segmentDigests == null) {
+         output.writeInt(-1);
+         return;
+      }
+      output.writeInt(segmentDigests.size());
+      for (Map.Entry<Integer, Long> entry : segmentDigests.entrySet()) {
+         output.writeInt(entry.getKey());
+         output.writeLong(entry.getValue());
+      }
+   }
+
+   @Override
+   public void readFrom(ObjectInput input) throws IOException, ClassNotFoundException {
+      super.readFrom(input);
+      int size = input.readInt();
+      if (size < 0) {
+         segmentDigests = null;
+         return;
+      }
+      segmentDigests = new HashMap<>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+         segmentDigests.put(input.readInt(), input.readLong());
+      }
+   }
+
    @Override
    public String toString() {
       return "StateTransferStartCommand{" +
             "topologyId=" + topologyId +
             ", segments=" + segments +
+            ", segmentDigests=" + (segmentDigests == null ? 0 : segmentDigests.size()) +
             ", cacheName=" + cacheName +
             '}';
    }
@@ -0,0 +1,94 @@
+package org.infinispan.commands.topology;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.commons.marshall.MarshallUtil;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.GlobalComponentRegistry;
+import org.infinispan.interceptors.AsyncInterceptorChain;
+import org.infinispan.interceptors.impl.SegmentLoadInterceptor;
+import org.infinispan.util.concurrent.CompletableFutures;
+
+/**
+ * Requests the size and the access count of every segment of a cache, for the
+ * {@link org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory}.
+ * <p>
+ * The command also carries the segment loads the coordinator computed in the previous round, so that every node can
+ * report its load skew without collecting the statistics itself.
+ * <p>
+ * The response is the result of {@link SegmentLoadInterceptor#getSegmentLoads()}, or {@code null} if the cache is
+ * not running on the node.
+ *
+ * @since 12.1
+ */
+public class SegmentLoadRequestCommand extends AbstractCacheControlCommand {
+
+   public static final byte COMMAND_ID = 91;
+
+   private String cacheName;
+   private float[] segmentLoads;
+
+   // For CommandIdUniquenessTest only
+   public SegmentLoadRequestCommand() {
+      super(COMMAND_ID);
+   }
+
+   public SegmentLoadRequestCommand(String cacheName, float[] segmentLoads) {
+      super(COMMAND_ID);
+      this.cacheName = cacheName;
+      this.segmentLoads = segmentLoads;
+   }
+
+   @Override
+   public CompletionStage<long[]> invokeAsync(GlobalComponentRegistry gcr) throws Throwable {
+      ComponentRegistry cr = gcr.getNamedComponentRegistry(cacheName);
+      if (cr == null)
+         return CompletableFutures.completedNull();
+
+      SegmentLoadInterceptor interceptor = cr.getComponent(AsyncInterceptorChain.class)
+                                             .findInterceptorWithClass(SegmentLoadInterceptor.class);
+      if (interceptor == null)
+         return CompletableFutures.completedNull();
+
+      if (segmentLoads != null) {
+         interceptor.updateSegmentLoads(segmentLoads);
+      }
+      return CompletableFuture.completedFuture(interceptor.getSegmentLoads());
+   }
+
+   @Override
+   public void writeTo(ObjectOutput output) throws IOException {
+      MarshallUtil.marshallString(cacheName, output);
+      if (segmentLoads == null) {
+         output.writeInt(-1);
+      } else {
+         output.writeInt(segmentLoads.length);
+         for (float load : segmentLoads) {
+            output.writeFloat(load);
+         }
+      }
+   }
+
+   @Override
+   public void readFrom(ObjectInput input) throws IOException, ClassNotFoundException {
+      cacheName = MarshallUtil.unmarshallString(input);
+      int numSegments = input.readInt();
+      if (numSegments >= 0) {
+         segmentLoads = new float[numSegments];
+         for (int i = 0; i < numSegments; i++) {
+            segmentLoads[i] = input.readFloat();
+         }
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "SegmentLoadRequestCommand{" +
+            "cacheName='" + cacheName + '\'' +
+            '}';
+   }
+}
@@ -22,9 +22,11 @@ public class AsyncStoreConfiguration implements ConfigurationInfo {
    @Deprecated
    public static final AttributeDefinition<Integer> THREAD_POOL_SIZE = AttributeDefinition.builder("threadPoolSize", 1).immutable().build();
    public static final AttributeDefinition<Boolean> FAIL_SILENTLY = AttributeDefinition.builder("failSilently", false).immutable().build();
+   public static final AttributeDefinition<Integer> FLUSH_PARALLELISM = AttributeDefinition.builder("flushParallelism", 1).immutable().build();
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE, FAIL_SILENTLY);
+      return new AttributeSet(AsyncStoreConfiguration.class, ENABLED, MODIFICATION_QUEUE_SIZE, THREAD_POOL_SIZE, FAIL_SILENTLY,
+            FLUSH_PARALLELISM);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(WRITE_BEHIND.getLocalName());
@@ -33,6 +35,7 @@ static AttributeSet attributeDefinitionSet() {
    private final Attribute<Integer> modificationQueueSize;
    private final Attribute<Integer> threadPoolSize;
    private final Attribute<Boolean> failSilently;
+   private final Attribute<Integer> flushParallelism;
 
    private final AttributeSet attributes;
 
@@ -42,6 +45,7 @@ static AttributeSet attributeDefinitionSet() {
       this.modificationQueueSize = attributes.attribute(MODIFICATION_QUEUE_SIZE);
       this.threadPoolSize = attributes.attribute(THREAD_POOL_SIZE);
       this.failSilently = attributes.attribute(FAIL_SILENTLY);
+      this.flushParallelism = attributes.attribute(FLUSH_PARALLELISM);
    }
 
    @Override
@@ -79,6 +83,14 @@ public boolean failSilently() {
       return failSilently.get();
    }
 
+   /**
+    * The number of batches that the modifications waiting to be written are split into, by segment, and that are
+    * written to the store concurrently.
+    */
+   public int flushParallelism() {
+      return flushParallelism.get();
+   }
+
    public AttributeSet attributes() {
       return attributes;
    }
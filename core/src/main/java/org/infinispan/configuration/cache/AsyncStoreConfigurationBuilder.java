@@ -2,8 +2,10 @@
 
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.ENABLED;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FAIL_SILENTLY;
+import static org.infinispan.configuration.cache.AsyncStoreConfiguration.FLUSH_PARALLELISM;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.MODIFICATION_QUEUE_SIZE;
 import static org.infinispan.configuration.cache.AsyncStoreConfiguration.THREAD_POOL_SIZE;
+import static org.infinispan.util.logging.Log.CONFIG;
 
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.configuration.ConfigurationBuilderInfo;
@@ -92,9 +94,21 @@ public AsyncStoreConfigurationBuilder<S> failSilently(boolean failSilently) {
       return this;
    }
 
+   /**
+    * Sets the number of batches that the modifications waiting to be written are split into, by segment, and that
+    * are written to the store concurrently. Only the last modification of each key is written. Defaults to 1.
+    */
+   public AsyncStoreConfigurationBuilder<S> flushParallelism(int flushParallelism) {
+      attributes.attribute(FLUSH_PARALLELISM).set(flushParallelism);
+      return this;
+   }
+
    @Override
    public
    void validate() {
+      if (attributes.attribute(FLUSH_PARALLELISM).get() < 1) {
+         throw CONFIG.invalidFlushParallelism(attributes.attribute(FLUSH_PARALLELISM).get());
+      }
    }
 
    @Override
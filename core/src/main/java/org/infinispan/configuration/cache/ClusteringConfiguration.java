@@ -58,10 +58,14 @@ public Object readAttributeValue(String enclosing, AttributeDefinition attribute
    public static final AttributeDefinition<Integer> INVALIDATION_BATCH_SIZE = AttributeDefinition.builder("invalidationBatchSize",  128).immutable().build();
    public static final AttributeDefinition<BiasAcquisition> BIAS_ACQUISITION = AttributeDefinition.builder("biasAcquisition", BiasAcquisition.ON_WRITE).immutable().build();
    public static final AttributeDefinition<Long> BIAS_LIFESPAN = AttributeDefinition.builder("biasLifespan", TimeUnit.MINUTES.toMillis(5)).immutable().build();
+   public static final AttributeDefinition<Integer> HOT_KEY_THRESHOLD = AttributeDefinition.builder("hotKeyThreshold", 0).immutable().build();
+   public static final AttributeDefinition<Long> HOT_KEY_LIFESPAN = AttributeDefinition.builder("hotKeyLifespan", TimeUnit.SECONDS.toMillis(10)).immutable().build();
+   public static final AttributeDefinition<ReadPolicy> READ_POLICY = AttributeDefinition.builder("readPolicy", ReadPolicy.PRIMARY).immutable().build();
    private final List<ConfigurationInfo> elements;
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(ClusteringConfiguration.class, CACHE_MODE, REMOTE_TIMEOUT, INVALIDATION_BATCH_SIZE, BIAS_ACQUISITION, BIAS_LIFESPAN);
+      return new AttributeSet(ClusteringConfiguration.class, CACHE_MODE, REMOTE_TIMEOUT, INVALIDATION_BATCH_SIZE, BIAS_ACQUISITION, BIAS_LIFESPAN,
+            HOT_KEY_THRESHOLD, HOT_KEY_LIFESPAN, READ_POLICY);
    }
 
    public static final ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(CLUSTERING.getLocalName(), false);
@@ -144,6 +148,28 @@ public long biasLifespan() {
       return attributes.attribute(BIAS_LIFESPAN).get();
    }
 
+   /**
+    * For distributed cache, the number of reads per second after which a key read from a remote owner is
+    * replicated on the reading node. 0 disables the replication of hot keys.
+    */
+   public int hotKeyThreshold() {
+      return attributes.attribute(HOT_KEY_THRESHOLD).get();
+   }
+
+   /**
+    * For distributed cache, how long is the node allowed to read a replicated hot key locally.
+    */
+   public long hotKeyLifespan() {
+      return attributes.attribute(HOT_KEY_LIFESPAN).get();
+   }
+
+   /**
+    * For distributed cache, specifies which owner receives the remote reads first.
+    */
+   public ReadPolicy readPolicy() {
+      return attributes.attribute(READ_POLICY).get();
+   }
+
    /**
     * Configure hash sub element
     */
@@ -3,7 +3,10 @@
 import static org.infinispan.configuration.cache.ClusteringConfiguration.BIAS_ACQUISITION;
 import static org.infinispan.configuration.cache.ClusteringConfiguration.BIAS_LIFESPAN;
 import static org.infinispan.configuration.cache.ClusteringConfiguration.CACHE_MODE;
+import static org.infinispan.configuration.cache.ClusteringConfiguration.HOT_KEY_LIFESPAN;
+import static org.infinispan.configuration.cache.ClusteringConfiguration.HOT_KEY_THRESHOLD;
 import static org.infinispan.configuration.cache.ClusteringConfiguration.INVALIDATION_BATCH_SIZE;
+import static org.infinispan.configuration.cache.ClusteringConfiguration.READ_POLICY;
 import static org.infinispan.configuration.cache.ClusteringConfiguration.REMOTE_TIMEOUT;
 import static org.infinispan.util.logging.Log.CONFIG;
 
@@ -112,6 +115,34 @@ public ClusteringConfigurationBuilder biasLifespan(long l, TimeUnit unit) {
       return this;
    }
 
+   /**
+    * Used in distributed cache. Keys read from a remote owner more often than {@code readsPerSecond} times per second
+    * are replicated on the reading node and read locally until they are written or their lifespan expires.
+    * 0 (the default) disables the replication of hot keys.
+    */
+   public ClusteringConfigurationBuilder hotKeyThreshold(int readsPerSecond) {
+      attributes.attribute(HOT_KEY_THRESHOLD).set(readsPerSecond);
+      return this;
+   }
+
+   /**
+    * Used in distributed cache. Specifies the duration (in Milliseconds) that a replicated hot key can be read
+    * locally; writes invalidate the replicas sooner, but tracking the replicas consumes memory on the owners.
+    */
+   public ClusteringConfigurationBuilder hotKeyLifespan(long l, TimeUnit unit) {
+      attributes.attribute(HOT_KEY_LIFESPAN).set(unit.toMillis(l));
+      return this;
+   }
+
+   /**
+    * Used in non-transactional distributed cache. Specifies which owner receives the remote reads first, see
+    * {@link ReadPolicy}. The default sends all the reads to the primary owner.
+    */
+   public ClusteringConfigurationBuilder readPolicy(ReadPolicy readPolicy) {
+      attributes.attribute(READ_POLICY).set(readPolicy);
+      return this;
+   }
+
    /**
     * Configure hash sub element
     */
@@ -171,6 +202,20 @@ public void validate() {
          if (hash().numOwners() == 1 && partitionHandling().whenSplit() != PartitionHandling.ALLOW_READ_WRITES)
             throw CONFIG.singleOwnerNotSetToAllowReadWrites();
       }
+
+      if (attributes.attribute(HOT_KEY_THRESHOLD).get() < 0)
+         throw CONFIG.invalidHotKeyThreshold(attributes.attribute(HOT_KEY_THRESHOLD).get());
+      if (attributes.attribute(HOT_KEY_THRESHOLD).get() > 0) {
+         org.infinispan.transaction.TransactionMode transactionMode = transaction().transactionMode();
+         if (!cacheMode().isDistributed() || l1().attributes().attribute(L1Configuration.ENABLED).get() ||
+               (transactionMode != null && transactionMode.isTransactional()))
+            throw CONFIG.hotKeyReplicationAppliesOnlyToNonTxDistributed();
+      }
+      if (attributes.attribute(READ_POLICY).get() != ReadPolicy.PRIMARY) {
+         org.infinispan.transaction.TransactionMode transactionMode = transaction().transactionMode();
+         if (!cacheMode().isDistributed() || (transactionMode != null && transactionMode.isTransactional()))
+            throw CONFIG.readPolicyAppliesOnlyToNonTxDistributed(attributes.attribute(READ_POLICY).get());
+      }
    }
 
    @Override
@@ -20,11 +20,12 @@ public class ExpirationConfiguration implements Matchable<ExpirationConfiguratio
    public static final AttributeDefinition<Long> MAX_IDLE = AttributeDefinition.builder("maxIdle", -1l).build();
    public static final AttributeDefinition<Boolean> REAPER_ENABLED = AttributeDefinition.builder("reaperEnabled", true).immutable().autoPersist(false).build();
    public static final AttributeDefinition<Long> WAKEUP_INTERVAL = AttributeDefinition.builder("wakeUpInterval", TimeUnit.MINUTES.toMillis(1)).xmlName("interval").build();
+   public static final AttributeDefinition<Boolean> TIMER_WHEEL = AttributeDefinition.builder("timerWheel", false).immutable().build();
 
    public static final ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(EXPIRATION.getLocalName());
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(ExpirationConfiguration.class, LIFESPAN, MAX_IDLE, REAPER_ENABLED, WAKEUP_INTERVAL);
+      return new AttributeSet(ExpirationConfiguration.class, LIFESPAN, MAX_IDLE, REAPER_ENABLED, WAKEUP_INTERVAL, TIMER_WHEEL);
    }
 
    @Override
@@ -36,6 +37,7 @@ public ElementDefinition getElementDefinition() {
    private final Attribute<Long> maxIdle;
    private final Attribute<Boolean> reaperEnabled;
    private final Attribute<Long> wakeUpInterval;
+   private final Attribute<Boolean> timerWheel;
    private final AttributeSet attributes;
 
    ExpirationConfiguration(AttributeSet attributes) {
@@ -44,6 +46,7 @@ public ElementDefinition getElementDefinition() {
       maxIdle = attributes.attribute(MAX_IDLE);
       reaperEnabled = attributes.attribute(REAPER_ENABLED);
       wakeUpInterval = attributes.attribute(WAKEUP_INTERVAL);
+      timerWheel = attributes.attribute(TIMER_WHEEL);
    }
 
    /**
@@ -84,6 +87,14 @@ public long wakeUpInterval() {
       return wakeUpInterval.get();
    }
 
+   /**
+    * Whether mortal and transient entries are indexed by their expiration time when they are written, so that the
+    * reaper only visits the entries that are due instead of iterating over the whole data container.
+    */
+   public boolean timerWheel() {
+      return timerWheel.get();
+   }
+
    @Override
    public String toString() {
       return "ExpirationConfiguration [attributes=" + attributes + "]";
@@ -3,6 +3,7 @@
 import static org.infinispan.configuration.cache.ExpirationConfiguration.LIFESPAN;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.MAX_IDLE;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.REAPER_ENABLED;
+import static org.infinispan.configuration.cache.ExpirationConfiguration.TIMER_WHEEL;
 import static org.infinispan.configuration.cache.ExpirationConfiguration.WAKEUP_INTERVAL;
 
 import java.util.concurrent.TimeUnit;
@@ -130,6 +131,21 @@ public ExpirationConfigurationBuilder wakeUpInterval(long l, TimeUnit unit) {
       return wakeUpInterval(unit.toMillis(l));
    }
 
+   /**
+    * Indexes mortal and transient entries by their expiration time in a hierarchical timer wheel when they are
+    * written, so that the reaper only visits the entries that are due instead of iterating over the whole data
+    * container. The index keeps a reference to the key of every such entry. Entries in cache stores are still purged
+    * by the stores themselves.
+    */
+   public ExpirationConfigurationBuilder timerWheel(boolean enabled) {
+      attributes.attribute(TIMER_WHEEL).set(enabled);
+      return this;
+   }
+
+   public boolean timerWheel() {
+      return attributes.attribute(TIMER_WHEEL).get();
+   }
+
    @Override
    public void validate() {
    }
@@ -25,11 +25,12 @@ public class MemoryConfiguration implements Matchable<MemoryConfiguration>, Conf
    public static final AttributeDefinition<String> MAX_SIZE = AttributeDefinition.builder("maxSize", null, String.class).build();
    public static final AttributeDefinition<Long> MAX_COUNT = AttributeDefinition.builder("maxCount", -1L).build();
    public static final AttributeDefinition<EvictionStrategy> WHEN_FULL = AttributeDefinition.builder("whenFull", EvictionStrategy.NONE).immutable().build();
+   public static final AttributeDefinition<Boolean> POOLED_ALLOCATION = AttributeDefinition.builder("pooledAllocation", false).immutable().build();
 
    private final MemoryStorageConfiguration memoryStorageConfiguration;
 
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(MemoryConfiguration.class, STORAGE, MAX_SIZE, MAX_COUNT, WHEN_FULL);
+      return new AttributeSet(MemoryConfiguration.class, STORAGE, MAX_SIZE, MAX_COUNT, WHEN_FULL, POOLED_ALLOCATION);
    }
 
    private final AttributeSet attributes;
@@ -165,6 +166,13 @@ public EvictionStrategy whenFull() {
       return attributes.attribute(WHEN_FULL).get();
    }
 
+   /**
+    * @return true if off-heap entries are allocated from pooled native memory slabs instead of individually
+    */
+   public boolean pooledAllocation() {
+      return attributes.attribute(POOLED_ALLOCATION).get();
+   }
+
    /**
     * Returns whether remove eviction is in use
     */
@@ -252,6 +252,24 @@ public EvictionStrategy whenFull() {
       return attributes.attribute(MemoryConfiguration.WHEN_FULL).get();
    }
 
+   /**
+    * When the storage is {@link StorageType#OFF_HEAP}, allocates the entries from native memory slabs that are
+    * split in size classes and recycled, instead of invoking the native allocator for every write.
+    * It reduces allocator contention and fragmentation for workloads that overwrite entries heavily, at the cost
+    * of keeping freed memory reserved for the cache until it is stopped. Since freed memory stays readable, it also
+    * allows reads of the data container to proceed without acquiring a lock.
+    * @param pooledAllocation whether to pool off-heap allocations
+    * @return this configuration builder
+    */
+   public MemoryConfigurationBuilder pooledAllocation(boolean pooledAllocation) {
+      attributes.attribute(MemoryConfiguration.POOLED_ALLOCATION).set(pooledAllocation);
+      return this;
+   }
+
+   public boolean pooledAllocation() {
+      return attributes.attribute(MemoryConfiguration.POOLED_ALLOCATION).get();
+   }
+
    /**
     * The configured eviction strategy, please see {@link MemoryConfigurationBuilder#evictionStrategy(EvictionStrategy)}.
     * @return the configured eviction stategy
@@ -0,0 +1,99 @@
+package org.infinispan.configuration.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.ConfigurationFor;
+import org.infinispan.commons.configuration.ConfigurationInfo;
+import org.infinispan.commons.configuration.attributes.Attribute;
+import org.infinispan.commons.configuration.attributes.AttributeDefinition;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.commons.configuration.elements.DefaultElementDefinition;
+import org.infinispan.commons.configuration.elements.ElementDefinition;
+import org.infinispan.configuration.parsing.Element;
+import org.infinispan.persistence.file.MemoryMappedFileStore;
+
+/**
+ * Defines the configuration for the memory-mapped, append-only file store.
+ *
+ * @since 12.1
+ */
+@BuiltBy(MemoryMappedFileStoreConfigurationBuilder.class)
+@ConfigurationFor(MemoryMappedFileStore.class)
+public class MemoryMappedFileStoreConfiguration extends AbstractStoreConfiguration implements ConfigurationInfo {
+   public static final AttributeDefinition<String> LOCATION = AttributeDefinition.builder("location", null, String.class).immutable().xmlName("path").global(false).build();
+   public static final AttributeDefinition<Integer> MAX_FILE_SIZE = AttributeDefinition.builder("maxFileSize", 16 * 1024 * 1024).immutable().build();
+   public static final AttributeDefinition<Double> COMPACTION_THRESHOLD = AttributeDefinition.builder("compactionThreshold", 0.5d).immutable().build();
+   public static final AttributeDefinition<Integer> INDEX_PARTITIONS = AttributeDefinition.builder("indexPartitions", 16).immutable().build();
+   public static final AttributeDefinition<Integer> INDEX_INITIAL_CAPACITY = AttributeDefinition.builder("indexInitialCapacity", 1024).immutable().build();
+   public static final AttributeDefinition<Boolean> SYNC_WRITES = AttributeDefinition.builder("syncWrites", false).immutable().build();
+
+   public static AttributeSet attributeDefinitionSet() {
+      return new AttributeSet(MemoryMappedFileStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(),
+            LOCATION, MAX_FILE_SIZE, COMPACTION_THRESHOLD, INDEX_PARTITIONS, INDEX_INITIAL_CAPACITY, SYNC_WRITES);
+   }
+
+   static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(Element.MEMORY_MAPPED_FILE_STORE.getLocalName(), true, false);
+
+   private final Attribute<String> location;
+   private final Attribute<Integer> maxFileSize;
+   private final Attribute<Double> compactionThreshold;
+   private final Attribute<Integer> indexPartitions;
+   private final Attribute<Integer> indexInitialCapacity;
+   private final Attribute<Boolean> syncWrites;
+
+   public MemoryMappedFileStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async) {
+      super(attributes, async);
+      location = attributes.attribute(LOCATION);
+      maxFileSize = attributes.attribute(MAX_FILE_SIZE);
+      compactionThreshold = attributes.attribute(COMPACTION_THRESHOLD);
+      indexPartitions = attributes.attribute(INDEX_PARTITIONS);
+      indexInitialCapacity = attributes.attribute(INDEX_INITIAL_CAPACITY);
+      syncWrites = attributes.attribute(SYNC_WRITES);
+   }
+
+   @Override
+   public ElementDefinition getElementDefinition() {
+      return ELEMENT_DEFINITION;
+   }
+
+   @Override
+   public List<ConfigurationInfo> subElements() {
+      return Arrays.asList(async());
+   }
+
+   public String location() {
+      return location.get();
+   }
+
+   public int maxFileSize() {
+      return maxFileSize.get();
+   }
+
+   public double compactionThreshold() {
+      return compactionThreshold.get();
+   }
+
+   public int indexPartitions() {
+      return indexPartitions.get();
+   }
+
+   public int indexInitialCapacity() {
+      return indexInitialCapacity.get();
+   }
+
+   public boolean syncWrites() {
+      return syncWrites.get();
+   }
+
+   @Override
+   public AttributeSet attributes() {
+      return attributes;
+   }
+
+   @Override
+   public String toString() {
+      return "MemoryMappedFileStoreConfiguration [attributes=" + attributes + "]";
+   }
+}
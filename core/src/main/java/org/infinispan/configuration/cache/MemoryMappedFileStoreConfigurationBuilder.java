@@ -0,0 +1,144 @@
+package org.infinispan.configuration.cache;
+
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.COMPACTION_THRESHOLD;
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.INDEX_INITIAL_CAPACITY;
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.INDEX_PARTITIONS;
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.LOCATION;
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.MAX_FILE_SIZE;
+import static org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration.SYNC_WRITES;
+
+import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.configuration.ConfigurationBuilderInfo;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.commons.configuration.elements.ElementDefinition;
+import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.file.MemoryMappedFileStore;
+import org.infinispan.util.logging.Log;
+
+/**
+ * Memory-mapped file store configuration builder.
+ *
+ * @since 12.1
+ */
+public class MemoryMappedFileStoreConfigurationBuilder
+      extends AbstractStoreConfigurationBuilder<MemoryMappedFileStoreConfiguration, MemoryMappedFileStoreConfigurationBuilder> implements ConfigurationBuilderInfo {
+
+   public MemoryMappedFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
+      this(builder, MemoryMappedFileStoreConfiguration.attributeDefinitionSet());
+   }
+
+   public MemoryMappedFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder, AttributeSet attributeSet) {
+      super(builder, attributeSet);
+   }
+
+   @Override
+   public ElementDefinition getElementDefinition() {
+      return MemoryMappedFileStoreConfiguration.ELEMENT_DEFINITION;
+   }
+
+   @Override
+   public AttributeSet attributes() {
+      return attributes;
+   }
+
+   @Override
+   public MemoryMappedFileStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * Sets a location on disk where the store can write. The store creates a directory named after the cache
+    * in this location and keeps its log files there.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder location(String location) {
+      attributes.attribute(LOCATION).set(location);
+      return this;
+   }
+
+   /**
+    * Entries are appended to memory-mapped log files. When the current file cannot hold another entry a new file
+    * of this size is created and mapped. Entries larger than this size get a file of their own.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder maxFileSize(int maxFileSize) {
+      attributes.attribute(MAX_FILE_SIZE).set(maxFileSize);
+      return this;
+   }
+
+   /**
+    * Overwritten, removed and expired entries leave garbage in the log files. When the ratio of garbage in a
+    * file that is no longer being written to reaches this threshold, its live entries are moved to the head of
+    * the log and the file is deleted. Compaction runs as part of the periodic purge of expired entries.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder compactionThreshold(double compactionThreshold) {
+      attributes.attribute(COMPACTION_THRESHOLD).set(compactionThreshold);
+      return this;
+   }
+
+   /**
+    * The key index is kept outside of the Java heap and is split into this many independently locked partitions.
+    * Must be a power of two.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder indexPartitions(int indexPartitions) {
+      attributes.attribute(INDEX_PARTITIONS).set(indexPartitions);
+      return this;
+   }
+
+   /**
+    * The initial number of slots of each index partition. Partitions grow on demand, so this only needs to be
+    * raised to avoid rehashing while a large store is being loaded.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder indexInitialCapacity(int indexInitialCapacity) {
+      attributes.attribute(INDEX_INITIAL_CAPACITY).set(indexInitialCapacity);
+      return this;
+   }
+
+   /**
+    * Writes only reach the page cache until the operating system flushes the dirty pages of the mapping, so a crash
+    * of the machine may lose the latest writes. When enabled, the mapped file is forced to the disk after every
+    * write, which makes writes considerably slower.
+    */
+   public MemoryMappedFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      attributes.attribute(SYNC_WRITES).set(syncWrites);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      String storeName = MemoryMappedFileStore.class.getSimpleName();
+      int maxFileSize = attributes.attribute(MAX_FILE_SIZE).get();
+      if (maxFileSize <= 0) {
+         throw Log.CONFIG.invalidStoreAttributeValue(maxFileSize, MAX_FILE_SIZE.name(), storeName);
+      }
+      double compactionThreshold = attributes.attribute(COMPACTION_THRESHOLD).get();
+      if (compactionThreshold <= 0 || compactionThreshold > 1) {
+         throw Log.CONFIG.invalidStoreAttributeValue(compactionThreshold, COMPACTION_THRESHOLD.name(), storeName);
+      }
+      int partitions = attributes.attribute(INDEX_PARTITIONS).get();
+      if (partitions <= 0 || Integer.bitCount(partitions) != 1) {
+         throw Log.CONFIG.invalidStoreAttributeValue(partitions, INDEX_PARTITIONS.name(), storeName);
+      }
+      int initialCapacity = attributes.attribute(INDEX_INITIAL_CAPACITY).get();
+      if (initialCapacity <= 0) {
+         throw Log.CONFIG.invalidStoreAttributeValue(initialCapacity, INDEX_INITIAL_CAPACITY.name(), storeName);
+      }
+      super.validate();
+   }
+
+   @Override
+   public void validate(GlobalConfiguration globalConfig) {
+      PersistenceUtil.validateGlobalStateStoreLocation(globalConfig, MemoryMappedFileStore.class.getSimpleName(), attributes.attribute(LOCATION));
+      super.validate(globalConfig);
+   }
+
+   @Override
+   public MemoryMappedFileStoreConfiguration create() {
+      return new MemoryMappedFileStoreConfiguration(attributes.protect(), async.create());
+   }
+
+   @Override
+   public Builder<?> read(MemoryMappedFileStoreConfiguration template) {
+      super.read(template);
+      return this;
+   }
+}
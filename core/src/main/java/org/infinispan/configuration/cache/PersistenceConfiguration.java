@@ -22,8 +22,9 @@ public class PersistenceConfiguration implements Matchable<PersistenceConfigurat
    public static final AttributeDefinition<Integer> AVAILABILITY_INTERVAL = AttributeDefinition.builder("availabilityInterval", 1000).immutable().build();
    public static final AttributeDefinition<Integer> CONNECTION_ATTEMPTS = AttributeDefinition.builder("connectionAttempts", 10).immutable().build();
    public static final AttributeDefinition<Integer> CONNECTION_INTERVAL = AttributeDefinition.builder("connectionInterval", 50).immutable().build();
+   public static final AttributeDefinition<Long> BLOOM_FILTER_KEYS = AttributeDefinition.builder("bloomFilterKeys", 0L).immutable().build();
    static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(PersistenceConfiguration.class, PASSIVATION, AVAILABILITY_INTERVAL, CONNECTION_ATTEMPTS, CONNECTION_INTERVAL);
+      return new AttributeSet(PersistenceConfiguration.class, PASSIVATION, AVAILABILITY_INTERVAL, CONNECTION_ATTEMPTS, CONNECTION_INTERVAL, BLOOM_FILTER_KEYS);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(PERSISTENCE.getLocalName());
@@ -32,6 +33,7 @@ static AttributeSet attributeDefinitionSet() {
    private final Attribute<Integer> availabilityInterval;
    private final Attribute<Integer> connectionAttempts;
    private final Attribute<Integer> connectionInterval;
+   private final Attribute<Long> bloomFilterKeys;
    private final AttributeSet attributes;
    private final List<StoreConfiguration> stores;
    private final List<ConfigurationInfo> subElements = new ArrayList<>();
@@ -43,6 +45,7 @@ static AttributeSet attributeDefinitionSet() {
       this.availabilityInterval = attributes.attribute(AVAILABILITY_INTERVAL);
       this.connectionAttempts = attributes.attribute(CONNECTION_ATTEMPTS);
       this.connectionInterval = attributes.attribute(CONNECTION_INTERVAL);
+      this.bloomFilterKeys = attributes.attribute(BLOOM_FILTER_KEYS);
       this.stores = stores;
       this.subElements.addAll(stores);
    }
@@ -77,6 +80,14 @@ public int connectionInterval() {
       return connectionInterval.get();
    }
 
+   /**
+    * The expected number of keys in the stores, used to size the Bloom filters that let the loads skip the stores for
+    * keys that are certainly absent. 0 means that there are no such filters.
+    */
+   public long bloomFilterKeys() {
+      return bloomFilterKeys.get();
+   }
+
    public List<StoreConfiguration> stores() {
       return stores;
    }
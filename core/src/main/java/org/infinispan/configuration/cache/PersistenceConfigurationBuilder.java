@@ -1,11 +1,13 @@
 package org.infinispan.configuration.cache;
 
 import static org.infinispan.configuration.cache.PersistenceConfiguration.AVAILABILITY_INTERVAL;
+import static org.infinispan.configuration.cache.PersistenceConfiguration.BLOOM_FILTER_KEYS;
 import static org.infinispan.configuration.cache.PersistenceConfiguration.CONNECTION_ATTEMPTS;
 import static org.infinispan.configuration.cache.PersistenceConfiguration.CONNECTION_INTERVAL;
 import static org.infinispan.configuration.cache.PersistenceConfiguration.PASSIVATION;
 import static org.infinispan.configuration.parsing.Element.CLUSTER_LOADER;
 import static org.infinispan.configuration.parsing.Element.FILE_STORE;
+import static org.infinispan.configuration.parsing.Element.MEMORY_MAPPED_FILE_STORE;
 import static org.infinispan.configuration.parsing.Element.STORE;
 import static org.infinispan.util.logging.Log.CONFIG;
 
@@ -81,6 +83,9 @@ public ConfigurationBuilderInfo getBuilderInfo(String name, String qualifier) {
       if (name.equals(FILE_STORE.getLocalName())) {
          return addSingleFileStore();
       }
+      if (name.equals(MEMORY_MAPPED_FILE_STORE.getLocalName())) {
+         return addStore(MemoryMappedFileStoreConfigurationBuilder.class);
+      }
       if (name.equals(CLUSTER_LOADER.getLocalName())) {
          return addClusterLoader();
       }
@@ -138,6 +143,20 @@ public PersistenceConfigurationBuilder connectionInterval(int interval) {
       return this;
    }
 
+   /**
+    * Enables Bloom filters of the keys in the stores, so that reading a key that is in none of them does not hit the
+    * stores. The filters use about 10 bits per key, which gives a false positive rate of about 2%. The keys are
+    * published by the stores when the cache starts, when segments are added to the node and after the stores are
+    * cleared, until then the reads of the affected segments go to the stores. The filters are not used if a store is
+    * shared in a clustered cache or if it cannot publish its keys.
+    *
+    * @param keys the expected number of keys in the stores, 0 disables the filters. Defaults to 0.
+    */
+   public PersistenceConfigurationBuilder bloomFilterKeys(long keys) {
+      attributes.attribute(BLOOM_FILTER_KEYS).set(keys);
+      return this;
+   }
+
    /**
     * If true, data is written to the cache store only when it is evicted from memory, which is known as 'passivation'.
     * When the data is requested again it is activated, which returns the data to memory and removes it from the
@@ -0,0 +1,27 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Specifies which owner receives the remote reads of a distributed cache first. The other owners are contacted only
+ * if the first one does not reply in time.
+ *
+ * @since 12.1
+ */
+public enum ReadPolicy {
+   /**
+    * Reads are sent to the primary owner.
+    */
+   PRIMARY,
+   /**
+    * Reads are sent to each owner in turn, skipping the owners that are much slower than the others.
+    */
+   ROUND_ROBIN,
+   /**
+    * Reads are sent to the owner with the fewest outstanding reads from this node, weighted by its latency.
+    */
+   LEAST_OUTSTANDING,
+   /**
+    * Reads are sent to the owner closest to this node: on the same machine, then on the same rack, then in the same
+    * site. Owners at the same distance are ordered by latency.
+    */
+   NEAREST,
+}
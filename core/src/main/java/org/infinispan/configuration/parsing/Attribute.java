@@ -35,12 +35,14 @@ public enum Attribute {
     BIAS_ACQUISITION,
     BIAS_LIFESPAN,
     BLOCKING_EXECUTOR,
+    BLOOM_FILTER_KEYS,
     CALIBRATE_BY_DELETES,
     CAPACITY_FACTOR("capacity"),
     CHUNK_SIZE,
     CLASS,
     CLUSTER,
     COMMIT_INTERVAL,
+    COMPACTION_THRESHOLD,
     COMPLETED_TX_TIMEOUT("complete-timeout"),
     CONCURRENCY_LEVEL,
     CONFIGURATION,
@@ -69,13 +71,18 @@ public enum Attribute {
     FETCH_STATE,
     @Deprecated
     FLUSH_LOCK_TIMEOUT,
+    FLUSH_PARALLELISM,
     FRAGMENTATION_FACTOR,
     GAUGES,
     GROUP_NAME,
     HISTOGRAMS,
+    HOT_KEY_LIFESPAN,
+    HOT_KEY_THRESHOLD,
     ID,
     @Deprecated
     INDEX,
+    INDEX_INITIAL_CAPACITY,
+    INDEX_PARTITIONS,
     INITIAL_CLUSTER_SIZE,
     INITIAL_CLUSTER_TIMEOUT,
     INTERVAL,
@@ -100,6 +107,7 @@ public enum Attribute {
     MAX_BATCH_SIZE,
     MAX_COUNT,
     MAX_ENTRIES,
+    MAX_FILE_SIZE,
     MAX_IDLE,
     MAX_RETRIES,
     MIN_SIZE,
@@ -126,6 +134,7 @@ public enum Attribute {
     PERMISSIONS,
     @Deprecated
     PERSISTENCE_EXECUTOR,
+    POOLED_ALLOCATION,
     POSITION,
     PREFIX,
     PRELOAD,
@@ -139,6 +148,7 @@ public enum Attribute {
     RACK_ID("rack"),
     RAM_BUFFER_SIZE,
     READ_ONLY,
+    READ_POLICY,
     REAPER_WAKE_UP_INTERVAL("reaper-interval"),
     RECOVERY_INFO_CACHE_NAME("recovery-cache"),
     REFRESH_INTERVAL,
@@ -175,6 +185,7 @@ public enum Attribute {
     STRIPING,
     STACK,
     STOP_TIMEOUT,
+    SYNC_WRITES,
     TAKE_BACKUP_OFFLINE_AFTER_FAILURES("after-failures"),
     TAKE_BACKUP_OFFLINE_MIN_WAIT("min-wait"),
     THREAD_FACTORY,
@@ -182,6 +193,7 @@ public enum Attribute {
     THREAD_POLICY,
     THREAD_POOL_SIZE,
     TIMEOUT,
+    TIMER_WHEEL,
     TOTAL_ORDER_EXECUTOR,
     TRANSACTION_MANAGER_LOOKUP_CLASS("transaction-manager-lookup"),
     TRANSACTION_PROTOCOL("protocol"),
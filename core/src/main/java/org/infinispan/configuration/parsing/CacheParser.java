@@ -39,7 +39,9 @@
 import org.infinispan.configuration.cache.InterceptorConfiguration;
 import org.infinispan.configuration.cache.InterceptorConfigurationBuilder;
 import org.infinispan.configuration.cache.MemoryConfigurationBuilder;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfigurationBuilder;
 import org.infinispan.configuration.cache.PartitionHandlingConfigurationBuilder;
+import org.infinispan.configuration.cache.ReadPolicy;
 import org.infinispan.configuration.cache.SecurityConfigurationBuilder;
 import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
 import org.infinispan.configuration.cache.StorageType;
@@ -590,6 +592,12 @@ private void parseMemory(final XMLExtendedStreamReader reader, final Configurati
                case WHEN_FULL:
                   memoryBuilder.whenFull(EvictionStrategy.valueOf(value));
                   break;
+               case POOLED_ALLOCATION:
+                  if (!reader.getSchema().since(12, 1)) {
+                     throw ParseUtils.unexpectedAttribute(reader, i);
+                  }
+                  memoryBuilder.pooledAllocation(Boolean.parseBoolean(value));
+                  break;
                default:
                   throw ParseUtils.unexpectedAttribute(reader, i);
             }
@@ -998,6 +1006,14 @@ private void parseExpiration(XMLExtendedStreamReader reader, ConfigurationBuilde
                builder.expiration().wakeUpInterval(Long.parseLong(value));
                break;
             }
+            case TIMER_WHEEL: {
+               if (reader.getSchema().since(12, 1)) {
+                  builder.expiration().timerWheel(Boolean.parseBoolean(value));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
+            }
             default: {
                throw ParseUtils.unexpectedAttribute(reader, i);
             }
@@ -1193,6 +1209,18 @@ protected void parseDistributedCache(XMLExtendedStreamReader reader, Configurati
                builder.clustering().hash().capacityFactor(Float.parseFloat(value));
                break;
             }
+            case HOT_KEY_THRESHOLD: {
+               builder.clustering().hotKeyThreshold(Integer.parseInt(value));
+               break;
+            }
+            case HOT_KEY_LIFESPAN: {
+               builder.clustering().hotKeyLifespan(Long.parseLong(value), TimeUnit.MILLISECONDS);
+               break;
+            }
+            case READ_POLICY: {
+               builder.clustering().readPolicy(ReadPolicy.valueOf(value));
+               break;
+            }
             default: {
                this.parseSegmentedCacheAttribute(reader, i, attribute, value, builder, holder.getClassLoader(), baseCacheMode);
             }
@@ -1328,6 +1356,13 @@ private void parsePersistence(final XMLExtendedStreamReader reader, final Config
             case CONNECTION_INTERVAL:
                builder.persistence().connectionInterval(Integer.parseInt(value));
                break;
+            case BLOOM_FILTER_KEYS:
+               if (reader.getSchema().since(12, 1)) {
+                  builder.persistence().bloomFilterKeys(Long.parseLong(value));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1344,6 +1379,9 @@ private void parsePersistence(final XMLExtendedStreamReader reader, final Config
             case FILE_STORE:
                parseFileStore(reader, holder);
                break;
+            case MEMORY_MAPPED_FILE_STORE:
+               parseMemoryMappedFileStore(reader, holder);
+               break;
             case STORE:
                parseCustomStore(reader, holder);
                break;
@@ -1414,6 +1452,45 @@ protected void parseFileStore(XMLExtendedStreamReader reader, ConfigurationBuild
       this.parseStoreElements(reader, storeBuilder);
    }
 
+   private void parseMemoryMappedFileStore(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
+      MemoryMappedFileStoreConfigurationBuilder storeBuilder = holder.getCurrentConfigurationBuilder().persistence()
+            .addStore(MemoryMappedFileStoreConfigurationBuilder.class);
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         String value = reader.getAttributeValue(i);
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+            case PATH: {
+               storeBuilder.location(value);
+               break;
+            }
+            case MAX_FILE_SIZE: {
+               storeBuilder.maxFileSize(Integer.parseInt(value));
+               break;
+            }
+            case COMPACTION_THRESHOLD: {
+               storeBuilder.compactionThreshold(Double.parseDouble(value));
+               break;
+            }
+            case INDEX_PARTITIONS: {
+               storeBuilder.indexPartitions(Integer.parseInt(value));
+               break;
+            }
+            case INDEX_INITIAL_CAPACITY: {
+               storeBuilder.indexInitialCapacity(Integer.parseInt(value));
+               break;
+            }
+            case SYNC_WRITES: {
+               storeBuilder.syncWrites(Boolean.parseBoolean(value));
+               break;
+            }
+            default: {
+               parseStoreAttribute(reader, i, storeBuilder);
+            }
+         }
+      }
+      this.parseStoreElements(reader, storeBuilder);
+   }
+
    /**
     * This method is public static so that it can be reused by custom cache store/loader configuration parsers
     */
@@ -1514,6 +1591,14 @@ public static void parseStoreWriteBehind(XMLExtendedStreamReader reader, AsyncSt
             case FAIL_SILENTLY:
                storeBuilder.failSilently(Boolean.parseBoolean(value));
                break;
+            case FLUSH_PARALLELISM: {
+               if (reader.getSchema().since(12, 1)) {
+                  storeBuilder.flushParallelism(Integer.parseInt(value));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
+            }
             case SHUTDOWN_TIMEOUT: {
                if (reader.getSchema().since(9, 0)) {
                   throw ParseUtils.attributeRemoved(reader, i);
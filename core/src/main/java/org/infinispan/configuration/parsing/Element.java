@@ -75,6 +75,7 @@ public enum Element {
     LOCKING,
     MANAGED_CONFIGURATION_STORAGE,
     MEMORY,
+    MEMORY_MAPPED_FILE_STORE,
     METRICS,
     MODULES,
     OBJECT,
@@ -34,6 +34,7 @@ private void writeStoreWriteBehind(XMLExtendedStreamWriter writer, StoreConfigur
          writer.writeStartElement(Element.WRITE_BEHIND);
          writeBehind.write(writer, AsyncStoreConfiguration.MODIFICATION_QUEUE_SIZE, Attribute.MODIFICATION_QUEUE_SIZE);
          writeBehind.write(writer, AsyncStoreConfiguration.FAIL_SILENTLY, Attribute.FAIL_SILENTLY);
+         writeBehind.write(writer, AsyncStoreConfiguration.FLUSH_PARALLELISM, Attribute.FLUSH_PARALLELISM);
          writer.writeEndElement();
       }
    }
@@ -2,7 +2,10 @@
 
 import static org.infinispan.configuration.parsing.Attribute.BIAS_ACQUISITION;
 import static org.infinispan.configuration.parsing.Attribute.BIAS_LIFESPAN;
+import static org.infinispan.configuration.parsing.Attribute.HOT_KEY_LIFESPAN;
+import static org.infinispan.configuration.parsing.Attribute.HOT_KEY_THRESHOLD;
 import static org.infinispan.configuration.parsing.Attribute.INVALIDATION_BATCH_SIZE;
+import static org.infinispan.configuration.parsing.Attribute.READ_POLICY;
 import static org.infinispan.configuration.serializing.SerializeUtils.writeOptional;
 import static org.infinispan.configuration.serializing.SerializeUtils.writeTypedProperties;
 import static org.infinispan.util.logging.Log.CONFIG;
@@ -43,8 +46,10 @@
 import org.infinispan.configuration.cache.IndexingConfiguration;
 import org.infinispan.configuration.cache.InterceptorConfiguration;
 import org.infinispan.configuration.cache.MemoryConfiguration;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration;
 import org.infinispan.configuration.cache.PartitionHandlingConfiguration;
 import org.infinispan.configuration.cache.PersistenceConfiguration;
+import org.infinispan.configuration.cache.ReadPolicy;
 import org.infinispan.configuration.cache.RecoveryConfiguration;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
 import org.infinispan.configuration.cache.SitesConfiguration;
@@ -368,6 +373,13 @@ private void writeDistributedCache(XMLExtendedStreamWriter writer, String name,
       writer.writeStartElement(Element.DISTRIBUTED_CACHE);
       configuration.clustering().hash().attributes().write(writer);
       configuration.clustering().l1().attributes().write(writer);
+      if (configuration.clustering().hotKeyThreshold() > 0) {
+         writer.writeAttribute(HOT_KEY_THRESHOLD, Integer.toString(configuration.clustering().hotKeyThreshold()));
+         writer.writeAttribute(HOT_KEY_LIFESPAN, Long.toString(configuration.clustering().hotKeyLifespan()));
+      }
+      if (configuration.clustering().readPolicy() != ReadPolicy.PRIMARY) {
+         writer.writeAttribute(READ_POLICY, configuration.clustering().readPolicy().toString());
+      }
       writeCommonClusteredCacheAttributes(writer, configuration);
       writeCommonCacheAttributesElements(writer, name, configuration);
       GroupsConfiguration groups = configuration.clustering().hash().groups();
@@ -642,6 +654,7 @@ private void writeMemory(XMLExtendedStreamWriter writer, Configuration configura
             attributes.write(writer, MemoryConfiguration.MAX_SIZE, Attribute.MAX_SIZE);
          }
          attributes.write(writer, MemoryConfiguration.WHEN_FULL, Attribute.WHEN_FULL);
+         attributes.write(writer, MemoryConfiguration.POOLED_ALLOCATION, Attribute.POOLED_ALLOCATION);
          writer.writeEndElement();
       }
    }
@@ -721,6 +734,7 @@ private void writePersistence(XMLExtendedStreamWriter writer, Configuration conf
          attributes.write(writer, PersistenceConfiguration.AVAILABILITY_INTERVAL, Attribute.AVAILABILITY_INTERVAL);
          attributes.write(writer, PersistenceConfiguration.CONNECTION_ATTEMPTS, Attribute.CONNECTION_ATTEMPTS);
          attributes.write(writer, PersistenceConfiguration.CONNECTION_INTERVAL, Attribute.CONNECTION_INTERVAL);
+         attributes.write(writer, PersistenceConfiguration.BLOOM_FILTER_KEYS, Attribute.BLOOM_FILTER_KEYS);
          for (StoreConfiguration store : persistence.stores()) {
             writeStore(writer, store);
          }
@@ -731,6 +745,8 @@ private void writePersistence(XMLExtendedStreamWriter writer, Configuration conf
    private void writeStore(XMLExtendedStreamWriter writer, StoreConfiguration configuration) throws XMLStreamException {
       if (configuration instanceof SingleFileStoreConfiguration) {
          writeFileStore(writer, (SingleFileStoreConfiguration) configuration);
+      } else if (configuration instanceof MemoryMappedFileStoreConfiguration) {
+         writeMemoryMappedFileStore(writer, (MemoryMappedFileStoreConfiguration) configuration);
       } else if (configuration instanceof ClusterLoaderConfiguration) {
          writeClusterLoader(writer, (ClusterLoaderConfiguration) configuration);
       } else if (configuration instanceof CustomStoreConfiguration) {
@@ -808,6 +824,14 @@ private void writeFileStore(XMLExtendedStreamWriter writer, SingleFileStoreConfi
       writer.writeEndElement();
    }
 
+   private void writeMemoryMappedFileStore(XMLExtendedStreamWriter writer, MemoryMappedFileStoreConfiguration configuration) throws XMLStreamException {
+      writer.writeStartElement(Element.MEMORY_MAPPED_FILE_STORE);
+      configuration.attributes().write(writer);
+      writeCommonStoreSubAttributes(writer, configuration);
+      writeCommonStoreElements(writer, configuration);
+      writer.writeEndElement();
+   }
+
    private void writeClusterLoader(XMLExtendedStreamWriter writer, ClusterLoaderConfiguration configuration) throws XMLStreamException {
       writer.writeStartElement(Element.CLUSTER_LOADER);
       configuration.attributes().write(writer);
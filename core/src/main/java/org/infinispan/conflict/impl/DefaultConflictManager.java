@@ -2,6 +2,7 @@
 
 import static org.infinispan.util.logging.Log.CLUSTER;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -9,6 +10,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -35,6 +37,8 @@
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.time.TimeService;
 import org.infinispan.commons.util.EnumUtil;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.IntSets;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.PartitionHandlingConfiguration;
 import org.infinispan.conflict.EntryMergePolicy;
@@ -50,6 +54,8 @@
 import org.infinispan.distribution.DistributionInfo;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.distribution.LocalizedCacheTopology;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.encoding.impl.StorageConfigurationManager;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
@@ -64,7 +70,9 @@
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.impl.MapResponseCollector;
+import org.infinispan.statetransfer.SegmentDigests;
 import org.infinispan.statetransfer.StateConsumer;
+import org.infinispan.statetransfer.StateProvider;
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.util.concurrent.BlockingManager;
 import org.infinispan.util.logging.Log;
@@ -90,10 +98,12 @@
    @Inject InvocationContextFactory invocationContextFactory;
    @Inject RpcManager rpcManager;
    @Inject ComponentRef<StateConsumer> stateConsumer;
+   @Inject ComponentRef<StateProvider> stateProvider;
    @Inject StateReceiver<K, V> stateReceiver;
    @Inject EntryMergePolicyFactoryRegistry mergePolicyRegistry;
    @Inject TimeService timeService;
    @Inject BlockingManager blockingManager;
+   @Inject StorageConfigurationManager storageConfigurationManager;
 
    private String cacheName;
    private Address localAddress;
@@ -452,6 +462,7 @@ private class ReplicaSpliterator extends Spliterators.AbstractSpliterator<Map<Ad
       private final int totalSegments;
       private final long endTime;
       private int nextSegment = 0;
+      private IntSet divergentSegments;
       private Iterator<Map<Address, CacheEntry<K, V>>> iterator = Collections.emptyIterator();
       private volatile CompletableFuture<List<Map<Address, CacheEntry<K, V>>>> segmentRequestFuture;
 
@@ -465,8 +476,15 @@ private class ReplicaSpliterator extends Spliterators.AbstractSpliterator<Map<Ad
 
       @Override
       public boolean tryAdvance(Consumer<? super Map<Address, CacheEntry<K, V>>> action) {
+         if (divergentSegments == null) {
+            divergentSegments = findDivergentSegments();
+         }
          while (!iterator.hasNext()) {
             if (nextSegment < totalSegments) {
+               if (!divergentSegments.contains(nextSegment)) {
+                  nextSegment++;
+                  continue;
+               }
                try {
                   if (log.isTraceEnabled())
                      log.tracef("Cache %s attempting to receive all replicas for segment %s with topology %s", cacheName, nextSegment, topology);
@@ -498,6 +516,67 @@ public boolean tryAdvance(Consumer<? super Map<Address, CacheEntry<K, V>>> actio
          return true;
       }
 
+      /**
+       * Compares the digests of the replicas of every segment, the entries of the segments whose replicas have the
+       * same digest on all the write owners are not requested. If a write owner does not reply, all its segments are
+       * requested. Every segment is divergent when the keys and values are not stored as bytes, because their
+       * digests would not be comparable between nodes.
+       */
+      private IntSet findDivergentSegments() {
+         if (!SegmentDigests.isSupported(storageConfigurationManager))
+            return IntSets.immutableRangeSet(totalSegments);
+
+         ConsistentHash writeCh = topology.getWriteConsistentHash();
+         long remainingTime = timeService.remainingTime(endTime, TimeUnit.MILLISECONDS);
+         Map<Address, Map<Integer, Long>> digests = new HashMap<>();
+         try {
+            List<Address> remoteMembers = new ArrayList<>(writeCh.getMembers());
+            remoteMembers.remove(localAddress);
+            CompletionStage<Map<Address, Response>> remoteStage = remoteMembers.isEmpty() ?
+                  CompletableFuture.completedFuture(Collections.emptyMap()) :
+                  rpcManager.invokeCommands(remoteMembers,
+                        member -> commandsFactory.buildConflictResolutionDigestCommand(topology.getTopologyId(),
+                              IntSets.from(writeCh.getSegmentsForOwner(member))),
+                        MapResponseCollector.ignoreLeavers(remoteMembers.size()), rpcManager.getSyncRpcOptions());
+            if (writeCh.getMembers().contains(localAddress)) {
+               IntSet localSegments = IntSets.from(writeCh.getSegmentsForOwner(localAddress));
+               digests.put(localAddress, stateProvider.running().computeSegmentDigests(localSegments)
+                     .toCompletableFuture().get(remainingTime, TimeUnit.MILLISECONDS));
+            }
+            Map<Address, Response> responses = remoteStage.toCompletableFuture().get(remainingTime, TimeUnit.MILLISECONDS);
+            responses.forEach((member, response) -> {
+               if (response instanceof SuccessfulResponse) {
+                  digests.put(member, (Map<Integer, Long>) ((SuccessfulResponse) response).getResponseValue());
+               } else if (log.isTraceEnabled()) {
+                  log.tracef("Cache %s requesting all the segments of %s, received %s", cacheName, member, response);
+               }
+            });
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(e);
+         } catch (ExecutionException | TimeoutException e) {
+            log.debugf(e, "Cache %s failed to compare the digests of the segments, requesting all the segments", cacheName);
+            return IntSets.immutableRangeSet(totalSegments);
+         }
+
+         IntSet segments = IntSets.mutableEmptySet(totalSegments);
+         for (int segment = 0; segment < totalSegments; segment++) {
+            List<Address> owners = topology.getSegmentDistribution(segment).writeOwners();
+            Map<Integer, Long> firstDigests = digests.get(owners.get(0));
+            for (int i = 1; i < owners.size(); i++) {
+               Map<Integer, Long> ownerDigests = digests.get(owners.get(i));
+               if (firstDigests == null || ownerDigests == null ||
+                     !Objects.equals(firstDigests.get(segment), ownerDigests.get(segment))) {
+                  segments.set(segment);
+                  break;
+               }
+            }
+         }
+         if (log.isDebugEnabled())
+            log.debugf("Cache %s replicas of segments %s are divergent", cacheName, segments);
+         return segments;
+      }
+
       void stop() {
          if (log.isTraceEnabled()) log.tracef("Cache %s stop() called on ReplicaSpliterator. Current segment %s", cacheName, nextSegment);
          if (segmentRequestFuture != null && !segmentRequestFuture.isDone())
@@ -150,6 +150,11 @@ public void put(int segment, K k, V v, Metadata metadata, PrivateMetadata intern
          if (log.isTraceEnabled())
             log.tracef("Store %s=%s in container", k, copy);
          entries.put(k, copy);
+         if (copy.canExpire()) {
+            expirationManager.entryWritten(copy, segment);
+         } else if (e != null && e.canExpire()) {
+            expirationManager.entryRemoved(k, segment);
+         }
       } else {
          log.tracef("Insertion attempted for key: %s but there was no map created for it at segment: %d", k, segment);
       }
@@ -187,6 +192,9 @@ public InternalCacheEntry<K, V> remove(int segment, Object k) {
          if (log.isTraceEnabled()) {
             log.tracef("Removed %s=%s from container", k, e);
          }
+         if (e != null && e.canExpire()) {
+            expirationManager.entryRemoved(k, segment);
+         }
 
          return e == null || (e.canExpire() && e.isExpired(timeService.wallClockTime())) ? null : e;
       }
@@ -212,6 +220,9 @@ public CompletionStage<Void> evict(int segment, K key) {
          // - we don't need eviction manager either as it is handled in NotifyHelper
          evictionStageRef.set(handleEviction(entry, null, passivator.running(), null, this, null));
          computeEntryRemoved(o, entry);
+         if (entry.canExpire()) {
+            expirationManager.entryRemoved(o, segment);
+         }
          return null;
       });
       return evictionStageRef.get();
@@ -231,9 +242,17 @@ public InternalCacheEntry<K, V> compute(int segment, K key, DataContainer.Comput
             return oldEntry;
          } else if (newEntry == null) {
             computeEntryRemoved(k, oldEntry);
+            if (oldEntry != null && oldEntry.canExpire()) {
+               expirationManager.entryRemoved(k, segment);
+            }
             return null;
          }
          computeEntryWritten(k, newEntry);
+         if (newEntry.canExpire()) {
+            expirationManager.entryWritten(newEntry, segment);
+         } else if (oldEntry != null && oldEntry.canExpire()) {
+            expirationManager.entryRemoved(k, segment);
+         }
          if (log.isTraceEnabled())
             log.tracef("Store %s in container", newEntry);
          return newEntry;
@@ -253,6 +272,7 @@ public void clear(IntSet segments) {
             map.clear();
          }
       });
+      expirationManager.segmentsRemoved(segments);
    }
 
    /**
@@ -339,6 +359,9 @@ public void delete(K key, InternalCacheEntry<K, V> value, RemovalCause cause) {
                additionalWriter.delete(key, value, cause);
             }
             if (cause == RemovalCause.SIZE) {
+               if (value.canExpire()) {
+                  expirationManager.entryRemoved(key, getSegmentForKey(key));
+               }
                listener.onEntryChosenForEviction(key, value);
             }
          }
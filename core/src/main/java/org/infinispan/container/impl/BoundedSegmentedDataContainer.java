@@ -124,11 +124,13 @@ public InternalCacheEntry<K, V> peek(Object k) {
    @Override
    public void clear() {
       entries.clear();
+      expirationManager.allEntriesRemoved();
    }
 
    @Override
    public void clear(IntSet segments) {
       clear(segments, false);
+      expirationManager.segmentsRemoved(segments);
    }
 
    @Override
@@ -212,6 +214,7 @@ public void removeSegments(IntSet segments) {
       super.removeSegments(segments);
       // Finally remove the entries from bounded cache
       clear(segments, false);
+      expirationManager.segmentsRemoved(segments);
    }
 
    private Policy.Eviction<K, InternalCacheEntry<K, V>> eviction() {
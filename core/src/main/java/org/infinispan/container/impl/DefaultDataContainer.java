@@ -156,6 +156,7 @@ public void clear(IntSet segments) {
          iter.next();
          iter.remove();
       }
+      expirationManager.segmentsRemoved(segments);
    }
 
    @Stop
@@ -163,6 +164,7 @@ public void clear(IntSet segments) {
    public void clear() {
       log.tracef("Clearing data container");
       entries.clear();
+      expirationManager.allEntriesRemoved();
    }
 
    @Override
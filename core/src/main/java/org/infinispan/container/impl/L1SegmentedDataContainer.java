@@ -166,10 +166,17 @@ public void clear(IntSet segments) {
          IntSet finalExtraSegments = extraSegments;
          nonOwnedEntries.keySet().removeIf(k -> finalExtraSegments.contains(getSegmentForKey(k)));
       }
+      expirationManager.segmentsRemoved(segments);
    }
 
    @Override
    public void removeSegments(IntSet segments) {
+      // The L1 entries belong to any of the segments that are not owned, so their timers are cancelled one by one
+      nonOwnedEntries.forEach((k, ice) -> {
+         if (ice.canExpire()) {
+            expirationManager.entryRemoved(k, getSegmentForKey(k));
+         }
+      });
       nonOwnedEntries.clear();
       super.removeSegments(segments);
    }
@@ -0,0 +1,117 @@
+package org.infinispan.container.offheap;
+
+import org.infinispan.commons.util.Util;
+
+/**
+ * Probabilistic estimate of how often a hash code was seen recently, used to decide which off-heap entries are worth
+ * keeping when the container is full.
+ * <p>
+ * This is a count-min sketch with four hash functions and 4 bit counters, so a frequency is capped at 15. Every
+ * {@code long} of the table holds 16 counters, so an increment touches at most four words. Once the number of
+ * increments reaches ten times the capacity, all the counters are halved so that old accesses are forgotten.
+ * <p>
+ * This class is not thread safe, it must be guarded by the lock of the eviction policy.
+ *
+ * @since 12.1
+ */
+class FrequencySketch {
+   private static final long[] SEEDS = {
+         0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final long ONE_MASK = 0x1111111111111111L;
+   static final int MAX_CAPACITY = 1 << 24;
+
+   private long[] table;
+   private int tableMask;
+   private int sampleSize;
+   private int additions;
+
+   FrequencySketch(long capacity) {
+      ensureCapacity(capacity);
+   }
+
+   /**
+    * Grows the table so it can hold the given number of distinct hash codes with a low error rate. Growing the table
+    * forgets all the frequencies recorded so far.
+    * @param capacity the expected number of distinct hash codes
+    */
+   void ensureCapacity(long capacity) {
+      int maximum = (int) Math.max(1, Math.min(capacity, MAX_CAPACITY));
+      if (table != null && table.length >= maximum) {
+         return;
+      }
+      table = new long[Util.findNextHighestPowerOfTwo(maximum)];
+      tableMask = table.length - 1;
+      sampleSize = 10 * maximum;
+      additions = 0;
+   }
+
+   /**
+    * @return the number of distinct hash codes the table was sized for
+    */
+   int capacity() {
+      return table.length;
+   }
+
+   /**
+    * @return the estimated number of occurrences of the hash code, up to 15
+    */
+   int frequency(int hashCode) {
+      int hash = spread(hashCode);
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; ++i) {
+         int index = indexOf(hash, i);
+         int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+         frequency = Math.min(frequency, count);
+      }
+      return frequency;
+   }
+
+   /**
+    * Records an occurrence of the hash code, halving all the counters once the sample size is reached.
+    */
+   void increment(int hashCode) {
+      int hash = spread(hashCode);
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; ++i) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++additions == sampleSize) {
+         reset();
+      }
+   }
+
+   private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+         table[index] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   private void reset() {
+      int odd = 0;
+      for (int i = 0; i < table.length; ++i) {
+         odd += Long.bitCount(table[i] & ONE_MASK);
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      // Halving truncates the odd counters, which is at most one lost addition each
+      additions = (additions >>> 1) - (odd >>> 2);
+   }
+
+   private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return (int) h & tableMask;
+   }
+
+   private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+   }
+}
@@ -26,6 +26,7 @@
 import org.infinispan.commons.util.IteratorMapper;
 import org.infinispan.commons.util.ProcessorInfo;
 import org.infinispan.commons.util.Util;
+import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.impl.PeekableTouchableMap;
 import org.infinispan.util.logging.Log;
@@ -66,7 +67,12 @@
  * {@link java.util.concurrent.locks.ReadWriteLock} instance protects an equivalent region of buckets in the underlying
  * memory lookup. Read operations, that is ones that only acquire the read lock for their specific lock region, are
  * ({@code get} and {@code peek}). Iteration on a returned entrySet or value collection will acquire only a single
- * read lock at a time while inspecting a given lock region for a valid value. Write operations, ones that acquire the
+ * read lock at a time while inspecting a given lock region for a valid value.
+ * When the {@link OffHeapMemoryAllocator} guarantees that deallocated memory stays readable, {@code peek} and
+ * {@code get} (the latter only without an {@link EntryListener}) first try an optimistic read that does not write to
+ * the lock at all, so that readers of the same lock region do not contend with each other. The optimistic read is
+ * validated against the {@link StampedLock} stamp and falls back to the read lock if any write happened in the
+ * region, including a resize. Write operations, ones that acquire the
  * write lock for the lock region, are ({@code put}, {@code remove}, {@code replace}, {@code compute}. A clear
  * will acquire all write locks when invoked. This allows the clear to also resize the map down to the initial size.
  * <p>
@@ -96,6 +102,9 @@ public class OffHeapConcurrentMap implements ConcurrentMap<WrappedBytes, Interna
    /* ---------------- Constants -------------- */
 
    private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
+   private static final OffHeapMemory MEMORY = OffHeapMemory.INSTANCE;
+   // Returned by an optimistic read when a concurrent write was detected
+   private static final InternalCacheEntry<WrappedBytes, WrappedBytes> INVALIDATED = new ImmortalCacheEntry(null, null);
 
    // We always have to have more buckets than locks
    public final static int INITIAL_SIZE = 256;
@@ -117,6 +126,8 @@ public class OffHeapConcurrentMap implements ConcurrentMap<WrappedBytes, Interna
    private final OffHeapEntryFactory offHeapEntryFactory;
 
    private final EntryListener listener;
+   // Trace logging verifies each address that is accessed, which an optimistic read can't satisfy
+   private final boolean optimisticReads;
 
    // Once this threshold size is met, the underlying buckets will be re-sized if possible
    // This variable can be read outside of locks - thus is volatile, however should only be modified while holding
@@ -146,6 +157,7 @@ public OffHeapConcurrentMap(OffHeapMemoryAllocator allocator,
       this.allocator = Objects.requireNonNull(allocator);
       this.offHeapEntryFactory = Objects.requireNonNull(offHeapEntryFactory);
       this.listener = listener;
+      this.optimisticReads = allocator.isDeallocatedMemoryReadable() && !log.isTraceEnabled();
 
       locks = new StripedLock(LOCK_COUNT);
 
@@ -622,6 +634,22 @@ private InternalCacheEntry<WrappedBytes, WrappedBytes> peekOrGet(WrappedBytes k,
       int hashCode = k.hashCode();
       int lockOffset = getLockOffset(hashCode);
       StampedLock stampedLock = locks.getLockWithOffset(lockOffset);
+      // The listener must be notified of a retrieval while holding the lock
+      if (optimisticReads && (peek || listener == null)) {
+         long stamp = stampedLock.tryOptimisticRead();
+         if (stamp != 0) {
+            int readToken = allocator.enterUnlockedRead();
+            InternalCacheEntry<WrappedBytes, WrappedBytes> ice;
+            try {
+               ice = optimisticPeek(stampedLock, stamp, lockOffset, k, hashCode);
+            } finally {
+               allocator.exitUnlockedRead(readToken);
+            }
+            if (ice != INVALIDATED) {
+               return ice;
+            }
+         }
+      }
       long readStamp = stampedLock.readLock();
       try {
          checkDeallocation();
@@ -637,6 +665,55 @@ private InternalCacheEntry<WrappedBytes, WrappedBytes> peekOrGet(WrappedBytes k,
       }
    }
 
+   /**
+    * Looks up the entry without holding the lock. Any entry may be deallocated while it is being read, so the stamp
+    * is validated before following an address and before trusting a length read from memory. A candidate entry is
+    * copied to an on-heap array and only the copy is compared and converted once it has been validated, so the read
+    * path never allocates off-heap memory.
+    * This relies on the allocator keeping deallocated memory readable until the read is done, as a validation can only
+    * detect a concurrent write after the fact.
+    * @return the entry, null if the key is not present or {@link #INVALIDATED} if a concurrent write was detected
+    */
+   private InternalCacheEntry<WrappedBytes, WrappedBytes> optimisticPeek(StampedLock stampedLock, long stamp,
+         int lockOffset, WrappedBytes k, int hashCode) {
+      IntSet pendingBlocks = this.pendingBlocks;
+      MemoryAddressHash memoryLookup;
+      int memoryShift;
+      if (pendingBlocks != null && pendingBlocks.contains(lockOffset)) {
+         memoryLookup = this.oldMemoryLookup;
+         memoryShift = this.oldMemoryShift;
+      } else {
+         memoryLookup = this.memoryLookup;
+         memoryShift = this.memoryShift;
+      }
+      if (memoryLookup == null || !stampedLock.validate(stamp)) {
+         return INVALIDATED;
+      }
+      long address = memoryLookup.getMemoryAddressOffset(getOffset(hashCode, memoryShift));
+      while (stampedLock.validate(stamp)) {
+         if (address == 0) {
+            return null;
+         }
+         if (offHeapEntryFactory.getHashCode(address) == hashCode) {
+            long size = offHeapEntryFactory.getSize(address, false);
+            if (!stampedLock.validate(stamp)) {
+               break;
+            }
+            // An on-heap copy, as the allocator takes locks and would make readers contend again
+            byte[] snapshot = new byte[(int) size];
+            MEMORY.getBytes(address, 0, snapshot, 0, size);
+            if (!stampedLock.validate(stamp)) {
+               break;
+            }
+            if (offHeapEntryFactory.equalsKey(snapshot, k, hashCode)) {
+               return offHeapEntryFactory.fromBytes(snapshot);
+            }
+         }
+         address = offHeapEntryFactory.getNext(address);
+      }
+      return INVALIDATED;
+   }
+
    @GuardedBy("locks#readLock")
    private InternalCacheEntry<WrappedBytes, WrappedBytes> lockedPeekOrGet(MemoryAddressHash memoryLookup,
          WrappedBytes k, int hashCode, boolean peek) {
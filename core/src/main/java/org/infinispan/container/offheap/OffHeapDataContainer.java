@@ -107,6 +107,7 @@ public int sizeIncludingExpired() {
    @Override
    public void clear() {
       map.clear();
+      expirationManager.allEntriesRemoved();
    }
 
    @Override
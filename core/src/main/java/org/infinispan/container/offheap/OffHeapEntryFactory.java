@@ -67,6 +67,13 @@ public interface OffHeapEntryFactory extends KeyValueMetadataSizeCalculator<Wrap
     */
    InternalCacheEntry<WrappedBytes, WrappedBytes> fromMemory(long address);
 
+   /**
+    * Create an entry from an on-heap copy of the off-heap memory of an entry
+    * @param entry the bytes of the entry, copied starting from its address
+    * @return the entry created on heap from the copy
+    */
+   InternalCacheEntry<WrappedBytes, WrappedBytes> fromBytes(byte[] entry);
+
    /**
     * Returns whether the given key as bytes is the same key as the key stored in the entry for the given address.
     * @param address the address of the entry's key to check
@@ -86,6 +93,15 @@ default boolean equalsKey(long address, WrappedBytes wrappedBytes) {
     */
    boolean equalsKey(long address, WrappedBytes wrappedBytes, int hashCode);
 
+   /**
+    * Returns whether the given key as bytes is the same key as the key stored in an on-heap copy of an entry.
+    * @param entry the bytes of the entry, copied starting from its address
+    * @param wrappedBytes the key to check equality with
+    * @param hashCode the hashCode of the key
+    * @return whether or not the keys are equal
+    */
+   boolean equalsKey(byte[] entry, WrappedBytes wrappedBytes, int hashCode);
+
 
    /**
     * Returns whether entry is expired or not.
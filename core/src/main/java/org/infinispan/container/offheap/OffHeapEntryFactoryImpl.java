@@ -273,15 +273,24 @@ public byte[] getKey(long address) {
     */
    @Override
    public InternalCacheEntry<WrappedBytes, WrappedBytes> fromMemory(long address) {
+      return readEntry(null, address);
+   }
+
+   @Override
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> fromBytes(byte[] entry) {
+      return readEntry(entry, 0);
+   }
+
+   private InternalCacheEntry<WrappedBytes, WrappedBytes> readEntry(byte[] array, long address) {
       // 16 bytes for eviction if needed (optional)
       // 8 bytes for linked pointer
       int offset = evictionEnabled ? 24 : 8;
 
-      byte metadataType = MEMORY.getByte(address, offset);
+      byte metadataType = readByte(array, address, offset);
       offset += 1;
-      int hashCode = MEMORY.getInt(address, offset);
+      int hashCode = readInt(array, address, offset);
       offset += 4;
-      byte[] keyBytes = new byte[MEMORY.getInt(address, offset)];
+      byte[] keyBytes = new byte[readInt(array, address, offset)];
       offset += 4;
 
       byte[] metadataBytes;
@@ -298,25 +307,25 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> fromMemory(long address) {
             break;
          default:
             // This means we had CUSTOM or HAS_VERSION so we have to read it all
-            metadataBytes = new byte[MEMORY.getInt(address, offset)];
+            metadataBytes = new byte[readInt(array, address, offset)];
             offset += 4;
       }
 
-      int valueSize = MEMORY.getInt(address, offset);
+      int valueSize = readInt(array, address, offset);
       offset += 4;
 
-      int internalMetadataSize = MEMORY.getInt(address, offset);
+      int internalMetadataSize = readInt(array, address, offset);
       offset += 4;
 
-      MEMORY.getBytes(address, offset, keyBytes, 0, keyBytes.length);
+      readBytes(array, address, offset, keyBytes, 0, keyBytes.length);
       offset += keyBytes.length;
-      MEMORY.getBytes(address, offset, metadataBytes, 0, metadataBytes.length);
+      readBytes(array, address, offset, metadataBytes, 0, metadataBytes.length);
       offset += metadataBytes.length;
 
       WrappedBytes valueWrappedBytes;
       if (valueSize > 0) {
          byte[] valueBytes = new byte[valueSize];
-         MEMORY.getBytes(address, offset, valueBytes, 0, valueBytes.length);
+         readBytes(array, address, offset, valueBytes, 0, valueBytes.length);
          offset += valueBytes.length;
 
          valueWrappedBytes = new WrappedByteArray(valueBytes);
@@ -327,7 +336,7 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> fromMemory(long address) {
       PrivateMetadata internalMetadata = PrivateMetadata.empty();
       if (internalMetadataSize > 0) {
          byte[] internalMetadataBytes = new byte[internalMetadataSize];
-         MEMORY.getBytes(address, offset, internalMetadataBytes, 0, internalMetadataSize);
+         readBytes(array, address, offset, internalMetadataBytes, 0, internalMetadataSize);
          offset += internalMetadataSize;
          internalMetadata = unmarshall(internalMetadataBytes);
       }
@@ -407,18 +416,27 @@ public InternalCacheEntry<WrappedBytes, WrappedBytes> fromMemory(long address) {
 
    @Override
    public boolean equalsKey(long address, WrappedBytes wrappedBytes, int hashCode) {
+      return equalsKey(null, address, wrappedBytes, hashCode);
+   }
+
+   @Override
+   public boolean equalsKey(byte[] entry, WrappedBytes wrappedBytes, int hashCode) {
+      return equalsKey(entry, 0, wrappedBytes, hashCode);
+   }
+
+   private boolean equalsKey(byte[] array, long address, WrappedBytes wrappedBytes, int hashCode) {
       // 16 bytes for eviction if needed (optional)
       // 8 bytes for linked pointer
       int headerOffset = evictionEnabled ? 24 : 8;
-      byte type = MEMORY.getByte(address, headerOffset);
+      byte type = readByte(array, address, headerOffset);
       headerOffset++;
       // First if hashCode doesn't match then the key can't be equal
-      if (hashCode != MEMORY.getInt(address, headerOffset)) {
+      if (hashCode != readInt(array, address, headerOffset)) {
          return false;
       }
       headerOffset += 4;
       // If the length of the key is not the same it can't match either!
-      int keyLength = MEMORY.getInt(address, headerOffset);
+      int keyLength = readInt(array, address, headerOffset);
       if (keyLength != wrappedBytes.getLength()) {
          return false;
       }
@@ -433,7 +451,7 @@ public boolean equalsKey(long address, WrappedBytes wrappedBytes, int hashCode)
       headerOffset += 4;
       // Finally read each byte individually so we don't have to copy them into a byte[]
       for (int i = 0; i < keyLength; i++) {
-         byte b = MEMORY.getByte(address, headerOffset + i);
+         byte b = readByte(array, address, headerOffset + i);
          if (b != wrappedBytes.getByte(i))
             return false;
       }
@@ -441,6 +459,24 @@ public boolean equalsKey(long address, WrappedBytes wrappedBytes, int hashCode)
       return true;
    }
 
+   // Entries are read either straight from off-heap memory, when array is null, or from an on-heap copy of it
+
+   private static byte readByte(byte[] array, long address, long offset) {
+      return array == null ? MEMORY.getByte(address, offset) : MEMORY.getByte(array, address + offset);
+   }
+
+   private static int readInt(byte[] array, long address, long offset) {
+      return array == null ? MEMORY.getInt(address, offset) : MEMORY.getInt(array, address + offset);
+   }
+
+   private static void readBytes(byte[] array, long address, long offset, byte[] destArray, long destOffset, long length) {
+      if (array == null) {
+         MEMORY.getBytes(address, offset, destArray, destOffset, length);
+      } else {
+         MEMORY.getBytes(array, address + offset, destArray, destOffset, length);
+      }
+   }
+
    /**
     * Returns whether entry is expired.
     * @param address the address of the entry to check
@@ -613,7 +649,7 @@ public long updateMaxIdle(long address, long currentTimeMillis) {
       if (newMetadataSize != metadataSize) {
          // The new marshalled size is different then before, we have to rewrite the object!
          // Offset is still set to the end of the key bytes (before metadata)
-         long newPointer = MEMORY.allocate(newMetadataSize + offset + valueSize + internalMetadataSize);
+         long newPointer = allocator.allocate(newMetadataSize + offset + valueSize + internalMetadataSize);
          // This writes the next pointer, eviction pointers (if applicable),
          // type, hashCode, keyLength, metadataLength, valueLength and key bytes.
          MEMORY.copy(address, 0, newPointer, 0, offset);
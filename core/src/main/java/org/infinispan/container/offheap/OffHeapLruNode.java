@@ -2,6 +2,9 @@
 
 /**
  * Accessors for the fields of a native LRU list node.
+ * <p>
+ * Entries are at least 8 byte aligned, so the lowest bits of the previous pointer are free and hold the queue the
+ * node is linked into.
  *
  * @since 9.1
  */
@@ -13,6 +16,8 @@ class OffHeapLruNode {
    private static final int PREVIOUS_NODE_OFFSET = 0;
    private static final int NEXT_NODE_OFFSET = PREVIOUS_NODE_OFFSET + ADDRESS_SIZE;
 
+   private static final long QUEUE_MASK = 0x7;
+
    private OffHeapLruNode() {
    }
 
@@ -25,15 +30,21 @@ static void setNext(long lruNodeAddress, long nextAddress) {
    }
 
    static long getPrevious(long lruNodeAddress) {
-      return MEMORY.getLong(lruNodeAddress, PREVIOUS_NODE_OFFSET);
+      return MEMORY.getLong(lruNodeAddress, PREVIOUS_NODE_OFFSET) & ~QUEUE_MASK;
+   }
+
+   static void setPrevious(long lruNodeAddress, long previousAddress, int queue) {
+      assert (previousAddress & QUEUE_MASK) == 0 : "Unaligned address " + previousAddress;
+      assert (queue & ~QUEUE_MASK) == 0 : "Invalid queue " + queue;
+      MEMORY.putLong(lruNodeAddress, PREVIOUS_NODE_OFFSET, previousAddress | queue);
    }
 
-   static void setPrevious(long lruNodeAddress, long previousAddress) {
-      MEMORY.putLong(lruNodeAddress, PREVIOUS_NODE_OFFSET, previousAddress);
+   static int getQueue(long lruNodeAddress) {
+      return (int) (MEMORY.getLong(lruNodeAddress, PREVIOUS_NODE_OFFSET) & QUEUE_MASK);
    }
 
    static String debugString(long address) {
-      return String.format("0x%016x <-- entry 0x%016x --> 0x%016x", OffHeapLruNode.getPrevious(address), address,
-            OffHeapLruNode.getNext(address));
+      return String.format("0x%016x <-- entry 0x%016x (queue %d) --> 0x%016x", OffHeapLruNode.getPrevious(address),
+            address, OffHeapLruNode.getQueue(address), OffHeapLruNode.getNext(address));
    }
 }
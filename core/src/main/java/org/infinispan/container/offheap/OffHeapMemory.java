@@ -109,6 +109,33 @@ void getBytes(long srcAddress, long srcOffset, byte[] destArray, long destOffset
       UNSAFE.copyMemory(null, srcAddress + srcOffset, destArray, BYTE_ARRAY_BASE_OFFSET + destOffset, length);
    }
 
+   /**
+    * Reads a byte from an on-heap copy of off-heap memory, with the same layout as {@link #getByte(long, long)}.
+    */
+   byte getByte(byte[] srcArray, long offset) {
+      checkArray(srcArray, offset, 1);
+      return UNSAFE.getByte(srcArray, BYTE_ARRAY_BASE_OFFSET + offset);
+   }
+
+   /**
+    * Reads an int from an on-heap copy of off-heap memory, in the same byte order as {@link #getInt(long, long)}.
+    */
+   int getInt(byte[] srcArray, long offset) {
+      checkArray(srcArray, offset, 4);
+      return UNSAFE.getInt(srcArray, BYTE_ARRAY_BASE_OFFSET + offset);
+   }
+
+   void getBytes(byte[] srcArray, long srcOffset, byte[] destArray, long destOffset, long length) {
+      System.arraycopy(srcArray, (int) srcOffset, destArray, (int) destOffset, (int) length);
+   }
+
+   private static void checkArray(byte[] array, long offset, int length) {
+      if (offset < 0 || offset + length > array.length) {
+         throw new ArrayIndexOutOfBoundsException("Cannot read " + length + " bytes at offset " + offset +
+               " of an array of length " + array.length);
+      }
+   }
+
    void putBytes(byte[] srcArray, long srcOffset, long destAddress, long destOffset, long length) {
       checkAddress(destAddress, destOffset + length);
       if (log.isTraceEnabled()) {
@@ -150,22 +177,42 @@ private void checkAddress(long address, long offset) {
 
    long allocate(long size) {
       long address = UNSAFE.allocateMemory(size);
+      registerBlock(address, size);
+      return address;
+   }
+
+   void free(long address) {
+      unregisterBlock(address);
+      UNSAFE.freeMemory(address);
+   }
+
+   /**
+    * Allocates a region of memory that is not accessed directly, but split into blocks by the caller. Each block must
+    * be registered with {@link #registerBlock(long, long)} before it is accessed.
+    */
+   long allocateRegion(long size) {
+      return UNSAFE.allocateMemory(size);
+   }
+
+   void freeRegion(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   void registerBlock(long address, long size) {
       if (log.isTraceEnabled()) {
          Long prev = allocatedBlocks.put(address, size);
          if (prev != null) {
             throw new IllegalArgumentException();
          }
       }
-      return address;
    }
 
-   void free(long address) {
+   void unregisterBlock(long address) {
       if (log.isTraceEnabled()) {
          Long prev = allocatedBlocks.remove(address);
          if (prev == null) {
             throw new IllegalArgumentException();
          }
       }
-      UNSAFE.freeMemory(address);
    }
 }
@@ -23,4 +23,31 @@ public interface OffHeapMemoryAllocator {
    void deallocate(long memoryAddress, long size);
 
    long getAllocatedAmount();
+
+   /**
+    * Returns whether memory that was deallocated can still be read without crashing by a read that started with
+    * {@link #enterUnlockedRead()} before the deallocation and that has not finished yet. The contents may have been
+    * overwritten by a new allocation. Readers that do not hold a lock and validate what they read afterwards can only
+    * follow memory addresses when this is true.
+    * @return whether deallocated memory stays readable
+    */
+   default boolean isDeallocatedMemoryReadable() {
+      return false;
+   }
+
+   /**
+    * Marks the start of a read that does not hold a lock, so that the memory it may reach is not freed until
+    * {@link #exitUnlockedRead(int)} is invoked with the returned token.
+    * @return the token to pass to {@link #exitUnlockedRead(int)}
+    */
+   default int enterUnlockedRead() {
+      return 0;
+   }
+
+   /**
+    * Marks the end of a read started with {@link #enterUnlockedRead()}.
+    * @param token the value returned by {@link #enterUnlockedRead()}
+    */
+   default void exitUnlockedRead(int token) {
+   }
 }
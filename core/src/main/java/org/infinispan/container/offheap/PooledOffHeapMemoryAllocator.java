@@ -0,0 +1,428 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.commons.util.ProcessorInfo;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Memory allocator that carves blocks out of larger native memory slabs and recycles them, instead of invoking the
+ * native allocator for every entry that is written.
+ * <p>
+ * Requested sizes are rounded up to a size class: multiples of 16 bytes up to 256 bytes and then four classes for
+ * every power of two up to {@link #MAX_POOLED_SIZE}, so that the rounding never wastes more than 25% of a block.
+ * Larger requests, like the bucket tables of the {@link OffHeapConcurrentMap}, are allocated directly.
+ * <p>
+ * Threads are spread over a number of arenas, each one with its own bin of slabs and free blocks per size class, so
+ * that concurrent writers rarely contend on the same lock. Freed blocks are pushed on the free list of the arena
+ * of the freeing thread and are the first ones reused by its next allocation of the same size class. Since an entry
+ * is overwritten by allocating the new entry and then freeing the old one under the segment write lock, a thread
+ * that keeps overwriting entries of a similar size keeps reusing the same few blocks.
+ * <p>
+ * Slabs are only returned to the operating system when the cache is stopped. Blocks allocated directly are returned
+ * once no read started with {@link #enterUnlockedRead()} before their deallocation is still running, so deallocated
+ * memory always stays readable for those reads, see {@link #isDeallocatedMemoryReadable()}. The reads are counted per
+ * epoch: a deallocated block is retired in the current epoch and the epoch is moved forward, and the blocks of an
+ * epoch are freed once the readers that entered in that epoch are done. Blocks that could not be freed right away are
+ * checked again whenever a block is allocated or deallocated directly.
+ * @since 12.1
+ */
+@MBean(objectName = "PooledOffHeapMemoryAllocator", description = "Pooled allocator of off-heap memory")
+@Scope(Scopes.NAMED_CACHE)
+public class PooledOffHeapMemoryAllocator implements OffHeapMemoryAllocator {
+   private static final Log log = LogFactory.getLog(PooledOffHeapMemoryAllocator.class, Log.class);
+   private static final OffHeapMemory MEMORY = OffHeapMemory.INSTANCE;
+
+   static final int MAX_POOLED_SIZE = 32 * 1024;
+   // 16 classes of 16 byte steps up to 256 and 4 classes per power of two from 256 to MAX_POOLED_SIZE
+   static final int SIZE_CLASS_COUNT = 16 + 4 * (Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) - 8);
+   private static final int SLAB_SIZE = 64 * 1024;
+   private static final int MIN_BLOCKS_PER_SLAB = 8;
+   private static final int MAX_BLOCKS_PER_SLAB = 1024;
+   private static final long[] EMPTY = new long[0];
+   // Every reader counter is on its own cache line
+   private static final int READER_COUNTER_PADDING = 8;
+   private static final int MAX_READER_STRIPES = 64;
+
+   private final Arena[] arenas;
+   private final int arenaMask;
+   private final LongAdder usedBytes = new LongAdder();
+   private final LongAdder requestedBytes = new LongAdder();
+   private final LongAdder directBytes = new LongAdder();
+
+   // Number of unlocked reads in progress per stripe of threads and per epoch parity
+   private final AtomicLongArray readers;
+   private final int readerStripeMask;
+   private volatile long epoch;
+   // Directly allocated blocks that were deallocated, with their estimated sizes, guarded by retiredLock
+   private final Object retiredLock = new Object();
+   private RetiredBlocks currentRetired = new RetiredBlocks();
+   private RetiredBlocks previousRetired = new RetiredBlocks();
+   private volatile long retiredBytes;
+
+   public PooledOffHeapMemoryAllocator() {
+      this(ProcessorInfo.availableProcessors() * 2);
+   }
+
+   PooledOffHeapMemoryAllocator(int arenaCount) {
+      int count = Integer.highestOneBit(Math.max(1, arenaCount - 1)) << 1;
+      arenas = new Arena[count];
+      for (int i = 0; i < count; ++i) {
+         arenas[i] = new Arena();
+      }
+      arenaMask = count - 1;
+      int readerStripes = Integer.highestOneBit(Math.min(MAX_READER_STRIPES, count));
+      readers = new AtomicLongArray(readerStripes * 2 * READER_COUNTER_PADDING);
+      readerStripeMask = readerStripes - 1;
+   }
+
+   /**
+    * @return the size class of an allocation with the given length, or -1 if it is too large to be pooled
+    */
+   static int sizeClass(long size) {
+      if (size <= 256) {
+         return size <= 16 ? 0 : (int) ((size + 15) >>> 4) - 1;
+      }
+      if (size > MAX_POOLED_SIZE) {
+         return -1;
+      }
+      int log2 = 63 - Long.numberOfLeadingZeros(size - 1);
+      int step = (int) ((size - 1) >>> (log2 - 2)) & 3;
+      return 16 + ((log2 - 8) << 2) + step;
+   }
+
+   /**
+    * @return the size of the blocks of the given size class
+    */
+   static long blockSize(int sizeClass) {
+      if (sizeClass < 16) {
+         return (sizeClass + 1) << 4;
+      }
+      long base = 256L << ((sizeClass - 16) >>> 2);
+      return base + (((sizeClass - 16) & 3) + 1) * (base >>> 2);
+   }
+
+   @Override
+   public long allocate(long memoryLength) {
+      int sizeClass = sizeClass(memoryLength);
+      if (sizeClass < 0) {
+         long estimatedMemoryLength = UnpooledOffHeapMemoryAllocator.estimateSizeOverhead(memoryLength);
+         long memoryLocation = MEMORY.allocate(memoryLength);
+         directBytes.add(estimatedMemoryLength);
+         if (log.isTraceEnabled()) {
+            log.tracef("Allocated off-heap memory at 0x%016x with %d bytes directly", memoryLocation,
+                  estimatedMemoryLength);
+         }
+         synchronized (retiredLock) {
+            reclaim();
+         }
+         return memoryLocation;
+      }
+      Bin bin = currentArena().bins[sizeClass];
+      long memoryLocation = bin.allocate();
+      MEMORY.registerBlock(memoryLocation, bin.blockSize);
+      usedBytes.add(bin.blockSize);
+      requestedBytes.add(memoryLength);
+      return memoryLocation;
+   }
+
+   @Override
+   public void deallocate(long memoryAddress, long size) {
+      int sizeClass = sizeClass(size);
+      if (sizeClass < 0) {
+         long estimatedMemoryLength = UnpooledOffHeapMemoryAllocator.estimateSizeOverhead(size);
+         directBytes.add(-estimatedMemoryLength);
+         if (log.isTraceEnabled()) {
+            log.tracef("Retiring off-heap memory at 0x%016x with %d bytes allocated directly", memoryAddress,
+                  estimatedMemoryLength);
+         }
+         synchronized (retiredLock) {
+            currentRetired.add(memoryAddress, estimatedMemoryLength);
+            retiredBytes += estimatedMemoryLength;
+            reclaim();
+         }
+         return;
+      }
+      Bin bin = currentArena().bins[sizeClass];
+      MEMORY.unregisterBlock(memoryAddress);
+      usedBytes.add(-bin.blockSize);
+      requestedBytes.add(-size);
+      bin.free(memoryAddress);
+   }
+
+   /**
+    * @return the native memory held by this allocator, including pooled blocks that are currently free and retired
+    * blocks that were not freed yet
+    */
+   @Override
+   public long getAllocatedAmount() {
+      return getReservedBytes() + directBytes.sum() + retiredBytes;
+   }
+
+   /**
+    * Slabs are never freed before the allocator is stopped and the blocks allocated directly are only freed after the
+    * unlocked reads that could reach them are done, so it is always safe to read a block after it was deallocated
+    * during an unlocked read, even if it was already handed out again.
+    */
+   @Override
+   public boolean isDeallocatedMemoryReadable() {
+      return true;
+   }
+
+   @Override
+   public int enterUnlockedRead() {
+      int counter = (((int) Thread.currentThread().getId() & readerStripeMask) << 1 | (int) (epoch & 1))
+            * READER_COUNTER_PADDING;
+      readers.incrementAndGet(counter);
+      return counter;
+   }
+
+   @Override
+   public void exitUnlockedRead(int token) {
+      readers.decrementAndGet(token);
+   }
+
+   /**
+    * Frees the blocks retired before the last epoch change once the readers of the previous epoch are done, and then
+    * moves to a new epoch if blocks were retired since. The epoch only changes when the readers of the previous epoch
+    * are done, so a reader is never counted with an epoch other than the current or the previous one.
+    */
+   @GuardedBy("retiredLock")
+   private void reclaim() {
+      if (readerCount((int) (epoch - 1) & 1) != 0)
+         return;
+
+      retiredBytes -= previousRetired.free();
+      if (currentRetired.count > 0) {
+         RetiredBlocks retired = previousRetired;
+         previousRetired = currentRetired;
+         currentRetired = retired;
+         epoch++;
+         // The readers that entered before the epoch change may all be done already
+         if (readerCount((int) (epoch - 1) & 1) == 0) {
+            retiredBytes -= previousRetired.free();
+         }
+      }
+   }
+
+   private long readerCount(int parity) {
+      long count = 0;
+      for (int stripe = 0; stripe <= readerStripeMask; ++stripe) {
+         count += readers.get(((stripe << 1) | parity) * READER_COUNTER_PADDING);
+      }
+      return count;
+   }
+
+   @Stop
+   public void stop() {
+      for (Arena arena : arenas) {
+         for (Bin bin : arena.bins) {
+            bin.release();
+         }
+      }
+      synchronized (retiredLock) {
+         previousRetired.free();
+         currentRetired.free();
+         retiredBytes = 0;
+      }
+      usedBytes.reset();
+      requestedBytes.reset();
+   }
+
+   private Arena currentArena() {
+      return arenas[(int) Thread.currentThread().getId() & arenaMask];
+   }
+
+   @ManagedAttribute(description = "Number of arenas the allocating threads are spread over", displayName = "Arena count", dataType = DataType.TRAIT)
+   public int getArenaCount() {
+      return arenas.length;
+   }
+
+   @ManagedAttribute(description = "Native memory in bytes reserved by the slabs of all arenas", displayName = "Reserved bytes")
+   public long getReservedBytes() {
+      long reserved = 0;
+      for (Arena arena : arenas) {
+         reserved += arena.reservedBytes();
+      }
+      return reserved;
+   }
+
+   @ManagedAttribute(description = "Native memory in bytes reserved by the slabs of the least used arena", displayName = "Minimum arena reserved bytes")
+   public long getMinArenaReservedBytes() {
+      long min = Long.MAX_VALUE;
+      for (Arena arena : arenas) {
+         min = Math.min(min, arena.reservedBytes());
+      }
+      return min;
+   }
+
+   @ManagedAttribute(description = "Native memory in bytes reserved by the slabs of the most used arena", displayName = "Maximum arena reserved bytes")
+   public long getMaxArenaReservedBytes() {
+      long max = 0;
+      for (Arena arena : arenas) {
+         max = Math.max(max, arena.reservedBytes());
+      }
+      return max;
+   }
+
+   @ManagedAttribute(description = "Size in bytes of the pooled blocks in use", displayName = "Used bytes")
+   public long getUsedBytes() {
+      return usedBytes.sum();
+   }
+
+   @ManagedAttribute(description = "Size in bytes requested for the pooled blocks in use", displayName = "Requested bytes")
+   public long getRequestedBytes() {
+      return requestedBytes.sum();
+   }
+
+   @ManagedAttribute(description = "Size in bytes of the pooled blocks that are free for reuse", displayName = "Free bytes")
+   public long getFreeBytes() {
+      return getReservedBytes() - getUsedBytes();
+   }
+
+   @ManagedAttribute(description = "Native memory in bytes allocated directly for requests too large to be pooled", displayName = "Direct bytes")
+   public long getDirectBytes() {
+      return directBytes.sum();
+   }
+
+   @ManagedAttribute(description = "Native memory in bytes allocated directly that was deallocated, but not freed yet because unlocked reads may still read it", displayName = "Retired bytes")
+   public long getRetiredBytes() {
+      return retiredBytes;
+   }
+
+   @ManagedAttribute(description = "Ratio of the used bytes wasted by rounding requests up to a size class", displayName = "Internal fragmentation")
+   public double getInternalFragmentation() {
+      long used = getUsedBytes();
+      return used <= 0 ? 0 : 1 - (double) getRequestedBytes() / used;
+   }
+
+   @ManagedAttribute(description = "Ratio of the reserved bytes that are not in use", displayName = "External fragmentation")
+   public double getExternalFragmentation() {
+      long reserved = getReservedBytes();
+      return reserved <= 0 ? 0 : (double) getFreeBytes() / reserved;
+   }
+
+   private static final class Arena {
+      final Bin[] bins = new Bin[SIZE_CLASS_COUNT];
+
+      Arena() {
+         for (int i = 0; i < SIZE_CLASS_COUNT; ++i) {
+            bins[i] = new Bin(blockSize(i));
+         }
+      }
+
+      long reservedBytes() {
+         long reserved = 0;
+         for (Bin bin : bins) {
+            reserved += bin.reservedBytes;
+         }
+         return reserved;
+      }
+   }
+
+   /**
+    * Blocks of a single size class in an arena: a stack of freed blocks and the slabs they were carved from.
+    */
+   private static final class Bin {
+      final long blockSize;
+      final long slabSize;
+      private long[] freeBlocks = EMPTY;
+      private int freeCount;
+      private long[] slabs = EMPTY;
+      private int slabCount;
+      // Position of the next block never handed out in the last slab
+      private long slabOffset;
+      volatile long reservedBytes;
+
+      Bin(long blockSize) {
+         this.blockSize = blockSize;
+         long blocksPerSlab = Math.max(MIN_BLOCKS_PER_SLAB, Math.min(MAX_BLOCKS_PER_SLAB, SLAB_SIZE / blockSize));
+         this.slabSize = blocksPerSlab * blockSize;
+         this.slabOffset = slabSize;
+      }
+
+      synchronized long allocate() {
+         if (freeCount > 0) {
+            return freeBlocks[--freeCount];
+         }
+         if (slabOffset == slabSize) {
+            long slab = MEMORY.allocateRegion(slabSize);
+            slabs = push(slabs, slabCount++, slab);
+            slabOffset = 0;
+            reservedBytes += slabSize;
+            if (log.isTraceEnabled()) {
+               log.tracef("Allocated off-heap slab at 0x%016x with %d bytes for blocks of %d bytes", slab, slabSize,
+                     blockSize);
+            }
+         }
+         long address = slabs[slabCount - 1] + slabOffset;
+         slabOffset += blockSize;
+         return address;
+      }
+
+      synchronized void free(long address) {
+         freeBlocks = push(freeBlocks, freeCount++, address);
+      }
+
+      synchronized void release() {
+         for (int i = 0; i < slabCount; ++i) {
+            MEMORY.freeRegion(slabs[i]);
+         }
+         slabs = EMPTY;
+         slabCount = 0;
+         slabOffset = slabSize;
+         freeBlocks = EMPTY;
+         freeCount = 0;
+         reservedBytes = 0;
+      }
+
+   }
+
+   /**
+    * Blocks allocated directly that were deallocated in the same epoch.
+    */
+   private static final class RetiredBlocks {
+      private long[] addresses = EMPTY;
+      private long[] sizes = EMPTY;
+      int count;
+
+      void add(long address, long size) {
+         addresses = push(addresses, count, address);
+         sizes = push(sizes, count, size);
+         count++;
+      }
+
+      /**
+       * @return the estimated size of the freed blocks
+       */
+      long free() {
+         long freed = 0;
+         for (int i = 0; i < count; ++i) {
+            MEMORY.free(addresses[i]);
+            freed += sizes[i];
+         }
+         count = 0;
+         return freed;
+      }
+   }
+
+   private static long[] push(long[] array, int index, long value) {
+      if (index == array.length) {
+         long[] newArray = new long[Math.max(4, index << 1)];
+         System.arraycopy(array, 0, newArray, 0, index);
+         array = newArray;
+      }
+      array[index] = value;
+      return array;
+   }
+}
@@ -1,12 +1,15 @@
 package org.infinispan.container.offheap;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 
 import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.commons.util.ProcessorInfo;
+import org.infinispan.commons.util.Util;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.impl.AbstractDelegatingInternalDataContainer;
 import org.infinispan.container.impl.AbstractInternalDataContainer;
@@ -16,6 +19,7 @@
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionType;
 import org.infinispan.eviction.impl.PassivationManager;
+import org.infinispan.expiration.impl.InternalExpirationManager;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
@@ -30,6 +34,24 @@
 import org.infinispan.util.logging.LogFactory;
 
 /**
+ * Off-heap data container that evicts entries once its size exceeds the configured maximum.
+ * <p>
+ * Entries to evict are chosen with the W-TinyLFU policy, like the heap containers do through Caffeine. New entries
+ * are added to a small LRU window holding 1% of the maximum size. When the window overflows its oldest entry is moved
+ * to the main space, which is split in a probation and a protected LRU queue, the latter holding up to 80% of it. An
+ * entry in probation that is accessed again is promoted to the protected queue, whose oldest entries are demoted back
+ * to probation. Once the main space is full as well, the oldest entry of the window is only admitted if a
+ * {@link FrequencySketch} estimates that it was used more often than the oldest entry in probation, otherwise the
+ * window entry is evicted itself. This keeps the entries that are used often when a scan inserts many entries that
+ * are never used again.
+ * <p>
+ * All queues are linked through the LRU pointers at the beginning of each entry and are guarded by the
+ * {@link #lruLock}. Reads do not acquire it: the address of a retrieved entry is recorded in a lossy buffer, striped
+ * by thread, which is drained into the policy while holding the lock, by writes or once the stripe is full. Accesses
+ * that cannot be recorded while the lock is held by another thread are dropped. An address is only recorded while
+ * holding the read lock of its entry, and all recorded accesses are drained before an entry is removed, so the buffer
+ * never holds the address of a freed entry.
+ *
  * @author wburns
  * @since 9.4
  */
@@ -37,6 +59,16 @@
 public class SegmentedBoundedOffHeapDataContainer extends AbstractDelegatingInternalDataContainer<WrappedBytes, WrappedBytes> {
    private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
 
+   // The queue each entry is linked into, stored in its LRU node
+   private static final int WINDOW = 0;
+   private static final int PROBATION = 1;
+   private static final int PROTECTED = 2;
+
+   private static final int INITIAL_SKETCH_CAPACITY = 1024;
+   // Every stripe of the access buffer has 16 slots
+   private static final int ACCESS_STRIPE_SHIFT = 4;
+   private static final int MAX_ACCESS_STRIPES = 64;
+
    private final OffHeapListener offHeapListener;
 
    @Inject ComponentRegistry componentRegistry;
@@ -45,6 +77,7 @@ public class SegmentedBoundedOffHeapDataContainer extends AbstractDelegatingInte
    @Inject protected OffHeapEntryFactory offHeapEntryFactory;
 
    @Inject protected EvictionManager evictionManager;
+   @Inject protected InternalExpirationManager<WrappedBytes, WrappedBytes> expirationManager;
    @Inject protected ComponentRef<PassivationManager> passivator;
    @Inject protected DataOperationOrderer orderer;
 
@@ -55,8 +88,21 @@ public class SegmentedBoundedOffHeapDataContainer extends AbstractDelegatingInte
 
    // Must be updated inside lruLock#writeLock - but can be read outside of lock
    protected volatile long currentSize;
-   protected long firstAddress;
-   protected long lastAddress;
+
+   // The following are guarded by the lruLock
+   private final AccessOrderQueue window = new AccessOrderQueue(WINDOW);
+   private final AccessOrderQueue probation = new AccessOrderQueue(PROBATION);
+   private final AccessOrderQueue protectedQueue = new AccessOrderQueue(PROTECTED);
+   private final long maxWindowSize;
+   private final long maxProtectedSize;
+   private final FrequencySketch sketch;
+   private long entryCount;
+
+   // Addresses of the retrieved entries that were not applied to the queues yet, 0 for an empty slot
+   private final AtomicLongArray accessBuffer;
+   private final int accessStripeMask;
+   // Lets writes skip the scan of the buffer, only written by readers when not already set
+   private volatile boolean accessesRecorded;
 
    protected DefaultSegmentedDataContainer dataContainer;
 
@@ -68,7 +114,13 @@ public SegmentedBoundedOffHeapDataContainer(int numSegments, long maxSize, Evict
       this.useCount = type == EvictionType.COUNT;
       OffHeapMapSupplier offHeapMapSupplier = new OffHeapMapSupplier();
       this.lruLock = new ReentrantLock();
-      firstAddress = 0;
+      this.maxWindowSize = Math.max(1, maxSize / 100);
+      this.maxProtectedSize = (maxSize - maxWindowSize) / 5 * 4;
+      this.sketch = new FrequencySketch(useCount ? maxSize : INITIAL_SKETCH_CAPACITY);
+
+      int accessStripes = Util.findNextHighestPowerOfTwo(Math.min(ProcessorInfo.availableProcessors(), MAX_ACCESS_STRIPES));
+      this.accessBuffer = new AtomicLongArray(accessStripes << ACCESS_STRIPE_SHIFT);
+      this.accessStripeMask = accessStripes - 1;
 
       dataContainer = new DefaultSegmentedDataContainer<>(offHeapMapSupplier, numSegments);
    }
@@ -140,19 +192,19 @@ protected OffHeapConcurrentMap getMapThatContainsKey(byte[] key) {
    }
 
    /**
-    * This method repeatedly removes the head of the LRU list until there the current size is less than or equal to
-    * `maxSize`.
+    * This method repeatedly removes the victim chosen by {@link #selectVictim()} until there the current size is less
+    * than or equal to `maxSize`.
     * <p>
-    * We need to hold the LRU lock in order to check the current size and to read the head entry,
-    * and then we need to hold the head entry's write lock in order to remove it.
+    * We need to hold the LRU lock in order to check the current size and to select the victim,
+    * and then we need to hold the victim entry's write lock in order to remove it.
     * The problem is that the correct acquisition order is entry write lock first, LRU lock second,
     * and we need to hold the LRU lock so that we know which entry write lock to acquire.
     * <p>
     * To work around it, we first try to acquire the entry write lock without blocking.
     * If that fails, we release the LRU lock and we acquire the locks in the correct order, hoping that
-    * the LRU head doesn't change while we wait. Because the entry write locks are striped, we actually
-    * tolerate a LRU head change as long as the new head entry is in the same lock stripe.
-    * If the LRU list head changes, we release both locks and try again.
+    * the victim doesn't change while we wait. Because the entry write locks are striped, we actually
+    * tolerate a victim change as long as the new victim is in the same lock stripe.
+    * If the victim changes, we release both locks and try again.
     */
    private void ensureSize() {
       // Try reading outside of lock first to allow for less locking for insert that doesn't require eviction
@@ -170,19 +222,20 @@ private void ensureSize() {
             if (currentSize <= maxSize) {
                break;
             }
+            long victim = selectVictim();
             // We shouldn't be able to get into this state
-            assert firstAddress > 0;
+            assert victim > 0;
             // We read the key before hashCode due to how off-heap bytes are written (key requires reading metadata
             // which comes before hashCode, which should keep hashCode bytes in memory register in most cases)
-            byte[] key = offHeapEntryFactory.getKey(firstAddress);
+            byte[] key = offHeapEntryFactory.getKey(victim);
 
             map = getMapThatContainsKey(key);
             if (map != null) {
-               int hashCode = offHeapEntryFactory.getHashCode(firstAddress);
+               int hashCode = offHeapEntryFactory.getHashCode(victim);
                // This is always non null
                stampedLock = map.getStampedLock(hashCode);
                if ((writeStamp = stampedLock.tryWriteLock()) != 0) {
-                  addressToRemove = firstAddress;
+                  addressToRemove = victim;
                } else {
                   addressToRemove = 0;
                }
@@ -206,15 +259,16 @@ private void ensureSize() {
                   if (currentSize <= maxSize) {
                      break;
                   }
-                  // Now that we have locks we have to verify the first address is protected by the same lock still
-                  byte[] key = offHeapEntryFactory.getKey(firstAddress);
+                  // Now that we have locks we have to verify the victim is protected by the same lock still
+                  long victim = selectVictim();
+                  byte[] key = offHeapEntryFactory.getKey(victim);
 
                   OffHeapConcurrentMap protectedMap = getMapThatContainsKey(key);
                   if (protectedMap == map) {
-                     int hashCode = offHeapEntryFactory.getHashCode(firstAddress);
+                     int hashCode = offHeapEntryFactory.getHashCode(victim);
                      StampedLock innerLock = map.getStampedLock(hashCode);
                      if (innerLock == stampedLock) {
-                        addressToRemove = firstAddress;
+                        addressToRemove = victim;
                      }
                   }
                } finally {
@@ -235,6 +289,9 @@ private void ensureSize() {
             try {
                InternalCacheEntry<WrappedBytes, WrappedBytes> ice = offHeapEntryFactory.fromMemory(addressToRemove);
                map.remove(ice.getKey(), addressToRemove);
+               if (ice.canExpire()) {
+                  expirationManager.entryRemoved(ice.getKey(), dataContainer.getSegmentForKey(ice.getKey()));
+               }
                // Note this is non blocking now - this MUST be invoked after removing the entry from the
                // underlying map
                AbstractInternalDataContainer.handleEviction(ice, orderer, passivator.running(), evictionManager, this, null);
@@ -245,6 +302,153 @@ private void ensureSize() {
       }
    }
 
+   /**
+    * Selects the entry that should be evicted next. The oldest entry of an overflowing window competes with the oldest
+    * entry of the main space for admission when the main space is full, otherwise entries are evicted from the
+    * probation queue first, then the protected one and finally the window.
+    * This method should only be invoked after acquiring the lruLock.
+    *
+    * @return the address of the entry to evict or 0 if there are no entries
+    */
+   private long selectVictim() {
+      drainAccesses();
+      balanceWindow();
+      if (window.size > maxWindowSize) {
+         // Main space is full, the window entry is only admitted if it is used more often than the main victim
+         long candidate = window.first;
+         long mainVictim = probation.first != 0 ? probation.first : protectedQueue.first;
+         if (mainVictim == 0 || !admit(candidate, mainVictim)) {
+            return candidate;
+         }
+         return mainVictim;
+      }
+      if (probation.first != 0) {
+         return probation.first;
+      }
+      if (protectedQueue.first != 0) {
+         return protectedQueue.first;
+      }
+      return window.first;
+   }
+
+   private boolean admit(long candidate, long victim) {
+      int candidateFrequency = sketch.frequency(offHeapEntryFactory.getHashCode(candidate));
+      int victimFrequency = sketch.frequency(offHeapEntryFactory.getHashCode(victim));
+      if (log.isTraceEnabled()) {
+         log.tracef("Window entry 0x%016x with frequency %d competes with entry 0x%016x with frequency %d", candidate,
+               candidateFrequency, victim, victimFrequency);
+      }
+      return candidateFrequency > victimFrequency;
+   }
+
+   /**
+    * Moves the oldest entries of the window to the probation queue while the window exceeds its maximum size and
+    * there is room for them in the main space.
+    * This method should only be invoked after acquiring the lruLock.
+    */
+   private void balanceWindow() {
+      long maxMainSize = maxSize - maxWindowSize;
+      while (window.size > maxWindowSize) {
+         long address = window.first;
+         long size = getSize(address);
+         if (probation.size + protectedQueue.size + size > maxMainSize) {
+            break;
+         }
+         window.remove(address, size);
+         probation.addLast(address, size);
+      }
+   }
+
+   /**
+    * Demotes the oldest entries of the protected queue to the probation queue while it exceeds its maximum size.
+    * This method should only be invoked after acquiring the lruLock.
+    */
+   private void balanceProtected() {
+      while (protectedQueue.size > maxProtectedSize && protectedQueue.first != protectedQueue.last) {
+         long address = protectedQueue.first;
+         long size = getSize(address);
+         protectedQueue.remove(address, size);
+         probation.addLast(address, size);
+      }
+   }
+
+   private AccessOrderQueue queueOf(long address) {
+      switch (OffHeapLruNode.getQueue(address)) {
+         case WINDOW:
+            return window;
+         case PROBATION:
+            return probation;
+         case PROTECTED:
+            return protectedQueue;
+         default:
+            throw new IllegalStateException(OffHeapLruNode.debugString(address));
+      }
+   }
+
+   /**
+    * Applies an access of an entry to the policy.
+    * This method should only be invoked after acquiring the lruLock.
+    *
+    * @param address the address of an entry still in the container
+    */
+   private void onAccess(long address) {
+      sketch.increment(offHeapEntryFactory.getHashCode(address));
+      AccessOrderQueue queue = queueOf(address);
+      if (log.isTraceEnabled()) {
+         log.tracef("Moving entry 0x%016x to the end of the queue %d", address, queue.id);
+      }
+      if (queue == probation) {
+         long size = getSize(address);
+         probation.remove(address, size);
+         protectedQueue.addLast(address, size);
+         balanceProtected();
+      } else {
+         queue.moveToEnd(address);
+      }
+   }
+
+   /**
+    * Records the access of an entry in the buffer of the current thread, without blocking.
+    * The read or write lock of the entry <b>must</b> be held when invoking this.
+    *
+    * @return false if the buffer stripe is full
+    */
+   private boolean recordAccess(long address) {
+      int stripe = (int) Thread.currentThread().getId() & accessStripeMask;
+      int start = (int) ((address * 0x9E3779B97F4A7C15L) >>> (64 - ACCESS_STRIPE_SHIFT));
+      int stripeSize = 1 << ACCESS_STRIPE_SHIFT;
+      for (int i = 0; i < stripeSize; ++i) {
+         int index = (stripe << ACCESS_STRIPE_SHIFT) | ((start + i) & (stripeSize - 1));
+         if (accessBuffer.get(index) == 0 && accessBuffer.compareAndSet(index, 0, address)) {
+            if (!accessesRecorded) {
+               accessesRecorded = true;
+            }
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Applies all the accesses recorded in the buffer. Only the thread draining the buffer empties slots, while
+    * readers only fill empty ones.
+    * This method should only be invoked after acquiring the lruLock.
+    */
+   private void drainAccesses() {
+      if (!accessesRecorded) {
+         return;
+      }
+      // Cleared before the scan, so an access recorded after the slot was read sets it again
+      accessesRecorded = false;
+      for (int i = 0; i < accessBuffer.length(); ++i) {
+         long address = accessBuffer.get(i);
+         if (address != 0) {
+            accessBuffer.set(i, 0);
+            onAccess(address);
+         }
+      }
+   }
+
    private class OffHeapMapSupplier implements Supplier<PeekableTouchableMap<WrappedBytes,
             WrappedBytes>> {
       @Override
@@ -288,10 +492,16 @@ public boolean resize(int pointerCount) {
       @Override
       public void entryCreated(long newAddress) {
          long newSize = getSize(newAddress);
+         int hashCode = offHeapEntryFactory.getHashCode(newAddress);
          lruLock.lock();
          try {
             currentSize += newSize;
-            addEntryAddressToEnd(newAddress);
+            window.addLast(newAddress, newSize);
+            if (++entryCount > sketch.capacity() && sketch.capacity() < FrequencySketch.MAX_CAPACITY) {
+               sketch.ensureCapacity(entryCount << 1);
+            }
+            sketch.increment(hashCode);
+            balanceWindow();
          } finally {
             lruLock.unlock();
          }
@@ -302,9 +512,12 @@ public void entryRemoved(long removedAddress) {
          long removedSize = getSize(removedAddress);
          lruLock.lock();
          try {
+            // Pending accesses may refer to this entry, they must be applied before its memory can be freed
+            drainAccesses();
             // Current size has to be updated in the lock
             currentSize -=  removedSize;
-            removeNode(removedAddress);
+            entryCount--;
+            queueOf(removedAddress).remove(removedAddress, removedSize);
          } finally {
             lruLock.unlock();
          }
@@ -316,8 +529,15 @@ public void entryReplaced(long newAddress, long oldAddress) {
          long newSize = getSize(newAddress);
          lruLock.lock();
          try {
-            removeNode(oldAddress);
-            addEntryAddressToEnd(newAddress);
+            drainAccesses();
+            // The new entry takes the place of the old one and an update counts as an access
+            AccessOrderQueue queue = queueOf(oldAddress);
+            queue.remove(oldAddress, oldSize);
+            queue.addLast(newAddress, newSize);
+            onAccess(newAddress);
+            // The new entry may be larger than the old one
+            balanceProtected();
+            balanceWindow();
 
             currentSize += newSize;
             currentSize -= oldSize;
@@ -328,115 +548,73 @@ public void entryReplaced(long newAddress, long oldAddress) {
 
       @Override
       public void entryRetrieved(long entryAddress) {
-         lruLock.lock();
-         try {
-            if (log.isTraceEnabled()) {
-               log.tracef("Moving entry 0x%016x to the end of the LRU list", entryAddress);
+         // Only drain the buffer when the stripe is full and nobody else holds the lock, otherwise drop the access
+         if (!recordAccess(entryAddress) && lruLock.tryLock()) {
+            try {
+               drainAccesses();
+               onAccess(entryAddress);
+            } finally {
+               lruLock.unlock();
             }
-            moveToEnd(entryAddress);
-         } finally {
-            lruLock.unlock();
          }
       }
+   }
+
+   /**
+    * Doubly linked list of entries through their LRU nodes, from the least to the most recently used one.
+    * The lruLock <b>must</b> be held when invoking any of its methods.
+    */
+   private static final class AccessOrderQueue {
+      final int id;
+      long first;
+      long last;
+      // Sum of the sizes of the linked entries
+      long size;
+
+      AccessOrderQueue(int id) {
+         this.id = id;
+      }
 
       /**
-       * Method to be invoked when adding a new entry address to the end of the lru nodes.  This occurs for newly created
-       * entries.
-       * This method should only be invoked after acquiring the lruLock
-       *
-       * @param entryAddress the new entry address pointer *NOT* the lru node
+       * Links the entry at the end of this queue, overwriting its previous LRU node pointers
        */
-      private void addEntryAddressToEnd(long entryAddress) {
-         if (log.isTraceEnabled()) {
-            log.tracef("Adding entry 0x%016x to the end of the LRU list", entryAddress);
-         }
-         // This means it is the first entry
-         if (lastAddress == 0) {
-            firstAddress = entryAddress;
-            lastAddress = entryAddress;
-            // Have to make sure the memory is cleared so we don't use unitialized values
-            OffHeapLruNode.setPrevious(entryAddress, 0);
+      void addLast(long address, long entrySize) {
+         OffHeapLruNode.setPrevious(address, last, id);
+         OffHeapLruNode.setNext(address, 0);
+         if (last == 0) {
+            first = address;
          } else {
-            // Writes back pointer to the old lastAddress
-            OffHeapLruNode.setPrevious(entryAddress, lastAddress);
-            // Write the forward pointer in old lastAddress to point to us
-            OffHeapLruNode.setNext(lastAddress, entryAddress);
-            // Finally make us the last address
-            lastAddress = entryAddress;
+            OffHeapLruNode.setNext(last, address);
          }
-         // Since we are last there is no pointer after us
-         OffHeapLruNode.setNext(entryAddress, 0);
+         last = address;
+         size += entrySize;
       }
 
       /**
-       * Removes the address node and updates previous and next lru node pointers properly
-       * The {@link BoundedOffHeapDataContainer#lruLock} <b>must</b> be held when invoking this
-       * @param address
+       * Unlinks the entry, which must belong to this queue, and updates its neighbours
        */
-      private void removeNode(long address) {
-         boolean middleNode = true;
-         if (address == lastAddress) {
-            if (log.isTraceEnabled()) {
-               log.tracef("Removed entry 0x%016x from the end of the LRU list", address);
-            }
-            long previousLRUNode = OffHeapLruNode.getPrevious(address);
-            if (previousLRUNode != 0) {
-               OffHeapLruNode.setNext(previousLRUNode, 0);
-            }
-            lastAddress = previousLRUNode;
-            middleNode = false;
-         }
-         if (address == firstAddress) {
-            if (log.isTraceEnabled()) {
-               log.tracef("Removed entry 0x%016x from the beginning of the LRU list", address);
-            }
-            long nextLRUNode = OffHeapLruNode.getNext(address);
-            if (nextLRUNode != 0) {
-               OffHeapLruNode.setPrevious(nextLRUNode, 0);
-            }
-            firstAddress = nextLRUNode;
-            middleNode = false;
+      void remove(long address, long entrySize) {
+         long previous = OffHeapLruNode.getPrevious(address);
+         long next = OffHeapLruNode.getNext(address);
+         if (previous == 0) {
+            assert first == address : OffHeapLruNode.debugString(address);
+            first = next;
+         } else {
+            OffHeapLruNode.setNext(previous, next);
          }
-         if (middleNode) {
-            if (log.isTraceEnabled()) {
-               log.tracef("Removed entry 0x%016x from the middle of the LRU list", address);
-            }
-            // We are a middle pointer so both of these have to be non zero
-            long previousLRUNode = OffHeapLruNode.getPrevious(address);
-            long nextLRUNode = OffHeapLruNode.getNext(address);
-            assert previousLRUNode != 0;
-            assert nextLRUNode != 0;
-            OffHeapLruNode.setNext(previousLRUNode, nextLRUNode);
-            OffHeapLruNode.setPrevious(nextLRUNode, previousLRUNode);
+         if (next == 0) {
+            assert last == address : OffHeapLruNode.debugString(address);
+            last = previous;
+         } else {
+            OffHeapLruNode.setPrevious(next, previous, id);
          }
+         size -= entrySize;
       }
 
-      /**
-       * Method to be invoked when moving an existing lru node to the end.  This occurs when the entry is accessed for this
-       * node.
-       * This method should only be invoked after acquiring the lruLock.
-       *
-       * @param lruNode the node to move to the end
-       */
-      private void moveToEnd(long lruNode) {
-         if (lruNode != lastAddress) {
-            long nextLruNode = OffHeapLruNode.getNext(lruNode);
-            assert nextLruNode != 0;
-            if (lruNode == firstAddress) {
-               OffHeapLruNode.setPrevious(nextLruNode, 0);
-               firstAddress = nextLruNode;
-            } else {
-               long prevLruNode = OffHeapLruNode.getPrevious(lruNode);
-               assert prevLruNode != 0;
-               OffHeapLruNode.setNext(prevLruNode, nextLruNode);
-               OffHeapLruNode.setPrevious(nextLruNode, prevLruNode);
-            }
-            // Link the previous last node to our new last node
-            OffHeapLruNode.setNext(lastAddress, lruNode);
-            // Sets the previous node of our new tail node to the previous tail node
-            OffHeapLruNode.setPrevious(lruNode, lastAddress);
-            OffHeapLruNode.setNext(lruNode, 0);
-            lastAddress = lruNode;
+      void moveToEnd(long address) {
+         if (address != last) {
+            remove(address, 0);
+            addLast(address, 0);
          }
       }
    }
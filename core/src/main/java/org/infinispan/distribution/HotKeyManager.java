@@ -0,0 +1,72 @@
+package org.infinispan.distribution;
+
+import java.util.Collection;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * Tracks the keys that this node reads often from remote owners, and replicates them locally so that further reads
+ * don't need to contact the owners.
+ * <p>
+ * On the reading node, {@link #startReplication(Object)} counts every remote read, and when a key becomes hot it
+ * returns a token. The remote get then asks the owners to remember this node as a holder of the key, and
+ * {@link #completeReplication(Object, Object, InternalCacheEntry)} stores the replica. The replica is served by
+ * {@link #getReplica(Object)} until its lifespan expires, the topology changes or a write invalidates it.
+ * <p>
+ * On the owners, {@link #addHolder(Object, Address)} records the holders of each key and
+ * {@link #invalidate(Collection)} sends a {@link org.infinispan.commands.remote.InvalidateHotKeysCommand} to them
+ * after every write.
+ *
+ * @since 12.1
+ */
+@Scope(Scopes.NAMED_CACHE)
+public interface HotKeyManager {
+
+   /**
+    * @return the local replica of the key, or {@code null} if it is not replicated on this node or the replica is no
+    * longer valid.
+    */
+   InternalCacheEntry<Object, Object> getReplica(Object key);
+
+   /**
+    * Records a read of the key from a remote owner.
+    *
+    * @return a token to pass to {@link #completeReplication(Object, Object, InternalCacheEntry)} if the key is hot and
+    * should be replicated with the response, or {@code null} otherwise.
+    */
+   Object startReplication(Object key);
+
+   /**
+    * Stores the value read from a remote owner as the local replica of the key, unless a write invalidated the key
+    * after {@link #startReplication(Object)} returned the token.
+    *
+    * @param entry the entry read from the owner, or {@code null} if the key does not exist.
+    */
+   void completeReplication(Object key, Object token, InternalCacheEntry<Object, Object> entry);
+
+   /**
+    * Records that a node holds a replica of a key owned by this node.
+    */
+   void addHolder(Object key, Address holder);
+
+   /**
+    * Removes the local replicas of the keys and invalidates the replicas held by other nodes.
+    *
+    * @return a stage that completes when all the holders have removed their replicas.
+    */
+   CompletionStage<Void> invalidate(Collection<?> keys);
+
+   /**
+    * Removes the local replicas of the keys, on request from one of the owners.
+    */
+   void invalidateReplicas(Collection<?> keys);
+
+   /**
+    * Forgets all the replicas and holders, e.g. after the cache was cleared.
+    */
+   void clear();
+}
@@ -0,0 +1,38 @@
+package org.infinispan.distribution;
+
+import java.util.List;
+
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * Orders the owners of a key for a remote read, according to the configured
+ * {@link org.infinispan.configuration.cache.ReadPolicy}.
+ * <p>
+ * The read is sent to the first owner, and to the next ones only if the first does not reply in time. The selector
+ * tracks the latency of each owner when it is the first target, and the number of reads that are still waiting for
+ * a reply, so that it can steer the reads away from slow nodes.
+ *
+ * @since 12.1
+ */
+@Scope(Scopes.NAMED_CACHE)
+public interface ReadOwnerSelector {
+
+   /**
+    * @return the read owners, in the order in which they should be contacted.
+    */
+   List<Address> orderReadOwners(List<Address> readOwners);
+
+   /**
+    * Records the start of a read sent first to {@code target}.
+    *
+    * @return the start time, to pass to {@link #readCompleted(Address, long)}.
+    */
+   long readStarted(Address target);
+
+   /**
+    * Records the end of a read sent first to {@code target}, successful or not.
+    */
+   void readCompleted(Address target, long startNanos);
+}
@@ -0,0 +1,327 @@
+package org.infinispan.distribution.ch.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.interceptors.impl.SegmentLoadInterceptor;
+import org.infinispan.marshall.core.Ids;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * A {@link DefaultConsistentHashFactory} that balances the load of the segments instead of their number.
+ * <p>
+ * The load of a segment is a weight derived from the in-memory size of the segment and its access rate, which the
+ * coordinator collects periodically from the members with the {@link SegmentLoadInterceptor}. Without load
+ * statistics, e.g. when the cache is created, it behaves exactly like {@link DefaultConsistentHashFactory}.
+ * <p>
+ * When the ratio between the load of a member and its share of the total load (according to its capacity factor)
+ * exceeds {@link #getMaxLoadSkew()}, the coordinator starts a rebalance. The rebalance starts from the current owners
+ * and moves one segment at a time from the most loaded member to a less loaded one, picking the segment that brings
+ * their loads closest, so that only the segments needed to fix the skew are transferred. Afterwards it swaps primary
+ * owners with backup owners, which doesn't move any data, to balance the load of the primary owners as well.
+ *
+ * @since 12.1
+ */
+public class LoadAwareConsistentHashFactory extends DefaultConsistentHashFactory {
+   public static final float DEFAULT_MAX_LOAD_SKEW = 1.25f;
+
+   // Part of the load of every segment that doesn't depend on the statistics,
+   // so that segments without entries or accesses are still spread across the members
+   private static final float SEGMENT_WEIGHT = 0.1f;
+
+   private final float maxLoadSkew;
+
+   public LoadAwareConsistentHashFactory() {
+      this(DEFAULT_MAX_LOAD_SKEW);
+   }
+
+   /**
+    * @param maxLoadSkew the load skew of a member that triggers a rebalance, must be greater than 1
+    */
+   public LoadAwareConsistentHashFactory(float maxLoadSkew) {
+      if (maxLoadSkew <= 1)
+         throw new IllegalArgumentException("The maximum load skew must be greater than 1");
+      this.maxLoadSkew = maxLoadSkew;
+   }
+
+   public float getMaxLoadSkew() {
+      return maxLoadSkew;
+   }
+
+   /**
+    * Moves segments and primary ownership so that the load of every member is proportional to its capacity factor.
+    *
+    * @param baseCH       the consistent hash to start from
+    * @param segmentLoads the load of every segment, or {@code null} to balance the number of segments
+    */
+   public DefaultConsistentHash rebalance(DefaultConsistentHash baseCH, float[] segmentLoads) {
+      if (segmentLoads == null || segmentLoads.length != baseCH.getNumSegments())
+         return rebalance(baseCH);
+
+      Builder builder = new Builder(baseCH);
+      if (!hasAllOwners(builder)) {
+         // Leavers or joiners, start from a balanced number of segments
+         rebalanceBuilder(builder);
+      }
+
+      // Stop well below the skew that triggers a rebalance, so that small load changes don't trigger another one
+      float balancedSkew = 1 + (maxLoadSkew - 1) / 5;
+      balanceOwnedLoad(builder, segmentLoads, balancedSkew);
+      balancePrimaryLoad(builder, segmentLoads, balancedSkew);
+
+      DefaultConsistentHash balancedCH = builder.build();
+      return balancedCH.equals(baseCH) ? baseCH : balancedCH;
+   }
+
+   private boolean hasAllOwners(Builder builder) {
+      for (int segment = 0; segment < builder.getNumSegments(); segment++) {
+         if (builder.getOwners(segment).size() != builder.getActualNumOwners())
+            return false;
+      }
+      return true;
+   }
+
+   private void balanceOwnedLoad(Builder builder, float[] segmentLoads, float balancedSkew) {
+      SegmentLoadStatistics stats = loadStatistics(builder, segmentLoads);
+      List<Address> members = builder.getMembers();
+      float totalCapacity = totalCapacity(members, builder.getCapacityFactors());
+      int maxMoves = builder.getNumSegments() * builder.getActualNumOwners();
+      for (int move = 0; move < maxMoves; move++) {
+         Address worst = null;
+         float worstSkew = -1;
+         for (Address member : members) {
+            float skew = stats.getOwnedLoadSkew(member, builder.getCapacityFactors(), totalCapacity);
+            if (skew > worstSkew) {
+               worst = member;
+               worstSkew = skew;
+            }
+         }
+         if (worst == null || worstSkew <= balancedSkew)
+            return;
+
+         // Find the move that minimizes the highest skew of the two members
+         int bestSegment = -1;
+         Address bestTarget = null;
+         float bestSkew = worstSkew;
+         float worstExpected = expectedLoad(stats.sumOwnedLoad(), worst, builder, totalCapacity);
+         for (Address target : members) {
+            float targetExpected = expectedLoad(stats.sumOwnedLoad(), target, builder, totalCapacity);
+            if (target.equals(worst) || targetExpected == 0)
+               continue;
+
+            for (int segment = 0; segment < builder.getNumSegments(); segment++) {
+               List<Address> owners = builder.getOwners(segment);
+               float load = segmentLoads[segment];
+               if (load == 0 || !owners.contains(worst) || owners.contains(target))
+                  continue;
+
+               float newWorstSkew = worstExpected != 0 ? (stats.getOwnedLoad(worst) - load) / worstExpected : 0;
+               float newTargetSkew = (stats.getOwnedLoad(target) + load) / targetExpected;
+               float skew = Math.max(newWorstSkew, newTargetSkew);
+               if (skew < bestSkew) {
+                  bestSkew = skew;
+                  bestSegment = segment;
+                  bestTarget = target;
+               }
+            }
+         }
+         if (bestSegment < 0)
+            return;
+
+         moveOwner(builder, stats, bestSegment, worst, bestTarget);
+      }
+   }
+
+   private void moveOwner(Builder builder, SegmentLoadStatistics stats, int segment, Address from, Address to) {
+      boolean primary = builder.getPrimaryOwner(segment).equals(from);
+      if (primary) {
+         // Add the new primary first, so the removed owner is a backup and the statistics stay consistent
+         builder.addPrimaryOwner(segment, to);
+         builder.removeOwner(segment, from);
+      } else {
+         builder.removeOwner(segment, from);
+         builder.addOwner(segment, to);
+      }
+      stats.removeOwner(segment, from, primary);
+      stats.addOwner(segment, to, primary);
+   }
+
+   private void balancePrimaryLoad(Builder builder, float[] segmentLoads, float balancedSkew) {
+      SegmentLoadStatistics stats = loadStatistics(builder, segmentLoads);
+      List<Address> members = builder.getMembers();
+      float totalCapacity = totalCapacity(members, builder.getCapacityFactors());
+      for (int swap = 0; swap < builder.getNumSegments(); swap++) {
+         Address worst = null;
+         float worstSkew = -1;
+         for (Address member : members) {
+            float skew = stats.getPrimaryLoadSkew(member, builder.getCapacityFactors(), totalCapacity);
+            if (skew > worstSkew) {
+               worst = member;
+               worstSkew = skew;
+            }
+         }
+         if (worst == null || worstSkew <= balancedSkew)
+            return;
+
+         int bestSegment = -1;
+         Address bestBackup = null;
+         float bestSkew = worstSkew;
+         float worstExpected = expectedLoad(stats.sumPrimaryLoad(), worst, builder, totalCapacity);
+         for (int segment = 0; segment < builder.getNumSegments(); segment++) {
+            float load = segmentLoads[segment];
+            if (load == 0 || !builder.getPrimaryOwner(segment).equals(worst))
+               continue;
+
+            for (Address backup : builder.getBackupOwners(segment)) {
+               float backupExpected = expectedLoad(stats.sumPrimaryLoad(), backup, builder, totalCapacity);
+               if (backupExpected == 0)
+                  continue;
+
+               float newWorstSkew = worstExpected != 0 ? (stats.getPrimaryLoad(worst) - load) / worstExpected : 0;
+               float newBackupSkew = (stats.getPrimaryLoad(backup) + load) / backupExpected;
+               float skew = Math.max(newWorstSkew, newBackupSkew);
+               if (skew < bestSkew) {
+                  bestSkew = skew;
+                  bestSegment = segment;
+                  bestBackup = backup;
+               }
+            }
+         }
+         if (bestSegment < 0)
+            return;
+
+         builder.replacePrimaryOwnerWithBackup(bestSegment, bestBackup);
+         stats.replacePrimaryOwner(bestSegment, worst, bestBackup);
+      }
+   }
+
+   private static SegmentLoadStatistics loadStatistics(Builder builder, float[] segmentLoads) {
+      SegmentLoadStatistics stats = new SegmentLoadStatistics(builder.getMembers(), segmentLoads);
+      for (int segment = 0; segment < builder.getNumSegments(); segment++) {
+         List<Address> owners = builder.getOwners(segment);
+         for (int i = 0; i < owners.size(); i++) {
+            stats.addOwner(segment, owners.get(i), i == 0);
+         }
+      }
+      return stats;
+   }
+
+   private static float expectedLoad(float sumLoad, Address member, Builder builder, float totalCapacity) {
+      return sumLoad * builder.getCapacityFactor(member) / totalCapacity;
+   }
+
+   private static float totalCapacity(Collection<Address> members, Map<Address, Float> capacityFactors) {
+      float totalCapacity = 0;
+      for (Address member : members) {
+         totalCapacity += SegmentLoadStatistics.capacityFactor(member, capacityFactors);
+      }
+      return totalCapacity;
+   }
+
+   /**
+    * Combines the statistics collected from the members with {@link SegmentLoadInterceptor#getSegmentLoads()}.
+    * <p>
+    * The size of a segment is the largest size reported by its owners, and its access count is the sum of the access
+    * counts reported by all the members. The load of a segment is the sum of its share of the total size and its share
+    * of the total access count, so the loads of all the segments add up to 1.
+    *
+    * @return the load of every segment, or {@code null} if there are no statistics
+    */
+   public static float[] computeSegmentLoads(int numSegments, Collection<long[]> memberStatistics) {
+      long[] bytes = new long[numSegments];
+      long[] accesses = new long[numSegments];
+      for (long[] statistics : memberStatistics) {
+         if (statistics == null || statistics.length != 2 * numSegments)
+            continue;
+
+         for (int segment = 0; segment < numSegments; segment++) {
+            bytes[segment] = Math.max(bytes[segment], statistics[segment]);
+            accesses[segment] += statistics[numSegments + segment];
+         }
+      }
+      long totalBytes = 0;
+      long totalAccesses = 0;
+      for (int segment = 0; segment < numSegments; segment++) {
+         totalBytes += bytes[segment];
+         totalAccesses += accesses[segment];
+      }
+      int components = (totalBytes > 0 ? 1 : 0) + (totalAccesses > 0 ? 1 : 0);
+      if (components == 0)
+         return null;
+
+      float[] loads = new float[numSegments];
+      for (int segment = 0; segment < numSegments; segment++) {
+         float share = 0;
+         if (totalBytes > 0) {
+            share += (float) bytes[segment] / totalBytes;
+         }
+         if (totalAccesses > 0) {
+            share += (float) accesses[segment] / totalAccesses;
+         }
+         loads[segment] = SEGMENT_WEIGHT / numSegments + (1 - SEGMENT_WEIGHT) * share / components;
+      }
+      return loads;
+   }
+
+   /**
+    * @return the load skew of every member of the consistent hash, i.e. the ratio between the load of the segments it
+    * owns and its share of the total load according to its capacity factor
+    */
+   public static Map<Address, Float> computeLoadSkew(ConsistentHash ch, float[] segmentLoads) {
+      List<Address> members = ch.getMembers();
+      SegmentLoadStatistics stats = new SegmentLoadStatistics(ch, members, segmentLoads);
+      float totalCapacity = totalCapacity(members, ch.getCapacityFactors());
+      Map<Address, Float> skew = new HashMap<>(members.size() * 4 / 3 + 1);
+      for (Address member : members) {
+         skew.put(member, stats.getOwnedLoadSkew(member, ch.getCapacityFactors(), totalCapacity));
+      }
+      return skew;
+   }
+
+   @Override
+   public boolean equals(Object other) {
+      return super.equals(other) && ((LoadAwareConsistentHashFactory) other).maxLoadSkew == maxLoadSkew;
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * super.hashCode() + Float.hashCode(maxLoadSkew);
+   }
+
+   @Override
+   public String toString() {
+      return "LoadAwareConsistentHashFactory{maxLoadSkew=" + maxLoadSkew + '}';
+   }
+
+   public static class Externalizer extends AbstractExternalizer<LoadAwareConsistentHashFactory> {
+
+      @Override
+      public void writeObject(ObjectOutput output, LoadAwareConsistentHashFactory chf) throws IOException {
+         output.writeFloat(chf.maxLoadSkew);
+      }
+
+      @Override
+      public LoadAwareConsistentHashFactory readObject(ObjectInput unmarshaller) throws IOException {
+         return new LoadAwareConsistentHashFactory(unmarshaller.readFloat());
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.LOAD_AWARE_CONSISTENT_HASH_FACTORY;
+      }
+
+      @Override
+      public Set<Class<? extends LoadAwareConsistentHashFactory>> getTypeClasses() {
+         return Collections.singleton(LoadAwareConsistentHashFactory.class);
+      }
+   }
+}
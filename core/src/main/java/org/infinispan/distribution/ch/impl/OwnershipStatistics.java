@@ -69,6 +69,13 @@ public OwnershipStatistics(OwnershipStatistics other) {
       this.sumOwned = other.sumOwned;
    }
 
+   /**
+    * @return the index of the node in the list of nodes, or {@code -1} if the statistics don't include the node
+    */
+   protected int getNodeIndex(Address a) {
+      Integer i = nodesMap.get(a);
+      return i != null ? i : -1;
+   }
 
    public int getPrimaryOwned(Address a) {
       Integer i = nodesMap.get(a);
@@ -0,0 +1,150 @@
+package org.infinispan.distribution.ch.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.remoting.transport.Address;
+
+/**
+ * Extends {@link OwnershipStatistics} with the load of the segments owned or primary-owned by each member.
+ * <p>
+ * The load of a segment is a weight derived from its size and access rate, see
+ * {@link LoadAwareConsistentHashFactory#computeSegmentLoads(int, java.util.Collection)}.
+ *
+ * @since 12.1
+ */
+public class SegmentLoadStatistics extends OwnershipStatistics {
+   private final float[] segmentLoads;
+   private final float[] primaryLoad;
+   private final float[] ownedLoad;
+   private float sumPrimaryLoad;
+   private float sumOwnedLoad;
+
+   public SegmentLoadStatistics(List<Address> nodes, float[] segmentLoads) {
+      super(nodes);
+      this.segmentLoads = segmentLoads;
+      this.primaryLoad = new float[nodes.size()];
+      this.ownedLoad = new float[nodes.size()];
+   }
+
+   public SegmentLoadStatistics(ConsistentHash ch, List<Address> activeNodes, float[] segmentLoads) {
+      this(activeNodes, segmentLoads);
+      if (segmentLoads.length != ch.getNumSegments())
+         throw new IllegalArgumentException("Expected the loads of " + ch.getNumSegments() + " segments, got " +
+                                            segmentLoads.length);
+
+      for (int segment = 0; segment < ch.getNumSegments(); segment++) {
+         List<Address> owners = ch.locateOwnersForSegment(segment);
+         for (int i = 0; i < owners.size(); i++) {
+            if (getNodeIndex(owners.get(i)) >= 0) {
+               addOwner(segment, owners.get(i), i == 0);
+            }
+         }
+      }
+   }
+
+   public float getSegmentLoad(int segment) {
+      return segmentLoads[segment];
+   }
+
+   public float getPrimaryLoad(Address a) {
+      int i = getNodeIndex(a);
+      return i >= 0 ? primaryLoad[i] : 0;
+   }
+
+   public float getOwnedLoad(Address a) {
+      int i = getNodeIndex(a);
+      return i >= 0 ? ownedLoad[i] : 0;
+   }
+
+   public float sumPrimaryLoad() {
+      return sumPrimaryLoad;
+   }
+
+   public float sumOwnedLoad() {
+      return sumOwnedLoad;
+   }
+
+   public void addOwner(int segment, Address a, boolean primary) {
+      int i = checkNodeIndex(a);
+      float load = segmentLoads[segment];
+      incOwned(i, primary);
+      ownedLoad[i] += load;
+      sumOwnedLoad += load;
+      if (primary) {
+         primaryLoad[i] += load;
+         sumPrimaryLoad += load;
+      }
+   }
+
+   public void removeOwner(int segment, Address a, boolean primary) {
+      int i = checkNodeIndex(a);
+      float load = segmentLoads[segment];
+      decOwned(i);
+      ownedLoad[i] -= load;
+      sumOwnedLoad -= load;
+      if (primary) {
+         decPrimaryOwned(i);
+         primaryLoad[i] -= load;
+         sumPrimaryLoad -= load;
+      }
+   }
+
+   /**
+    * Makes a backup owner the primary owner of a segment, without changing the owned segments.
+    */
+   public void replacePrimaryOwner(int segment, Address oldPrimary, Address newPrimary) {
+      int oldIndex = checkNodeIndex(oldPrimary);
+      int newIndex = checkNodeIndex(newPrimary);
+      float load = segmentLoads[segment];
+      decPrimaryOwned(oldIndex);
+      primaryLoad[oldIndex] -= load;
+      incPrimaryOwned(newIndex);
+      primaryLoad[newIndex] += load;
+   }
+
+   /**
+    * @return the ratio between the load owned by a node and its share of the total owned load, according to its
+    * capacity factor. A node with exactly its share of the load has a skew of 1.
+    */
+   public float getOwnedLoadSkew(Address a, Map<Address, Float> capacityFactors, float totalCapacity) {
+      return skew(getOwnedLoad(a), sumOwnedLoad, capacityFactor(a, capacityFactors), totalCapacity);
+   }
+
+   /**
+    * @return the ratio between the load primary-owned by a node and its share of the total primary-owned load.
+    */
+   public float getPrimaryLoadSkew(Address a, Map<Address, Float> capacityFactors, float totalCapacity) {
+      return skew(getPrimaryLoad(a), sumPrimaryLoad, capacityFactor(a, capacityFactors), totalCapacity);
+   }
+
+   static float capacityFactor(Address a, Map<Address, Float> capacityFactors) {
+      return capacityFactors != null ? capacityFactors.get(a) : 1;
+   }
+
+   private static float skew(float load, float sumLoad, float capacityFactor, float totalCapacity) {
+      float expectedLoad = sumLoad * capacityFactor / totalCapacity;
+      if (expectedLoad == 0) {
+         return load > 0 ? Float.POSITIVE_INFINITY : 0;
+      }
+      return load / expectedLoad;
+   }
+
+   private int checkNodeIndex(Address a) {
+      int i = getNodeIndex(a);
+      if (i < 0)
+         throw new IllegalArgumentException("Trying to modify statistics for a node that doesn't exist: " + a);
+      return i;
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder sb = new StringBuilder("SegmentLoadStatistics{");
+      sb.append(super.toString());
+      sb.append(", ownedLoad=").append(sumOwnedLoad);
+      sb.append(", primaryLoad=").append(sumPrimaryLoad);
+      sb.append('}');
+      return sb.toString();
+   }
+}
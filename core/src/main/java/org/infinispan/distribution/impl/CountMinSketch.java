@@ -0,0 +1,81 @@
+package org.infinispan.distribution.impl;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.infinispan.commons.hash.MurmurHash3;
+
+/**
+ * A count-min sketch, estimating how many times each key was recorded with a fixed amount of memory.
+ * <p>
+ * Every key increments one counter in each of the {@link #DEPTH} rows, and its estimate is the minimum of those
+ * counters. The estimate is never lower than the actual count, and it is higher only if other keys collide with the
+ * key in every row. {@link #decay(int)} divides all the counters, so recent occurrences weigh more than old ones.
+ * <p>
+ * The counters are updated atomically, but {@link #decay(int)} is not atomic with respect to concurrent increments.
+ *
+ * @since 12.1
+ */
+class CountMinSketch {
+   static final int DEPTH = 4;
+
+   private final AtomicIntegerArray counters;
+   private final int width;
+   private final int mask;
+
+   /**
+    * @param width the number of counters in each row, rounded up to a power of 2
+    */
+   CountMinSketch(int width) {
+      if (width <= 0)
+         throw new IllegalArgumentException("The width must be positive, was " + width);
+
+      this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+      this.mask = this.width - 1;
+      this.counters = new AtomicIntegerArray(DEPTH * this.width);
+   }
+
+   /**
+    * Records one occurrence of a key.
+    *
+    * @return the estimated number of occurrences of the key, including this one
+    */
+   int increment(Object key) {
+      int hash = MurmurHash3.getInstance().hash(key.hashCode());
+      int hash2 = Integer.rotateLeft(hash, 16) | 1;
+      int estimate = Integer.MAX_VALUE;
+      for (int row = 0; row < DEPTH; row++) {
+         int index = row * width + ((hash + row * hash2) & mask);
+         int count = counters.updateAndGet(index, c -> c == Integer.MAX_VALUE ? c : c + 1);
+         estimate = Math.min(estimate, count);
+      }
+      return estimate;
+   }
+
+   /**
+    * @return the estimated number of occurrences of a key
+    */
+   int estimate(Object key) {
+      int hash = MurmurHash3.getInstance().hash(key.hashCode());
+      int hash2 = Integer.rotateLeft(hash, 16) | 1;
+      int estimate = Integer.MAX_VALUE;
+      for (int row = 0; row < DEPTH; row++) {
+         int index = row * width + ((hash + row * hash2) & mask);
+         estimate = Math.min(estimate, counters.get(index));
+      }
+      return estimate;
+   }
+
+   /**
+    * Divides all the counters by {@code 2^shift}.
+    */
+   void decay(int shift) {
+      int s = Math.min(shift, Integer.SIZE - 1);
+      for (int i = 0; i < counters.length(); i++) {
+         counters.getAndUpdate(i, c -> c >>> s);
+      }
+   }
+
+   int width() {
+      return width;
+   }
+}
@@ -0,0 +1,329 @@
+package org.infinispan.distribution.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.remote.InvalidateHotKeysCommand;
+import org.infinispan.commons.time.TimeService;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.HotKeyManager;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.impl.VoidResponseCollector;
+import org.infinispan.util.concurrent.CompletableFutures;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Default {@link HotKeyManager} implementation.
+ * <p>
+ * The remote reads are counted in a {@link CountMinSketch}, and the counters are halved every second, so the estimate
+ * of a key is between its rate and twice its rate in reads per second. A key is hot when its estimate reaches
+ * {@link org.infinispan.configuration.cache.ClusteringConfiguration#hotKeyThreshold()}.
+ * <p>
+ * The replicas are only valid in the topology in which they were read, because a new owner doesn't know about the
+ * holders of the keys it receives. The owners forget the holders a bit later than the holders' lifespan expires,
+ * to cover the time between the registration of the holder and the start of the replica's lifespan.
+ *
+ * @since 12.1
+ */
+@Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "HotKeys", description = "Keys read often from remote owners and replicated locally")
+public class HotKeyManagerImpl implements HotKeyManager {
+   private static final Log log = LogFactory.getLog(HotKeyManagerImpl.class);
+   static final long DECAY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+   static final int SKETCH_WIDTH = 4096;
+
+   @Inject Configuration configuration;
+   @Inject RpcManager rpcManager;
+   @Inject CommandsFactory commandsFactory;
+   @Inject DistributionManager distributionManager;
+   @Inject TimeService timeService;
+   @Inject @ComponentName(KnownComponentNames.EXPIRATION_SCHEDULED_EXECUTOR)
+   ScheduledExecutorService scheduledExecutor;
+
+   private final CountMinSketch sketch = new CountMinSketch(SKETCH_WIDTH);
+   // Values are either Replica or Pending instances
+   private final ConcurrentMap<Object, Object> replicas = new ConcurrentHashMap<>();
+   private final ConcurrentMap<Object, ConcurrentMap<Address, Long>> holders = new ConcurrentHashMap<>();
+   private final LongAdder replicaHits = new LongAdder();
+   private final LongAdder invalidations = new LongAdder();
+
+   private int threshold;
+   private long lifespan;
+   private long holderLifespan;
+   private volatile long lastDecayNanos;
+   private ScheduledFuture<?> cleanupTask;
+
+   @Start
+   public void start() {
+      threshold = configuration.clustering().hotKeyThreshold();
+      lifespan = configuration.clustering().hotKeyLifespan();
+      holderLifespan = lifespan + configuration.clustering().remoteTimeout();
+      lastDecayNanos = timeService.time();
+      cleanupTask = scheduledExecutor.scheduleAtFixedRate(this::cleanUp, lifespan, lifespan, TimeUnit.MILLISECONDS);
+   }
+
+   @Stop
+   public void stop() {
+      if (cleanupTask != null) cleanupTask.cancel(true);
+      clear();
+   }
+
+   @Override
+   public InternalCacheEntry<Object, Object> getReplica(Object key) {
+      Object value = replicas.get(key);
+      if (!(value instanceof Replica))
+         return null;
+
+      Replica replica = (Replica) value;
+      long now = timeService.wallClockTime();
+      if (replica.expiryTime <= now || replica.topologyId != currentTopologyId() || replica.entry.isExpired(now)) {
+         replicas.remove(key, replica);
+         return null;
+      }
+      // Keep counting the local reads, so that the key is replicated again as soon as the replica expires
+      recordRead(key);
+      replicaHits.increment();
+      return replica.entry;
+   }
+
+   @Override
+   public Object startReplication(Object key) {
+      if (recordRead(key) < threshold)
+         return null;
+
+      Object current = replicas.get(key);
+      if (current instanceof Pending)
+         // Another read is already replicating the key
+         return null;
+
+      Pending token = new Pending(timeService.wallClockTime(), currentTopologyId());
+      boolean started = current == null ? replicas.putIfAbsent(key, token) == null : replicas.replace(key, current, token);
+      if (!started)
+         return null;
+
+      if (log.isTraceEnabled()) log.tracef("Replicating hot key %s", key);
+      return token;
+   }
+
+   @Override
+   public void completeReplication(Object key, Object token, InternalCacheEntry<Object, Object> entry) {
+      Pending pending = (Pending) token;
+      // Local reads would not update the last access time on the owners
+      if (entry == null || entry.canExpireMaxIdle() || pending.topologyId != currentTopologyId()) {
+         replicas.remove(key, pending);
+         return;
+      }
+      // Fails if a write invalidated the key in the meantime
+      replicas.replace(key, pending, new Replica(entry, pending.startTime + lifespan, pending.topologyId));
+   }
+
+   @Override
+   public void addHolder(Object key, Address holder) {
+      long now = timeService.wallClockTime();
+      holders.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(holder, now);
+   }
+
+   @Override
+   public CompletionStage<Void> invalidate(Collection<?> keys) {
+      List<Object> heldKeys = null;
+      Set<Address> targets = null;
+      for (Object key : keys) {
+         replicas.remove(key);
+         Map<Address, Long> keyHolders = holders.remove(key);
+         if (keyHolders != null) {
+            if (heldKeys == null) {
+               heldKeys = new ArrayList<>();
+               targets = new HashSet<>();
+            }
+            heldKeys.add(key);
+            targets.addAll(keyHolders.keySet());
+         }
+      }
+      if (heldKeys == null)
+         return CompletableFutures.completedNull();
+
+      targets.remove(rpcManager.getAddress());
+      if (targets.isEmpty())
+         return CompletableFutures.completedNull();
+
+      if (log.isTraceEnabled()) log.tracef("Invalidating hot keys %s on nodes %s", heldKeys, targets);
+      invalidations.increment();
+      InvalidateHotKeysCommand command = commandsFactory.buildInvalidateHotKeysCommand(heldKeys);
+      // Nodes leaving the cluster can't read their replicas any more
+      return rpcManager.invokeCommand(targets, command, VoidResponseCollector.ignoreLeavers(),
+                                      rpcManager.getSyncRpcOptions());
+   }
+
+   @Override
+   public void invalidateReplicas(Collection<?> keys) {
+      for (Object key : keys) {
+         replicas.remove(key);
+      }
+   }
+
+   @Override
+   public void clear() {
+      replicas.clear();
+      holders.clear();
+   }
+
+   private int recordRead(Object key) {
+      long now = timeService.time();
+      if (now - lastDecayNanos >= DECAY_INTERVAL_NANOS) {
+         decay(now);
+      }
+      return sketch.increment(key);
+   }
+
+   private synchronized void decay(long now) {
+      long intervals = (now - lastDecayNanos) / DECAY_INTERVAL_NANOS;
+      if (intervals <= 0)
+         return;
+
+      lastDecayNanos += intervals * DECAY_INTERVAL_NANOS;
+      sketch.decay((int) Math.min(intervals, Integer.SIZE - 1));
+   }
+
+   private void cleanUp() {
+      long now = timeService.wallClockTime();
+      int topologyId = currentTopologyId();
+      replicas.forEach((key, value) -> {
+         if (value instanceof Replica) {
+            Replica replica = (Replica) value;
+            if (replica.expiryTime <= now || replica.topologyId != topologyId) {
+               replicas.remove(key, value);
+            }
+         } else if (((Pending) value).startTime + lifespan <= now) {
+            // The remote get failed without completing the replication
+            replicas.remove(key, value);
+         }
+      });
+      long holderExpiryTime = now - holderLifespan;
+      holders.forEach((key, keyHolders) -> {
+         keyHolders.values().removeIf(registrationTime -> registrationTime < holderExpiryTime);
+         if (keyHolders.isEmpty()) {
+            holders.remove(key, keyHolders);
+         }
+      });
+   }
+
+   private int currentTopologyId() {
+      return distributionManager.getCacheTopology().getTopologyId();
+   }
+
+   @ManagedAttribute(
+         description = "Keys read often from remote owners and currently replicated on this node",
+         displayName = "Hot keys"
+   )
+   public Collection<String> getHotKeys() {
+      List<String> hotKeys = new ArrayList<>();
+      replicas.forEach((key, value) -> {
+         if (value instanceof Replica) {
+            hotKeys.add(String.valueOf(key));
+         }
+      });
+      return hotKeys;
+   }
+
+   @ManagedAttribute(
+         description = "Number of keys read often from remote owners and currently replicated on this node",
+         displayName = "Number of hot keys"
+   )
+   public int getNumberOfHotKeys() {
+      int count = 0;
+      for (Object value : replicas.values()) {
+         if (value instanceof Replica) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   @ManagedAttribute(
+         description = "Number of other nodes holding a replica of each hot key owned by this node",
+         displayName = "Hot key fan-out"
+   )
+   public Collection<String> getHotKeyFanOut() {
+      List<String> fanOut = new ArrayList<>(holders.size());
+      holders.forEach((key, keyHolders) -> fanOut.add(key + "=" + keyHolders.size()));
+      return fanOut;
+   }
+
+   @ManagedAttribute(
+         description = "Maximum number of other nodes holding a replica of a hot key owned by this node",
+         displayName = "Maximum hot key fan-out"
+   )
+   public int getMaxHotKeyFanOut() {
+      int max = 0;
+      for (ConcurrentMap<Address, Long> keyHolders : holders.values()) {
+         max = Math.max(max, keyHolders.size());
+      }
+      return max;
+   }
+
+   @ManagedAttribute(
+         description = "Number of reads served by the local replica of a hot key",
+         displayName = "Hot key replica hits",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getReplicaHits() {
+      return replicaHits.sum();
+   }
+
+   @ManagedAttribute(
+         description = "Number of writes that invalidated the replicas of hot keys owned by this node",
+         displayName = "Hot key invalidations",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getInvalidations() {
+      return invalidations.sum();
+   }
+
+   private static class Pending {
+      final long startTime;
+      final int topologyId;
+
+      Pending(long startTime, int topologyId) {
+         this.startTime = startTime;
+         this.topologyId = topologyId;
+      }
+   }
+
+   private static class Replica {
+      final InternalCacheEntry<Object, Object> entry;
+      final long expiryTime;
+      final int topologyId;
+
+      Replica(InternalCacheEntry<Object, Object> entry, long expiryTime, int topologyId) {
+         this.entry = entry;
+         this.expiryTime = expiryTime;
+         this.topologyId = topologyId;
+      }
+   }
+}
@@ -0,0 +1,208 @@
+package org.infinispan.distribution.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.commons.time.TimeService;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ReadPolicy;
+import org.infinispan.distribution.ReadOwnerSelector;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.annotation.TopologyChanged;
+import org.infinispan.notifications.cachelistener.event.TopologyChangedEvent;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.TopologyAwareAddress;
+
+/**
+ * Default {@link ReadOwnerSelector} implementation.
+ * <p>
+ * The latency of each owner is an exponentially weighted moving average of the reads sent first to it. When the
+ * owner is slow, the staggered request also reaches the next owner, so the measured latency includes the stagger
+ * delay. A latency is forgotten if it was not updated for a second, so that an owner that was slow is tried again.
+ *
+ * @since 12.1
+ */
+@Listener(observation = Listener.Observation.POST)
+@Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "ReadOwnerSelector", description = "Selection of the owner that receives the remote reads")
+public class ReadOwnerSelectorImpl implements ReadOwnerSelector {
+   // An owner is skipped by ROUND_ROBIN if its latency is this many times the latency of the fastest owner
+   static final int SLOW_FACTOR = 3;
+   static final long STALE_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   @Inject Configuration configuration;
+   @Inject RpcManager rpcManager;
+   @Inject TimeService timeService;
+   @Inject CacheNotifier<?, ?> cacheNotifier;
+
+   private final ConcurrentMap<Address, TargetStatistics> statistics = new ConcurrentHashMap<>();
+   private final AtomicInteger nextIndex = new AtomicInteger();
+   private ReadPolicy policy;
+
+   @Start
+   public void start() {
+      policy = configuration.clustering().readPolicy();
+      cacheNotifier.addListener(this);
+   }
+
+   @TopologyChanged
+   public void onTopologyChange(TopologyChangedEvent<?, ?> event) {
+      // Forget the nodes that left
+      statistics.keySet().retainAll(event.getWriteConsistentHashAtEnd().getMembers());
+   }
+
+   @Override
+   public List<Address> orderReadOwners(List<Address> readOwners) {
+      if (readOwners.size() <= 1)
+         return readOwners;
+
+      long now = timeService.time();
+      switch (policy) {
+         case ROUND_ROBIN:
+            return roundRobin(readOwners, now);
+         case LEAST_OUTSTANDING:
+            return sort(readOwners, Comparator.comparingLong(a -> (outstanding(a) + 1) * (latency(a, now) + 1)));
+         case NEAREST:
+            Address self = rpcManager.getAddress();
+            return sort(readOwners, Comparator.<Address>comparingInt(a -> distance(self, a))
+                                              .thenComparingLong(a -> latency(a, now)));
+         default:
+            return readOwners;
+      }
+   }
+
+   @Override
+   public long readStarted(Address target) {
+      statistics.computeIfAbsent(target, a -> new TargetStatistics()).outstanding.incrementAndGet();
+      return timeService.time();
+   }
+
+   @Override
+   public void readCompleted(Address target, long startNanos) {
+      TargetStatistics targetStatistics = statistics.get(target);
+      if (targetStatistics == null)
+         // The target left the cluster
+         return;
+
+      long now = timeService.time();
+      long sample = timeService.timeDuration(startNanos, now, TimeUnit.NANOSECONDS);
+      targetStatistics.outstanding.decrementAndGet();
+      // Same weight as the TCP smoothed round-trip time, 1/8
+      targetStatistics.latency.updateAndGet(latency -> latency == 0 ? sample : latency + (sample - latency) / 8);
+      targetStatistics.lastUpdate = now;
+   }
+
+   private List<Address> roundRobin(List<Address> readOwners, long now) {
+      int size = readOwners.size();
+      int start = Math.floorMod(nextIndex.getAndIncrement(), size);
+      long fastestLatency = Long.MAX_VALUE;
+      for (Address owner : readOwners) {
+         long latency = latency(owner, now);
+         if (latency > 0) {
+            fastestLatency = Math.min(fastestLatency, latency);
+         }
+      }
+      List<Address> ordered = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         ordered.add(readOwners.get((start + i) % size));
+      }
+      if (fastestLatency == Long.MAX_VALUE)
+         return ordered;
+
+      // Move the first owner that is not too slow in front
+      for (int i = 0; i < size; i++) {
+         if (latency(ordered.get(i), now) <= SLOW_FACTOR * fastestLatency) {
+            if (i > 0) {
+               ordered.add(0, ordered.remove(i));
+            }
+            break;
+         }
+      }
+      return ordered;
+   }
+
+   private static List<Address> sort(List<Address> readOwners, Comparator<Address> comparator) {
+      List<Address> ordered = new ArrayList<>(readOwners);
+      // The sort is stable, so the primary owner stays first if it is as good as the others
+      ordered.sort(comparator);
+      return ordered;
+   }
+
+   private long latency(Address target, long now) {
+      TargetStatistics targetStatistics = statistics.get(target);
+      if (targetStatistics == null || now - targetStatistics.lastUpdate > STALE_LATENCY_NANOS)
+         return 0;
+      return targetStatistics.latency.get();
+   }
+
+   private long outstanding(Address target) {
+      TargetStatistics targetStatistics = statistics.get(target);
+      return targetStatistics != null ? Math.max(targetStatistics.outstanding.get(), 0) : 0;
+   }
+
+   private static int distance(Address self, Address target) {
+      if (!(self instanceof TopologyAwareAddress) || !(target instanceof TopologyAwareAddress))
+         return 0;
+
+      TopologyAwareAddress selfAddress = (TopologyAwareAddress) self;
+      TopologyAwareAddress targetAddress = (TopologyAwareAddress) target;
+      if (selfAddress.isSameMachine(targetAddress))
+         return 0;
+      if (selfAddress.isSameRack(targetAddress))
+         return 1;
+      if (selfAddress.isSameSite(targetAddress))
+         return 2;
+      return 3;
+   }
+
+   @ManagedAttribute(
+         description = "Policy used to select the owner that receives a remote read first",
+         displayName = "Read policy"
+   )
+   public String getReadPolicy() {
+      return policy.toString();
+   }
+
+   @ManagedAttribute(
+         description = "Average latency in microseconds of the remote reads sent first to each owner",
+         displayName = "Remote read latency by owner"
+   )
+   public Collection<String> getReadLatencies() {
+      List<String> latencies = new ArrayList<>(statistics.size());
+      statistics.forEach((address, targetStatistics) ->
+            latencies.add(address + "=" + TimeUnit.NANOSECONDS.toMicros(targetStatistics.latency.get())));
+      return latencies;
+   }
+
+   @ManagedAttribute(
+         description = "Number of remote reads sent first to each owner and still waiting for a reply",
+         displayName = "Outstanding remote reads by owner"
+   )
+   public Collection<String> getOutstandingReads() {
+      List<String> outstanding = new ArrayList<>(statistics.size());
+      statistics.forEach((address, targetStatistics) ->
+            outstanding.add(address + "=" + targetStatistics.outstanding.get()));
+      return outstanding;
+   }
+
+   private static class TargetStatistics {
+      final AtomicInteger outstanding = new AtomicInteger();
+      final AtomicLong latency = new AtomicLong();
+      volatile long lastUpdate;
+   }
+}
@@ -13,6 +13,7 @@
 import org.infinispan.factories.scopes.Scopes;
 import org.infinispan.interceptors.AsyncInterceptorChain;
 import org.infinispan.interceptors.impl.CacheMgmtInterceptor;
+import org.infinispan.interceptors.impl.SegmentLoadInterceptor;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 
 import net.jcip.annotations.ThreadSafe;
@@ -30,6 +31,11 @@ public CompletionStage<Void> onEntryEviction(Map<K, Map.Entry<K,V>> evicted, Fla
       if (cfg.statistics().enabled()) {
          updateEvictionStatistics(evicted);
       }
+      SegmentLoadInterceptor segmentLoadInterceptor =
+            interceptorChain.running().findInterceptorExtending(SegmentLoadInterceptor.class);
+      if (segmentLoadInterceptor != null) {
+         segmentLoadInterceptor.entriesEvicted(evicted.values());
+      }
 
       return stage;
    }
@@ -3,6 +3,7 @@
 import static org.infinispan.commons.util.Util.toStr;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
@@ -79,11 +80,15 @@ public void start() {
    public void processExpiration() {
 
       if (!Thread.currentThread().isInterrupted()) {
+         long start = timeService.time();
+         // The due timers are only returned once, they are checked again if the topology changes
+         List<ExpirationTimerWheel.Timer<K>> due = advanceTimerWheel(timeService.wallClockTime());
          LocalizedCacheTopology topology;
          // Purge all contents until we know we did so with a stable topology
          do {
             topology = distributionManager.getCacheTopology();
-         } while (purgeInMemoryContents(topology));
+         } while (purgeInMemoryContents(topology, due));
+         recordReaperTime(start);
       }
 
       if (!Thread.currentThread().isInterrupted()) {
@@ -93,9 +98,10 @@ public void processExpiration() {
 
    /**
     * Purges in memory contents removing any expired entries.
+    * @param due the timers that are due or null to iterate the data container
     * @return true if there was a topology change
     */
-   private boolean purgeInMemoryContents(LocalizedCacheTopology topology) {
+   private boolean purgeInMemoryContents(LocalizedCacheTopology topology, List<ExpirationTimerWheel.Timer<K>> due) {
       long start = 0;
       int removedEntries = 0;
       AtomicInteger errors = new AtomicInteger();
@@ -117,7 +123,7 @@ private boolean purgeInMemoryContents(LocalizedCacheTopology topology) {
             segments = IntSets.immutableEmptySet();
          }
 
-         for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = dataContainer.running().iteratorIncludingExpired(segments);
+         for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = purgeCandidates(due, segments, currentTimeMillis);
               purgeCandidates.hasNext();) {
             InternalCacheEntry<K, V> ice = purgeCandidates.next();
             if (ice.canExpire()) {
@@ -2,6 +2,7 @@
 
 import static org.infinispan.util.logging.Log.CONTAINER;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -16,6 +17,7 @@
 import org.infinispan.AdvancedCache;
 import org.infinispan.cache.impl.AbstractDelegatingCache;
 import org.infinispan.commons.time.TimeService;
+import org.infinispan.commons.util.IntSet;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -29,6 +31,9 @@
 import org.infinispan.factories.impl.ComponentRef;
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.PrivateMetadata;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
@@ -43,6 +48,7 @@
 
 @ThreadSafe
 @Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "ExpirationManager", description = "Component that removes expired entries from the cache")
 public class ExpirationManagerImpl<K, V> implements InternalExpirationManager<K, V> {
    private static final Log log = LogFactory.getLog(ExpirationManagerImpl.class);
 
@@ -68,6 +74,13 @@
     */
    protected ConcurrentMap<K, CompletableFuture<Boolean>> expiring = new ConcurrentHashMap<>();
    protected ScheduledFuture<?> expirationTask;
+   /**
+    * Index of the entries that can expire, only present when the reaper is enabled and configured to use it
+    */
+   protected ExpirationTimerWheel<K> timerWheel;
+   // Entries written before the wheel was created are only found by scanning the data container once
+   private volatile boolean timerWheelSeeded;
+   private volatile long reaperTime;
 
    private final List<ExpirationConsumer<K, V>> listeners = new CopyOnWriteArrayList<>();
 
@@ -83,6 +96,10 @@ public void start() {
             CONTAINER.notStartingEvictionThread();
             enabled = false;
          } else {
+            if (configuration.expiration().timerWheel()) {
+               timerWheel = new ExpirationTimerWheel<>(configuration.clustering().hash().numSegments(), expWakeUpInt,
+                     timeService.wallClockTime());
+            }
             expirationTask = executor.scheduleWithFixedDelay(new ScheduledTask(),
                   expWakeUpInt, expWakeUpInt, TimeUnit.MILLISECONDS);
          }
@@ -99,19 +116,20 @@ public void processExpiration() {
          try {
             if (log.isTraceEnabled()) {
                log.trace("Purging data container of expired entries");
-               start = timeService.time();
             }
+            start = timeService.time();
             long currentTimeMillis = timeService.wallClockTime();
-            for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = dataContainer.running().iteratorIncludingExpired();
+            List<ExpirationTimerWheel.Timer<K>> due = advanceTimerWheel(currentTimeMillis);
+            for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = purgeCandidates(due, null, currentTimeMillis);
                  purgeCandidates.hasNext();) {
                InternalCacheEntry<K, V> e = purgeCandidates.next();
                if (e.isExpired(currentTimeMillis)) {
                   entryExpiredInMemory(e, currentTimeMillis, false);
                }
             }
+            recordReaperTime(start);
             if (log.isTraceEnabled()) {
-               log.tracef("Purging data container completed in %s",
-                          Util.prettyPrintTime(timeService.timeDuration(start, TimeUnit.MILLISECONDS)));
+               log.tracef("Purging data container completed in %s", Util.prettyPrintTime(reaperTime));
             }
          } catch (Exception e) {
             CONTAINER.exceptionPurgingDataContainer(e);
@@ -123,6 +141,109 @@ public void processExpiration() {
       }
    }
 
+   /**
+    * Moves the timer wheel forward, seeding it with the entries already in the data container the first time.
+    * @return the timers that are due or null if there is no timer wheel
+    */
+   protected List<ExpirationTimerWheel.Timer<K>> advanceTimerWheel(long currentTimeMillis) {
+      if (timerWheel == null) {
+         return null;
+      }
+      if (!timerWheelSeeded) {
+         for (Iterator<InternalCacheEntry<K, V>> iterator = dataContainer.running().iteratorIncludingExpired();
+              iterator.hasNext(); ) {
+            InternalCacheEntry<K, V> ice = iterator.next();
+            if (ice.canExpire()) {
+               timerWheel.schedule(ice.getKey(), keyPartitioner.getSegment(ice.getKey()), ice.getExpiryTime());
+            }
+         }
+         timerWheelSeeded = true;
+      }
+      return timerWheel.advance(currentTimeMillis);
+   }
+
+   /**
+    * Returns the entries the reaper has to check. Without a timer wheel these are all the entries of the data
+    * container, otherwise only the entries whose timer is due. Entries that are not expired yet are scheduled again
+    * and expired ones are checked again on the next run, in case their removal does not happen.
+    * @param due the timers that are due or null to iterate the data container
+    * @param segments the segments that should be purged or null for all of them
+    * @param currentTimeMillis the current wall clock time
+    */
+   protected Iterator<InternalCacheEntry<K, V>> purgeCandidates(List<ExpirationTimerWheel.Timer<K>> due,
+         IntSet segments, long currentTimeMillis) {
+      if (due == null) {
+         return segments == null ? dataContainer.running().iteratorIncludingExpired() :
+               dataContainer.running().iteratorIncludingExpired(segments);
+      }
+      List<InternalCacheEntry<K, V>> candidates = new ArrayList<>();
+      for (ExpirationTimerWheel.Timer<K> timer : due) {
+         InternalCacheEntry<K, V> ice = dataContainer.running().peek(timer.segment(), timer.key());
+         if (ice == null || !ice.canExpire()) {
+            continue;
+         }
+         if (ice.isExpired(currentTimeMillis)) {
+            timerWheel.schedule(timer.key(), timer.segment(),
+                  currentTimeMillis + configuration.expiration().wakeUpInterval());
+            if (segments == null || segments.contains(timer.segment())) {
+               candidates.add(ice);
+            }
+         } else {
+            timerWheel.schedule(timer.key(), timer.segment(), ice.getExpiryTime());
+         }
+      }
+      return candidates.iterator();
+   }
+
+   protected void recordReaperTime(long start) {
+      reaperTime = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+   }
+
+   @ManagedAttribute(
+         description = "Duration of the last removal of the expired entries from memory",
+         displayName = "Reaper time",
+         units = Units.MILLISECONDS
+   )
+   public long getReaperTime() {
+      return reaperTime;
+   }
+
+   @ManagedAttribute(
+         description = "Number of keys waiting for their expiration in the timer wheel, -1 if it is not enabled",
+         displayName = "Timer wheel backlog"
+   )
+   public long getTimerWheelBacklog() {
+      return timerWheel != null ? timerWheel.backlog() : -1;
+   }
+
+   @Override
+   public void entryWritten(InternalCacheEntry<K, V> entry, int segment) {
+      if (timerWheel != null) {
+         timerWheel.schedule(entry.getKey(), segment, entry.getExpiryTime());
+      }
+   }
+
+   @Override
+   public void entryRemoved(Object key, int segment) {
+      if (timerWheel != null) {
+         timerWheel.cancel(key, segment);
+      }
+   }
+
+   @Override
+   public void segmentsRemoved(IntSet segments) {
+      if (timerWheel != null) {
+         segments.forEach((int segment) -> timerWheel.cancelSegment(segment));
+      }
+   }
+
+   @Override
+   public void allEntriesRemoved() {
+      if (timerWheel != null) {
+         timerWheel.cancelAll();
+      }
+   }
+
    @Override
    public boolean isEnabled() {
       return enabled;
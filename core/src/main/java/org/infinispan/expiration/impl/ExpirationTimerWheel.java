@@ -0,0 +1,300 @@
+package org.infinispan.expiration.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hierarchical timer wheel that indexes keys by the time their entries expire, so the reaper only visits the entries
+ * that are due instead of iterating the whole data container.
+ * <p>
+ * Every segment has its own wheel, guarded by its own monitor, so writers only contend with writers of the same
+ * segment. A wheel has {@value #LEVELS} levels of {@value #SLOTS} slots, a slot of level {@code n} spanning
+ * {@code 64^n} ticks. A timer is linked in the lowest level whose span covers its distance from the current tick and
+ * is moved down a level whenever the wheel reaches its slot, so scheduling and firing are both constant time.
+ * Expirations further than the top level are parked in its last slot and re-linked when it is reached.
+ * <p>
+ * There is at most one timer per key: scheduling a key again moves its timer and removing, evicting or replacing the
+ * entry with one that cannot expire cancels it, as does clearing or removing its segment. Timers may still fire for
+ * entries that changed concurrently, it is up to the caller to check the entry is still there and still expired.
+ *
+ * @param <K> the key type
+ * @since 12.1
+ */
+class ExpirationTimerWheel<K> {
+   private static final int SLOT_BITS = 6;
+   static final int SLOTS = 1 << SLOT_BITS;
+   private static final int SLOT_MASK = SLOTS - 1;
+   static final int LEVELS = 4;
+
+   private final long tickMillis;
+   private final AtomicReferenceArray<SegmentWheel<K>> wheels;
+   private final LongAdder backlog = new LongAdder();
+   // Last tick processed by advance, new segment wheels start from there
+   private volatile long currentTick;
+
+   /**
+    * @param numSegments the number of segments of the cache
+    * @param tickMillis the resolution of the wheel, in milliseconds
+    * @param currentTimeMillis the current wall clock time
+    */
+   ExpirationTimerWheel(int numSegments, long tickMillis, long currentTimeMillis) {
+      if (tickMillis <= 0) {
+         throw new IllegalArgumentException("tickMillis must be positive");
+      }
+      this.tickMillis = tickMillis;
+      this.wheels = new AtomicReferenceArray<>(numSegments);
+      this.currentTick = currentTimeMillis / tickMillis;
+   }
+
+   /**
+    * Schedules the key to fire at the first tick at or after the given expiration time, replacing any previous timer
+    * of the same key.
+    */
+   void schedule(K key, int segment, long expirationTime) {
+      SegmentWheel<K> wheel = wheels.get(segment);
+      if (wheel == null) {
+         wheel = new SegmentWheel<>(currentTick);
+         if (!wheels.compareAndSet(segment, null, wheel)) {
+            wheel = wheels.get(segment);
+         }
+      }
+      long tick = (expirationTime + tickMillis - 1) / tickMillis;
+      synchronized (wheel) {
+         Timer<K> timer = wheel.timers.get(key);
+         if (timer == null) {
+            timer = new Timer<>(key, segment);
+            wheel.timers.put(key, timer);
+            backlog.increment();
+         } else if (timer.expiration == expirationTime) {
+            return;
+         } else {
+            wheel.unlink(timer);
+         }
+         timer.expiration = expirationTime;
+         timer.tick = tick;
+         wheel.link(timer);
+      }
+   }
+
+   /**
+    * Cancels the timer of the key, if any, so the wheel no longer references it.
+    */
+   void cancel(Object key, int segment) {
+      SegmentWheel<K> wheel = wheels.get(segment);
+      if (wheel == null) {
+         return;
+      }
+      synchronized (wheel) {
+         Timer<K> timer = wheel.timers.remove(key);
+         if (timer == null) {
+            return;
+         }
+         wheel.unlink(timer);
+      }
+      backlog.decrement();
+   }
+
+   /**
+    * Cancels all the timers of the segment, e.g. because the segment was cleared or is no longer owned.
+    */
+   void cancelSegment(int segment) {
+      SegmentWheel<K> wheel = wheels.get(segment);
+      if (wheel == null) {
+         return;
+      }
+      int cancelled;
+      synchronized (wheel) {
+         cancelled = wheel.clear();
+      }
+      backlog.add(-cancelled);
+   }
+
+   /**
+    * Cancels the timers of all the segments.
+    */
+   void cancelAll() {
+      for (int i = 0; i < wheels.length(); ++i) {
+         cancelSegment(i);
+      }
+   }
+
+   /**
+    * Moves all the segment wheels forward to the given time.
+    *
+    * @return the timers that are due, they are no longer tracked by the wheel
+    */
+   List<Timer<K>> advance(long currentTimeMillis) {
+      long tick = currentTimeMillis / tickMillis;
+      List<Timer<K>> due = new ArrayList<>();
+      for (int i = 0; i < wheels.length(); ++i) {
+         SegmentWheel<K> wheel = wheels.get(i);
+         if (wheel != null) {
+            int fired;
+            synchronized (wheel) {
+               fired = wheel.advance(tick, due);
+            }
+            backlog.add(-fired);
+         }
+      }
+      if (tick > currentTick) {
+         currentTick = tick;
+      }
+      return due;
+   }
+
+   /**
+    * @return the number of keys waiting for their timer to fire
+    */
+   long backlog() {
+      return backlog.sum();
+   }
+
+   static final class Timer<K> {
+      final K key;
+      final int segment;
+      long expiration;
+      long tick;
+      // -1 when the timer is in the due list
+      int level;
+      int index;
+      Timer<K> previous;
+      Timer<K> next;
+
+      Timer(K key, int segment) {
+         this.key = key;
+         this.segment = segment;
+      }
+
+      K key() {
+         return key;
+      }
+
+      int segment() {
+         return segment;
+      }
+
+      long expiration() {
+         return expiration;
+      }
+   }
+
+   private static final class SegmentWheel<K> {
+      final Map<K, Timer<K>> timers = new HashMap<>();
+      @SuppressWarnings("unchecked")
+      final Timer<K>[][] slots = new Timer[LEVELS][SLOTS];
+      // Timers whose tick was already reached when they were scheduled
+      Timer<K> due;
+      long currentTick;
+
+      SegmentWheel(long currentTick) {
+         this.currentTick = currentTick;
+      }
+
+      void link(Timer<K> timer) {
+         long delta = timer.tick - currentTick;
+         if (delta <= 0) {
+            timer.level = -1;
+            push(timer, null, 0);
+            return;
+         }
+         int level = 0;
+         while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+         }
+         long tick = timer.tick;
+         long span = 1L << (SLOT_BITS * LEVELS);
+         if (delta >= span) {
+            // Too far in the future: park it in the last slot reachable from the top level
+            tick = currentTick + span - 1;
+         }
+         timer.level = level;
+         push(timer, slots[level], (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+      }
+
+      private void push(Timer<K> timer, Timer<K>[] slot, int index) {
+         Timer<K> head = slot == null ? due : slot[index];
+         timer.index = index;
+         timer.previous = null;
+         timer.next = head;
+         if (head != null) {
+            head.previous = timer;
+         }
+         if (slot == null) {
+            due = timer;
+         } else {
+            slot[index] = timer;
+         }
+      }
+
+      void unlink(Timer<K> timer) {
+         if (timer.previous != null) {
+            timer.previous.next = timer.next;
+         } else if (timer.level < 0) {
+            due = timer.next;
+         } else {
+            slots[timer.level][timer.index] = timer.next;
+         }
+         if (timer.next != null) {
+            timer.next.previous = timer.previous;
+         }
+         timer.previous = null;
+         timer.next = null;
+      }
+
+      int clear() {
+         int cancelled = timers.size();
+         timers.clear();
+         for (Timer<K>[] level : slots) {
+            Arrays.fill(level, null);
+         }
+         due = null;
+         return cancelled;
+      }
+
+      int advance(long tick, List<Timer<K>> expired) {
+         if (timers.isEmpty()) {
+            currentTick = Math.max(currentTick, tick);
+            return 0;
+         }
+         while (currentTick < tick) {
+            currentTick++;
+            // Cascade the higher levels whose slot boundary was crossed, from the top so timers can move down twice
+            int crossed = 0;
+            while (crossed < LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * (crossed + 1))) - 1)) == 0) {
+               crossed++;
+            }
+            for (int level = crossed; level > 0; --level) {
+               relinkSlot(level, (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+            relinkSlot(0, (int) currentTick & SLOT_MASK);
+         }
+         int fired = 0;
+         for (Timer<K> timer = due; timer != null; ) {
+            Timer<K> next = timer.next;
+            timer.previous = null;
+            timer.next = null;
+            timers.remove(timer.key);
+            expired.add(timer);
+            fired++;
+            timer = next;
+         }
+         due = null;
+         return fired;
+      }
+
+      private void relinkSlot(int level, int index) {
+         Timer<K> timer = slots[level][index];
+         slots[level][index] = null;
+         while (timer != null) {
+            Timer<K> next = timer.next;
+            link(timer);
+            timer = next;
+         }
+      }
+   }
+}
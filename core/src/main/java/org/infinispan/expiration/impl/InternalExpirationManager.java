@@ -3,6 +3,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
+import org.infinispan.commons.util.IntSet;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.expiration.ExpirationManager;
 import org.infinispan.factories.scopes.Scope;
@@ -85,6 +86,43 @@ default void handleInStoreExpiration(MarshallableEntry<K, V> marshalledEntry) {
     */
    CompletionStage<Boolean> handlePossibleExpiration(InternalCacheEntry<K, V> entry, int segment, boolean isWrite);
 
+   /**
+    * Invoked by the data container after it stored an entry that can expire, so that its expiration can be tracked.
+    * This is invoked while holding the lock of the key in the data container and must not block.
+    * @param entry the entry that was stored
+    * @param segment the segment of the entry
+    */
+   default void entryWritten(InternalCacheEntry<K, V> entry, int segment) {
+      // Do nothing by default
+   }
+
+   /**
+    * Invoked by the data container after it removed an entry that could expire, or replaced it with one that cannot,
+    * so that its expiration is no longer tracked. This is invoked while holding the lock of the key in the data
+    * container and must not block.
+    * @param key the key of the entry
+    * @param segment the segment of the entry
+    */
+   default void entryRemoved(Object key, int segment) {
+      // Do nothing by default
+   }
+
+   /**
+    * Invoked by the data container after it removed all the entries of the given segments, because they were cleared
+    * or are no longer owned, so that their expiration is no longer tracked.
+    * @param segments the segments whose entries were removed
+    */
+   default void segmentsRemoved(IntSet segments) {
+      // Do nothing by default
+   }
+
+   /**
+    * Invoked by the data container after it removed all its entries, so that their expiration is no longer tracked.
+    */
+   default void allEntriesRemoved() {
+      // Do nothing by default
+   }
+
    /**
     * Adds an {@link ExpirationConsumer} to be invoked when an entry is expired.
     * <p>
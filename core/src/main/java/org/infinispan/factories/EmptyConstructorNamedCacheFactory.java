@@ -12,9 +12,11 @@
 import org.infinispan.commons.io.ByteBufferFactoryImpl;
 import org.infinispan.configuration.cache.BiasAcquisition;
 import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ReadPolicy;
 import org.infinispan.container.offheap.OffHeapEntryFactory;
 import org.infinispan.container.offheap.OffHeapEntryFactoryImpl;
 import org.infinispan.container.offheap.OffHeapMemoryAllocator;
+import org.infinispan.container.offheap.PooledOffHeapMemoryAllocator;
 import org.infinispan.container.offheap.UnpooledOffHeapMemoryAllocator;
 import org.infinispan.container.versioning.irac.DefaultIracVersionGenerator;
 import org.infinispan.container.versioning.irac.IracVersionGenerator;
@@ -22,10 +24,14 @@
 import org.infinispan.context.InvocationContextFactory;
 import org.infinispan.context.impl.NonTransactionalInvocationContextFactory;
 import org.infinispan.context.impl.TransactionalInvocationContextFactory;
+import org.infinispan.distribution.HotKeyManager;
 import org.infinispan.distribution.L1Manager;
+import org.infinispan.distribution.ReadOwnerSelector;
 import org.infinispan.distribution.RemoteValueRetrievedListener;
 import org.infinispan.distribution.TriangleOrderManager;
+import org.infinispan.distribution.impl.HotKeyManagerImpl;
 import org.infinispan.distribution.impl.L1ManagerImpl;
+import org.infinispan.distribution.impl.ReadOwnerSelectorImpl;
 import org.infinispan.encoding.impl.StorageConfigurationManager;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.impl.ActivationManager;
@@ -41,6 +47,7 @@
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.notifications.cachelistener.CacheNotifierImpl;
 import org.infinispan.notifications.cachelistener.cluster.ClusterCacheNotifier;
+import org.infinispan.persistence.async.WriteBehindStatistics;
 import org.infinispan.persistence.manager.OrderedUpdatesManager;
 import org.infinispan.persistence.manager.OrderedUpdatesManagerImpl;
 import org.infinispan.persistence.manager.PassivationPersistenceManager;
@@ -48,6 +55,7 @@
 import org.infinispan.persistence.manager.PersistenceManagerImpl;
 import org.infinispan.persistence.manager.PersistenceManagerStub;
 import org.infinispan.persistence.manager.PreloadManager;
+import org.infinispan.persistence.manager.StoreBloomFilter;
 import org.infinispan.persistence.spi.MarshallableEntryFactory;
 import org.infinispan.reactive.publisher.impl.PublisherHandler;
 import org.infinispan.scattered.BiasManager;
@@ -102,7 +110,8 @@
                               OrderedUpdatesManager.class, ScatteredVersionManager.class, TransactionOriginatorChecker.class,
                               BiasManager.class, OffHeapEntryFactory.class, OffHeapMemoryAllocator.class, PublisherHandler.class,
                               InvocationHelper.class, TakeOfflineManager.class, IracManager.class, IracVersionGenerator.class,
-                              BackupReceiver.class, StorageConfigurationManager.class
+                              BackupReceiver.class, StorageConfigurationManager.class, StoreBloomFilter.class,
+                              WriteBehindStatistics.class, HotKeyManager.class, ReadOwnerSelector.class
 })
 public class EmptyConstructorNamedCacheFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
 
@@ -127,6 +136,10 @@ public Object construct(String componentName) {
             return realPersistenceManager;
          }
          return new PersistenceManagerStub();
+      } else if (componentName.equals(StoreBloomFilter.class.getName())) {
+         return new StoreBloomFilter();
+      } else if (componentName.equals(WriteBehindStatistics.class.getName())) {
+         return new WriteBehindStatistics();
       } else if (componentName.equals(PassivationManager.class.getName())) {
          return new PassivationManagerImpl();
       } else if (componentName.equals(ActivationManager.class.getName())) {
@@ -202,9 +215,16 @@ public Object construct(String componentName) {
          } else {
             return null;
          }
+      } else if (componentName.equals(HotKeyManager.class.getName())) {
+         return configuration.clustering().hotKeyThreshold() > 0 ? new HotKeyManagerImpl() : null;
+      } else if (componentName.equals(ReadOwnerSelector.class.getName())) {
+         return configuration.clustering().readPolicy() != ReadPolicy.PRIMARY ? new ReadOwnerSelectorImpl() : null;
       } else if (componentName.equals(OffHeapEntryFactory.class.getName())) {
          return new OffHeapEntryFactoryImpl();
       } else if (componentName.equals(OffHeapMemoryAllocator.class.getName())) {
+         if (configuration.memory().isOffHeap() && configuration.memory().pooledAllocation()) {
+            return new PooledOffHeapMemoryAllocator();
+         }
          return new UnpooledOffHeapMemoryAllocator();
       } else if (componentName.equals(ClusterCacheNotifier.class.getName())) {
          return ComponentAlias.of(CacheNotifier.class);
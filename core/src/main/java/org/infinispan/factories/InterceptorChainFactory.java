@@ -11,6 +11,7 @@
 import org.infinispan.configuration.cache.CustomInterceptorsConfiguration;
 import org.infinispan.configuration.cache.InterceptorConfiguration;
 import org.infinispan.configuration.cache.StoreConfiguration;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 import org.infinispan.factories.impl.ComponentRef;
 import org.infinispan.interceptors.AsyncInterceptor;
@@ -18,6 +19,7 @@
 import org.infinispan.interceptors.EmptyAsyncInterceptorChain;
 import org.infinispan.interceptors.distribution.BiasedScatteredDistributionInterceptor;
 import org.infinispan.interceptors.distribution.DistributionBulkInterceptor;
+import org.infinispan.interceptors.distribution.HotKeyInvalidationInterceptor;
 import org.infinispan.interceptors.distribution.L1LastChanceInterceptor;
 import org.infinispan.interceptors.distribution.L1NonTxInterceptor;
 import org.infinispan.interceptors.distribution.L1TxInterceptor;
@@ -51,6 +53,7 @@
 import org.infinispan.interceptors.impl.PrefetchInterceptor;
 import org.infinispan.interceptors.impl.RetryingEntryWrappingInterceptor;
 import org.infinispan.interceptors.impl.ScatteredCacheWriterInterceptor;
+import org.infinispan.interceptors.impl.SegmentLoadInterceptor;
 import org.infinispan.interceptors.impl.TransactionalExceptionEvictionInterceptor;
 import org.infinispan.interceptors.impl.TransactionalStoreInterceptor;
 import org.infinispan.interceptors.impl.TxInterceptor;
@@ -141,6 +144,11 @@ private AsyncInterceptorChain buildInterceptorChain() {
          interceptorChain.appendInterceptor(createInterceptor(new CacheMgmtInterceptor(), CacheMgmtInterceptor.class), false);
       }
 
+      // count the accesses to every segment for the load-aware consistent hash
+      if (configuration.clustering().hash().consistentHashFactory() instanceof LoadAwareConsistentHashFactory) {
+         interceptorChain.appendInterceptor(createInterceptor(new SegmentLoadInterceptor(), SegmentLoadInterceptor.class), false);
+      }
+
       // the state transfer interceptor sets the topology id and retries on topology changes
       // so it's necessary even if there is no state transfer
       // the only exception is non-tx invalidation mode, which ignores lock owners
@@ -196,6 +204,11 @@ private AsyncInterceptorChain buildInterceptorChain() {
          interceptorChain.appendInterceptor(createInterceptor(new L1LastChanceInterceptor(), L1LastChanceInterceptor.class), false);
       }
 
+      // Like the L1 interceptor, it must see the writes after they are committed but before the locks are released
+      if (configuration.clustering().hotKeyThreshold() > 0) {
+         interceptorChain.appendInterceptor(createInterceptor(new HotKeyInvalidationInterceptor(), HotKeyInvalidationInterceptor.class), false);
+      }
+
       if (configuration.clustering().hash().groups().enabled()) {
          interceptorChain.appendInterceptor(createInterceptor(new GroupingInterceptor(), GroupingInterceptor.class), false);
       }
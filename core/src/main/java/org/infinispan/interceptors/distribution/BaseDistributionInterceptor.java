@@ -41,7 +41,9 @@
 import org.infinispan.context.impl.FlagBitSets;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.DistributionInfo;
+import org.infinispan.distribution.HotKeyManager;
 import org.infinispan.distribution.LocalizedCacheTopology;
+import org.infinispan.distribution.ReadOwnerSelector;
 import org.infinispan.distribution.RemoteValueRetrievedListener;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.distribution.ch.KeyPartitioner;
@@ -86,6 +88,8 @@ public abstract class BaseDistributionInterceptor extends ClusteringInterceptor
    @Inject protected KeyPartitioner keyPartitioner;
    @Inject protected TimeService timeService;
    @Inject protected InternalExpirationManager<Object, Object> expirationManager;
+   @Inject protected HotKeyManager hotKeyManager;
+   @Inject protected ReadOwnerSelector readOwnerSelector;
 
    protected boolean isL1Enabled;
    protected boolean isReplicated;
@@ -178,15 +182,19 @@ protected <C extends FlagAffectedCommand & TopologyAffectedCommand> CompletionSt
       ClusteredGetCommand getCommand = cf.buildClusteredGetCommand(key, info.segmentId(), command.getFlagsBitSet());
       getCommand.setTopologyId(topologyId);
       getCommand.setWrite(isWrite);
+      Object hotKeyToken = hotKeyManager != null && !isWrite ? hotKeyManager.startReplication(key) : null;
+      getCommand.setHotKey(hotKeyToken != null);
 
-      return rpcManager.invokeCommandStaggered(info.readOwners(), getCommand, new RemoteGetSingleKeyCollector(),
-                                               rpcManager.getSyncRpcOptions())
+      return invokeReadStaggered(info.readOwners(), getCommand, new RemoteGetSingleKeyCollector())
                        .thenAccept(response -> {
                           Object responseValue = response.getResponseValue();
                           if (responseValue == null) {
                              if (rvrl != null) {
                                 rvrl.remoteValueNotFound(key);
                              }
+                             if (hotKeyToken != null) {
+                                hotKeyManager.completeReplication(key, hotKeyToken, null);
+                             }
                              wrapRemoteEntry(ctx, key, NullCacheEntry.getInstance(), isWrite);
                              return;
                           }
@@ -194,10 +202,30 @@ protected <C extends FlagAffectedCommand & TopologyAffectedCommand> CompletionSt
                           if (rvrl != null) {
                              rvrl.remoteValueFound(ice);
                           }
+                          if (hotKeyToken != null) {
+                             hotKeyManager.completeReplication(key, hotKeyToken, ice);
+                          }
                           wrapRemoteEntry(ctx, key, ice, isWrite);
                        });
    }
 
+   /**
+    * Send a read command to the read owners of a key, one at a time, in the order chosen by the
+    * {@link ReadOwnerSelector}, or starting with the primary owner if there is no selector.
+    */
+   protected <T> CompletionStage<T> invokeReadStaggered(List<Address> readOwners, ReplicableCommand command,
+                                                        ResponseCollector<T> collector) {
+      if (readOwnerSelector == null) {
+         return rpcManager.invokeCommandStaggered(readOwners, command, collector, rpcManager.getSyncRpcOptions());
+      }
+
+      List<Address> targets = readOwnerSelector.orderReadOwners(readOwners);
+      Address target = targets.get(0);
+      long startNanos = readOwnerSelector.readStarted(target);
+      return rpcManager.invokeCommandStaggered(targets, command, collector, rpcManager.getSyncRpcOptions())
+                       .whenComplete((response, throwable) -> readOwnerSelector.readCompleted(target, startNanos));
+   }
+
    protected void wrapRemoteEntry(InvocationContext ctx, Object key, CacheEntry ice, boolean isWrite) {
       entryFactory.wrapExternalEntry(ctx, key, ice, true, isWrite);
    }
@@ -577,7 +605,9 @@ private Map<Address, List<Object>> getKeysByOwner(InvocationContext ctx, Collect
             if (!foundExisting) {
                Address target = null;
                if (ignoredOwners == null) {
-                  target = distributionInfo.primary();
+                  target = readOwnerSelector != null ?
+                           readOwnerSelector.orderReadOwners(distributionInfo.readOwners()).get(0) :
+                           distributionInfo.primary();
                } else {
                   for (Address address : distributionInfo.readOwners()) {
                      if (ignoreForKey == null) {
@@ -622,6 +652,14 @@ private Object visitGetCommand(InvocationContext ctx, AbstractDataCommand comman
       if (!readNeedsRemoteValue(command))
          return null;
 
+      if (hotKeyManager != null) {
+         InternalCacheEntry<Object, Object> replica = hotKeyManager.getReplica(command.getKey());
+         if (replica != null) {
+            wrapRemoteEntry(ctx, command.getKey(), replica, false);
+            return invokeNext(ctx, command);
+         }
+      }
+
       return asyncInvokeNext(ctx, command, remoteGetSingleKey(ctx, command, command.getKey(), false));
    }
 
@@ -660,7 +698,7 @@ public Object visitReadOnlyKeyCommand(InvocationContext ctx, ReadOnlyKeyCommand
       }
       if (readNeedsRemoteValue(command)) {
          LocalizedCacheTopology cacheTopology = checkTopologyId(command);
-         Collection<Address> owners = cacheTopology.getDistribution(key).readOwners();
+         List<Address> owners = cacheTopology.getDistribution(key).readOwners();
          if (log.isTraceEnabled())
             log.tracef("Doing a remote get for key %s in topology %d to %s", key, cacheTopology.getTopologyId(), owners);
 
@@ -669,8 +707,7 @@ public Object visitReadOnlyKeyCommand(InvocationContext ctx, ReadOnlyKeyCommand
          remoteCommand.setTopologyId(cacheTopology.getTopologyId());
 
          CompletionStage<SuccessfulResponse> rpc =
-            rpcManager.invokeCommandStaggered(owners, remoteCommand, new RemoteGetSingleKeyCollector(),
-                                              rpcManager.getSyncRpcOptions());
+            invokeReadStaggered(owners, remoteCommand, new RemoteGetSingleKeyCollector());
          return asyncValue(rpc).thenApply(ctx, command, (rCtx, rCommand, response) -> {
             Object responseValue = ((SuccessfulResponse) response).getResponseValue();
             return unwrapFunctionalResultOnOrigin(rCtx, rCommand.getKey(), responseValue);
@@ -0,0 +1,47 @@
+package org.infinispan.interceptors.distribution;
+
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.distribution.HotKeyManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.interceptors.DDAsyncInterceptor;
+import org.infinispan.interceptors.InvocationSuccessFunction;
+
+/**
+ * Invalidates the replicas of the hot keys after they are written, see {@link HotKeyManager}.
+ * <p>
+ * It runs on the originator and on all the owners, after the entries are committed to the data container but before
+ * the locks are released, so the holders can't miss a write: a reader registers with the owner before reading the
+ * value, and a write invalidates the holders registered before the commit.
+ *
+ * @since 12.1
+ */
+public class HotKeyInvalidationInterceptor extends DDAsyncInterceptor {
+
+   @Inject HotKeyManager hotKeyManager;
+
+   private final InvocationSuccessFunction<WriteCommand> invalidateKeys = this::invalidateKeys;
+
+   @Override
+   public Object visitClearCommand(InvocationContext ctx, ClearCommand command) throws Throwable {
+      // Clear is executed on every node
+      return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> hotKeyManager.clear());
+   }
+
+   @Override
+   protected Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
+      if (command instanceof WriteCommand) {
+         return invokeNextThenApply(ctx, (WriteCommand) command, invalidateKeys);
+      }
+      return invokeNext(ctx, command);
+   }
+
+   private Object invalidateKeys(InvocationContext rCtx, WriteCommand rCommand, Object rv) {
+      if (!rCommand.isSuccessful())
+         return rv;
+
+      return delayedValue(hotKeyManager.invalidate(rCommand.getAffectedKeys()), rv);
+   }
+}
@@ -0,0 +1,219 @@
+package org.infinispan.interceptors.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import org.infinispan.commands.DataCommand;
+import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.functional.ReadOnlyManyCommand;
+import org.infinispan.commands.read.GetAllCommand;
+import org.infinispan.commands.tx.CommitCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.RemoveExpiredCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.time.TimeService;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.MVCCEntry;
+import org.infinispan.container.impl.InternalDataContainer;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.impl.FlagBitSets;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.LocalizedCacheTopology;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.interceptors.DDAsyncInterceptor;
+import org.infinispan.interceptors.InvocationSuccessAction;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.statetransfer.OutboundTransferTask;
+
+/**
+ * Counts the accesses to every segment and estimates the in-memory size of every segment, for the
+ * {@link LoadAwareConsistentHashFactory}.
+ * <p>
+ * Only the invocations that start on this node are counted, so every access is counted once in the cluster, no
+ * matter how many owners it reaches. The access counts are halved every minute, so recent accesses weigh more than
+ * old ones.
+ * <p>
+ * The segment sizes are updated as the entries are written, evicted or removed with their segments, so they are never
+ * computed by iterating the data container. They are estimates: entries removed without a command, e.g. by a cache
+ * store purge, are not subtracted.
+ *
+ * @since 12.1
+ */
+@MBean(objectName = "SegmentLoad", description = "Size and access rate of the segments of the cache")
+public class SegmentLoadInterceptor extends DDAsyncInterceptor {
+   static final long DECAY_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+   // State transfer, preload and other internal writes also have a local origin, but are not accesses
+   private static final long INTERNAL_FLAGS = FlagBitSets.PUT_FOR_STATE_TRANSFER | FlagBitSets.CACHE_MODE_LOCAL |
+                                              FlagBitSets.SKIP_OWNERSHIP_CHECK;
+
+   @Inject InternalDataContainer<Object, Object> dataContainer;
+   @Inject KeyPartitioner keyPartitioner;
+   @Inject DistributionManager distributionManager;
+   @Inject RpcManager rpcManager;
+   @Inject TimeService timeService;
+
+   private final InvocationSuccessAction<VisitableCommand> recordSizesAction = this::recordSizes;
+   private final Consumer<Iterable<InternalCacheEntry<Object, Object>>> removalListener = this::entriesRemoved;
+   private AtomicLongArray accesses;
+   private AtomicLongArray sizes;
+   private long lastDecayNanos;
+   // The segment loads last computed by the coordinator
+   private volatile float[] segmentLoads;
+
+   @Start
+   public void start() {
+      int numSegments = cacheConfiguration.clustering().hash().numSegments();
+      accesses = new AtomicLongArray(numSegments);
+      sizes = new AtomicLongArray(numSegments);
+      lastDecayNanos = timeService.time();
+      dataContainer.addRemovalListener(removalListener);
+   }
+
+   @Stop
+   public void stop() {
+      dataContainer.removeRemovalListener(removalListener);
+   }
+
+   @Override
+   protected Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
+      if (isAccess(ctx, command)) {
+         if (command instanceof DataCommand) {
+            accesses.incrementAndGet(((DataCommand) command).getSegment());
+         } else if (command instanceof WriteCommand) {
+            recordAccesses(((WriteCommand) command).getAffectedKeys());
+         } else if (command instanceof GetAllCommand) {
+            recordAccesses(((GetAllCommand) command).getKeys());
+         } else if (command instanceof ReadOnlyManyCommand) {
+            recordAccesses(((ReadOnlyManyCommand<?, ?, ?>) command).getKeys());
+         }
+      }
+      if (command instanceof ClearCommand) {
+         return invokeNextThenAccept(ctx, command, (rCtx, rCommand, rv) -> {
+            for (int segment = 0; segment < sizes.length(); segment++) {
+               sizes.set(segment, 0);
+            }
+         });
+      }
+      // The entries are committed by the invocation of non-transactional writes, of commits and of one-phase prepares
+      boolean commits = command instanceof WriteCommand ? !ctx.isInTxScope() :
+            command instanceof CommitCommand ||
+                  command instanceof PrepareCommand && ((PrepareCommand) command).isOnePhaseCommit();
+      if (commits) {
+         return invokeNextThenAccept(ctx, command, recordSizesAction);
+      }
+      return invokeNext(ctx, command);
+   }
+
+   private static boolean isAccess(InvocationContext ctx, VisitableCommand command) {
+      if (!ctx.isOriginLocal() || command instanceof RemoveExpiredCommand)
+         return false;
+
+      return !(command instanceof FlagAffectedCommand) || !((FlagAffectedCommand) command).hasAnyFlag(INTERNAL_FLAGS);
+   }
+
+   private void recordAccesses(Collection<?> keys) {
+      for (Object key : keys) {
+         accesses.incrementAndGet(keyPartitioner.getSegment(key));
+      }
+   }
+
+   private void recordSizes(InvocationContext ctx, VisitableCommand command, Object rv) {
+      if (command instanceof WriteCommand && !((WriteCommand) command).isSuccessful())
+         return;
+
+      LocalizedCacheTopology cacheTopology = distributionManager.getCacheTopology();
+      ctx.forEachEntry((key, entry) -> {
+         // Evicted entries are subtracted by entriesEvicted
+         if (!(entry instanceof MVCCEntry) || !entry.isChanged() || entry.isEvicted())
+            return;
+
+         int segment = keyPartitioner.getSegment(key);
+         if (!cacheTopology.getSegmentDistribution(segment).isWriteOwner())
+            return;
+
+         Object oldValue = ((MVCCEntry<?, ?>) entry).getOldValue();
+         Object newValue = entry.isRemoved() ? null : entry.getValue();
+         sizes.addAndGet(segment, estimateSize(key, newValue) - estimateSize(key, oldValue));
+      });
+   }
+
+   private static long estimateSize(Object key, Object value) {
+      return value != null ? OutboundTransferTask.estimateSize(key, value) : 0;
+   }
+
+   /**
+    * Subtracts the size of the entries evicted from the data container.
+    */
+   public void entriesEvicted(Collection<? extends Map.Entry<?, ?>> entries) {
+      for (Map.Entry<?, ?> entry : entries) {
+         sizes.addAndGet(keyPartitioner.getSegment(entry.getKey()), -estimateSize(entry.getKey(), entry.getValue()));
+      }
+   }
+
+   private void entriesRemoved(Iterable<InternalCacheEntry<Object, Object>> entries) {
+      for (InternalCacheEntry<Object, Object> ice : entries) {
+         sizes.addAndGet(keyPartitioner.getSegment(ice.getKey()), -OutboundTransferTask.estimateSize(ice));
+      }
+   }
+
+   /**
+    * @return the estimated in-memory size of every segment, followed by the access count of every segment
+    */
+   public long[] getSegmentLoads() {
+      decayAccesses();
+      int numSegments = accesses.length();
+      long[] loads = new long[2 * numSegments];
+      for (int segment = 0; segment < numSegments; segment++) {
+         loads[segment] = Math.max(0, sizes.get(segment));
+         loads[numSegments + segment] = accesses.get(segment);
+      }
+      return loads;
+   }
+
+   /**
+    * Stores the segment loads the coordinator computed from the statistics of all the members, so that
+    * {@link #getLoadSkew()} does not have to collect them again.
+    */
+   public void updateSegmentLoads(float[] segmentLoads) {
+      this.segmentLoads = segmentLoads;
+   }
+
+   private synchronized void decayAccesses() {
+      long intervals = (timeService.time() - lastDecayNanos) / DECAY_INTERVAL_NANOS;
+      if (intervals <= 0)
+         return;
+
+      lastDecayNanos += intervals * DECAY_INTERVAL_NANOS;
+      int shift = (int) Math.min(intervals, Long.SIZE - 1);
+      for (int segment = 0; segment < accesses.length(); segment++) {
+         accesses.getAndUpdate(segment, count -> count >>> shift);
+      }
+   }
+
+   @ManagedAttribute(
+         description = "Ratio between the load of the segments owned by this node and its share of the total load, " +
+               "based on the size and access rate of the segments collected by the coordinator every minute. " +
+               "1 means this node has exactly its share.",
+         displayName = "Load skew"
+   )
+   public double getLoadSkew() {
+      float[] loads = segmentLoads;
+      if (loads == null)
+         return 1;
+
+      Float skew = LoadAwareConsistentHashFactory.computeLoadSkew(
+            distributionManager.getCacheTopology().getReadConsistentHash(), loads).get(rpcManager.getAddress());
+      return skew != null ? skew : 0;
+   }
+}
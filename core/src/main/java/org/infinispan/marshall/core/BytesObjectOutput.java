@@ -2,23 +2,61 @@
 
 import java.io.IOException;
 import java.io.ObjectOutput;
+import java.util.Arrays;
 
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.io.ByteBufferImpl;
 
 /**
  * Array backed, expandable {@link ObjectOutput} implementation.
+ * <p>
+ * An output created with {@link #spilling(int, GlobalMarshaller)} starts with the predicted size, like any other output,
+ * but moves to a scratch buffer owned by the current thread once it grows beyond {@link #SPILL_THRESHOLD}, so
+ * marshalling a large object doesn't allocate and copy a new array every time the buffer grows. The scratch buffer
+ * grows with the outputs up to {@link #MAX_SCRATCH_SIZE} and is dropped again once the thread stops marshalling
+ * objects of that size, so a thread keeps at most {@link #MAX_SCRATCH_SIZE} bytes.
  */
 final class BytesObjectOutput implements ObjectOutput {
 
+   // The maximum size returned by the default AdaptiveBufferSizePredictor, smaller outputs never use the scratch buffer
+   static final int SPILL_THRESHOLD = 64 * 1024;
+   // The size of the scratch buffer allocated the first time a thread marshals a large object
+   static final int INITIAL_SCRATCH_SIZE = 128 * 1024;
+   // Larger outputs leave the scratch buffer and grow like any other output
+   static final int MAX_SCRATCH_SIZE = 2 * 1024 * 1024;
+   // The number of outputs after which the scratch buffer is dropped if it was much larger than needed
+   static final int SCRATCH_SHRINK_INTERVAL = 64;
+
+   private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
    final GlobalMarshaller marshaller;
+   private final boolean spilling;
+   // The scratch buffer of the current thread, once the output moved to it
+   private Scratch scratch;
 
    byte bytes[];
    int pos;
 
    BytesObjectOutput(int size, GlobalMarshaller marshaller) {
+      this(size, marshaller, false);
+   }
+
+   private BytesObjectOutput(int size, GlobalMarshaller marshaller, boolean spilling) {
       this.bytes = new byte[size];
       this.marshaller = marshaller;
+      this.spilling = spilling;
+   }
+
+   /**
+    * Creates an output that moves to the scratch buffer of the current thread when it grows beyond
+    * {@link #SPILL_THRESHOLD}. If the thread is already using its scratch buffer, e.g. because an externalizer marshals
+    * an object on its own, the output grows like any other output.
+    * <p>
+    * The output must be released with {@link #release()} after the bytes were extracted with
+    * {@link #detachByteBuffer()}.
+    */
+   static BytesObjectOutput spilling(int size, GlobalMarshaller marshaller) {
+      return new BytesObjectOutput(size, marshaller, true);
    }
 
    @Override
@@ -237,13 +275,41 @@ public void close() {
    private int ensureCapacity(int len) {
       int newcount = pos + len;
       if (newcount > bytes.length) {
-         byte newbuf[] = new byte[getNewBufferSize(bytes.length, newcount)];
+         byte newbuf[] = spilling && newcount > SPILL_THRESHOLD && newcount <= MAX_SCRATCH_SIZE ?
+               scratchBuffer(newcount) : null;
+         if (newbuf == null) {
+            newbuf = new byte[getNewBufferSize(bytes.length, newcount)];
+         }
          System.arraycopy(bytes, 0, newbuf, 0, pos);
          bytes = newbuf;
       }
       return newcount;
    }
 
+   /**
+    * @return the scratch buffer of the current thread, grown to at least {@code minSize} bytes, or {@code null} if
+    * another output of the thread is using it.
+    */
+   private byte[] scratchBuffer(int minSize) {
+      if (scratch == null) {
+         Scratch threadScratch = SCRATCH.get();
+         if (threadScratch.inUse)
+            return null;
+
+         threadScratch.inUse = true;
+         scratch = threadScratch;
+      }
+      // An output never comes back to the scratch buffer after leaving it, so this is the array being replaced
+      if (scratch.bytes == null || scratch.bytes.length < minSize) {
+         int size = INITIAL_SCRATCH_SIZE;
+         while (size < minSize) {
+            size <<= 1;
+         }
+         scratch.bytes = new byte[size];
+      }
+      return scratch.bytes;
+   }
+
    private static final int DEFAULT_DOUBLING_SIZE = 4 * 1024 * 1024; // 4MB
 
    /**
@@ -277,4 +343,53 @@ ByteBuffer toByteBuffer() {
       return ByteBufferImpl.create(bytes, 0, pos);
    }
 
+   /**
+    * @return the written bytes, in an array that the output won't modify any more. The array is a trimmed copy if
+    * the output is using the scratch buffer, otherwise it is the buffer itself.
+    */
+   ByteBuffer detachByteBuffer() {
+      if (scratch == null || bytes != scratch.bytes)
+         return toByteBuffer();
+
+      // JGroups keeps the message buffer until the message is acknowledged, so it can't be shared with the next output
+      return ByteBufferImpl.create(Arrays.copyOf(bytes, pos), 0, pos);
+   }
+
+   /**
+    * Gives the scratch buffer back to the current thread, if the output used it. The output can't be used after this
+    * call.
+    */
+   void release() {
+      if (scratch != null) {
+         scratch.inUse = false;
+         scratch.recordOutput(bytes == scratch.bytes ? pos : MAX_SCRATCH_SIZE);
+         scratch = null;
+      } else if (spilling) {
+         SCRATCH.get().recordOutput(0);
+      }
+      bytes = null;
+   }
+
+   private static final class Scratch {
+      // Allocated the first time the thread marshals an object larger than SPILL_THRESHOLD
+      byte[] bytes;
+      boolean inUse;
+      // The largest output written to the scratch buffer since the last shrink check
+      int peak;
+      int outputs;
+
+      void recordOutput(int size) {
+         peak = Math.max(peak, size);
+         if (++outputs < SCRATCH_SHRINK_INTERVAL)
+            return;
+
+         // Reallocated with the required size by the next large output
+         if (!inUse && bytes != null && peak <= bytes.length >> 2) {
+            bytes = null;
+         }
+         peak = 0;
+         outputs = 0;
+      }
+   }
+
 }
@@ -297,12 +297,18 @@ public MediaType mediaType() {
 
    @Override
    public ByteBuffer objectToBuffer(Object o) throws IOException, InterruptedException {
+      // Used for all the commands and responses sent by the transport, the few large ones go through the scratch buffer
+      BufferSizePredictor sizePredictor = marshallableTypeHints.getBufferSizePredictor(o);
+      BytesObjectOutput out = BytesObjectOutput.spilling(sizePredictor.nextSize(o), this);
       try {
-         BytesObjectOutput out = writeObjectOutput(o);
-         return out.toByteBuffer();
+         writeNullableObject(o, out);
+         sizePredictor.recordSize(out.pos);
+         return out.detachByteBuffer();
       } catch (java.io.NotSerializableException nse) {
          if (log.isDebugEnabled()) log.debug("Object is not serializable", nse);
          throw new NotSerializableException(nse.getMessage(), nse.getCause());
+      } finally {
+         out.release();
       }
    }
 
@@ -39,6 +39,7 @@
 import org.infinispan.context.Flag;
 import org.infinispan.distribution.ch.impl.DefaultConsistentHash;
 import org.infinispan.distribution.ch.impl.DefaultConsistentHashFactory;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
 import org.infinispan.distribution.ch.impl.ReplicatedConsistentHash;
 import org.infinispan.distribution.ch.impl.ReplicatedConsistentHashFactory;
 import org.infinispan.distribution.ch.impl.ScatteredConsistentHash;
@@ -176,6 +177,7 @@ static ClassToExternalizerMap load(GlobalComponentRegistry gcr, RemoteCommandsFa
       addInternalExternalizer(new IntSummaryStatisticsExternalizer(), exts);
       addInternalExternalizer(new JGroupsAddress.Externalizer(), exts);
       addInternalExternalizer(new JGroupsTopologyAwareAddress.Externalizer(), exts);
+      addInternalExternalizer(new LoadAwareConsistentHashFactory.Externalizer(), exts);
       addInternalExternalizer(new LongSummaryStatisticsExternalizer(), exts);
       addInternalExternalizer(new KeyValuePair.Externalizer(), exts);
       addInternalExternalizer(new ManagerStatusResponse.Externalizer(), exts);
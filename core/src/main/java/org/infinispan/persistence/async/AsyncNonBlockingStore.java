@@ -2,8 +2,11 @@
 
 import java.lang.invoke.MethodHandles;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -18,6 +21,7 @@
 import org.infinispan.commons.IllegalLifecycleStateException;
 import org.infinispan.commons.marshall.WrappedByteArray;
 import org.infinispan.commons.reactive.RxJavaInterop;
+import org.infinispan.commons.time.TimeService;
 import org.infinispan.commons.util.IntSet;
 import org.infinispan.configuration.cache.AsyncStoreConfiguration;
 import org.infinispan.configuration.cache.Configuration;
@@ -29,6 +33,7 @@
 import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.support.DelegatingNonBlockingStore;
 import org.infinispan.persistence.support.SegmentPublisherWrapper;
+import org.infinispan.util.concurrent.AggregateCompletionStage;
 import org.infinispan.util.concurrent.CompletableFutures;
 import org.infinispan.util.concurrent.CompletionStages;
 import org.infinispan.util.logging.Log;
@@ -53,6 +58,9 @@
  * subsequent write will be added to the queue, but the returned Stage will not complete until the current batch completes
  * in an attempt to provide some backpressure to slow writes.
  * <p>
+ * The modifications of a batch are split by segment into {@link AsyncStoreConfiguration#flushParallelism()} batches
+ * that are written to the delegate store concurrently.
+ * <p>
  * Read operations may be resolved by this store immediately if the given key is still being updated in the
  * delegate store or if it is enqueued for the next batch. If the key is in neither it will query the underlying store
  * to acquire it.
@@ -64,10 +72,13 @@
 public class AsyncNonBlockingStore<K, V> extends DelegatingNonBlockingStore<K, V> {
    private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
    private final NonBlockingStore<K, V> actual;
+   private final WriteBehindStatistics statistics;
 
    private Executor nonBlockingExecutor;
+   private TimeService timeService;
    private int segmentCount;
    private int modificationQueueSize;
+   private int flushParallelism;
    private PersistenceConfiguration persistenceConfiguration;
    private AsyncStoreConfiguration asyncConfiguration;
 
@@ -104,7 +115,12 @@
    private volatile boolean stopped = true;
 
    public AsyncNonBlockingStore(NonBlockingStore<K, V> actual) {
+      this(actual, new WriteBehindStatistics());
+   }
+
+   public AsyncNonBlockingStore(NonBlockingStore<K, V> actual, WriteBehindStatistics statistics) {
       this.actual = actual;
+      this.statistics = statistics;
    }
 
    @Override
@@ -117,8 +133,11 @@ public CompletionStage<Void> start(InitializationContext ctx) {
       segmentCount = storeConfiguration.segmented() ? cacheConfiguration.clustering().hash().numSegments() : 1;
       asyncConfiguration = storeConfiguration.async();
       modificationQueueSize = asyncConfiguration.modificationQueueSize();
+      flushParallelism = asyncConfiguration.flushParallelism();
       nonBlockingExecutor = ctx.getNonBlockingExecutor();
+      timeService = ctx.getTimeService();
       stopped = false;
+      statistics.register(this);
       return actual.start(ctx);
    }
 
@@ -134,6 +153,7 @@ public CompletionStage<Void> stop() {
             log.tracef("Stopping store %s from async store", actual);
          }
          stopped = true;
+         statistics.unregister(this);
          return actual.stop();
       });
    }
@@ -305,8 +325,34 @@ public void run() {
    }
 
    private CompletionStage<Void> replicateModifications(Map<Object, Modification> modifications) {
+      long start = timeService.time();
+      CompletionStage<Void> stage;
+      if (flushParallelism == 1 || modifications.size() == 1) {
+         stage = replicateModifications(modifications.values());
+      } else {
+         // All the modifications of a segment go in the same batch, non segmented stores split them by key
+         List<List<Modification>> batches = new ArrayList<>(flushParallelism);
+         for (int i = 0; i < flushParallelism; ++i) {
+            batches.add(new ArrayList<>());
+         }
+         for (Map.Entry<Object, Modification> entry : modifications.entrySet()) {
+            int hash = segmentCount > 1 ? entry.getValue().getSegment() : entry.getKey().hashCode() & Integer.MAX_VALUE;
+            batches.get(hash % flushParallelism).add(entry.getValue());
+         }
+         AggregateCompletionStage<Void> aggregateStage = CompletionStages.aggregateCompletionStage();
+         for (List<Modification> batch : batches) {
+            if (!batch.isEmpty()) {
+               aggregateStage.dependsOn(replicateModifications(batch));
+            }
+         }
+         stage = aggregateStage.freeze();
+      }
+      return stage.thenRun(() -> statistics.flushed(modifications.size(), timeService.timeDuration(start, TimeUnit.NANOSECONDS)));
+   }
+
+   private CompletionStage<Void> replicateModifications(Collection<Modification> modifications) {
       // Use a connected flowable, so we don't have to iterate over the modifications twice
-      ConnectableFlowable<Modification> connectableModifications = Flowable.fromIterable(modifications.values())
+      ConnectableFlowable<Modification> connectableModifications = Flowable.fromIterable(modifications)
             .publish();
 
       // The method below may subscribe to the Flowable on a different thread, thus we must auto connect after both are
@@ -470,6 +516,9 @@ public CompletionStage<Void> batch(int publisherCount, Publisher<SegmentedPublis
    CompletionStage<Void> submitModification(Modification modification) {
       boolean startNewBatch;
       CompletionStage<Void> submitStage;
+      if (modification != ClearModification.INSTANCE) {
+         statistics.modificationSubmitted();
+      }
       synchronized (this) {
          modification.apply(this);
 
@@ -545,6 +594,12 @@ public CompletionStage<Void> removeSegments(IntSet segments) {
       return actual.removeSegments(segments);
    }
 
+   @Override
+   public CompletionStage<SegmentIngestion<K, V>> startIngestion(int segment) {
+      // The state is written through the modification queue, like any other write
+      return CompletableFutures.completedNull();
+   }
+
    @Override
    public CompletionStage<Long> size(IntSet segments) {
       assertNotStopped();
@@ -600,6 +655,13 @@ public CompletionStage<Boolean> isAvailable() {
       });
    }
 
+   /**
+    * @return the number of modifications waiting to be written to the delegate store or being written
+    */
+   public synchronized int getBacklog() {
+      return pendingModifications.size() + replicatingModifications.size();
+   }
+
    @Override
    public NonBlockingStore<K, V> delegate() {
       return actual;
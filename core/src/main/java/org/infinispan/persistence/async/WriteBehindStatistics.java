@@ -0,0 +1,103 @@
+package org.infinispan.persistence.async;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Statistics of the write-behind stores of a cache, that is the {@link AsyncNonBlockingStore} instances.
+ *
+ * @since 12.1
+ */
+@ThreadSafe
+@Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "WriteBehind", description = "Statistics of the write-behind stores")
+public class WriteBehindStatistics {
+   private final Collection<AsyncNonBlockingStore<?, ?>> stores = new CopyOnWriteArrayList<>();
+
+   private final LongAdder submittedModifications = new LongAdder();
+   private final LongAdder writtenModifications = new LongAdder();
+   private final LongAdder flushes = new LongAdder();
+   private final LongAdder flushNanos = new LongAdder();
+
+   void register(AsyncNonBlockingStore<?, ?> store) {
+      stores.add(store);
+   }
+
+   void unregister(AsyncNonBlockingStore<?, ?> store) {
+      stores.remove(store);
+   }
+
+   void modificationSubmitted() {
+      submittedModifications.increment();
+   }
+
+   void flushed(int modifications, long nanos) {
+      writtenModifications.add(modifications);
+      flushes.increment();
+      flushNanos.add(nanos);
+   }
+
+   @ManagedAttribute(
+         description = "Number of modifications waiting to be written to the stores or being written",
+         displayName = "Write-behind backlog"
+   )
+   public long getBacklog() {
+      long backlog = 0;
+      for (AsyncNonBlockingStore<?, ?> store : stores) {
+         backlog += store.getBacklog();
+      }
+      return backlog;
+   }
+
+   @ManagedAttribute(
+         description = "Number of batches of modifications written to the stores",
+         displayName = "Number of write-behind flushes",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getFlushes() {
+      return flushes.sum();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to write a batch of modifications to a store",
+         displayName = "Average write-behind flush time",
+         units = Units.MILLISECONDS
+   )
+   public long getAverageFlushTime() {
+      long count = flushes.sum();
+      return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushNanos.sum() / count);
+   }
+
+   @ManagedAttribute(
+         description = "Number of modifications submitted for each modification written, as only the last " +
+               "modification of a key is written",
+         displayName = "Write-behind coalescing ratio"
+   )
+   public double getCoalescingRatio() {
+      long written = writtenModifications.sum();
+      return written == 0 ? 0 : (double) submittedModifications.sum() / written;
+   }
+
+   @ManagedOperation(
+         description = "Resets statistics gathered by this component",
+         displayName = "Reset statistics"
+   )
+   public void resetStatistics() {
+      submittedModifications.reset();
+      writtenModifications.reset();
+      flushes.reset();
+      flushNanos.reset();
+   }
+}
@@ -0,0 +1,199 @@
+package org.infinispan.persistence.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single memory-mapped log file of the {@link MemoryMappedFileStore}.
+ * <p/>
+ * The file starts with a 4 bytes magic number and is followed by records, each one laid out as:
+ * <ul>
+ * <li>4 bytes: total size of the record, 0 marks the end of the written data</li>
+ * <li>4 bytes: key length</li>
+ * <li>4 bytes: value length, {@link #TOMBSTONE} if the record is a removal</li>
+ * <li>4 bytes: metadata length</li>
+ * <li>4 bytes: internal metadata length</li>
+ * <li>8 bytes: expiration time</li>
+ * <li>8 bytes: created timestamp</li>
+ * <li>8 bytes: last used timestamp</li>
+ * <li>key, value, metadata and internal metadata bytes</li>
+ * </ul>
+ * The size field is written last, so a record that was only partially written before a crash is ignored on restart.
+ * <p/>
+ * The whole file is mapped when it is created and records are appended by a single writer at a time. Readers only
+ * use absolute accessors or duplicates of the mapped buffer, so they never interfere with the writer.
+ *
+ * @since 12.1
+ */
+final class MappedLogFile {
+   private static final byte[] MAGIC = new byte[]{'F', 'C', 'M', '1'};
+
+   static final int TOMBSTONE = -1;
+   static final int FIRST_RECORD_OFFSET = MAGIC.length;
+
+   static final int SIZE_OFFSET = 0;
+   static final int KEY_LENGTH_OFFSET = 4;
+   static final int VALUE_LENGTH_OFFSET = 8;
+   static final int METADATA_LENGTH_OFFSET = 12;
+   static final int INTERNAL_METADATA_LENGTH_OFFSET = 16;
+   static final int EXPIRY_OFFSET = 20;
+   static final int CREATED_OFFSET = 28;
+   static final int LAST_USED_OFFSET = 36;
+   static final int HEADER_SIZE = 44;
+
+   final int id;
+   final File file;
+   private final FileChannel channel;
+   private final MappedByteBuffer buffer;
+   /**
+    * Offset after the last complete record. Only modified by the appender, published for compaction.
+    */
+   private volatile int end;
+   /**
+    * Bytes taken by records that are no longer referenced from the index.
+    */
+   private final AtomicLong freeBytes = new AtomicLong();
+
+   private MappedLogFile(int id, File file, FileChannel channel, MappedByteBuffer buffer, int end) {
+      this.id = id;
+      this.file = file;
+      this.channel = channel;
+      this.buffer = buffer;
+      this.end = end;
+   }
+
+   static MappedLogFile create(int id, File file, int size) throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      for (int i = 0; i < MAGIC.length; ++i) {
+         buffer.put(i, MAGIC[i]);
+      }
+      return new MappedLogFile(id, file, channel, buffer, FIRST_RECORD_OFFSET);
+   }
+
+   /**
+    * Maps an existing file. The caller must find out where the written data ends and call {@link #setEnd(int)}.
+    */
+   static MappedLogFile open(int id, File file) throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+         channel.close();
+         throw new IOException("File " + file + " is too large to be mapped: " + size);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      return new MappedLogFile(id, file, channel, buffer, 0);
+   }
+
+   static long location(int fileId, int offset) {
+      return ((long) fileId << 32) | (offset & 0xFFFFFFFFL);
+   }
+
+   static int fileId(long location) {
+      return (int) (location >>> 32);
+   }
+
+   static int offset(long location) {
+      return (int) location;
+   }
+
+   boolean hasMagic() {
+      if (buffer.capacity() < MAGIC.length) {
+         return false;
+      }
+      for (int i = 0; i < MAGIC.length; ++i) {
+         if (buffer.get(i) != MAGIC[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   int capacity() {
+      return buffer.capacity();
+   }
+
+   int end() {
+      return end;
+   }
+
+   void setEnd(int end) {
+      this.end = end;
+   }
+
+   long freeBytes() {
+      return freeBytes.get();
+   }
+
+   void free(int bytes) {
+      freeBytes.addAndGet(bytes);
+   }
+
+   int getInt(int offset) {
+      return buffer.getInt(offset);
+   }
+
+   long getLong(int offset) {
+      return buffer.getLong(offset);
+   }
+
+   /**
+    * Copies bytes from the mapping without changing the state of the shared buffer.
+    */
+   void read(int offset, byte[] dst, int dstOffset, int length) {
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset);
+      view.get(dst, dstOffset, length);
+   }
+
+   boolean regionEquals(int offset, byte[] bytes) {
+      for (int i = 0; i < bytes.length; ++i) {
+         if (buffer.get(offset + i) != bytes[i]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Must only be invoked by the appender, which is the sole user of the buffer position.
+    */
+   void write(int offset, byte[] src, int srcOffset, int length) {
+      buffer.position(offset);
+      buffer.put(src, srcOffset, length);
+   }
+
+   void putInt(int offset, int value) {
+      buffer.putInt(offset, value);
+   }
+
+   void putLong(int offset, long value) {
+      buffer.putLong(offset, value);
+   }
+
+   void force() {
+      buffer.force();
+   }
+
+   void close() throws IOException {
+      channel.close();
+   }
+
+   void delete() throws IOException {
+      close();
+      if (!file.delete()) {
+         throw new IOException("Cannot delete file " + file);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "MappedLogFile{id=" + id + ", end=" + end + ", free=" + freeBytes.get() + '}';
+   }
+}
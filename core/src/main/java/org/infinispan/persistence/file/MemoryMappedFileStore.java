@@ -0,0 +1,760 @@
+package org.infinispan.persistence.file;
+
+import static org.infinispan.util.logging.Log.PERSISTENCE;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.infinispan.commons.configuration.ConfiguredBy;
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.commons.io.ByteBufferFactory;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.persistence.Store;
+import org.infinispan.commons.time.TimeService;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration;
+import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.persistence.spi.MarshallableEntryFactory;
+import org.infinispan.persistence.spi.NonBlockingStore;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.KeyValuePair;
+import org.infinispan.util.concurrent.BlockingManager;
+import org.infinispan.util.concurrent.CompletableFutures;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.reactivestreams.Publisher;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+
+/**
+ * A filesystem-based implementation of a {@link NonBlockingStore} that appends entries to memory-mapped log files in
+ * <tt>&lt;location&gt;/&lt;cache name&gt;/</tt>.
+ * <p/>
+ * Unlike the {@link SingleFileStore}, no keys are kept on the Java heap: the position of every entry is tracked by an
+ * {@link OffHeapKeyIndex} that only holds the hash of the serialized key and the location of its record, and keys are
+ * compared directly against the mapped files. The index needs 16 bytes per slot regardless of the size of the keys,
+ * so stores with tens of millions of entries do not put any pressure on the garbage collector.
+ * <p/>
+ * Writes and removals append a record to the current log file while holding the lock of the index partition of the
+ * key, so the order of the records of a key in the log is always the order in which the index was updated. The index
+ * is rebuilt on startup by replaying the log files in order. Space taken by overwritten, removed or expired entries
+ * is reclaimed during {@link #purgeExpired()}: files whose ratio of garbage reaches the configured compaction
+ * threshold have their live records moved to the head of the log and are then deleted.
+ * <p/>
+ * Reads copy the entry straight from the mapping into the buffers handed to the {@link MarshallableEntryFactory}, no
+ * system call or intermediate buffer is involved. The mapped files are only flushed to the disk after every write when
+ * {@link MemoryMappedFileStoreConfiguration#syncWrites()} is enabled, otherwise the operating system decides when the
+ * dirty pages are written and a crash of the machine may lose the latest writes.
+ * <p/>
+ * All the keys share a single log and a single index, the segment of a key is only computed to filter the keys by
+ * segment. Every operation may wait for a lock or for the disk, so they all run on the blocking executor.
+ *
+ * @since 12.1
+ */
+@Store
+@ConfiguredBy(MemoryMappedFileStoreConfiguration.class)
+public class MemoryMappedFileStore<K, V> implements NonBlockingStore<K, V> {
+   private static final Log log = LogFactory.getLog(MemoryMappedFileStore.class);
+
+   private static final Pattern FILE_NAME = Pattern.compile("(\\d+)\\.log");
+
+   private MemoryMappedFileStoreConfiguration configuration;
+
+   protected InitializationContext ctx;
+
+   private TimeService timeService;
+   private MarshallableEntryFactory<K, V> entryFactory;
+   private Marshaller marshaller;
+   private BlockingManager blockingManager;
+   private KeyPartitioner keyPartitioner;
+   private int numSegments;
+   private File directory;
+   private final ConcurrentMap<Integer, MappedLogFile> files = new ConcurrentHashMap<>();
+   private OffHeapKeyIndex index;
+   // Guards head and nextFileId
+   private final Object appendLock = new Object();
+   private MappedLogFile head;
+   private int nextFileId;
+
+   public static File getStoreDirectory(GlobalConfiguration globalConfiguration, String locationPath, String cacheName) {
+      Path location = PersistenceUtil.getLocation(globalConfiguration, locationPath);
+      return new File(location.toFile(), cacheName);
+   }
+
+   @Override
+   public CompletionStage<Void> start(InitializationContext ctx) {
+      this.ctx = ctx;
+      this.configuration = ctx.getConfiguration();
+      this.timeService = ctx.getTimeService();
+      this.entryFactory = ctx.getMarshallableEntryFactory();
+      this.marshaller = ctx.getPersistenceMarshaller();
+      this.blockingManager = ctx.getBlockingManager();
+      this.keyPartitioner = ctx.getKeyPartitioner();
+      this.numSegments = ctx.getCache().getCacheConfiguration().clustering().hash().numSegments();
+      return blockingManager.runBlocking(this::blockingStart, "mmap-start");
+   }
+
+   private void blockingStart() {
+      directory = getStoreDirectory(ctx.getGlobalConfiguration(), configuration.location(), ctx.getCache().getName());
+      if (!directory.mkdirs() && !directory.exists()) {
+         throw PERSISTENCE.directoryCannotBeCreated(directory.getAbsolutePath());
+      }
+      index = new OffHeapKeyIndex(configuration.indexPartitions(), configuration.indexInitialCapacity(), this::keyMatches);
+      try {
+         if (configuration.purgeOnStartup()) {
+            blockingClear();
+         } else {
+            rebuildIndex();
+         }
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Throwable t) {
+         throw new PersistenceException(t);
+      }
+   }
+
+   @Override
+   public CompletionStage<Void> stop() {
+      return blockingManager.runBlocking(this::blockingStop, "mmap-stop");
+   }
+
+   private void blockingStop() {
+      if (index == null) {
+         return;
+      }
+      try {
+         log.tracef("Stopping store %s, size = %d, files = %d", ctx.getCache().getName(), index.size(), files.size());
+         synchronized (appendLock) {
+            for (MappedLogFile file : files.values()) {
+               file.force();
+               file.close();
+            }
+            files.clear();
+            head = null;
+         }
+         index = null;
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public Set<Characteristic> characteristics() {
+      return EnumSet.of(Characteristic.BULK_READ, Characteristic.EXPIRATION, Characteristic.SEGMENTABLE);
+   }
+
+   @Override
+   public CompletionStage<Boolean> isAvailable() {
+      return blockingManager.supplyBlocking(() -> directory.exists(), "mmap-available");
+   }
+
+   /**
+    * Replays all the log files in order to rebuild the index.
+    */
+   private void rebuildIndex() throws IOException {
+      File[] logFiles = directory.listFiles((dir, name) -> FILE_NAME.matcher(name).matches());
+      if (logFiles == null) {
+         return;
+      }
+      List<KeyValuePair<Integer, File>> ordered = new ArrayList<>(logFiles.length);
+      for (File file : logFiles) {
+         Matcher matcher = FILE_NAME.matcher(file.getName());
+         if (matcher.matches()) {
+            ordered.add(new KeyValuePair<>(Integer.parseInt(matcher.group(1)), file));
+         }
+      }
+      ordered.sort(Comparator.comparing(KeyValuePair::getKey));
+      for (KeyValuePair<Integer, File> kvp : ordered) {
+         MappedLogFile file = MappedLogFile.open(kvp.getKey(), kvp.getValue());
+         if (!file.hasMagic()) {
+            file.close();
+            throw PERSISTENCE.errorReadingFileStore(kvp.getValue().getPath(), 0);
+         }
+         files.put(file.id, file);
+         replay(file);
+         head = file;
+         nextFileId = file.id + 1;
+      }
+   }
+
+   private void replay(MappedLogFile file) {
+      int offset = MappedLogFile.FIRST_RECORD_OFFSET;
+      while (offset + MappedLogFile.HEADER_SIZE <= file.capacity()) {
+         int size = file.getInt(offset);
+         if (size == 0) {
+            break;
+         }
+         int keyLength = file.getInt(offset + MappedLogFile.KEY_LENGTH_OFFSET);
+         if (size < MappedLogFile.HEADER_SIZE + keyLength || offset + size > file.capacity()) {
+            throw PERSISTENCE.errorReadingFileStore(file.file.getPath(), offset);
+         }
+         byte[] key = new byte[keyLength];
+         file.read(offset + MappedLogFile.HEADER_SIZE, key, 0, keyLength);
+         int hash = hash(key);
+         long location = MappedLogFile.location(file.id, offset);
+         OffHeapKeyIndex.Partition partition = index.partition(hash);
+         long previous;
+         if (file.getInt(offset + MappedLogFile.VALUE_LENGTH_OFFSET) == MappedLogFile.TOMBSTONE) {
+            previous = partition.remove(hash, key);
+            file.free(size);
+         } else {
+            previous = partition.put(hash, key, location);
+         }
+         if (previous != OffHeapKeyIndex.NO_LOCATION) {
+            free(previous);
+         }
+         offset += size;
+      }
+      file.setEnd(offset);
+      if (log.isTraceEnabled()) log.tracef("Replayed %s, index size is %d", file, index.size());
+   }
+
+   private boolean keyMatches(long location, byte[] key) {
+      MappedLogFile file = files.get(MappedLogFile.fileId(location));
+      int offset = MappedLogFile.offset(location);
+      return file.getInt(offset + MappedLogFile.KEY_LENGTH_OFFSET) == key.length &&
+            file.regionEquals(offset + MappedLogFile.HEADER_SIZE, key);
+   }
+
+   private static int hash(byte[] key) {
+      return MurmurHash3.getInstance().hash(key);
+   }
+
+   private static byte[] toArray(org.infinispan.commons.io.ByteBuffer buffer) {
+      byte[] buf = buffer.getBuf();
+      if (buffer.getOffset() == 0 && buffer.getLength() == buf.length) {
+         return buf;
+      }
+      return Arrays.copyOfRange(buf, buffer.getOffset(), buffer.getOffset() + buffer.getLength());
+   }
+
+   private byte[] marshallKey(Object key) {
+      try {
+         return marshaller.objectToByteBuffer(key);
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException(e);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private K unmarshallKey(byte[] key) {
+      try {
+         return (K) marshaller.objectFromByteBuffer(key);
+      } catch (IOException | ClassNotFoundException e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private boolean isExpired(MappedLogFile file, int offset, long now) {
+      long expiryTime = file.getLong(offset + MappedLogFile.EXPIRY_OFFSET);
+      return expiryTime > 0 && expiryTime < now;
+   }
+
+   /**
+    * Marks the record at the given location as garbage.
+    */
+   private void free(long location) {
+      MappedLogFile file = files.get(MappedLogFile.fileId(location));
+      if (file != null) {
+         file.free(file.getInt(MappedLogFile.offset(location)));
+      }
+   }
+
+   /**
+    * Returns a file that has room for a record of the given size, creating a new one if necessary.
+    * <p/>
+    * Note: Caller must hold the {@code appendLock}.
+    */
+   private MappedLogFile headFor(int size) throws IOException {
+      if (head == null || head.end() + size > head.capacity()) {
+         int fileSize = Math.max(configuration.maxFileSize(), MappedLogFile.FIRST_RECORD_OFFSET + size);
+         MappedLogFile file = MappedLogFile.create(nextFileId, new File(directory, nextFileId + ".log"), fileSize);
+         nextFileId++;
+         files.put(file.id, file);
+         if (log.isTraceEnabled()) log.tracef("Created new log file %s, previous head was %s", file, head);
+         head = file;
+      }
+      return head;
+   }
+
+   /**
+    * Appends a record to the log.
+    * <p/>
+    * Note: Caller must hold the write lock of the index partition of the key.
+    */
+   private long append(byte[] key, org.infinispan.commons.io.ByteBuffer value, org.infinispan.commons.io.ByteBuffer metadata,
+                       org.infinispan.commons.io.ByteBuffer internalMetadata, long expiryTime, long created, long lastUsed) throws IOException {
+      int valueLength = value == null ? MappedLogFile.TOMBSTONE : value.getLength();
+      int metadataLength = metadata == null ? 0 : metadata.getLength();
+      int internalMetadataLength = internalMetadata == null ? 0 : internalMetadata.getLength();
+      int size = MappedLogFile.HEADER_SIZE + key.length + Math.max(valueLength, 0) + metadataLength + internalMetadataLength;
+      synchronized (appendLock) {
+         MappedLogFile file = headFor(size);
+         int offset = file.end();
+         file.putInt(offset + MappedLogFile.KEY_LENGTH_OFFSET, key.length);
+         file.putInt(offset + MappedLogFile.VALUE_LENGTH_OFFSET, valueLength);
+         file.putInt(offset + MappedLogFile.METADATA_LENGTH_OFFSET, metadataLength);
+         file.putInt(offset + MappedLogFile.INTERNAL_METADATA_LENGTH_OFFSET, internalMetadataLength);
+         file.putLong(offset + MappedLogFile.EXPIRY_OFFSET, expiryTime);
+         file.putLong(offset + MappedLogFile.CREATED_OFFSET, created);
+         file.putLong(offset + MappedLogFile.LAST_USED_OFFSET, lastUsed);
+         int position = offset + MappedLogFile.HEADER_SIZE;
+         file.write(position, key, 0, key.length);
+         position += key.length;
+         if (value != null) {
+            file.write(position, value.getBuf(), value.getOffset(), valueLength);
+            position += valueLength;
+         }
+         if (metadata != null) {
+            file.write(position, metadata.getBuf(), metadata.getOffset(), metadataLength);
+            position += metadataLength;
+         }
+         if (internalMetadata != null) {
+            file.write(position, internalMetadata.getBuf(), internalMetadata.getOffset(), internalMetadataLength);
+         }
+         // The size is written last so that a partially written record is never replayed
+         file.putInt(offset, size);
+         file.setEnd(offset + size);
+         if (configuration.syncWrites()) {
+            file.force();
+         }
+         return MappedLogFile.location(file.id, offset);
+      }
+   }
+
+   /**
+    * Copies a record as is to the head of the log.
+    * <p/>
+    * Note: Caller must hold the write lock of the index partition of the key.
+    */
+   private long appendCopy(MappedLogFile source, int sourceOffset, int size) throws IOException {
+      byte[] record = new byte[size];
+      source.read(sourceOffset, record, 0, size);
+      synchronized (appendLock) {
+         MappedLogFile file = headFor(size);
+         int offset = file.end();
+         file.write(offset + MappedLogFile.KEY_LENGTH_OFFSET, record, MappedLogFile.KEY_LENGTH_OFFSET,
+               size - MappedLogFile.KEY_LENGTH_OFFSET);
+         file.putInt(offset, size);
+         file.setEnd(offset + size);
+         if (configuration.syncWrites()) {
+            file.force();
+         }
+         return MappedLogFile.location(file.id, offset);
+      }
+   }
+
+   @Override
+   public CompletionStage<Boolean> containsKey(int segment, Object key) {
+      return blockingManager.supplyBlocking(() -> blockingContains(key), "mmap-contains");
+   }
+
+   private boolean blockingContains(Object key) {
+      byte[] keyBytes = marshallKey(key);
+      int hash = hash(keyBytes);
+      OffHeapKeyIndex.Partition partition = index.partition(hash);
+      Lock lock = partition.lock.readLock();
+      lock.lock();
+      try {
+         long location = partition.get(hash, keyBytes);
+         return location != OffHeapKeyIndex.NO_LOCATION &&
+               !isExpired(files.get(MappedLogFile.fileId(location)), MappedLogFile.offset(location), timeService.wallClockTime());
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public CompletionStage<Void> write(int segment, MarshallableEntry<? extends K, ? extends V> entry) {
+      return blockingManager.runBlocking(() -> blockingWrite(entry), "mmap-write");
+   }
+
+   private void blockingWrite(MarshallableEntry<? extends K, ? extends V> marshalledEntry) {
+      byte[] key = toArray(marshalledEntry.getKeyBytes());
+      org.infinispan.commons.io.ByteBuffer value = marshalledEntry.getValueBytes();
+      if (value == null) {
+         value = ctx.getByteBufferFactory().newByteBuffer(Util.EMPTY_BYTE_ARRAY, 0, 0);
+      }
+      int hash = hash(key);
+      OffHeapKeyIndex.Partition partition = index.partition(hash);
+      Lock lock = partition.lock.writeLock();
+      lock.lock();
+      try {
+         long location = append(key, value, marshalledEntry.getMetadataBytes(), marshalledEntry.getInternalMetadataBytes(),
+               marshalledEntry.expiryTime(), marshalledEntry.created(), marshalledEntry.lastUsed());
+         long previous = partition.put(hash, key, location);
+         if (previous != OffHeapKeyIndex.NO_LOCATION) {
+            free(previous);
+         }
+         if (log.isTraceEnabled()) log.tracef("Wrote entry %s at %d:%d", marshalledEntry.getKey(),
+               MappedLogFile.fileId(location), MappedLogFile.offset(location));
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public CompletionStage<Boolean> delete(int segment, Object key) {
+      return blockingManager.supplyBlocking(() -> blockingDelete(marshallKey(key)), "mmap-delete");
+   }
+
+   private boolean blockingDelete(byte[] keyBytes) {
+      int hash = hash(keyBytes);
+      OffHeapKeyIndex.Partition partition = index.partition(hash);
+      Lock lock = partition.lock.writeLock();
+      lock.lock();
+      try {
+         long previous = partition.remove(hash, keyBytes);
+         if (previous == OffHeapKeyIndex.NO_LOCATION) {
+            return false;
+         }
+         free(previous);
+         // The tombstone is garbage from the start, compaction decides whether it must be kept
+         free(append(keyBytes, null, null, null, -1, -1, -1));
+         return true;
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public CompletionStage<Void> clear() {
+      return blockingManager.runBlocking(this::blockingClear, "mmap-clear");
+   }
+
+   private void blockingClear() {
+      List<Lock> locks = lockAllPartitions();
+      try {
+         synchronized (appendLock) {
+            for (MappedLogFile file : files.values()) {
+               file.delete();
+            }
+            files.clear();
+            head = null;
+         }
+         for (int i = 0; i < index.partitionCount(); ++i) {
+            index.partitionAt(i).clear();
+         }
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      } finally {
+         locks.forEach(Lock::unlock);
+      }
+   }
+
+   private List<Lock> lockAllPartitions() {
+      List<Lock> locks = new ArrayList<>(index.partitionCount());
+      for (int i = 0; i < index.partitionCount(); ++i) {
+         Lock lock = index.partitionAt(i).lock.writeLock();
+         lock.lock();
+         locks.add(lock);
+      }
+      return locks;
+   }
+
+   @Override
+   public CompletionStage<MarshallableEntry<K, V>> load(int segment, Object key) {
+      return blockingManager.supplyBlocking(() -> blockingLoad(marshallKey(key), true), "mmap-load");
+   }
+
+   private MarshallableEntry<K, V> blockingLoad(byte[] key, boolean loadValue) {
+      int hash = hash(key);
+      OffHeapKeyIndex.Partition partition = index.partition(hash);
+      Lock lock = partition.lock.readLock();
+      lock.lock();
+      try {
+         long location = partition.get(hash, key);
+         if (location == OffHeapKeyIndex.NO_LOCATION) {
+            return null;
+         }
+         // Compaction cannot move the record and delete its file while we hold the partition lock
+         MappedLogFile file = files.get(MappedLogFile.fileId(location));
+         int offset = MappedLogFile.offset(location);
+         // Entries are removed due to expiration from {@link MemoryMappedFileStore#purgeExpired}
+         if (isExpired(file, offset, timeService.wallClockTime())) {
+            return null;
+         }
+         return readEntry(file, offset, key, loadValue);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Copies the record at the given offset out of the mapping.
+    * <p/>
+    * Note: Caller must hold the lock of the index partition of the key.
+    */
+   private MarshallableEntry<K, V> readEntry(MappedLogFile file, int offset, byte[] key, boolean loadValue) {
+      int valueLength = file.getInt(offset + MappedLogFile.VALUE_LENGTH_OFFSET);
+      int metadataLength = file.getInt(offset + MappedLogFile.METADATA_LENGTH_OFFSET);
+      int internalMetadataLength = file.getInt(offset + MappedLogFile.INTERNAL_METADATA_LENGTH_OFFSET);
+      long created = file.getLong(offset + MappedLogFile.CREATED_OFFSET);
+      long lastUsed = file.getLong(offset + MappedLogFile.LAST_USED_OFFSET);
+      byte[] data = new byte[valueLength + metadataLength + internalMetadataLength];
+      file.read(offset + MappedLogFile.HEADER_SIZE + key.length, data, 0, data.length);
+
+      ByteBufferFactory factory = ctx.getByteBufferFactory();
+      org.infinispan.commons.io.ByteBuffer keyBb = factory.newByteBuffer(key, 0, key.length);
+      org.infinispan.commons.io.ByteBuffer valueBb = loadValue ? factory.newByteBuffer(data, 0, valueLength) : null;
+      org.infinispan.commons.io.ByteBuffer metadataBb = metadataLength > 0 ?
+            factory.newByteBuffer(data, valueLength, metadataLength) : null;
+      org.infinispan.commons.io.ByteBuffer internalMetadataBb = internalMetadataLength > 0 ?
+            factory.newByteBuffer(data, valueLength + metadataLength, internalMetadataLength) : null;
+      return entryFactory.create(keyBb, valueBb, metadataBb, internalMetadataBb, created, lastUsed);
+   }
+
+   /**
+    * Copies the serialized keys of all the non expired entries of an index partition.
+    */
+   private List<byte[]> partitionKeys(int partitionIndex) {
+      OffHeapKeyIndex.Partition partition = index.partitionAt(partitionIndex);
+      long now = timeService.wallClockTime();
+      Lock lock = partition.lock.readLock();
+      lock.lock();
+      try {
+         List<byte[]> keys = new ArrayList<>(partition.size());
+         partition.forEach(location -> {
+            MappedLogFile file = files.get(MappedLogFile.fileId(location));
+            int offset = MappedLogFile.offset(location);
+            if (!isExpired(file, offset, now)) {
+               byte[] key = new byte[file.getInt(offset + MappedLogFile.KEY_LENGTH_OFFSET)];
+               file.read(offset + MappedLogFile.HEADER_SIZE, key, 0, key.length);
+               keys.add(key);
+            }
+         });
+         return keys;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Publishes the keys of the given segments, or of all segments if {@code segments} is {@code null}, along with
+    * their serialized form. Must be subscribed to from a blocking thread.
+    */
+   private Flowable<KeyValuePair<K, byte[]>> publishKeyPairs(IntSet segments, Predicate<? super K> filter) {
+      // Each partition is only read when requested, so that at most one partition worth of keys is kept in memory
+      return Flowable.range(0, index.partitionCount())
+            .concatMapIterable(this::partitionKeys)
+            .map(bytes -> new KeyValuePair<>(unmarshallKey(bytes), bytes))
+            .filter(kvp -> (segments == null || segments.contains(keyPartitioner.getSegment(kvp.getKey()))) &&
+                  (filter == null || filter.test(kvp.getKey())));
+   }
+
+   @Override
+   public Publisher<K> publishKeys(IntSet segments, Predicate<? super K> filter) {
+      return blockingManager.blockingPublisher(Flowable.defer(() -> publishKeyPairs(segments, filter)
+            .map(KeyValuePair::getKey)));
+   }
+
+   @Override
+   public Publisher<MarshallableEntry<K, V>> publishEntries(IntSet segments, Predicate<? super K> filter, boolean includeValues) {
+      return blockingManager.blockingPublisher(Flowable.defer(() -> publishKeyPairs(segments, filter).concatMapMaybe(kvp -> {
+         // The entry may have been removed or may have expired since its key was read
+         MarshallableEntry<K, V> entry = blockingLoad(kvp.getValue(), includeValues);
+         return entry == null ? Maybe.empty() : Maybe.just(entry);
+      })));
+   }
+
+   @Override
+   public CompletionStage<Long> size(IntSet segments) {
+      return blockingManager.supplyBlocking(() -> {
+         if (segments == null || segments.size() == numSegments) {
+            return index.size();
+         }
+         return publishKeyPairs(segments, null).count().blockingGet();
+      }, "mmap-size");
+   }
+
+   @Override
+   public CompletionStage<Long> approximateSize(IntSet segments) {
+      if (segments == null || segments.size() == numSegments) {
+         return blockingManager.supplyBlocking(() -> index.size(), "mmap-approximate-size");
+      }
+      return size(segments);
+   }
+
+   @Override
+   public CompletionStage<Void> addSegments(IntSet segments) {
+      // All the segments share the same log
+      return CompletableFutures.completedNull();
+   }
+
+   @Override
+   public CompletionStage<Void> removeSegments(IntSet segments) {
+      return blockingManager.runBlocking(() -> {
+         publishKeyPairs(segments, null).blockingForEach(kvp -> blockingDelete(kvp.getValue()));
+         compact();
+      }, "mmap-remove-segments");
+   }
+
+   @Override
+   public Publisher<MarshallableEntry<K, V>> purgeExpired() {
+      return blockingManager.blockingPublisher(Flowable.defer(() -> {
+         long now = timeService.wallClockTime();
+         return Flowable.range(0, index.partitionCount())
+               .concatMapIterable(i -> purgePartition(index.partitionAt(i), now))
+               // The space of the expired entries can only be reclaimed once they have all been removed
+               .concatWith(Completable.fromAction(this::compact));
+      }));
+   }
+
+   /**
+    * Removes the expired entries of an index partition.
+    * @return the removed entries
+    */
+   private List<MarshallableEntry<K, V>> purgePartition(OffHeapKeyIndex.Partition partition, long now) {
+      List<KeyValuePair<Long, byte[]>> expired = new ArrayList<>();
+      Lock readLock = partition.lock.readLock();
+      readLock.lock();
+      try {
+         partition.forEach(location -> {
+            MappedLogFile file = files.get(MappedLogFile.fileId(location));
+            int offset = MappedLogFile.offset(location);
+            if (isExpired(file, offset, now)) {
+               byte[] key = new byte[file.getInt(offset + MappedLogFile.KEY_LENGTH_OFFSET)];
+               file.read(offset + MappedLogFile.HEADER_SIZE, key, 0, key.length);
+               expired.add(new KeyValuePair<>(location, key));
+            }
+         });
+      } finally {
+         readLock.unlock();
+      }
+      if (expired.isEmpty()) {
+         return Collections.emptyList();
+      }
+      List<MarshallableEntry<K, V>> removed = new ArrayList<>(expired.size());
+      Lock writeLock = partition.lock.writeLock();
+      for (KeyValuePair<Long, byte[]> kvp : expired) {
+         writeLock.lock();
+         try {
+            long location = kvp.getKey();
+            // The entry is not removed if it was overwritten since it was found to be expired
+            if (partition.remove(hash(kvp.getValue()), location)) {
+               // Compaction cannot delete the file of the record while we hold the partition lock
+               removed.add(readEntry(files.get(MappedLogFile.fileId(location)), MappedLogFile.offset(location),
+                     kvp.getValue(), true));
+               free(location);
+               // Compaction may drop the expired record while an older file still holds a previous value of the key,
+               // so the removal needs a tombstone like any other
+               free(append(kvp.getValue(), null, null, null, -1, -1, -1));
+            }
+         } catch (IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            writeLock.unlock();
+         }
+      }
+      return removed;
+   }
+
+   /**
+    * Moves the live records of all the files that reached the compaction threshold to the head of the log and deletes
+    * them. Files are compacted from the oldest to the newest, so that tombstones can be dropped once there is no older
+    * file left that could contain a record they shadow.
+    * <p/>
+    * A record that is not current any more can be dropped because every change to the index leaves a newer record of
+    * the key in the log: a write appends the new value, and both {@link #delete(int, Object)} and the removal of expired
+    * entries append a tombstone. The tombstones themselves are moved to the head of the log as long as an older file
+    * exists, so the newest record of a key always wins when the log is replayed.
+    */
+   private void compact() {
+      List<MappedLogFile> candidates = new ArrayList<>();
+      synchronized (appendLock) {
+         for (MappedLogFile file : files.values()) {
+            long used = file.end() - MappedLogFile.FIRST_RECORD_OFFSET;
+            if (file != head && used > 0 && file.freeBytes() >= used * configuration.compactionThreshold()) {
+               candidates.add(file);
+            }
+         }
+      }
+      candidates.sort(Comparator.comparingInt(f -> f.id));
+      for (MappedLogFile file : candidates) {
+         try {
+            compact(file);
+         } catch (IOException e) {
+            throw new PersistenceException("Cannot compact file " + file.file, e);
+         }
+      }
+   }
+
+   private void compact(MappedLogFile file) throws IOException {
+      boolean oldest = Collections.min(files.keySet()) == file.id;
+      long start = timeService.wallClockTime();
+      int moved = 0;
+      int offset = MappedLogFile.FIRST_RECORD_OFFSET;
+      int end = file.end();
+      while (offset < end) {
+         int size = file.getInt(offset);
+         byte[] key = new byte[file.getInt(offset + MappedLogFile.KEY_LENGTH_OFFSET)];
+         file.read(offset + MappedLogFile.HEADER_SIZE, key, 0, key.length);
+         boolean tombstone = file.getInt(offset + MappedLogFile.VALUE_LENGTH_OFFSET) == MappedLogFile.TOMBSTONE;
+         int hash = hash(key);
+         OffHeapKeyIndex.Partition partition = index.partition(hash);
+         Lock lock = partition.lock.writeLock();
+         lock.lock();
+         try {
+            long current = partition.get(hash, key);
+            if (tombstone) {
+               // A tombstone is only needed while an older file could hold a record of the key,
+               // and it must not shadow a record written after it
+               if (!oldest && current == OffHeapKeyIndex.NO_LOCATION) {
+                  free(appendCopy(file, offset, size));
+                  moved++;
+               }
+            } else if (current == MappedLogFile.location(file.id, offset)) {
+               partition.replace(hash, current, appendCopy(file, offset, size));
+               moved++;
+            }
+         } finally {
+            lock.unlock();
+         }
+         offset += size;
+      }
+      files.remove(file.id);
+      file.delete();
+      if (log.isTraceEnabled()) log.tracef("Compacted %s, moved %d records in %d ms", file, moved, timeService.wallClockTime() - start);
+   }
+
+   int fileCount() {
+      return files.size();
+   }
+
+   long indexMemoryUsage() {
+      return index.memoryUsage();
+   }
+
+   public MemoryMappedFileStoreConfiguration getConfiguration() {
+      return configuration;
+   }
+}
@@ -0,0 +1,293 @@
+package org.infinispan.persistence.file;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+import org.infinispan.persistence.spi.PersistenceException;
+
+/**
+ * Hash index from serialized keys to log locations that lives outside of the Java heap.
+ * <p/>
+ * The index is split into a power of two number of {@link Partition}s, each one an open addressing hash table with
+ * linear probing backed by a direct {@link ByteBuffer}. A slot only holds the location of the record and the hash of
+ * its key, the key itself is never copied into the index: candidates are verified against the key stored in the log
+ * through the {@link KeyMatcher}.
+ * <p/>
+ * The index does no locking by itself. Callers must hold the {@link Partition#lock} of the partition returned by
+ * {@link #partition(int)} while invoking any of its methods, and keep holding it while they read the record at the
+ * returned location.
+ *
+ * @since 12.1
+ */
+final class OffHeapKeyIndex {
+   /**
+    * Value returned when there is no location for the requested key. Locations are never 0 as every log file starts
+    * with a header.
+    */
+   static final long NO_LOCATION = 0;
+
+   /*
+    * 8 bytes - record location
+    * 4 bytes - key hash
+    * 4 bytes - padding
+    */
+   private static final int SLOT_SIZE = 16;
+   private static final int HASH_OFFSET = 8;
+   private static final int MAX_CAPACITY = 1 << 26;
+   private static final float LOAD_FACTOR = 0.75f;
+
+   interface KeyMatcher {
+      /**
+       * @return whether the record stored at the given location has the given serialized key
+       */
+      boolean matches(long location, byte[] key);
+   }
+
+   private final Partition[] partitions;
+   private final int partitionShift;
+   private final int initialCapacity;
+   private final KeyMatcher matcher;
+
+   OffHeapKeyIndex(int partitionCount, int initialCapacity, KeyMatcher matcher) {
+      if (Integer.bitCount(partitionCount) != 1) {
+         throw new IllegalArgumentException("Partition count must be a power of two, got " + partitionCount);
+      }
+      this.partitions = new Partition[partitionCount];
+      this.partitionShift = 32 - Integer.numberOfTrailingZeros(partitionCount);
+      this.initialCapacity = tableSizeFor(initialCapacity);
+      this.matcher = matcher;
+      for (int i = 0; i < partitionCount; ++i) {
+         partitions[i] = new Partition();
+      }
+   }
+
+   Partition partition(int hash) {
+      if (partitions.length == 1) {
+         return partitions[0];
+      }
+      // Use the high bits of a remixed hash so that the partition is independent from the home slot
+      return partitions[(hash * 0x9E3779B9) >>> partitionShift];
+   }
+
+   int partitionCount() {
+      return partitions.length;
+   }
+
+   Partition partitionAt(int index) {
+      return partitions[index];
+   }
+
+   /**
+    * @return the number of keys in the index, without locking
+    */
+   long size() {
+      long size = 0;
+      for (Partition partition : partitions) {
+         size += partition.size;
+      }
+      return size;
+   }
+
+   /**
+    * @return the number of off-heap bytes used by the index tables
+    */
+   long memoryUsage() {
+      long bytes = 0;
+      for (Partition partition : partitions) {
+         bytes += (long) partition.capacity * SLOT_SIZE;
+      }
+      return bytes;
+   }
+
+   private static int tableSizeFor(int capacity) {
+      int size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+      return Math.min(size, MAX_CAPACITY);
+   }
+
+   final class Partition {
+      final ReadWriteLock lock = new ReentrantReadWriteLock();
+      private ByteBuffer table;
+      private int capacity;
+      private int mask;
+      private volatile int size;
+
+      Partition() {
+         allocate(initialCapacity);
+      }
+
+      private void allocate(int capacity) {
+         this.table = ByteBuffer.allocateDirect(capacity * SLOT_SIZE).order(ByteOrder.nativeOrder());
+         this.capacity = capacity;
+         this.mask = capacity - 1;
+      }
+
+      private long location(int slot) {
+         return table.getLong(slot * SLOT_SIZE);
+      }
+
+      private int hash(int slot) {
+         return table.getInt(slot * SLOT_SIZE + HASH_OFFSET);
+      }
+
+      private void set(int slot, long location, int hash) {
+         table.putLong(slot * SLOT_SIZE, location);
+         table.putInt(slot * SLOT_SIZE + HASH_OFFSET, hash);
+      }
+
+      private int findKey(int hash, byte[] key) {
+         for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long location = location(slot);
+            if (location == NO_LOCATION) {
+               return -1;
+            }
+            if (hash(slot) == hash && matcher.matches(location, key)) {
+               return slot;
+            }
+         }
+      }
+
+      private int findLocation(int hash, long location) {
+         for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long current = location(slot);
+            if (current == NO_LOCATION) {
+               return -1;
+            }
+            if (current == location) {
+               return slot;
+            }
+         }
+      }
+
+      int size() {
+         return size;
+      }
+
+      long get(int hash, byte[] key) {
+         int slot = findKey(hash, key);
+         return slot < 0 ? NO_LOCATION : location(slot);
+      }
+
+      /**
+       * @return the previous location of the key or {@link #NO_LOCATION}
+       */
+      long put(int hash, byte[] key, long location) {
+         int slot = hash & mask;
+         for (; ; slot = (slot + 1) & mask) {
+            long current = location(slot);
+            if (current == NO_LOCATION) {
+               break;
+            }
+            if (hash(slot) == hash && matcher.matches(current, key)) {
+               table.putLong(slot * SLOT_SIZE, location);
+               return current;
+            }
+         }
+         set(slot, location, hash);
+         size++;
+         if (size > capacity * LOAD_FACTOR) {
+            resize();
+         }
+         return NO_LOCATION;
+      }
+
+      /**
+       * Updates the location of a record that has been moved, if the index still points to its old location.
+       */
+      boolean replace(int hash, long expected, long location) {
+         int slot = findLocation(hash, expected);
+         if (slot < 0) {
+            return false;
+         }
+         table.putLong(slot * SLOT_SIZE, location);
+         return true;
+      }
+
+      /**
+       * @return the removed location of the key or {@link #NO_LOCATION}
+       */
+      long remove(int hash, byte[] key) {
+         int slot = findKey(hash, key);
+         if (slot < 0) {
+            return NO_LOCATION;
+         }
+         long location = location(slot);
+         delete(slot);
+         return location;
+      }
+
+      /**
+       * Removes the key if the index still points to the given location.
+       */
+      boolean remove(int hash, long expected) {
+         int slot = findLocation(hash, expected);
+         if (slot < 0) {
+            return false;
+         }
+         delete(slot);
+         return true;
+      }
+
+      void forEach(LongConsumer consumer) {
+         for (int slot = 0; slot < capacity; ++slot) {
+            long location = location(slot);
+            if (location != NO_LOCATION) {
+               consumer.accept(location);
+            }
+         }
+      }
+
+      void clear() {
+         allocate(initialCapacity);
+         size = 0;
+      }
+
+      /**
+       * Backward shift deletion, so that no tombstones are needed in the table.
+       */
+      private void delete(int slot) {
+         int hole = slot;
+         for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            long location = location(next);
+            if (location == NO_LOCATION) {
+               break;
+            }
+            int hash = hash(next);
+            int home = hash & mask;
+            // The entry can fill the hole only if its home slot is not cyclically within (hole, next]
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+               set(hole, location, hash);
+               hole = next;
+            }
+         }
+         set(hole, NO_LOCATION, 0);
+         size--;
+      }
+
+      private void resize() {
+         if (capacity >= MAX_CAPACITY) {
+            if (size >= capacity - 1) {
+               throw new PersistenceException("Off-heap key index partition is full with " + size + " entries");
+            }
+            return;
+         }
+         ByteBuffer oldTable = table;
+         int oldCapacity = capacity;
+         allocate(oldCapacity << 1);
+         for (int oldSlot = 0; oldSlot < oldCapacity; ++oldSlot) {
+            long location = oldTable.getLong(oldSlot * SLOT_SIZE);
+            if (location != NO_LOCATION) {
+               int hash = oldTable.getInt(oldSlot * SLOT_SIZE + HASH_OFFSET);
+               int slot = hash & mask;
+               while (location(slot) != NO_LOCATION) {
+                  slot = (slot + 1) & mask;
+               }
+               set(slot, location, hash);
+            }
+         }
+      }
+   }
+}
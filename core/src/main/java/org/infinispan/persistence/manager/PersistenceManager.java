@@ -15,6 +15,7 @@
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
 import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.transaction.impl.AbstractCacheTransaction;
 import org.infinispan.util.concurrent.CompletableFutures;
@@ -359,6 +360,19 @@ default CompletionStage<Boolean> removeSegments(IntSet segments) {
       return CompletableFutures.completedTrue();
    }
 
+   /**
+    * Starts the bulk load of a segment received through state transfer, see
+    * {@link NonBlockingStore#startIngestion(int)}.
+    * <p>
+    * Ingestion is only possible when there is a single store and it is writable, neither shared nor transactional.
+    * @param segment the empty segment being transferred to this node
+    * @return a stage completed with the ingestion of the segment, or with null if the entries must be written through
+    * the regular write path
+    */
+   default <K, V> CompletionStage<NonBlockingStore.SegmentIngestion<K, V>> startIngestion(int segment) {
+      return CompletableFutures.completedNull();
+   }
+
    /**
     * @return true if no {@link org.infinispan.persistence.spi.CacheWriter} instances have been configured.
     */
@@ -72,6 +72,7 @@
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.persistence.InitializationContextImpl;
 import org.infinispan.persistence.async.AsyncNonBlockingStore;
+import org.infinispan.persistence.async.WriteBehindStatistics;
 import org.infinispan.persistence.internal.PersistenceUtil;
 import org.infinispan.persistence.spi.LocalOnlyCacheLoader;
 import org.infinispan.persistence.spi.MarshallableEntry;
@@ -127,6 +128,8 @@ public class PersistenceManagerImpl implements PersistenceManager {
    @Inject ComponentRef<InvocationHelper> invocationHelper;
    @Inject ComponentRef<InternalExpirationManager<Object, Object>> expirationManager;
    @Inject DistributionManager distributionManager;
+   @Inject StoreBloomFilter bloomFilter;
+   @Inject WriteBehindStatistics writeBehindStatistics;
 
    // We use stamped lock since we require releasing locks in threads that may be the same that acquired it
    private final StampedLock lock = new StampedLock();
@@ -192,7 +195,7 @@ public void start() {
                   NonBlockingStore<?, ?> actualStore = storeFromConfiguration(storeConfiguration);
                   NonBlockingStore<?, ?> nonBlockingStore;
                   if (storeConfiguration.async().enabled()) {
-                     nonBlockingStore = new AsyncNonBlockingStore<>(actualStore);
+                     nonBlockingStore = new AsyncNonBlockingStore<>(actualStore, writeBehindStatistics);
                   } else {
                      nonBlockingStore = actualStore;
                   }
@@ -234,6 +237,44 @@ public void start() {
       } finally {
          lock.unlockWrite(stamp);
       }
+      startBloomFilter();
+   }
+
+   /**
+    * Fills the Bloom filters with the keys of all the stores, unless a store is shared with other nodes or cannot
+    * publish its keys, in which case a missing key in the filters would not mean it is not in the stores.
+    */
+   private void startBloomFilter() {
+      if (!bloomFilter.isEnabled()) {
+         return;
+      }
+      boolean clustered = configuration.clustering().cacheMode().isClustered();
+      for (StoreStatus storeStatus : stores) {
+         Set<Characteristic> characteristics = storeStatus.characteristics;
+         if (!characteristics.contains(Characteristic.WRITE_ONLY) &&
+               (!characteristics.contains(Characteristic.BULK_READ) || clustered && storeStatus.config.shared())) {
+            log.storeBloomFilterDisabled(storeStatus.store.getClass().getName());
+            bloomFilter.disable();
+            return;
+         }
+      }
+      rebuildBloomFilter(IntSets.immutableRangeSet(segmentCount));
+   }
+
+   private CompletionStage<Void> rebuildBloomFilter(IntSet segments) {
+      if (!bloomFilter.isEnabled()) {
+         return CompletableFutures.completedNull();
+      }
+      Flowable<Object> keys = Flowable.using(this::acquireReadLock,
+            ignore -> Flowable.fromIterable(stores)
+                  .filter(storeStatus -> !storeStatus.characteristics.contains(Characteristic.WRITE_ONLY))
+                  .concatMap(storeStatus -> {
+                     Predicate<Object> filter = storeStatus.characteristics.contains(Characteristic.SEGMENTABLE) ?
+                           null : k -> segments.contains(keyPartitioner.getSegment(k));
+                     return storeStatus.store().publishKeys(segments, filter);
+                  }),
+            this::releaseReadLock);
+      return bloomFilter.rebuild(segments, keys);
    }
 
    @GuardedBy("lock")
@@ -702,7 +743,10 @@ public CompletionStage<Void> clearAllStores(Predicate<? super StoreConfiguration
                            storeStatus.store.clear()));
             },
             this::releaseReadLock
-      ).toCompletionStage(null);
+      )
+            // The keys of the cleared stores cannot be removed from the filters, they have to be built again
+            .doOnComplete(() -> rebuildBloomFilter(IntSets.immutableRangeSet(segmentCount)))
+            .toCompletionStage(null);
    }
 
    @Override
@@ -811,12 +855,16 @@ public <K, V> CompletionStage<MarshallableEntry<K, V>> loadFromAllStores(Object
                if (log.isTraceEnabled()) {
                   log.tracef("Loading entry for key %s with segment %d", key, segment);
                }
+               if (!bloomFilter.mightContain(key, segment)) {
+                  return Maybe.empty();
+               }
                return Flowable.fromIterable(stores)
                      .filter(storeStatus -> allowLoad(storeStatus, localInvocation, includeStores))
                      // Only do 1 request at a time
                      .concatMapMaybe(storeStatus -> Maybe.fromCompletionStage(
                            storeStatus.<K, V>store().load(segmentOrZero(storeStatus, segment), key)), 1)
-                     .firstElement();
+                     .firstElement()
+                     .doOnComplete(() -> bloomFilter.loadMissed(segment));
             },
             this::releaseReadLock
       ).toCompletionStage(null);
@@ -903,10 +951,13 @@ public CompletionStage<Void> writeToAllNonTxStores(MarshallableEntry marshalledE
                if (log.isTraceEnabled()) {
                   log.tracef("Writing entry %s for with segment: %d", marshalledEntry, segment);
                }
+               // Added again once written, in case the filter was rebuilt in between
+               bloomFilter.add(marshalledEntry.getKey(), segment);
                return Flowable.fromIterable(stores)
                      .filter(storeStatus -> shouldWrite(storeStatus, predicate, flags))
                      // Let the write work in parallel across the stores
-                     .flatMapCompletable(storeStatus -> Completable.fromCompletionStage(storeStatus.store.write(segmentOrZero(storeStatus, segment), marshalledEntry)));
+                     .flatMapCompletable(storeStatus -> Completable.fromCompletionStage(storeStatus.store.write(segmentOrZero(storeStatus, segment), marshalledEntry)))
+                     .doOnComplete(() -> bloomFilter.add(marshalledEntry.getKey(), segment));
             },
             this::releaseReadLock
       ).toCompletionStage(null);
@@ -989,6 +1040,7 @@ public <K, V> CompletionStage<Void> writeEntries(Iterable<MarshallableEntry<K, V
                if (log.isTraceEnabled()) {
                   log.trace("Writing entries to stores");
                }
+               addToBloomFilter(iterable);
                return Flowable.fromIterable(stores)
                      .filter(storeStatus -> shouldWrite(storeStatus, predicate) &&
                            !storeStatus.characteristics.contains(Characteristic.TRANSACTIONAL))
@@ -1005,12 +1057,21 @@ public <K, V> CompletionStage<Void> writeEntries(Iterable<MarshallableEntry<K, V
                         }
                         return Completable.fromCompletionStage(storeStatus.<K, V>store().batch(segmentCount(segmented),
                               Flowable.empty(), flowable));
-                     });
+                     })
+                     .doOnComplete(() -> addToBloomFilter(iterable));
             },
             this::releaseReadLock
       ).toCompletionStage(null);
    }
 
+   private <K, V> void addToBloomFilter(Iterable<MarshallableEntry<K, V>> iterable) {
+      if (bloomFilter.isEnabled()) {
+         for (MarshallableEntry<K, V> entry : iterable) {
+            bloomFilter.add(entry.getKey(), keyPartitioner.getSegment(entry.getKey()));
+         }
+      }
+   }
+
    @Override
    public CompletionStage<Long> writeMapCommand(PutMapCommand putMapCommand, InvocationContext ctx,
          BiPredicate<? super PutMapCommand, Object> commandKeyPredicate) {
@@ -1039,6 +1100,21 @@ public CompletionStage<Long> performBatch(TxInvocationContext<AbstractCacheTrans
     */
    private <K, V> CompletionStage<Long> batchOperation(Flowable<MVCCEntry<K, V>> mvccEntryFlowable, InvocationContext ctx,
          HandleFlowables<K, V> flowableHandler) {
+      if (bloomFilter.isEnabled()) {
+         // Written keys are added before and after writing them, in case the filter was rebuilt in between
+         Flowable<MVCCEntry<K, V>> addingFlowable = mvccEntryFlowable.doOnNext(mvccEntry -> {
+            if (!mvccEntry.isRemoved()) {
+               bloomFilter.add(mvccEntry.getKey(), keyPartitioner.getSegment(mvccEntry.getKey()));
+            }
+         });
+         return batchOperationWithStores(addingFlowable, ctx, flowableHandler)
+               .thenCompose(count -> addingFlowable.ignoreElements().toSingleDefault(count).toCompletionStage());
+      }
+      return batchOperationWithStores(mvccEntryFlowable, ctx, flowableHandler);
+   }
+
+   private <K, V> CompletionStage<Long> batchOperationWithStores(Flowable<MVCCEntry<K, V>> mvccEntryFlowable,
+         InvocationContext ctx, HandleFlowables<K, V> flowableHandler) {
       return Single.using(
             this::acquireReadLock,
             ignore -> {
@@ -1283,7 +1359,9 @@ public CompletionStage<Boolean> addSegments(IntSet segments) {
                      .flatMapCompletable(storeStatus -> Completable.fromCompletionStage(storeStatus.store.addSegments(segments)));
             },
             this::releaseReadLock
-      ).toCompletionStage(allSegmentedOrShared);
+      )
+            .doOnComplete(() -> rebuildBloomFilter(segments))
+            .toCompletionStage(allSegmentedOrShared);
    }
 
    @Override
@@ -1300,7 +1378,76 @@ public CompletionStage<Boolean> removeSegments(IntSet segments) {
                      .flatMapCompletable(storeStatus -> Completable.fromCompletionStage(storeStatus.store.removeSegments(segments)));
             },
             this::releaseReadLock
-      ).toCompletionStage(allSegmentedOrShared);
+      )
+            .doOnComplete(() -> bloomFilter.remove(segments))
+            .toCompletionStage(allSegmentedOrShared);
+   }
+
+   @Override
+   public <K, V> CompletionStage<NonBlockingStore.SegmentIngestion<K, V>> startIngestion(int segment) {
+      long stamp = acquireReadLock();
+      try {
+         if (!enabled || stores.size() != 1) {
+            return CompletableFutures.completedNull();
+         }
+         StoreStatus storeStatus = stores.get(0);
+         if (!storeStatus.availability || storeStatus.config.shared() ||
+               storeStatus.characteristics.contains(Characteristic.READ_ONLY) ||
+               storeStatus.characteristics.contains(Characteristic.TRANSACTIONAL)) {
+            return CompletableFutures.completedNull();
+         }
+         NonBlockingStore<K, V> store = storeStatus.store();
+         return store.startIngestion(segmentOrZero(storeStatus, segment))
+               .thenApply(ingestion -> {
+                  if (ingestion == null) {
+                     return null;
+                  }
+                  if (log.isTraceEnabled()) {
+                     log.tracef("Started the ingestion of segment %d", segment);
+                  }
+                  return new BloomFilterIngestion<>(ingestion, segment);
+               });
+      } finally {
+         releaseReadLock(stamp);
+      }
+   }
+
+   /**
+    * Adds the ingested keys to the {@link StoreBloomFilter}, as they do not go through the regular write path.
+    */
+   private class BloomFilterIngestion<K, V> implements NonBlockingStore.SegmentIngestion<K, V> {
+      private final NonBlockingStore.SegmentIngestion<K, V> ingestion;
+      private final int segment;
+
+      BloomFilterIngestion(NonBlockingStore.SegmentIngestion<K, V> ingestion, int segment) {
+         this.ingestion = ingestion;
+         this.segment = segment;
+      }
+
+      @Override
+      public CompletionStage<Void> add(Collection<MarshallableEntry<K, V>> entries) {
+         // Added before and after, in case the filter was rebuilt in between
+         addKeys(entries);
+         return ingestion.add(entries).thenRun(() -> addKeys(entries));
+      }
+
+      private void addKeys(Collection<MarshallableEntry<K, V>> entries) {
+         if (bloomFilter.isEnabled()) {
+            for (MarshallableEntry<K, V> entry : entries) {
+               bloomFilter.add(entry.getKey(), segment);
+            }
+         }
+      }
+
+      @Override
+      public CompletionStage<Void> complete() {
+         return ingestion.complete();
+      }
+
+      @Override
+      public CompletionStage<Void> abort() {
+         return ingestion.abort();
+      }
    }
 
    private static boolean shouldInvokeSegmentMethods(StoreStatus storeStatus) {
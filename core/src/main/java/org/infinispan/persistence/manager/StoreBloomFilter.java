@@ -0,0 +1,277 @@
+package org.infinispan.persistence.manager;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.commons.util.BloomFilter;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.MurmurHash3BloomFilter;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.concurrent.CompletableFutures;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.reactivestreams.Publisher;
+
+import io.reactivex.rxjava3.core.Flowable;
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Per segment Bloom filters of the keys in the cache stores, so that loads of keys that are certainly not in any store
+ * never reach them.
+ * <p>
+ * A segment filter is only used once it has been filled with all the keys published by the stores, until then all the
+ * loads of the segment go to the stores. Keys are added when they are written and the filters are rebuilt when the
+ * segments are added to this node or when the stores are cleared, as removed keys cannot be taken out of a Bloom
+ * filter. The filters hash the keys in their storage format marshalled by the persistence marshaller, so keys with
+ * colliding {@link Object#hashCode()} are still told apart. Like the stores, they rely on equal keys being marshalled
+ * to the same bytes.
+ *
+ * @since 12.1
+ */
+@ThreadSafe
+@Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "StoreBloomFilter", description = "Skips the loads of the keys that are not in the cache stores")
+public class StoreBloomFilter {
+   private static final Log log = LogFactory.getLog(StoreBloomFilter.class);
+   static final int BITS_PER_KEY = 10;
+   static final int MIN_BITS = 64;
+
+   @Inject Configuration configuration;
+   @Inject KeyPartitioner keyPartitioner;
+   @Inject @ComponentName(KnownComponentNames.PERSISTENCE_MARSHALLER)
+   Marshaller marshaller;
+
+   private volatile boolean enabled;
+   private int bitsPerSegment;
+   private AtomicReferenceArray<SegmentFilter> filters;
+
+   private final LongAdder lookups = new LongAdder();
+   private final LongAdder skippedLoads = new LongAdder();
+   private final LongAdder falsePositives = new LongAdder();
+
+   @Start
+   public void start() {
+      long keys = configuration.persistence().bloomFilterKeys();
+      if (keys <= 0) {
+         return;
+      }
+      int numSegments = configuration.clustering().hash().numSegments();
+      bitsPerSegment = (int) Math.min(Integer.MAX_VALUE - 31, Math.max(MIN_BITS, keys * BITS_PER_KEY / numSegments));
+      filters = new AtomicReferenceArray<>(numSegments);
+      enabled = true;
+   }
+
+   /**
+    * Stops using the filters, for instance because a store cannot publish its keys.
+    */
+   void disable() {
+      enabled = false;
+      if (filters != null) {
+         for (int i = 0; i < filters.length(); ++i) {
+            filters.set(i, null);
+         }
+      }
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * @return false if the key is certainly not in the stores, true if it may be there or the filter of the segment is
+    * not built
+    */
+   public boolean mightContain(Object key, int segment) {
+      SegmentFilter filter = completeFilter(segment);
+      if (filter == null) {
+         return true;
+      }
+      lookups.increment();
+      if (filter.bloomFilter.possiblyPresent(toBytes(key))) {
+         return true;
+      }
+      skippedLoads.increment();
+      return false;
+   }
+
+   /**
+    * Records that a load the filter let through found nothing in the stores.
+    */
+   public void loadMissed(int segment) {
+      if (completeFilter(segment) != null) {
+         falsePositives.increment();
+      }
+   }
+
+   /**
+    * Adds a written key to the filter of its segment. Writers invoke it before and after writing to the stores, so the
+    * key is also in a filter that is rebuilt concurrently.
+    */
+   public void add(Object key, int segment) {
+      if (!enabled) {
+         return;
+      }
+      SegmentFilter filter = filters.get(segment);
+      if (filter != null) {
+         filter.bloomFilter.addToFilter(toBytes(key));
+      }
+   }
+
+   /**
+    * Replaces the filters of the given segments with empty ones and fills them with the published keys. The new
+    * filters are used once the publisher completes.
+    *
+    * @param segments the segments to rebuild
+    * @param keys the keys of the given segments in all the stores that can be loaded from
+    * @return a stage that completes when the filters are built
+    */
+   public CompletionStage<Void> rebuild(IntSet segments, Publisher<Object> keys) {
+      if (!enabled || segments.isEmpty()) {
+         return CompletableFutures.completedNull();
+      }
+      SegmentFilter[] rebuilt = new SegmentFilter[filters.length()];
+      segments.forEach((int segment) -> {
+         rebuilt[segment] = new SegmentFilter(MurmurHash3BloomFilter.createConcurrentFilter(bitsPerSegment));
+         filters.set(segment, rebuilt[segment]);
+      });
+      return Flowable.fromPublisher(keys)
+            .doOnNext(key -> {
+               int segment = keyPartitioner.getSegment(key);
+               SegmentFilter filter = rebuilt[segment];
+               if (filter != null) {
+                  filter.bloomFilter.addToFilter(toBytes(key));
+               }
+            })
+            .ignoreElements()
+            .doOnComplete(() -> {
+               for (SegmentFilter filter : rebuilt) {
+                  if (filter != null) {
+                     filter.complete = true;
+                  }
+               }
+               if (log.isTraceEnabled()) {
+                  log.tracef("Built the store Bloom filters of segments %s", segments);
+               }
+            })
+            // The loads keep going to the stores
+            .doOnError(t -> log.debugf(t, "Cannot build the store Bloom filters of segments %s", segments))
+            .onErrorComplete()
+            .toCompletionStage(null);
+   }
+
+   /**
+    * Drops the filters of the segments that are no longer owned, their loads go to the stores again.
+    */
+   public void remove(IntSet segments) {
+      if (enabled) {
+         segments.forEach((int segment) -> filters.set(segment, null));
+      }
+   }
+
+   private SegmentFilter completeFilter(int segment) {
+      if (!enabled) {
+         return null;
+      }
+      SegmentFilter filter = filters.get(segment);
+      return filter != null && filter.complete ? filter : null;
+   }
+
+   private byte[] toBytes(Object key) {
+      if (key instanceof WrappedBytes) {
+         // Already marshalled, equal keys have the same bytes
+         WrappedBytes wrappedBytes = (WrappedBytes) key;
+         byte[] bytes = wrappedBytes.getBytes();
+         int offset = wrappedBytes.backArrayOffset();
+         int length = wrappedBytes.getLength();
+         return offset == 0 && length == bytes.length ? bytes : Arrays.copyOfRange(bytes, offset, offset + length);
+      }
+      try {
+         return marshaller.objectToByteBuffer(key);
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @ManagedAttribute(
+         description = "Number of loads that were checked against a complete Bloom filter",
+         displayName = "Number of Bloom filter lookups",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getLookups() {
+      return lookups.sum();
+   }
+
+   @ManagedAttribute(
+         description = "Number of loads that did not reach the stores because the key was certainly absent",
+         displayName = "Number of skipped store loads",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getSkippedLoads() {
+      return skippedLoads.sum();
+   }
+
+   @ManagedAttribute(
+         description = "Percentage of the absent keys that the Bloom filters did not recognize as absent",
+         displayName = "Bloom filter false positive rate",
+         units = Units.PERCENTAGE
+   )
+   public double getFalsePositiveRate() {
+      long fp = falsePositives.sum();
+      long absent = fp + skippedLoads.sum();
+      return absent == 0 ? 0 : 100d * fp / absent;
+   }
+
+   @ManagedAttribute(
+         description = "Memory used by the bits of the Bloom filters",
+         displayName = "Bloom filter memory",
+         units = Units.BYTES
+   )
+   public long getMemoryFootprint() {
+      if (!enabled) {
+         return 0;
+      }
+      long count = 0;
+      for (int i = 0; i < filters.length(); ++i) {
+         if (filters.get(i) != null) {
+            count++;
+         }
+      }
+      return count * ((bitsPerSegment + 31) >>> 5) * Integer.BYTES;
+   }
+
+   @ManagedOperation(
+         description = "Resets statistics gathered by this component",
+         displayName = "Reset statistics"
+   )
+   public void resetStatistics() {
+      lookups.reset();
+      skippedLoads.reset();
+      falsePositives.reset();
+   }
+
+   private static final class SegmentFilter {
+      final BloomFilter<byte[]> bloomFilter;
+      volatile boolean complete;
+
+      SegmentFilter(BloomFilter<byte[]> bloomFilter) {
+         this.bloomFilter = bloomFilter;
+      }
+   }
+}
@@ -1,5 +1,6 @@
 package org.infinispan.persistence.spi;
 
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Set;
@@ -792,6 +793,29 @@ default boolean ignoreCommandWithFlags(long commandFlags) {
       return false;
    }
 
+   /**
+    * Starts loading a whole segment received through state transfer in bulk, bypassing the regular write path. The
+    * segment must be empty in the store and it is not read from this node until the ingestion is complete, so the
+    * store is free to make the entries visible all at once or in several steps. The keys of the segment may still be
+    * written or removed through the regular write path during the ingestion, and these operations must win over the
+    * added entries, whichever completes first.
+    * <p>
+    * This method is only invoked when the store is the only store of the cache and it is neither shared nor
+    * transactional. It may be removed at any time as it is experimental.
+    * <p>
+    * If a problem is encountered, it is recommended to wrap any created/caught Throwable in a
+    * {@link PersistenceException} and the stage be completed exceptionally.
+    * @implSpec
+    * The default implementation returns a stage completed with null.
+    * @param segment the segment being transferred to this node.
+    * @return a stage completed with the ingestion of the segment, or with null if the store cannot ingest it and the
+    * entries must be written one by one.
+    */
+   @Experimental
+   default CompletionStage<SegmentIngestion<K, V>> startIngestion(int segment) {
+      return CompletableFutures.completedNull();
+   }
+
    /**
     * A Publisher that provides a stream of values and the segments to which those values map.
     * @param <Type> type of values in this Publisher.
@@ -803,4 +827,32 @@ default boolean ignoreCommandWithFlags(long commandFlags) {
        */
       int getSegment();
    }
+
+   /**
+    * The bulk load of a segment started by {@link #startIngestion(int)}. The methods are never invoked concurrently and
+    * no more methods are invoked after {@link #complete()} or {@link #abort()}.
+    * @param <K> key value type
+    * @param <V> value value type
+    */
+   @Experimental
+   interface SegmentIngestion<K, V> {
+      /**
+       * Adds entries of the segment. A key is never added twice.
+       * @param entries the entries to add.
+       * @return a stage that, when complete, indicates that the entries were accepted.
+       */
+      CompletionStage<Void> add(Collection<MarshallableEntry<K, V>> entries);
+
+      /**
+       * Makes all the added entries visible in the store.
+       * @return a stage that, when complete, indicates that the entries can be read.
+       */
+      CompletionStage<Void> complete();
+
+      /**
+       * Discards the entries that are not visible yet and releases the resources of the ingestion.
+       * @return a stage that, when complete, indicates that the resources were released.
+       */
+      CompletionStage<Void> abort();
+   }
 }
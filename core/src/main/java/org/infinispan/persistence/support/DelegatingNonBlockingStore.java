@@ -122,4 +122,9 @@ public CompletionStage<Void> rollback(Transaction transaction) {
    public boolean ignoreCommandWithFlags(long commandFlags) {
       return delegate().ignoreCommandWithFlags(commandFlags);
    }
+
+   @Override
+   public CompletionStage<SegmentIngestion<K, V>> startIngestion(int segment) {
+      return delegate().startIngestion(segment);
+   }
 }
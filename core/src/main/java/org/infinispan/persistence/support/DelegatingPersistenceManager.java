@@ -21,6 +21,7 @@
 import org.infinispan.factories.scopes.Scopes;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.transaction.impl.AbstractCacheTransaction;
 import org.reactivestreams.Publisher;
@@ -233,4 +234,9 @@ public CompletionStage<Boolean> addSegments(IntSet segments) {
    public CompletionStage<Boolean> removeSegments(IntSet segments) {
       return persistenceManager.removeSegments(segments);
    }
+
+   @Override
+   public <K, V> CompletionStage<NonBlockingStore.SegmentIngestion<K, V>> startIngestion(int segment) {
+      return persistenceManager.startIngestion(segment);
+   }
 }
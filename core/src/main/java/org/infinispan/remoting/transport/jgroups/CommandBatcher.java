@@ -0,0 +1,228 @@
+package org.infinispan.remoting.transport.jgroups;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.remoting.inboundhandler.DeliverOrder;
+
+/**
+ * Groups the commands that {@link JGroupsTransport} sends to the same target with the same {@link DeliverOrder} into
+ * a single JGroups message.
+ * <p>
+ * A batch is sent when its size reaches {@code maxBatchBytes}, or {@code windowNanos} after its first command was
+ * added. Every command keeps its own request id, so the receiver handles and answers the commands of a batch one by one.
+ * Batches are built while holding the batch monitor, but sent outside of it: the batches of a target are sent in order
+ * by a single thread at a time. Sending a message may block, so the timer and {@link #flushAllAsync()} hand the
+ * batches over to the blocking executor instead of sending them from the calling thread.
+ * <p>
+ * The batch format is the number of commands followed by the request id, the length and the marshalled bytes of every
+ * command.
+ *
+ * @since 12.1
+ */
+class CommandBatcher {
+   static final int HEADER_BYTES = Integer.BYTES;
+   static final int ENTRY_OVERHEAD = Long.BYTES + Integer.BYTES;
+
+   private final JGroupsTransport transport;
+   private final ScheduledExecutorService timeoutExecutor;
+   private final Executor sendExecutor;
+   private final long windowNanos;
+   private final int maxBatchBytes;
+   private final ConcurrentMap<org.jgroups.Address, Batch[]> batches = new ConcurrentHashMap<>();
+
+   CommandBatcher(JGroupsTransport transport, ScheduledExecutorService timeoutExecutor, Executor sendExecutor,
+         long windowNanos, int maxBatchBytes) {
+      this.transport = transport;
+      this.timeoutExecutor = timeoutExecutor;
+      this.sendExecutor = sendExecutor;
+      this.windowNanos = windowNanos;
+      this.maxBatchBytes = maxBatchBytes;
+   }
+
+   void send(org.jgroups.Address target, DeliverOrder deliverOrder, long requestId, ByteBuffer bytes) {
+      Batch[] targetBatches = batches.computeIfAbsent(target, t -> {
+         DeliverOrder[] orders = DeliverOrder.values();
+         Batch[] array = new Batch[orders.length];
+         for (DeliverOrder order : orders) {
+            array[order.ordinal()] = new Batch(t, order);
+         }
+         return array;
+      });
+      targetBatches[deliverOrder.ordinal()].add(requestId, bytes);
+   }
+
+   /**
+    * Closes the pending batches of every target and sends them from the send executor, without waiting for them to be
+    * sent.
+    */
+   void flushAllAsync() {
+      for (Batch[] targetBatches : batches.values()) {
+         for (Batch batch : targetBatches) {
+            batch.flushAsync();
+         }
+      }
+   }
+
+   /**
+    * Sends the pending batches of every target before returning.
+    */
+   void flushAll() {
+      for (Batch[] targetBatches : batches.values()) {
+         for (Batch batch : targetBatches) {
+            batch.flushAndWait();
+         }
+      }
+   }
+
+   /**
+    * Drops the batches of the targets that are no longer members of the cluster.
+    */
+   void retainTargets(ClusterView view) {
+      batches.keySet().removeIf(target -> !view.contains(JGroupsAddressCache.fromJGroupsAddress(target)));
+   }
+
+   private final class Batch {
+      private final org.jgroups.Address target;
+      private final DeliverOrder deliverOrder;
+      // Batches that are built but not sent yet, only the thread holding sendLock sends them, in order
+      private final Queue<ReadyBatch> ready = new ConcurrentLinkedQueue<>();
+      private final Lock sendLock = new ReentrantLock();
+      private long[] requestIds = new long[16];
+      private ByteBuffer[] commands = new ByteBuffer[16];
+      private int count;
+      private int bytes = HEADER_BYTES;
+      private ScheduledFuture<?> flushTask;
+
+      Batch(org.jgroups.Address target, DeliverOrder deliverOrder) {
+         this.target = target;
+         this.deliverOrder = deliverOrder;
+      }
+
+      void add(long requestId, ByteBuffer command) {
+         boolean full;
+         synchronized (this) {
+            if (count == requestIds.length) {
+               requestIds = Arrays.copyOf(requestIds, count * 2);
+               commands = Arrays.copyOf(commands, count * 2);
+            }
+            requestIds[count] = requestId;
+            commands[count] = command;
+            count++;
+            bytes += ENTRY_OVERHEAD + command.getLength();
+            // Commands larger than the threshold are sent right away, after the pending ones to keep the order
+            full = bytes >= maxBatchBytes;
+            if (full) {
+               swap();
+            } else if (count == 1) {
+               // The timeout thread only hands the batch over, it never sends
+               flushTask = timeoutExecutor.schedule(() -> sendExecutor.execute(this::flush), windowNanos,
+                     TimeUnit.NANOSECONDS);
+            }
+         }
+         if (full) {
+            sendReady(false);
+         }
+      }
+
+      /**
+       * Sends the pending commands, unless another thread is already sending the batches of this target.
+       */
+      void flush() {
+         synchronized (this) {
+            swap();
+         }
+         sendReady(false);
+      }
+
+      /**
+       * Moves the pending commands to a new message and sends it from the send executor.
+       */
+      void flushAsync() {
+         synchronized (this) {
+            swap();
+         }
+         if (!ready.isEmpty()) {
+            sendExecutor.execute(() -> sendReady(false));
+         }
+      }
+
+      /**
+       * Sends the pending commands before returning, waiting for the thread that is sending the batches of this
+       * target, if any.
+       */
+      void flushAndWait() {
+         synchronized (this) {
+            swap();
+         }
+         sendReady(true);
+      }
+
+      /**
+       * Moves the pending commands to a new message in {@link #ready}. Must be called while holding the monitor.
+       */
+      private void swap() {
+         if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+         }
+         if (count == 0)
+            return;
+
+         byte[] buffer = new byte[bytes];
+         java.nio.ByteBuffer out = java.nio.ByteBuffer.wrap(buffer);
+         out.putInt(count);
+         for (int i = 0; i < count; i++) {
+            ByteBuffer command = commands[i];
+            out.putLong(requestIds[i]);
+            out.putInt(command.getLength());
+            out.put(command.getBuf(), command.getOffset(), command.getLength());
+            commands[i] = null;
+         }
+         ready.add(new ReadyBatch(buffer, Arrays.copyOf(requestIds, count)));
+         count = 0;
+         bytes = HEADER_BYTES;
+      }
+
+      private void sendReady(boolean wait) {
+         if (wait) {
+            sendLock.lock();
+         } else if (!sendLock.tryLock()) {
+            return;
+         }
+         while (true) {
+            try {
+               ReadyBatch batch;
+               while ((batch = ready.poll()) != null) {
+                  transport.sendBatch(target, deliverOrder, batch.buffer, batch.requestIds);
+               }
+            } finally {
+               sendLock.unlock();
+            }
+            // Another thread may have added a batch after the last poll and failed to acquire the lock
+            if (ready.isEmpty() || !sendLock.tryLock())
+               return;
+         }
+      }
+   }
+
+   private static final class ReadyBatch {
+      final byte[] buffer;
+      final long[] requestIds;
+
+      ReadyBatch(byte[] buffer, long[] requestIds) {
+         this.buffer = buffer;
+         this.requestIds = requestIds;
+      }
+   }
+}
@@ -119,6 +119,12 @@
  * <li><tt>channelLookup</tt> - Fully qualified class name of a
  * {@link JGroupsChannelLookup} instance</li>
  * </ul>
+ * Commands sent to a single target can optionally be batched with the following properties:
+ * <ul>
+ * <li><tt>commandBatchWindow</tt> - the time in microseconds a command can wait for other commands to the same target
+ * before being sent. Batching is disabled by default (0).</li>
+ * <li><tt>commandBatchSize</tt> - the size in bytes that causes a batch to be sent before the end of the window</li>
+ * </ul>
  * These are normally passed in as Properties in
  * {@link TransportConfigurationBuilder#withProperties(Properties)} or
  * in the Infinispan XML configuration file.
@@ -134,6 +140,9 @@ public class JGroupsTransport implements Transport {
    public static final String CONFIGURATION_FILE = "configurationFile";
    public static final String CHANNEL_LOOKUP = "channelLookup";
    public static final String CHANNEL_CONFIGURATOR = "channelConfigurator";
+   public static final String COMMAND_BATCH_WINDOW = "commandBatchWindow";
+   public static final String COMMAND_BATCH_SIZE = "commandBatchSize";
+   public static final int DEFAULT_COMMAND_BATCH_SIZE = 16 * 1024;
    public static final short REPLY_FLAGS =
          (short) (Message.Flag.NO_FC.value() | Message.Flag.OOB.value() | Message.Flag.NO_TOTAL_ORDER.value());
    protected static final String DEFAULT_JGROUPS_CONFIGURATION_FILE = "default-configs/default-jgroups-udp.xml";
@@ -145,6 +154,7 @@ public class JGroupsTransport implements Transport {
    private static final byte REQUEST = 0;
    private static final byte RESPONSE = 1;
    private static final byte SINGLE_MESSAGE = 2;
+   private static final byte BATCH = 3;
 
    @Inject protected GlobalConfiguration configuration;
    @Inject @ComponentName(KnownComponentNames.INTERNAL_MARSHALLER)
@@ -156,6 +166,8 @@ public class JGroupsTransport implements Transport {
    protected ScheduledExecutorService timeoutExecutor;
    @Inject @ComponentName(KnownComponentNames.NON_BLOCKING_EXECUTOR)
    protected ExecutorService nonBlockingExecutor;
+   @Inject @ComponentName(KnownComponentNames.BLOCKING_EXECUTOR)
+   protected ExecutorService blockingExecutor;
    @Inject protected CacheManagerJmxRegistration jmxRegistration;
 
    private final Lock viewUpdateLock = new ReentrantLock();
@@ -174,6 +186,7 @@ public class JGroupsTransport implements Transport {
    private volatile Set<String>  sitesView = Collections.emptySet();
    private CompletableFuture<Void> nextViewFuture = new CompletableFuture<>();
    private RequestRepository requests;
+   private CommandBatcher commandBatcher;
 
    // ------------------------------------------------------------------------------------------------------------------
    // Lifecycle and setup stuff
@@ -439,6 +452,12 @@ public void start() {
       probeHandler.updateThreadPool(nonBlockingExecutor);
       props = TypedProperties.toTypedProperties(configuration.transport().properties());
       requests = new RequestRepository();
+      long commandBatchWindow = props.getLongProperty(COMMAND_BATCH_WINDOW, 0);
+      if (commandBatchWindow > 0) {
+         commandBatcher = new CommandBatcher(this, timeoutExecutor, blockingExecutor,
+               TimeUnit.MICROSECONDS.toNanos(commandBatchWindow),
+               props.getIntProperty(COMMAND_BATCH_SIZE, DEFAULT_COMMAND_BATCH_SIZE));
+      }
 
       String stack = configuration.transport().stack();
       if (stack != null) {
@@ -709,6 +728,9 @@ protected void receiveClusterView(View newView) {
          }
 
          this.clusterView = new ClusterView((int) viewId, members, address);
+         if (commandBatcher != null) {
+            commandBatcher.retainTargets(clusterView);
+         }
 
          // Create a completable future for the new view
          oldFuture = nextViewFuture;
@@ -758,6 +780,9 @@ private static List<Address> fromJGroupsAddressList(List<org.jgroups.Address> li
    @Stop
    @Override
    public void stop() {
+      if (commandBatcher != null) {
+         commandBatcher.flushAll();
+      }
       running = false;
 
       if (channel != null) {
@@ -1050,6 +1075,11 @@ void sendCommand(Address target, ReplicableCommand command, long requestId, Deli
       if (checkView && !clusterView.contains(target))
          return;
 
+      if (commandBatcher != null && noRelay) {
+         commandBatcher.send(toJGroupsAddress(target), deliverOrder, requestId, marshallCommand(command));
+         return;
+      }
+
       Message message = new Message(toJGroupsAddress(target));
       marshallRequest(message, command, requestId);
       setMessageFlags(message, deliverOrder, noRelay);
@@ -1057,15 +1087,43 @@ void sendCommand(Address target, ReplicableCommand command, long requestId, Deli
       send(message);
    }
 
+   /**
+    * Sends a batch of commands built by {@link CommandBatcher}.
+    * If the batch cannot be sent, the requests it contains are completed with an exception.
+    */
+   void sendBatch(org.jgroups.Address target, DeliverOrder deliverOrder, byte[] buffer, long[] requestIds) {
+      if (log.isTraceEnabled())
+         log.tracef("%s sending batch of %d commands to %s", address, requestIds.length, target);
+      Message message = new Message(target);
+      message.setBuffer(buffer);
+      message.putHeader(HEADER_ID, new RequestCorrelator.Header(BATCH, Request.NO_REQUEST_ID, CORRELATOR_ID));
+      setMessageFlags(message, deliverOrder, true);
+      try {
+         send(message);
+      } catch (Throwable t) {
+         Exception e = t instanceof Exception ? ((Exception) t) : new CacheException(t);
+         Address sender = fromJGroupsAddress(target);
+         for (long requestId : requestIds) {
+            if (requestId != Request.NO_REQUEST_ID) {
+               requests.addResponse(requestId, sender, new ExceptionResponse(e));
+            }
+         }
+      }
+   }
+
    private static org.jgroups.Address toJGroupsAddress(Address address) {
       return ((JGroupsAddress) address).getJGroupsAddress();
    }
 
    private void marshallRequest(Message message, ReplicableCommand command, long requestId) {
+      ByteBuffer bytes = marshallCommand(command);
+      message.setBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+      addRequestHeader(message, requestId);
+   }
+
+   private ByteBuffer marshallCommand(ReplicableCommand command) {
       try {
-         ByteBuffer bytes = marshaller.objectToBuffer(command);
-         message.setBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
-         addRequestHeader(message, requestId);
+         return marshaller.objectToBuffer(command);
       } catch (RuntimeException e) {
          throw e;
       } catch (Exception e) {
@@ -1197,6 +1255,10 @@ public void sendToAll(ReplicableCommand command, DeliverOrder deliverOrder) {
     * Send a command to the entire cluster.
     */
    private void sendCommandToAll(ReplicableCommand command, long requestId, DeliverOrder deliverOrder) {
+      if (commandBatcher != null) {
+         // Broadcasts are not batched, close the batches queued before them without waiting for the send
+         commandBatcher.flushAllAsync();
+      }
       Message message = new Message();
       marshallRequest(message, command, requestId);
       setMessageFlags(message, deliverOrder, true);
@@ -1245,6 +1307,20 @@ private void siteUnreachable(String site) {
    private void sendCommand(Collection<Address> targets, ReplicableCommand command, long requestId,
                             DeliverOrder deliverOrder, boolean checkView) {
       Objects.requireNonNull(targets);
+      if (commandBatcher != null) {
+         // Unicasts to the same target must all go through the batcher to keep the per-sender order
+         ByteBuffer bytes = marshallCommand(command);
+         for (Address address : targets) {
+            if (checkView && !clusterView.contains(address))
+               continue;
+
+            if (address.equals(getAddress()))
+               continue;
+
+            commandBatcher.send(toJGroupsAddress(address), deliverOrder, requestId, bytes);
+         }
+         return;
+      }
       Message message = new Message();
       marshallRequest(message, command, requestId);
       setMessageFlags(message, deliverOrder, true);
@@ -1293,6 +1369,10 @@ private void processMessage(Message message) {
          type = SINGLE_MESSAGE;
          requestId = Request.NO_REQUEST_ID;
       }
+      if (type == BATCH) {
+         processBatch(src, flags, buffer, offset, length);
+         return;
+      }
       if (!running) {
          if (log.isTraceEnabled())
             log.tracef("Ignoring message received before start or after stop");
@@ -1389,6 +1469,27 @@ private void processRequest(org.jgroups.Address src, short flags, byte[] buffer,
       }
    }
 
+   /**
+    * Unpacks a batch sent by {@link CommandBatcher} and handles every command as if it was received in its own message.
+    */
+   private void processBatch(org.jgroups.Address src, short flags, byte[] buffer, int offset, int length) {
+      java.nio.ByteBuffer in = java.nio.ByteBuffer.wrap(buffer, offset, length);
+      int count = in.getInt();
+      if (log.isTraceEnabled())
+         log.tracef("%s received batch of %d commands from %s", getAddress(), count, src);
+      for (int i = 0; i < count; i++) {
+         long requestId = in.getLong();
+         int commandLength = in.getInt();
+         int commandOffset = in.position();
+         in.position(commandOffset + commandLength);
+         if (running) {
+            processRequest(src, flags, buffer, commandOffset, commandLength, requestId);
+         } else if (requestId != Request.NO_REQUEST_ID) {
+            sendResponse(src, CacheNotFoundResponse.INSTANCE, requestId, null);
+         }
+      }
+   }
+
    private void processResponse(org.jgroups.Address src, byte[] buffer, int offset, int length, long requestId) {
       try {
          Response response;
@@ -154,6 +154,18 @@ public final boolean isTracking(Flag trackFlag) {
       return false;
    }
 
+   /**
+    * @return {@code true} if the key was updated by another operation and its state transfer must be discarded,
+    * {@code false} otherwise.
+    */
+   public final boolean isStateTransferDiscarded(Object key) {
+      if (isTrackDisabled(Flag.PUT_FOR_STATE_TRANSFER)) {
+         return true;
+      }
+      DiscardPolicy discardPolicy = tracker.get(key);
+      return discardPolicy != null && discardPolicy.ignore(Flag.PUT_FOR_STATE_TRANSFER);
+   }
+
    /**
     * @return {@code true} if no keys are tracked, {@code false} otherwise.
     */
@@ -2,6 +2,8 @@
 
 import static org.infinispan.util.concurrent.CompletionStages.handleAndCompose;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -68,8 +70,20 @@ public class InboundTransferTask {
 
    private final RpcOptions rpcOptions;
 
+   private final Map<Integer, Long> segmentDigests;
+
    public InboundTransferTask(IntSet segments, Address source, int topologyId, RpcManager rpcManager,
                               CommandsFactory commandsFactory, long timeout, String cacheName, boolean applyState) {
+      this(segments, source, topologyId, rpcManager, commandsFactory, timeout, cacheName, applyState, null);
+   }
+
+   /**
+    * @param segmentDigests the digests of the segments the local node already holds, sent to the source so it can
+    *                       skip the segments that did not change, may be {@code null}
+    */
+   public InboundTransferTask(IntSet segments, Address source, int topologyId, RpcManager rpcManager,
+                              CommandsFactory commandsFactory, long timeout, String cacheName, boolean applyState,
+                              Map<Integer, Long> segmentDigests) {
       if (segments == null || segments.isEmpty()) {
          throw new IllegalArgumentException("segments must not be null or empty");
       }
@@ -87,6 +101,7 @@ public InboundTransferTask(IntSet segments, Address source, int topologyId, RpcM
       this.cacheName = cacheName;
       this.applyState = applyState;
       this.rpcOptions = new RpcOptions(DeliverOrder.NONE, timeout, TimeUnit.MILLISECONDS);
+      this.segmentDigests = segmentDigests;
    }
 
    /**
@@ -120,10 +135,23 @@ public Address getSource() {
    public CompletionStage<Void> requestSegments() {
       Address address = rpcManager.getAddress();
       return startTransfer(applyState ?
-            segments -> commandsFactory.buildStateTransferStartCommand(topologyId, segments) :
+            segments -> commandsFactory.buildStateTransferStartCommand(topologyId, segments, getSegmentDigests(segments)) :
             segments -> commandsFactory.buildConflictResolutionStartCommand(topologyId, segments));
    }
 
+   private Map<Integer, Long> getSegmentDigests(IntSet segments) {
+      if (segmentDigests == null)
+         return null;
+
+      Map<Integer, Long> digests = new HashMap<>();
+      segmentDigests.forEach((segment, digest) -> {
+         if (segments.contains(segment)) {
+            digests.put(segment, digest);
+         }
+      });
+      return digests.isEmpty() ? null : digests;
+   }
+
    public CompletionStage<Void> requestKeys() {
       return startTransfer(segments -> commandsFactory.buildScatteredStateGetKeysCommand(topologyId, segments));
    }
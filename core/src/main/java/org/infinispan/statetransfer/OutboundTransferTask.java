@@ -16,6 +16,7 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.statetransfer.StateResponseCommand;
 import org.infinispan.commons.IllegalLifecycleStateException;
+import org.infinispan.commons.marshall.WrappedBytes;
 import org.infinispan.commons.util.IntSet;
 import org.infinispan.commons.util.IntSets;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -39,6 +40,11 @@
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
  * OutboundTransferTask are created and managed by StateTransferManagerImpl. There should be at most
  * one such task per destination at any time.
+ * <p>
+ * Chunks are limited both by the number of entries and by their estimated size in bytes. Both limits start from the
+ * configured {@code chunkSize} and adapt to the time the destination needs to acknowledge a chunk: they grow while
+ * the destination answers quickly and shrink when it is slow. The destination grants the number of chunks that can be in
+ * flight at the same time with every response, see {@link StateConsumerImpl#applyState}.
  *
  * @author anistor@redhat.com
  * @since 5.2
@@ -47,6 +53,26 @@ public class OutboundTransferTask {
 
    private static final Log log = LogFactory.getLog(OutboundTransferTask.class);
 
+   /**
+    * The maximum number of chunks in flight to a destination, if the destination grants enough credits.
+    */
+   static final int MAX_CHUNKS_IN_FLIGHT = 4;
+   static final long MIN_CHUNK_BYTES = 64 * 1024;
+   static final long INITIAL_CHUNK_BYTES = 512 * 1024;
+   static final long MAX_CHUNK_BYTES = 8 * 1024 * 1024;
+   /**
+    * How much the entry count limit can grow beyond the configured chunk size when entries are small.
+    */
+   static final int MAX_CHUNK_SIZE_FACTOR = 16;
+   /**
+    * Chunks grow while they are acknowledged faster than this and shrink when they take 4 times longer.
+    */
+   static final long TARGET_CHUNK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+   // The fixed overhead of an entry in a chunk: the entry object, its metadata and the marshalling headers
+   private static final int ENTRY_OVERHEAD_BYTES = 64;
+   // Estimated size of a key or a value that is not stored as bytes
+   private static final int OBJECT_BYTES = 256;
+
    private final Consumer<Collection<StateChunk>> onChunkReplicated;
 
    private final int topologyId;
@@ -76,6 +102,17 @@ public class OutboundTransferTask {
 
    private volatile boolean cancelled;
 
+   private volatile int maxChunkEntries;
+   private volatile long maxChunkBytes = INITIAL_CHUNK_BYTES;
+
+   // The fields below are guarded by this
+   private int credits = 1;
+   private int chunksInFlight;
+   private int waiterMaxInFlight;
+   private CompletableFuture<Void> inFlightWaiter;
+   // Only updated by the thread sending the chunks
+   private final Map<Integer, SegmentTransferRate> segmentRates = new HashMap<>();
+
    public OutboundTransferTask(Address destination, IntSet segments, int segmentCount, int chunkSize,
                                int topologyId, KeyPartitioner keyPartitioner,
                                Consumer<Collection<StateChunk>> onChunkReplicated,
@@ -95,6 +132,7 @@ public OutboundTransferTask(Address destination, IntSet segments, int segmentCou
       this.destination = destination;
       this.segments = IntSets.concurrentCopyFrom(segments, segmentCount);
       this.chunkSize = chunkSize;
+      this.maxChunkEntries = chunkSize;
       this.topologyId = topologyId;
       this.keyPartitioner = keyPartitioner;
       this.rpcManager = rpcManager;
@@ -131,7 +169,7 @@ public CompletionStage<Void> execute(Flowable<InternalCacheEntry<Object, Object>
       try {
          AtomicReference<List<InternalCacheEntry<Object, Object>>> batchRef =
             new AtomicReference<>(Collections.emptyList());
-         entries.buffer(chunkSize)
+         entries.bufferUntil(new ChunkBoundary())
                 .takeUntil(batch -> cancelled)
                 .concatMapCompletable(batch -> {
                    // Send the previous batch, not the current one
@@ -141,7 +179,9 @@ public CompletionStage<Void> execute(Flowable<InternalCacheEntry<Object, Object>
                    if (previousBatch.isEmpty())
                       return Completable.complete();
 
-                   return Completable.fromCompletionStage(sendEntries(previousBatch, false));
+                   sendEntries(previousBatch, false);
+                   // Read the next batch while the destination has credits left
+                   return Completable.fromCompletionStage(awaitChunksInFlight(false));
                 }, 1)
                 .subscribe(new CompletableObserver() {
                    @Override
@@ -150,11 +190,14 @@ public void onSubscribe(Disposable d) {
 
                    @Override
                    public void onComplete() {
-                      // Send the remaining entries and mark all the segments as finished
+                      // Send the remaining entries and mark all the segments as finished,
+                      // only after all the previous chunks were applied
                       List<InternalCacheEntry<Object, Object>> previousBatch = batchRef.get();
-                      sendEntries(previousBatch, true)
+                      awaitChunksInFlight(true)
+                         .thenCompose(ignored -> sendEntries(previousBatch, true))
                          .whenComplete((ignored, throwable) -> {
                             if (throwable == null) {
+                               logTransferRates();
                                taskFuture.complete(null);
                             } else {
                                taskFuture.completeExceptionally(throwable);
@@ -173,14 +216,91 @@ public void onError(Throwable e) {
       return taskFuture;
    }
 
+   /**
+    * @param drain {@code true} to wait for all the chunks in flight, {@code false} to wait until the destination
+    *              has a credit for one more chunk.
+    */
+   private synchronized CompletionStage<Void> awaitChunksInFlight(boolean drain) {
+      int maxInFlight = drain ? 0 : credits - 1;
+      if (chunksInFlight <= maxInFlight)
+         return CompletableFutures.completedNull();
+
+      inFlightWaiter = new CompletableFuture<>();
+      waiterMaxInFlight = maxInFlight;
+      return inFlightWaiter;
+   }
+
+   private void chunkAcknowledged(long startNanos, Object response) {
+      long durationNanos = System.nanoTime() - startNanos;
+      adaptChunkSize(durationNanos);
+      CompletableFuture<Void> waiter = null;
+      synchronized (this) {
+         // Responses from older versions don't carry credits
+         if (response instanceof Integer) {
+            credits = Math.max(1, Math.min(MAX_CHUNKS_IN_FLIGHT, (Integer) response));
+         }
+         chunksInFlight--;
+         if (inFlightWaiter != null && chunksInFlight <= waiterMaxInFlight) {
+            waiter = inFlightWaiter;
+            inFlightWaiter = null;
+         }
+      }
+      if (waiter != null) {
+         waiter.complete(null);
+      }
+   }
+
+   private void adaptChunkSize(long durationNanos) {
+      if (durationNanos < TARGET_CHUNK_NANOS) {
+         maxChunkBytes = Math.min(MAX_CHUNK_BYTES, maxChunkBytes * 2);
+         maxChunkEntries = (int) Math.min((long) chunkSize * MAX_CHUNK_SIZE_FACTOR, maxChunkEntries * 2L);
+      } else if (durationNanos > 4 * TARGET_CHUNK_NANOS) {
+         maxChunkBytes = Math.max(MIN_CHUNK_BYTES, maxChunkBytes / 2);
+         maxChunkEntries = Math.max(Math.max(1, chunkSize / MAX_CHUNK_SIZE_FACTOR), maxChunkEntries / 2);
+      }
+   }
+
+   /**
+    * @return a rough estimate of the number of bytes of the key and value of an entry, based on their types
+    */
+   public static long estimateSize(InternalCacheEntry<?, ?> ice) {
+      return estimateSize(ice.getKey(), ice.getValue());
+   }
+
+   /**
+    * @return a rough estimate of the number of bytes of an entry with the given key and value, based on their types
+    */
+   public static long estimateSize(Object key, Object value) {
+      return ENTRY_OVERHEAD_BYTES + estimateSize(key) + estimateSize(value);
+   }
+
+   private static long estimateSize(Object o) {
+      if (o == null) {
+         return 0;
+      } else if (o instanceof WrappedBytes) {
+         return ((WrappedBytes) o).getLength();
+      } else if (o instanceof byte[]) {
+         return ((byte[]) o).length;
+      } else if (o instanceof String) {
+         return ((String) o).length();
+      } else if (o instanceof Number || o instanceof Boolean || o instanceof Character) {
+         return Long.BYTES;
+      }
+      return OBJECT_BYTES;
+   }
+
    private CompletionStage<Void> sendEntries(List<InternalCacheEntry<Object, Object>> entries, boolean isLast) {
       Map<Integer, StateChunk> chunks = new HashMap<>();
+      long chunkBytes = 0;
       for (InternalCacheEntry<Object, Object> ice : entries) {
          int segmentId = keyPartitioner.getSegment(ice.getKey());
          if (segments.contains(segmentId)) {
             StateChunk chunk = chunks.computeIfAbsent(
                segmentId, segment -> new StateChunk(segment, new ArrayList<>(), isLast));
             chunk.getCacheEntries().add(ice);
+            long entryBytes = estimateSize(ice);
+            chunkBytes += entryBytes;
+            segmentRates.computeIfAbsent(segmentId, s -> new SegmentTransferRate(System.nanoTime())).add(entryBytes);
          }
       }
 
@@ -197,19 +317,24 @@ private CompletionStage<Void> sendEntries(List<InternalCacheEntry<Object, Object
 
       if (log.isTraceEnabled()) {
          if (isLast) {
-            log.tracef("Sending last chunk to node %s containing %d cache entries from segments %s", destination,
-                       entries.size(), segments);
+            log.tracef("Sending last chunk to node %s containing %d cache entries (~%d bytes) from segments %s",
+                       destination, entries.size(), chunkBytes, segments);
          } else {
-            log.tracef("Sending to node %s %d cache entries from segments %s", destination, entries.size(),
-                       chunks.keySet());
+            log.tracef("Sending to node %s %d cache entries (~%d bytes) from segments %s", destination,
+                       entries.size(), chunkBytes, chunks.keySet());
          }
       }
 
       StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(topologyId,
                                                                            chunks.values(), applyState, pushTransfer);
+      long startNanos = System.nanoTime();
+      synchronized (this) {
+         chunksInFlight++;
+      }
       try {
          return rpcManager.invokeCommand(destination, cmd, SingleResponseCollector.validOnly(), rpcOptions)
                           .handle((response, throwable) -> {
+                             chunkAcknowledged(startNanos, response != null ? response.getResponseValue() : null);
                              if (throwable == null) {
                                 onChunkReplicated.accept(chunks.values());
                                 return null;
@@ -221,14 +346,81 @@ private CompletionStage<Void> sendEntries(List<InternalCacheEntry<Object, Object
                           });
       } catch (IllegalLifecycleStateException e) {
          // Manager is shutting down, ignore the error
+         chunkAcknowledged(startNanos, null);
          cancel();
       } catch (Exception e) {
+         chunkAcknowledged(startNanos, null);
          logSendException(e);
          cancel();
       }
       return CompletableFutures.completedNull();
    }
 
+   private void logTransferRates() {
+      if (!log.isDebugEnabled())
+         return;
+
+      long endNanos = System.nanoTime();
+      long totalEntries = 0, totalBytes = 0, startNanos = endNanos;
+      for (Map.Entry<Integer, SegmentTransferRate> e : segmentRates.entrySet()) {
+         SegmentTransferRate rate = e.getValue();
+         totalEntries += rate.entries;
+         totalBytes += rate.bytes;
+         startNanos = Math.min(startNanos, rate.startNanos);
+         if (log.isTraceEnabled()) {
+            log.tracef("Sent segment %d to node %s: %d entries, ~%d bytes/s", e.getKey(), destination,
+                       rate.entries, rate.bytesPerSecond(endNanos));
+         }
+      }
+      long nanos = Math.max(1, endNanos - startNanos);
+      log.debugf("Sent %d entries (~%d bytes) of segments %s to node %s in %d ms, ~%d bytes/s",
+                 totalEntries, totalBytes, segmentRates.keySet(), destination,
+                 TimeUnit.NANOSECONDS.toMillis(nanos), totalBytes * TimeUnit.SECONDS.toNanos(1) / nanos);
+   }
+
+   /**
+    * Bytes and entries sent for a segment since its first chunk, for reporting the transfer rate.
+    */
+   private static final class SegmentTransferRate {
+      final long startNanos;
+      long entries;
+      long bytes;
+
+      SegmentTransferRate(long startNanos) {
+         this.startNanos = startNanos;
+      }
+
+      void add(long entryBytes) {
+         entries++;
+         bytes += entryBytes;
+      }
+
+      long bytesPerSecond(long endNanos) {
+         long nanos = Math.max(1, endNanos - startNanos);
+         return bytes * TimeUnit.SECONDS.toNanos(1) / nanos;
+      }
+   }
+
+   /**
+    * Ends a chunk when it reaches either the current entry count limit or the current size limit.
+    */
+   private class ChunkBoundary implements io.reactivex.rxjava3.functions.Predicate<InternalCacheEntry<Object, Object>> {
+      private int entries;
+      private long bytes;
+
+      @Override
+      public boolean test(InternalCacheEntry<Object, Object> ice) {
+         entries++;
+         bytes += estimateSize(ice);
+         if (entries >= maxChunkEntries || bytes >= maxChunkBytes) {
+            entries = 0;
+            bytes = 0;
+            return true;
+         }
+         return false;
+      }
+   }
+
    private void logSendException(Throwable throwable) {
       Throwable t = CompletableFutures.extractException(throwable);
       if (t instanceof SuspectException) {
@@ -279,6 +471,8 @@ public String toString() {
             ", destination=" + destination +
             ", segments=" + segments +
             ", chunkSize=" + chunkSize +
+            ", maxChunkEntries=" + maxChunkEntries +
+            ", maxChunkBytes=" + maxChunkBytes +
             ", timeout=" + timeout +
             ", cacheName='" + cacheName + '\'' +
             '}';
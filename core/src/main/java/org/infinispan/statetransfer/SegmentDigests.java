@@ -0,0 +1,120 @@
+package org.infinispan.statetransfer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.encoding.impl.StorageConfigurationManager;
+import org.reactivestreams.Publisher;
+
+import io.reactivex.rxjava3.core.Flowable;
+
+/**
+ * Computes an order independent 64-bit digest of the entries of every segment.
+ * <p>
+ * The digest of a segment is the sum of a hash of every entry, so the entries can be iterated in any order and two
+ * nodes holding the same entries compute the same digest. Keys and values are hashed over their bytes, so digests are
+ * only supported when the cache stores them as {@link WrappedByteArray} or {@code byte[]}, see
+ * {@link #isSupported(StorageConfigurationManager)}. Object hash codes are not stable across nodes or versions.
+ * <p>
+ * Matching digests are only used to skip work, e.g. the transfer of a segment a joining node already holds, a
+ * mismatch always falls back to the full transfer.
+ *
+ * @since 12.1
+ */
+public final class SegmentDigests {
+   private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+   private static final long FNV_PRIME = 0x100000001b3L;
+   private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+   private SegmentDigests() {
+   }
+
+   /**
+    * @return {@code true} if the keys and values of the cache are stored as bytes and can be digested
+    */
+   public static boolean isSupported(StorageConfigurationManager storageConfigurationManager) {
+      return storageConfigurationManager.getKeyStorageMediaType().isBinary() &&
+            storageConfigurationManager.getValueStorageMediaType().isBinary();
+   }
+
+   /**
+    * Computes the digests of the segments of the given entries. The stage completes exceptionally if a key or a
+    * value is not stored as bytes.
+    *
+    * @param entries        the entries to digest, entries of segments not in {@code segments} are ignored
+    * @param keyPartitioner maps the keys to their segments
+    * @param segments       the segments to digest
+    * @return a {@code CompletionStage} that completes with the digest of every segment with at least one entry
+    */
+   public static CompletionStage<Map<Integer, Long>> compute(Publisher<InternalCacheEntry<Object, Object>> entries,
+                                                             KeyPartitioner keyPartitioner, IntSet segments) {
+      return Flowable.fromPublisher(entries)
+                     .collect(HashMap<Integer, long[]>::new, (digests, ice) -> {
+                        int segment = keyPartitioner.getSegment(ice.getKey());
+                        if (segments.contains(segment)) {
+                           long[] digest = digests.computeIfAbsent(segment, s -> new long[2]);
+                           digest[0] += entryDigest(ice);
+                           digest[1]++;
+                        }
+                     })
+                     .map(SegmentDigests::finish)
+                     .toCompletionStage();
+   }
+
+   /**
+    * @return the digest of a single entry, including its lifespan, max idle and version, but not its timestamps, which
+    * are different on every owner
+    */
+   public static long entryDigest(InternalCacheEntry<?, ?> ice) {
+      long hash = mix(hash(ice.getKey()) * GOLDEN_GAMMA + hash(ice.getValue()));
+      hash = mix(hash + ice.getLifespan() * GOLDEN_GAMMA + ice.getMaxIdle());
+      if (ice.getMetadata() != null) {
+         EntryVersion version = ice.getMetadata().version();
+         if (version != null) {
+            hash = mix(hash + version.hashCode());
+         }
+      }
+      return hash;
+   }
+
+   private static Map<Integer, Long> finish(Map<Integer, long[]> digests) {
+      Map<Integer, Long> result = new HashMap<>(digests.size() * 4 / 3 + 1);
+      digests.forEach((segment, digest) -> result.put(segment, mix(digest[0] + digest[1] * GOLDEN_GAMMA)));
+      return result;
+   }
+
+   private static long hash(Object o) {
+      if (o == null) {
+         return 0;
+      } else if (o instanceof WrappedByteArray) {
+         return hash(((WrappedByteArray) o).getBytes());
+      } else if (o instanceof byte[]) {
+         return hash((byte[]) o);
+      }
+      throw new IllegalArgumentException("Cannot digest " + o.getClass().getName() + ", only bytes are supported");
+   }
+
+   private static long hash(byte[] bytes) {
+      long hash = FNV_OFFSET_BASIS;
+      for (byte b : bytes) {
+         hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+      }
+      return hash;
+   }
+
+   // The finalizer of MurmurHash3 x64
+   private static long mix(long hash) {
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+   }
+}
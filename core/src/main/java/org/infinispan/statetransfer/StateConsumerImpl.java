@@ -28,6 +28,7 @@
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -66,6 +67,7 @@
 import org.infinispan.distribution.TriangleOrderManager;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.encoding.impl.StorageConfigurationManager;
 import org.infinispan.executors.LimitedExecutor;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
@@ -77,9 +79,14 @@
 import org.infinispan.interceptors.AsyncInterceptorChain;
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
 import org.infinispan.notifications.cachelistener.annotation.DataRehashed;
 import org.infinispan.notifications.cachelistener.cluster.ClusterListenerReplicateCallable;
 import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.persistence.spi.MarshallableEntryFactory;
+import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.reactive.publisher.impl.LocalPublisherManager;
 import org.infinispan.remoting.inboundhandler.DeliverOrder;
 import org.infinispan.remoting.inboundhandler.PerCacheInboundInvocationHandler;
@@ -127,6 +134,8 @@ public class StateConsumerImpl implements StateConsumer {
                                                                         SKIP_SHARED_CACHE_STORE, SKIP_OWNERSHIP_CHECK,
                                                                         SKIP_XSITE_BACKUP, SKIP_LOCKING, IRAC_STATE);
    public static final String NO_KEY = "N/A";
+   // Senders can only have one chunk in flight when less than 1/4 of the heap is free
+   private static final int LOW_FREE_MEMORY_DIVISOR = 4;
 
    @Inject protected ComponentRef<Cache<Object, Object>> cache;
    @Inject protected LocalTopologyManager localTopologyManager;
@@ -137,6 +146,7 @@ public class StateConsumerImpl implements StateConsumer {
    @Inject protected TransactionTable transactionTable;       // optional
    @Inject protected InternalDataContainer<Object, Object> dataContainer;
    @Inject protected PersistenceManager persistenceManager;
+   @Inject protected StorageConfigurationManager storageConfigurationManager;
    @Inject protected AsyncInterceptorChain interceptorChain;
    @Inject protected InvocationContextFactory icf;
    @Inject protected StateTransferLock stateTransferLock;
@@ -152,12 +162,16 @@ public class StateConsumerImpl implements StateConsumer {
    @Inject protected LocalPublisherManager<Object, Object> localPublisherManager;
    @Inject PerCacheInboundInvocationHandler inboundInvocationHandler;
    @Inject XSiteStateTransferManager xSiteStateTransferManager;
+   @Inject MarshallableEntryFactory<Object, Object> marshallableEntryFactory;
+   @Inject StateProvider stateProvider;
 
    protected String cacheName;
    protected long timeout;
    protected boolean isFetchEnabled;
    protected boolean isTransactional;
    protected boolean isInvalidationMode;
+   protected boolean isIngestionEnabled;
+   protected boolean isDeltaTransferEnabled;
    protected volatile KeyInvalidationListener keyInvalidationListener; //for test purpose only!
 
    protected volatile CacheTopology cacheTopology;
@@ -205,6 +219,12 @@ public class StateConsumerImpl implements StateConsumer {
 
    private volatile boolean ownsData = false;
 
+   /**
+    * The segments whose state is loaded in bulk into the store instead of being applied entry by entry, see
+    * {@link PersistenceManager#startIngestion(int)}.
+    */
+   private final ConcurrentMap<Integer, SegmentIngestionTask> ingestionsBySegment = new ConcurrentHashMap<>();
+
    // Use the state transfer timeout for RPCs instead of the regular remote timeout
    protected RpcOptions rpcOptions;
    private volatile boolean running;
@@ -604,7 +624,18 @@ public CompletionStage<?> applyState(final Address sender, int topologyId, boole
                log.tracef("Segments not received yet for cache %s: %s", cacheName, transfersBySource);
             }
          }
-      });
+      }).thenApply(v -> stateTransferCredits());
+   }
+
+   /**
+    * The number of state chunks the sender may have in flight to this node, returned as the response to every
+    * applied chunk. Senders are limited to one chunk at a time when the free heap is low.
+    */
+   private int stateTransferCredits() {
+      Runtime runtime = Runtime.getRuntime();
+      long maxMemory = runtime.maxMemory();
+      long freeMemory = maxMemory - (runtime.totalMemory() - runtime.freeMemory());
+      return freeMemory < maxMemory / LOW_FREE_MEMORY_DIVISOR ? 1 : OutboundTransferTask.MAX_CHUNKS_IN_FLIGHT;
    }
 
    private CompletionStage<?> applyStateIteration(Address sender, boolean pushTransfer, IntSet mySegments,
@@ -643,6 +674,10 @@ private CompletionStage<Void> applyChunk(Address sender, IntSet mySegments, Stat
          }
       }
       if (inboundTransfer != null) {
+         if (isIngestionEnabled) {
+            return ingestChunk(sender, inboundTransfer, stateChunk)
+                  .thenAccept(v -> inboundTransfer.onStateReceived(stateChunk.getSegmentId(), stateChunk.isLastChunk()));
+         }
          return doApplyState(sender, stateChunk.getSegmentId(), stateChunk.getCacheEntries())
                    .thenAccept(
                       v -> inboundTransfer.onStateReceived(stateChunk.getSegmentId(), stateChunk.isLastChunk()));
@@ -654,6 +689,149 @@ private CompletionStage<Void> applyChunk(Address sender, IntSet mySegments, Stat
       return CompletableFutures.completedNull();
    }
 
+   private CompletionStage<?> ingestChunk(Address sender, InboundTransferTask inboundTransfer, StateChunk stateChunk) {
+      int segmentId = stateChunk.getSegmentId();
+      SegmentIngestionTask task = ingestionsBySegment.compute(segmentId, (segment, existing) -> {
+         if (existing != null) {
+            if (existing.inboundTransfer == inboundTransfer) {
+               return existing;
+            }
+            // The segment is requested again, e.g. from another source, and the entries are applied again
+            existing.cancel();
+         }
+         // Listeners only see the entries applied through the interceptor chain
+         if (cacheNotifier.hasListener(CacheEntryCreated.class) || cacheNotifier.hasListener(CacheEntryModified.class)) {
+            return new SegmentIngestionTask(inboundTransfer, segment, CompletableFutures.completedNull());
+         }
+         return new SegmentIngestionTask(inboundTransfer, segment, persistenceManager.startIngestion(segment));
+      });
+      return task.apply(sender, stateChunk);
+   }
+
+   /**
+    * Loads the entries of a segment in bulk into the store, bypassing the interceptor chain and the data container.
+    * The entries of the keys updated by other operations since the state transfer started are discarded, as
+    * {@link CommitManager} does for the entries applied one by one. If the store cannot ingest the segment, the
+    * chunks are applied entry by entry.
+    */
+   private class SegmentIngestionTask {
+      final InboundTransferTask inboundTransfer;
+      final int segmentId;
+      final CompletionStage<NonBlockingStore.SegmentIngestion<Object, Object>> ingestionStage;
+      // Chunks are ingested one at a time, in the order they are received
+      @GuardedBy("this")
+      private CompletionStage<?> lastStage;
+      // Set once complete or abort is invoked on the ingestion
+      @GuardedBy("this")
+      private boolean finished;
+
+      SegmentIngestionTask(InboundTransferTask inboundTransfer, int segmentId,
+                           CompletionStage<NonBlockingStore.SegmentIngestion<Object, Object>> ingestionStage) {
+         this.inboundTransfer = inboundTransfer;
+         this.segmentId = segmentId;
+         this.ingestionStage = ingestionStage.exceptionally(t -> {
+            log.debugf(t, "Cannot ingest segment %d of cache %s, applying the entries one by one", segmentId, cacheName);
+            return null;
+         });
+         this.lastStage = this.ingestionStage;
+      }
+
+      synchronized CompletionStage<?> apply(Address sender, StateChunk stateChunk) {
+         CompletionStage<?> stage = lastStage.thenCompose(ignore -> ingestionStage)
+               .thenCompose(ingestion -> {
+                  if (ingestion == null) {
+                     return ignoreValue(doApplyState(sender, segmentId, stateChunk.getCacheEntries()));
+                  }
+                  return ingest(sender, ingestion, stateChunk);
+               });
+         lastStage = stage.exceptionally(CompletableFutures.toNullFunction());
+         return stage;
+      }
+
+      private CompletionStage<Void> ingest(Address sender, NonBlockingStore.SegmentIngestion<Object, Object> ingestion,
+                                           StateChunk stateChunk) {
+         synchronized (this) {
+            if (finished) {
+               // The transfer of the segment was cancelled
+               return CompletableFutures.completedNull();
+            }
+            finished = stateChunk.isLastChunk();
+         }
+         Collection<InternalCacheEntry<?, ?>> cacheEntries = stateChunk.getCacheEntries();
+         CompletionStage<Void> stage = CompletableFutures.completedNull();
+         if (cacheEntries != null && !cacheEntries.isEmpty()) {
+            if (log.isTraceEnabled()) log.tracef(
+                  "Ingesting new state chunk for segment %d of cache %s from node %s: received %d cache entries",
+                  segmentId, cacheName, sender, cacheEntries.size());
+            List<MarshallableEntry<Object, Object>> entries = new ArrayList<>(cacheEntries.size());
+            for (InternalCacheEntry<?, ?> e : cacheEntries) {
+               if (!commitManager.isStateTransferDiscarded(e.getKey())) {
+                  entries.add(marshallableEntryFactory.create((InternalCacheEntry<Object, Object>) e));
+               }
+            }
+            if (!entries.isEmpty()) {
+               stage = ingestion.add(entries);
+            }
+         }
+         if (stateChunk.isLastChunk()) {
+            stage = stage.thenCompose(v -> ingestion.complete())
+                  .whenComplete((v, t) -> ingestionsBySegment.remove(segmentId, this));
+         }
+         return stage.handle((v, t) -> {
+            if (t != null) {
+               logApplyException(t, NO_KEY);
+               synchronized (this) {
+                  if (finished && !stateChunk.isLastChunk()) {
+                     return null;
+                  }
+                  finished = true;
+               }
+               ingestionsBySegment.remove(segmentId, this);
+               if (!stateChunk.isLastChunk()) {
+                  abortIngestion(ingestion);
+               }
+            }
+            return null;
+         });
+      }
+
+      void abort() {
+         if (cancel()) {
+            ingestionsBySegment.remove(segmentId, this);
+         }
+      }
+
+      /**
+       * Aborts the ingestion once the chunk being ingested, if any, is done.
+       *
+       * @return false if the ingestion was already complete or aborted
+       */
+      boolean cancel() {
+         CompletionStage<?> stage;
+         synchronized (this) {
+            if (finished) {
+               return false;
+            }
+            finished = true;
+            stage = lastStage;
+         }
+         stage.thenCompose(ignore -> ingestionStage).thenAccept(ingestion -> {
+            if (ingestion != null) {
+               abortIngestion(ingestion);
+            }
+         });
+         return true;
+      }
+
+      private void abortIngestion(NonBlockingStore.SegmentIngestion<Object, Object> ingestion) {
+         ingestion.abort().whenComplete((v, t) -> {
+            if (t != null) {
+               log.debugf(t, "Failed to abort the ingestion of segment %d of cache %s", segmentId, cacheName);
+            }
+         });
+      }
+   }
+
    private CompletionStage<?> doApplyState(Address sender, int segmentId,
                                            Collection<InternalCacheEntry<?, ?>> cacheEntries) {
       if (cacheEntries == null || cacheEntries.isEmpty())
@@ -793,6 +971,15 @@ public void start() {
       isFetchEnabled = mode.needsStateTransfer() &&
               (configuration.clustering().stateTransfer().fetchInMemoryState() || configuration.persistence().fetchPersistentState());
 
+      // Scattered caches and transactional caches need the versions and the locks of the interceptor chain
+      isIngestionEnabled = isFetchEnabled && !isTransactional && !mode.isScattered() &&
+            configuration.persistence().usingStores() && !configuration.indexing().enabled();
+
+      // A node restarting with the entries of a local persistent store only needs the segments that changed
+      isDeltaTransferEnabled = isFetchEnabled && !mode.isScattered() &&
+            configuration.persistence().stores().stream().anyMatch(Configurations::isStateTransferStore) &&
+            SegmentDigests.isSupported(storageConfigurationManager);
+
       rpcOptions = new RpcOptions(DeliverOrder.NONE, timeout, TimeUnit.MILLISECONDS);
 
       stateRequestExecutor = new LimitedExecutor("StateRequest-" + cacheName, nonBlockingExecutor, 1);
@@ -818,6 +1005,7 @@ public void stop() {
                inboundTransfers.forEach(InboundTransferTask::cancel);
             }
          }
+         new ArrayList<>(ingestionsBySegment.values()).forEach(SegmentIngestionTask::abort);
 
          stateRequestExecutor.shutdownNow();
       } catch (Throwable t) {
@@ -845,12 +1033,36 @@ private CompletionStage<Void> addTransfers(IntSet segments) {
       }
 
       if (isFetchEnabled) {
-         stage = stage.thenRun(() -> requestSegments(segments, sources, excludedSources));
+         stage = stage.thenCompose(v -> computeSegmentDigests(segments))
+                      .thenAccept(segmentDigests -> requestSegments(segments, sources, excludedSources, segmentDigests));
       }
 
       return stage;
    }
 
+   /**
+    * Computes the digests of the segments the local node already holds, so the sources only send the segments that
+    * changed since the node left, e.g. when it restarts with the entries of a persistent store.
+    *
+    * @return the digests of the segments with local entries, or {@code null} if all the segments must be transferred
+    */
+   private CompletionStage<Map<Integer, Long>> computeSegmentDigests(IntSet segments) {
+      if (!isDeltaTransferEnabled)
+         return CompletableFutures.completedNull();
+
+      return stateProvider.computeSegmentDigests(segments).handle((segmentDigests, throwable) -> {
+         if (throwable != null) {
+            log.debugf(throwable, "Failed to compute the digests of segments %s of cache %s, requesting all the entries",
+                       segments, cacheName);
+            return null;
+         }
+         if (log.isTraceEnabled()) {
+            log.tracef("Local node already holds segments %s of cache %s", segmentDigests.keySet(), cacheName);
+         }
+         return segmentDigests.isEmpty() ? null : segmentDigests;
+      });
+   }
+
    private void findSources(IntSet segments, Map<Address, IntSet> sources, Set<Address> excludedSources) {
       if (cache.wired().getStatus().isTerminated())
          return;
@@ -1006,13 +1218,14 @@ private CompletionStage<Response> getTransactions(Address source, IntSet segment
    }
 
    // not used in scattered cache
-   private void requestSegments(IntSet segments, Map<Address, IntSet> sources, Set<Address> excludedSources) {
+   private void requestSegments(IntSet segments, Map<Address, IntSet> sources, Set<Address> excludedSources,
+                                Map<Integer, Long> segmentDigests) {
       if (sources.isEmpty()) {
          findSources(segments, sources, excludedSources);
       }
 
       for (Map.Entry<Address, IntSet> e : sources.entrySet()) {
-         addTransfer(e.getKey(), e.getValue());
+         addTransfer(e.getKey(), e.getValue(), segmentDigests);
       }
       if (log.isTraceEnabled()) log.tracef("Finished adding inbound state transfer for segments %s", segments, cacheName);
    }
@@ -1043,6 +1256,12 @@ protected void cancelTransfers(IntSet removedSegments) {
             }
          }
       }
+      removedSegments.forEach((int segmentId) -> {
+         SegmentIngestionTask ingestionTask = ingestionsBySegment.get(segmentId);
+         if (ingestionTask != null) {
+            ingestionTask.abort();
+         }
+      });
    }
 
    protected CompletionStage<Void> removeStaleData(final IntSet removedSegments) {
@@ -1155,7 +1374,8 @@ private int getSegment(Object key) {
    }
 
    // not used in scattered cache
-   private InboundTransferTask addTransfer(Address source, IntSet segmentsFromSource) {
+   private InboundTransferTask addTransfer(Address source, IntSet segmentsFromSource,
+                                           Map<Integer, Long> segmentDigests) {
       final InboundTransferTask inboundTransfer;
 
       synchronized (transferMapsLock) {
@@ -1171,7 +1391,8 @@ private InboundTransferTask addTransfer(Address source, IntSet segmentsFromSourc
          }
 
          inboundTransfer = new InboundTransferTask(segmentsFromSource, source, cacheTopology.getTopologyId(),
-                                                   rpcManager, commandsFactory, timeout, cacheName, true);
+                                                   rpcManager, commandsFactory, timeout, cacheName, true,
+                                                   segmentDigests);
          addTransfer(inboundTransfer, segmentsFromSource);
       }
 
@@ -2,6 +2,7 @@
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
@@ -58,6 +59,32 @@ public interface StateProvider {
     */
    void startOutboundTransfer(Address destination, int topologyId, IntSet segments, boolean applyState);
 
+   /**
+    * Start to send cache entries that belong to the given set of segments, skipping the segments the requester already
+    * holds.
+    *
+    * The entries of a segment are not sent if its digest in {@code segmentDigests} matches the local digest, only the
+    * last chunk that marks the segment as finished.
+    *
+    * @param destination    the address of the requester
+    * @param topologyId     the topology id of the request
+    * @param segments       the segments to send
+    * @param applyState     whether the requester applies the received entries to the local cache
+    * @param segmentDigests the digests of the segments the requester already holds, see {@link #computeSegmentDigests(IntSet)}
+    */
+   void startOutboundTransfer(Address destination, int topologyId, IntSet segments, boolean applyState,
+                              Map<Integer, Long> segmentDigests);
+
+   /**
+    * Computes the digests of the local entries of the given segments, that is the entries that would be sent by
+    * {@link #startOutboundTransfer(Address, int, IntSet, boolean)}.
+    *
+    * @param segments the segments to digest
+    * @return a {@code CompletionStage} that completes with the digest of every segment with local entries
+    * @see SegmentDigests
+    */
+   CompletionStage<Map<Integer, Long>> computeSegmentDigests(IntSet segments);
+
    /**
     * Cancel sending of cache entries that belong to the given set of segments. This is invoked in response to a
     * {@link org.infinispan.commands.statetransfer.StateTransferCancelCommand}.
@@ -10,6 +10,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -29,6 +30,7 @@
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.encoding.impl.StorageConfigurationManager;
 import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
@@ -75,6 +77,7 @@ public class StateProviderImpl implements StateProvider {
    @Inject TransactionTable transactionTable;     // optional
    @Inject protected InternalDataContainer<Object, Object> dataContainer;
    @Inject protected PersistenceManager persistenceManager; // optional
+   @Inject protected StorageConfigurationManager storageConfigurationManager;
    @Inject protected StateTransferLock stateTransferLock;
    @Inject protected InternalEntryFactory entryFactory;
    @Inject protected KeyPartitioner keyPartitioner;
@@ -276,6 +279,12 @@ private void collectTransactionsToTransfer(Address destination,
 
    @Override
    public void startOutboundTransfer(Address destination, int requestTopologyId, IntSet segments, boolean applyState) {
+      startOutboundTransfer(destination, requestTopologyId, segments, applyState, null);
+   }
+
+   @Override
+   public void startOutboundTransfer(Address destination, int requestTopologyId, IntSet segments, boolean applyState,
+                                     Map<Integer, Long> segmentDigests) {
       if (log.isTraceEnabled()) {
          log.tracef("Starting outbound transfer to node %s for cache %s, topology id %d, segments %s", destination,
                     cacheName, requestTopologyId, segments);
@@ -287,13 +296,66 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, In
                                   chunkSize, requestTopologyId, keyPartitioner, chunks -> {}, rpcManager,
                                   commandsFactory, timeout, cacheName, applyState, false);
       addTransfer(outboundTransfer);
-      outboundTransfer.execute(Flowable.concat(publishDataContainerEntries(segments), publishStoreEntries(segments)))
-                      .whenComplete((ignored, throwable) -> {
-                         if (throwable != null) {
-                            logError(outboundTransfer, throwable);
-                         }
-                         onTaskCompletion(outboundTransfer);
-                      });
+      CompletionStage<IntSet> changedSegmentsStage = segmentDigests == null || segmentDigests.isEmpty() ||
+            !SegmentDigests.isSupported(storageConfigurationManager) ?
+            CompletableFuture.completedFuture(segments) :
+            findChangedSegments(destination, segments, segmentDigests);
+      changedSegmentsStage.thenCompose(changedSegments -> {
+         if (changedSegments.isEmpty()) {
+            // Only mark the segments as finished
+            return outboundTransfer.execute(Flowable.empty());
+         }
+         return outboundTransfer.execute(Flowable.concat(publishDataContainerEntries(changedSegments),
+                                                         publishStoreEntries(changedSegments)));
+      }).whenComplete((ignored, throwable) -> {
+         if (throwable != null) {
+            logError(outboundTransfer, throwable);
+         }
+         onTaskCompletion(outboundTransfer);
+      });
+   }
+
+   @Override
+   public CompletionStage<Map<Integer, Long>> computeSegmentDigests(IntSet segments) {
+      return SegmentDigests.compute(Flowable.concat(publishDataContainerEntries(segments), publishStoreEntries(segments)),
+                                    keyPartitioner, segments);
+   }
+
+   /**
+    * @return the segments whose local digest does not match the digest of the destination
+    */
+   private CompletionStage<IntSet> findChangedSegments(Address destination, IntSet segments,
+                                                       Map<Integer, Long> segmentDigests) {
+      IntSet digestSegments = IntSets.mutableEmptySet(configuration.clustering().hash().numSegments());
+      for (Integer segment : segmentDigests.keySet()) {
+         if (segments.contains(segment)) {
+            digestSegments.set(segment);
+         }
+      }
+      if (digestSegments.isEmpty())
+         return CompletableFuture.completedFuture(segments);
+
+      return computeSegmentDigests(digestSegments).handle((localDigests, throwable) -> {
+         if (throwable != null) {
+            log.debugf(throwable, "Failed to compute the digests of segments %s of cache %s, sending all the entries",
+                       digestSegments, cacheName);
+            return segments;
+         }
+         IntSet changedSegments = IntSets.mutableCopyFrom(segments);
+         for (PrimitiveIterator.OfInt iter = digestSegments.iterator(); iter.hasNext(); ) {
+            int segment = iter.nextInt();
+            if (segmentDigests.get(segment).equals(localDigests.get(segment))) {
+               changedSegments.remove(segment);
+            }
+         }
+         if (log.isDebugEnabled()) {
+            IntSet unchangedSegments = IntSets.mutableCopyFrom(segments);
+            unchangedSegments.removeAll(changedSegments);
+            log.debugf("Skipping the transfer of segments %s of cache %s to node %s, the node already holds them",
+                       unchangedSegments, cacheName, destination);
+         }
+         return changedSegments;
+      });
    }
 
    protected Flowable<InternalCacheEntry<Object, Object>> publishDataContainerEntries(IntSet segments) {
@@ -27,6 +27,8 @@
 import org.infinispan.conflict.impl.InternalConflictManager;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.distribution.ch.ConsistentHashFactory;
+import org.infinispan.distribution.ch.impl.DefaultConsistentHash;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
 import org.infinispan.globalstate.ScopedPersistentState;
 import org.infinispan.lifecycle.ComponentStatus;
 import org.infinispan.manager.EmbeddedCacheManager;
@@ -90,6 +92,8 @@ public class ClusterCacheStatus implements AvailabilityStrategyContext {
    private volatile boolean rebalancingEnabled = true;
    private volatile boolean rebalanceInProgress = false;
    private volatile ConflictResolution conflictResolution;
+   // The segment loads last collected by the coordinator, only used with LoadAwareConsistentHashFactory
+   private volatile float[] segmentLoads;
 
    private RebalanceConfirmationCollector rebalanceConfirmationCollector;
    private ComponentStatus status;
@@ -839,7 +843,13 @@ public synchronized void startQueuedRebalance() {
       ConsistentHashFactory chFactory = getJoinInfo().getConsistentHashFactory();
       // This update will only add the joiners to the CH, we have already checked that we don't have leavers
       ConsistentHash updatedMembersCH = chFactory.updateMembers(currentCH, newMembers, getCapacityFactors());
-      ConsistentHash balancedCH = chFactory.rebalance(updatedMembersCH);
+      ConsistentHash balancedCH;
+      if (chFactory instanceof LoadAwareConsistentHashFactory) {
+         balancedCH = ((LoadAwareConsistentHashFactory) chFactory).rebalance((DefaultConsistentHash) updatedMembersCH,
+                                                                             segmentLoads);
+      } else {
+         balancedCH = chFactory.rebalance(updatedMembersCH);
+      }
 
       boolean updateTopology = false;
       boolean rebalance = false;
@@ -930,6 +940,41 @@ public void forceRebalance() {
       queueRebalance(getCurrentTopology().getMembers());
    }
 
+   /**
+    * Updates the segment loads used by the {@link LoadAwareConsistentHashFactory}, and starts a rebalance if the load
+    * skew of a member exceeds {@link LoadAwareConsistentHashFactory#getMaxLoadSkew()}.
+    *
+    * @param memberStatistics the statistics collected from every member with
+    *                         {@link org.infinispan.commands.topology.SegmentLoadRequestCommand}
+    */
+   public synchronized void updateSegmentLoads(Collection<long[]> memberStatistics) {
+      CacheTopology cacheTopology = currentTopology;
+      if (cacheTopology == null || cacheTopology.getPendingCH() != null)
+         return;
+
+      ConsistentHash currentCH = cacheTopology.getCurrentCH();
+      float[] loads = LoadAwareConsistentHashFactory.computeSegmentLoads(currentCH.getNumSegments(), memberStatistics);
+      if (loads == null)
+         return;
+
+      segmentLoads = loads;
+      Map<Address, Float> loadSkew = LoadAwareConsistentHashFactory.computeLoadSkew(currentCH, loads);
+      float maxLoadSkew = ((LoadAwareConsistentHashFactory) joinInfo.getConsistentHashFactory()).getMaxLoadSkew();
+      if (Collections.max(loadSkew.values()) > maxLoadSkew) {
+         log.debugf("Rebalancing cache %s, the load skew of its members is %s", cacheName, loadSkew);
+         queueRebalance(cacheTopology.getMembers());
+      } else if (log.isTraceEnabled()) {
+         log.tracef("Load skew of cache %s members is %s", cacheName, loadSkew);
+      }
+   }
+
+   /**
+    * @return the segment loads computed by the last {@link #updateSegmentLoads(Collection)}, or {@code null}
+    */
+   public float[] getSegmentLoads() {
+      return segmentLoads;
+   }
+
    public synchronized CompletionStage<Void> forceAvailabilityMode(AvailabilityMode newAvailabilityMode) {
       if (currentTopology != null && newAvailabilityMode != availabilityMode) {
          availabilityStrategy.onManualAvailabilityChange(this, newAvailabilityMode);
@@ -24,6 +24,8 @@
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -34,6 +36,7 @@
 import org.infinispan.commands.topology.CacheStatusRequestCommand;
 import org.infinispan.commands.topology.RebalanceStartCommand;
 import org.infinispan.commands.topology.RebalanceStatusRequestCommand;
+import org.infinispan.commands.topology.SegmentLoadRequestCommand;
 import org.infinispan.commands.topology.TopologyUpdateCommand;
 import org.infinispan.commands.topology.TopologyUpdateStableCommand;
 import org.infinispan.commons.IllegalLifecycleStateException;
@@ -45,6 +48,7 @@
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
 import org.infinispan.executors.LimitedExecutor;
 import org.infinispan.factories.GlobalComponentRegistry;
 import org.infinispan.factories.annotations.ComponentName;
@@ -68,11 +72,14 @@
 import org.infinispan.partitionhandling.impl.PreferAvailabilityStrategy;
 import org.infinispan.partitionhandling.impl.PreferConsistencyStrategy;
 import org.infinispan.remoting.inboundhandler.DeliverOrder;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.responses.ValidResponse;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.ResponseCollectors;
 import org.infinispan.remoting.transport.Transport;
 import org.infinispan.remoting.transport.ValidResponseCollector;
+import org.infinispan.remoting.transport.impl.MapResponseCollector;
 import org.infinispan.remoting.transport.impl.VoidResponseCollector;
 import org.infinispan.statetransfer.RebalanceType;
 import org.infinispan.util.concurrent.ActionSequencer;
@@ -101,6 +108,8 @@ public class ClusterTopologyManagerImpl implements ClusterTopologyManager {
 
    public static final int INITIAL_CONNECTION_ATTEMPTS = 10;
    public static final int CLUSTER_RECOVERY_ATTEMPTS = 10;
+   // How often the coordinator collects the segment loads of the caches using LoadAwareConsistentHashFactory
+   public static final long SEGMENT_LOAD_CHECK_INTERVAL = TimeUnit.MINUTES.toMillis(1);
 
    private static final Log log = LogFactory.getLog(ClusterTopologyManagerImpl.class);
    private static final CompletableFuture<CacheStatusResponseCollector> SKIP_RECOVERY_FUTURE =
@@ -125,6 +134,7 @@ public class ClusterTopologyManagerImpl implements ClusterTopologyManager {
    private TopologyManagementHelper helper;
    private ConditionFuture<ClusterTopologyManagerImpl> joinViewFuture;
    private ActionSequencer actionSequencer;
+   private ScheduledFuture<?> segmentLoadCheckTask;
 
    private final Lock updateLock = new ReentrantLock();
    @GuardedBy("updateLock")
@@ -151,6 +161,9 @@ public void start() {
       handleClusterView(false, transport.getViewId());
 
       globalRebalancingEnabled = join(fetchRebalancingStatusFromCoordinator(INITIAL_CONNECTION_ATTEMPTS));
+
+      segmentLoadCheckTask = timeoutScheduledExecutor.scheduleWithFixedDelay(this::checkSegmentLoads,
+            SEGMENT_LOAD_CHECK_INTERVAL, SEGMENT_LOAD_CHECK_INTERVAL, MILLISECONDS);
    }
 
    private CompletionStage<Boolean> fetchRebalancingStatusFromCoordinator(int attempts) {
@@ -187,6 +200,9 @@ public void stop() {
       }
 
       cacheManagerNotifier.removeListener(viewListener);
+      if (segmentLoadCheckTask != null) {
+         segmentLoadCheckTask.cancel(false);
+      }
    }
 
    // This method is here to augment with blockhound as we allow it to block, but don't want the calls
@@ -631,6 +647,35 @@ DeliverOrder.NONE, getGlobalTimeout() / CLUSTER_RECOVERY_ATTEMPTS,
       }
    }
 
+   private void checkSegmentLoads() {
+      if (!transport.isCoordinator())
+         return;
+
+      for (ClusterCacheStatus cacheStatus : cacheStatusMap.values()) {
+         CacheJoinInfo joinInfo = cacheStatus.getJoinInfo();
+         if (joinInfo == null || !(joinInfo.getConsistentHashFactory() instanceof LoadAwareConsistentHashFactory))
+            continue;
+
+         String cacheName = cacheStatus.getCacheName();
+         // Piggyback the loads of the previous round, the members expose them as their load skew
+         ReplicableCommand command = new SegmentLoadRequestCommand(cacheName, cacheStatus.getSegmentLoads());
+         helper.executeOnClusterSync(transport, command, getGlobalTimeout(), MapResponseCollector.ignoreLeavers())
+               .whenComplete((responses, throwable) -> {
+                  if (throwable != null) {
+                     log.debugf(throwable, "Failed to collect the segment loads of cache %s", cacheName);
+                     return;
+                  }
+                  List<long[]> statistics = new ArrayList<>(responses.size());
+                  for (Response response : responses.values()) {
+                     if (response instanceof SuccessfulResponse) {
+                        statistics.add((long[]) ((SuccessfulResponse) response).getResponseValue());
+                     }
+                  }
+                  cacheStatus.updateSegmentLoads(statistics);
+               });
+      }
+   }
+
    private int getGlobalTimeout() {
       // TODO Rename setting to something like globalRpcTimeout
       return (int) globalConfiguration.transport().distributedSyncTimeout();
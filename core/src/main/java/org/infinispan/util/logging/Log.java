@@ -38,6 +38,7 @@
 import org.infinispan.commons.util.TypedProperties;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ReadPolicy;
 import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.configuration.parsing.Element;
 import org.infinispan.container.versioning.EntryVersion;
@@ -2140,4 +2141,23 @@ CacheConfigurationException storeConfiguredHasBothReadAndWriteOnly(String storeC
    @LogMessage(level = WARN)
    @Message(value = "Index path '%s' is not absolute and global state is disabled, will use a dir relative to the current working directory.", id = 626)
    void indexRelativeWorkingDir(String path);
+
+   @Message(value = "Invalid value '%s' for attribute '%s' of store '%s'", id = 627)
+   CacheConfigurationException invalidStoreAttributeValue(Object value, String attribute, String store);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Cannot use Bloom filters of the stored keys with store '%s', it is shared or it cannot iterate over its keys", id = 628)
+   void storeBloomFilterDisabled(String store);
+
+   @Message(value = "The flush parallelism of a write-behind store must be at least 1, was %d", id = 629)
+   CacheConfigurationException invalidFlushParallelism(int flushParallelism);
+
+   @Message(value = "The hot key threshold must be 0 (disabled) or positive, was %d", id = 630)
+   CacheConfigurationException invalidHotKeyThreshold(int threshold);
+
+   @Message(value = "Hot key replication is supported only in non-transactional distributed caches without L1", id = 631)
+   CacheConfigurationException hotKeyReplicationAppliesOnlyToNonTxDistributed();
+
+   @Message(value = "Read policy %s is supported only in non-transactional distributed caches", id = 632)
+   CacheConfigurationException readPolicyAppliesOnlyToNonTxDistributed(ReadPolicy readPolicy);
 }
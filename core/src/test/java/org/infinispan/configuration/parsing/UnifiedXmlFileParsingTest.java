@@ -113,6 +113,23 @@ public void testParseAndConstructUnifiedXmlFile(Path config) throws IOException
    }
 
    public enum ParserVersionCheck {
+      INFINISPAN_121(12, 1) {
+         @Override
+         public void check(ConfigurationBuilderHolder holder, int schemaMajor, int schemaMinor) {
+            Configuration pooledOffHeap = getConfiguration(holder, "pooled-offheap");
+            assertEquals(StorageType.OFF_HEAP, pooledOffHeap.memory().storage());
+            assertTrue(pooledOffHeap.memory().pooledAllocation());
+            assertFalse(getConfiguration(holder, "minimal-offheap").memory().pooledAllocation());
+            Configuration timerWheel = getConfiguration(holder, "timer-wheel-expiration");
+            assertTrue(timerWheel.expiration().timerWheel());
+            assertEquals(5000, timerWheel.expiration().wakeUpInterval());
+            assertFalse(getConfiguration(holder, "local").expiration().timerWheel());
+            PersistenceConfiguration bloomFilterPersistence = getConfiguration(holder, "bloom-filter-persistence").persistence();
+            assertEquals(1000000, bloomFilterPersistence.bloomFilterKeys());
+            assertEquals(4, bloomFilterPersistence.stores().get(0).async().flushParallelism());
+            assertEquals(0, getConfiguration(holder, "local").persistence().bloomFilterKeys());
+         }
+      },
       INFINISPAN_120(12, 0) {
          @Override
          public void check(ConfigurationBuilderHolder holder, int schemaMajor, int schemaMinor) {
@@ -7,9 +7,12 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -21,11 +24,13 @@
 import org.infinispan.AdvancedCache;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.statetransfer.ConflictResolutionStartCommand;
 import org.infinispan.commands.statetransfer.StateResponseCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.test.Exceptions;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.conflict.ConflictManager;
 import org.infinispan.conflict.ConflictManagerFactory;
 import org.infinispan.container.entries.CacheEntry;
@@ -52,6 +57,7 @@
 public class ConflictManagerTest extends BasePartitionHandlingTest {
 
    private static final String CACHE_NAME = "conflict-cache";
+   private static final String BINARY_CACHE_NAME = "conflict-cache-binary";
    private static final int NUMBER_OF_OWNERS = 2;
    private static final int NUMBER_OF_CACHE_ENTRIES = 100;
    private static final int INCONSISTENT_VALUE_INCREMENT = 10;
@@ -68,6 +74,9 @@ protected void createCacheManagers() throws Throwable {
       ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC);
       builder.clustering().partitionHandling().whenSplit(partitionHandling).mergePolicy(null).stateTransfer().fetchInMemoryState(true);
       defineConfigurationOnAllManagers(CACHE_NAME, builder);
+      // Segment digests require keys and values stored as bytes
+      builder.memory().storage(StorageType.OFF_HEAP);
+      defineConfigurationOnAllManagers(BINARY_CACHE_NAME, builder);
    }
 
    public void testGetAllVersionsDuringStateTransfer() throws Exception {
@@ -196,6 +205,37 @@ public void testCacheOperationOnConflictStream() {
       assertTrue(cache.isEmpty());
    }
 
+   public void testOnlyDivergentSegmentsAreRequested() {
+      waitForClusterToForm(BINARY_CACHE_NAME);
+      AdvancedCache<Object, Object> cache = advancedCache(0, BINARY_CACHE_NAME);
+      IntStream.range(0, NUMBER_OF_CACHE_ENTRIES).forEach(i -> cache.put(i, "v" + i));
+      Set<Integer> requestedSegments = ConcurrentHashMap.newKeySet();
+      IntStream.range(0, numMembersInCluster).forEach(i -> wrapInboundInvocationHandler(advancedCache(i, BINARY_CACHE_NAME),
+            delegate -> new RecordStateRequestHandler(requestedSegments, delegate)));
+
+      assertEquals(0, ConflictManagerFactory.get(cache).getConflicts().count());
+      assertEquals(Collections.emptySet(), requestedSegments);
+
+      MagicKey key = new MagicKey(advancedCache(0, BINARY_CACHE_NAME), advancedCache(1, BINARY_CACHE_NAME));
+      cache.put(key, 1);
+      cache.withFlags(Flag.CACHE_MODE_LOCAL).put(key, 2);
+      assertEquals(1, ConflictManagerFactory.get(cache).getConflicts().count());
+      int segment = cache.getDistributionManager().getCacheTopology().getSegment(key);
+      assertEquals(Collections.singleton(segment), requestedSegments);
+   }
+
+   public void testAllSegmentsAreRequestedWithObjectStorage() {
+      createCluster();
+      AdvancedCache<Object, Object> cache = getCache(0);
+      IntStream.range(0, NUMBER_OF_CACHE_ENTRIES).forEach(i -> cache.put(i, "v" + i));
+      Set<Integer> requestedSegments = ConcurrentHashMap.newKeySet();
+      IntStream.range(0, numMembersInCluster).forEach(i -> wrapInboundInvocationHandler(getCache(i),
+            delegate -> new RecordStateRequestHandler(requestedSegments, delegate)));
+
+      assertEquals(0, getConflicts(0).count());
+      assertEquals(cache.getCacheConfiguration().clustering().hash().numSegments(), requestedSegments.size());
+   }
+
    public void testNoEntryMergePolicyConfigured() {
       Exceptions.expectException(CacheException.class, () -> ConflictManagerFactory.get(getCache(0)).resolveConflicts());
    }
@@ -299,6 +339,23 @@ public void handle(CacheRpcCommand command, Reply reply, DeliverOrder order) {
       }
    }
 
+   private class RecordStateRequestHandler extends AbstractDelegatingHandler {
+      final Set<Integer> requestedSegments;
+
+      RecordStateRequestHandler(Set<Integer> requestedSegments, PerCacheInboundInvocationHandler delegate) {
+         super(delegate);
+         this.requestedSegments = requestedSegments;
+      }
+
+      @Override
+      public void handle(CacheRpcCommand command, Reply reply, DeliverOrder order) {
+         if (command instanceof ConflictResolutionStartCommand) {
+            requestedSegments.addAll(((ConflictResolutionStartCommand) command).getSegments());
+         }
+         delegate.handle(command, reply, order);
+      }
+   }
+
    private class DropClusteredGetCommandHandler extends AbstractDelegatingHandler {
       DropClusteredGetCommandHandler(PerCacheInboundInvocationHandler delegate) {
          super(delegate);
@@ -0,0 +1,57 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "container.offheap.FrequencySketchTest")
+public class FrequencySketchTest {
+
+   public void testIncrement() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      assertEquals(0, sketch.frequency(42));
+      sketch.increment(42);
+      assertEquals(1, sketch.frequency(42));
+      sketch.increment(42);
+      assertEquals(2, sketch.frequency(42));
+   }
+
+   public void testFrequencyIsCapped() {
+      FrequencySketch sketch = new FrequencySketch(512);
+      for (int i = 0; i < 20; ++i) {
+         sketch.increment(42);
+      }
+      assertEquals(15, sketch.frequency(42));
+   }
+
+   public void testFrequenciesAreHalvedAfterSample() {
+      FrequencySketch sketch = new FrequencySketch(64);
+      for (int i = 0; i < 15; ++i) {
+         sketch.increment(-1);
+      }
+      // The sample size is 10 times the capacity
+      for (int i = 0; sketch.frequency(-1) == 15; ++i) {
+         assertTrue(i < 10 * 64);
+         sketch.increment(i);
+      }
+      assertEquals(7, sketch.frequency(-1));
+   }
+
+   public void testEnsureCapacity() {
+      FrequencySketch sketch = new FrequencySketch(0);
+      assertEquals(1, sketch.capacity());
+      sketch.increment(42);
+      sketch.ensureCapacity(1000);
+      assertEquals(1024, sketch.capacity());
+      assertEquals(0, sketch.frequency(42));
+      // Never shrinks
+      sketch.ensureCapacity(10);
+      assertEquals(1024, sketch.capacity());
+      sketch.ensureCapacity(Long.MAX_VALUE);
+      assertEquals(FrequencySketch.MAX_CAPACITY, sketch.capacity());
+   }
+}
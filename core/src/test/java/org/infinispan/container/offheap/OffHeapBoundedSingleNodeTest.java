@@ -90,4 +90,26 @@ public void testMultiThreaded() throws ExecutionException, InterruptedException,
       }
       assertTrue("Cache size was " + cacheSize, cacheSize <= COUNT);
    }
+
+   public void testFrequentlyUsedEntriesSurviveScan() {
+      Cache<String, String> cache = cache(0);
+
+      int hotCount = COUNT / 2;
+      for (int i = 0; i < hotCount; ++i) {
+         cache.put("hot" + i, "value" + i);
+      }
+      for (int i = 0; i < hotCount; ++i) {
+         cache.put("hot" + i, "updated" + i);
+      }
+
+      // A scan of entries that are never used again must not evict the ones that are used often
+      for (int i = 0; i < COUNT * 4; ++i) {
+         cache.put("scan" + i, "value" + i);
+      }
+
+      assertEquals(COUNT, cache.size());
+      for (int i = 0; i < hotCount; ++i) {
+         assertTrue("hot" + i + " was evicted", cache.containsKey("hot" + i));
+      }
+   }
 }
@@ -0,0 +1,153 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.impl.InternalEntryFactoryImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that optimistic reads never return a torn or mismatched entry while writers overwrite, remove and resize.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapConcurrentMapOptimisticReadTest")
+public class OffHeapConcurrentMapOptimisticReadTest {
+   private static final int KEYS = 4096;
+
+   private final AtomicLong allocations = new AtomicLong();
+   private PooledOffHeapMemoryAllocator allocator;
+   private OffHeapConcurrentMap map;
+
+   @BeforeMethod
+   void initializeMap() {
+      allocations.set(0);
+      allocator = new PooledOffHeapMemoryAllocator() {
+         @Override
+         public long allocate(long memoryLength) {
+            allocations.incrementAndGet();
+            return super.allocate(memoryLength);
+         }
+      };
+      OffHeapEntryFactoryImpl offHeapEntryFactory = new OffHeapEntryFactoryImpl();
+      offHeapEntryFactory.allocator = allocator;
+      offHeapEntryFactory.internalEntryFactory = new InternalEntryFactoryImpl();
+      offHeapEntryFactory.configuration = new ConfigurationBuilder().build();
+      offHeapEntryFactory.start();
+
+      map = new OffHeapConcurrentMap(allocator, offHeapEntryFactory, null);
+   }
+
+   @AfterMethod
+   void afterMethod() {
+      if (map != null) {
+         map.close();
+      }
+      allocator.stop();
+   }
+
+   private static WrappedBytes key(int i) {
+      return new WrappedByteArray(("key" + i).getBytes());
+   }
+
+   private static WrappedBytes value(int i, int version) {
+      // Values of different lengths, so blocks are reused by entries of other keys
+      ByteBuffer buffer = ByteBuffer.allocate(8 + (version % 7) * 16);
+      buffer.putInt(i).putInt(version);
+      return new WrappedByteArray(buffer.array());
+   }
+
+   private void put(int i, int version) {
+      WrappedBytes key = key(i);
+      map.put(key, new ImmortalCacheEntry(key, value(i, version)));
+   }
+
+   public void testReadsDoNotAllocate() {
+      for (int i = 0; i < 10; ++i) {
+         put(i, 0);
+      }
+      long allocationsBefore = allocations.get();
+      for (int i = 0; i < 10; ++i) {
+         assertEquals(value(i, 0), map.peek(key(i)).getValue());
+         assertEquals(value(i, 0), map.get(key(i)).getValue());
+      }
+      assertNull(map.peek(key(KEYS)));
+      assertEquals(allocationsBefore, allocations.get());
+   }
+
+   public void testReadsAreConsistent() throws Exception {
+      for (int i = 0; i < 10; ++i) {
+         put(i, 0);
+      }
+      assertNotNull(map.peek(key(1)));
+      assertEquals(value(1, 0), map.get(key(1)).getValue());
+      assertNull(map.peek(key(KEYS)));
+
+      ExecutorService executor = Executors.newFixedThreadPool(6);
+      try {
+         long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+         List<Future<Integer>> futures = new ArrayList<>();
+         for (int t = 0; t < 2; ++t) {
+            futures.add(executor.submit(() -> {
+               int writes = 0;
+               ThreadLocalRandom random = ThreadLocalRandom.current();
+               while (System.nanoTime() < end) {
+                  int i = random.nextInt(KEYS);
+                  if (random.nextInt(8) == 0) {
+                     map.remove(key(i));
+                  } else {
+                     put(i, random.nextInt(1000));
+                  }
+                  if (++writes % 10_000 == 0) {
+                     // Shrink and grow the map again to exercise resizes
+                     map.clear();
+                  }
+               }
+               return writes;
+            }));
+         }
+         for (int t = 0; t < 4; ++t) {
+            futures.add(executor.submit(() -> {
+               int reads = 0;
+               ThreadLocalRandom random = ThreadLocalRandom.current();
+               while (System.nanoTime() < end) {
+                  int i = random.nextInt(KEYS);
+                  InternalCacheEntry<WrappedBytes, WrappedBytes> ice = random.nextBoolean() ? map.peek(key(i)) : map.get(key(i));
+                  if (ice != null) {
+                     assertEquals(key(i), ice.getKey());
+                     ByteBuffer value = ByteBuffer.wrap(ice.getValue().getBytes());
+                     assertEquals(i, value.getInt());
+                     int version = value.getInt();
+                     assertEquals(value(i, version), ice.getValue());
+                  }
+                  reads++;
+               }
+               return reads;
+            }));
+         }
+         for (Future<Integer> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
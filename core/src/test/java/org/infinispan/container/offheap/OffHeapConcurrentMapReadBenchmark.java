@@ -0,0 +1,78 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.marshall.WrappedBytes;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.impl.InternalEntryFactoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the read throughput of the {@link OffHeapConcurrentMap} on a small set of hot keys, which is where readers
+ * contend on the same lock regions. With the pooled allocator reads are optimistic and never write to the lock.
+ * Run with {@code -t} set to the number of cores to compare the scaling.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class OffHeapConcurrentMapReadBenchmark {
+
+   @Param({ "unpooled", "pooled" })
+   public String allocatorType;
+   @Param({ "16", "16384" })
+   public int keyCount;
+
+   private OffHeapMemoryAllocator allocator;
+   private OffHeapConcurrentMap map;
+   private WrappedBytes[] keys;
+
+   @Setup(Level.Trial)
+   public void init() {
+      allocator = "pooled".equals(allocatorType) ? new PooledOffHeapMemoryAllocator() : new UnpooledOffHeapMemoryAllocator();
+      OffHeapEntryFactoryImpl offHeapEntryFactory = new OffHeapEntryFactoryImpl();
+      offHeapEntryFactory.allocator = allocator;
+      offHeapEntryFactory.internalEntryFactory = new InternalEntryFactoryImpl();
+      offHeapEntryFactory.configuration = new ConfigurationBuilder().build();
+      offHeapEntryFactory.start();
+      map = new OffHeapConcurrentMap(allocator, offHeapEntryFactory, null);
+
+      keys = new WrappedBytes[keyCount];
+      WrappedBytes value = new WrappedByteArray(new byte[64]);
+      for (int i = 0; i < keyCount; ++i) {
+         keys[i] = new WrappedByteArray(("key" + i).getBytes());
+         map.put(keys[i], new ImmortalCacheEntry(keys[i], value));
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void destroy() {
+      map.close();
+      if (allocator instanceof PooledOffHeapMemoryAllocator) {
+         ((PooledOffHeapMemoryAllocator) allocator).stop();
+      }
+   }
+
+   @Benchmark
+   public InternalCacheEntry<WrappedBytes, WrappedBytes> get() {
+      return map.get(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+   }
+}
@@ -0,0 +1,84 @@
+package org.infinispan.container.offheap;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link PooledOffHeapMemoryAllocator} with the {@link UnpooledOffHeapMemoryAllocator} under an
+ * overwrite heavy load: every operation replaces a random entry of a fixed working set with a new allocation of
+ * a random size, freeing the previous one, like {@link OffHeapConcurrentMap} does when an entry is overwritten.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 1)
+@Measurement(iterations = 8, time = 1)
+@Threads(4)
+public class OffHeapMemoryAllocatorBenchmark {
+
+   @Param({ "unpooled", "pooled" })
+   public String allocatorType;
+   @Param({ "64", "1024" })
+   public int maxEntrySize;
+   @Param({ "16384" })
+   public int entries;
+
+   private OffHeapMemoryAllocator allocator;
+   // Each block starts with its own size, so it can be freed by any thread
+   private AtomicLongArray addresses;
+
+   @Setup(Level.Trial)
+   public void init() {
+      allocator = "pooled".equals(allocatorType) ? new PooledOffHeapMemoryAllocator() : new UnpooledOffHeapMemoryAllocator();
+      addresses = new AtomicLongArray(entries);
+      for (int i = 0; i < entries; ++i) {
+         addresses.set(i, allocate(ThreadLocalRandom.current()));
+      }
+   }
+
+   private long allocate(ThreadLocalRandom random) {
+      long size = 8 + random.nextInt(maxEntrySize);
+      long address = allocator.allocate(size);
+      OffHeapMemory.INSTANCE.putLong(address, 0, size);
+      return address;
+   }
+
+   private void deallocate(long address) {
+      allocator.deallocate(address, OffHeapMemory.INSTANCE.getLong(address, 0));
+   }
+
+   @TearDown(Level.Trial)
+   public void destroy() {
+      for (int i = 0; i < entries; ++i) {
+         deallocate(addresses.get(i));
+      }
+      if (allocator instanceof PooledOffHeapMemoryAllocator) {
+         ((PooledOffHeapMemoryAllocator) allocator).stop();
+      }
+   }
+
+   @Benchmark
+   public long overwrite() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long oldAddress = addresses.getAndSet(random.nextInt(entries), allocate(random));
+      deallocate(oldAddress);
+      return oldAddress;
+   }
+}
@@ -0,0 +1,166 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "container.offheap.PooledOffHeapMemoryAllocatorTest")
+public class PooledOffHeapMemoryAllocatorTest {
+
+   @DataProvider(name = "roundings")
+   Object[][] roundings() {
+      return new Object[][] {
+            { 1, 16 },
+            { 16, 16 },
+            { 17, 32 },
+            { 255, 256 },
+            { 256, 256 },
+            { 257, 320 },
+            { 500, 512 },
+            { 513, 640 },
+            { 1000, 1024 },
+            { 1025, 1280 },
+            { 32767, 32768 },
+            { 32768, 32768 },
+      };
+   }
+
+   @Test(dataProvider = "roundings")
+   public void testRoundings(long original, long expected) {
+      assertEquals(expected, PooledOffHeapMemoryAllocator.blockSize(PooledOffHeapMemoryAllocator.sizeClass(original)));
+   }
+
+   public void testSizeClassesAreIncreasing() {
+      assertEquals(PooledOffHeapMemoryAllocator.SIZE_CLASS_COUNT - 1,
+            PooledOffHeapMemoryAllocator.sizeClass(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE));
+      assertEquals(-1, PooledOffHeapMemoryAllocator.sizeClass(PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1));
+      for (int i = 1; i < PooledOffHeapMemoryAllocator.SIZE_CLASS_COUNT; ++i) {
+         long blockSize = PooledOffHeapMemoryAllocator.blockSize(i);
+         assertTrue(blockSize > PooledOffHeapMemoryAllocator.blockSize(i - 1));
+         assertEquals(0, blockSize % 16);
+         assertEquals(i, PooledOffHeapMemoryAllocator.sizeClass(blockSize));
+         assertEquals(i, PooledOffHeapMemoryAllocator.sizeClass(PooledOffHeapMemoryAllocator.blockSize(i - 1) + 1));
+      }
+   }
+
+   public void testFreedBlockIsReused() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator(1);
+      try {
+         long first = allocator.allocate(100);
+         long second = allocator.allocate(100);
+         assertTrue(first != second);
+         allocator.deallocate(first, 100);
+         assertEquals(first, allocator.allocate(110));
+         // A different size class does not reuse the block
+         allocator.deallocate(second, 100);
+         assertTrue(second != allocator.allocate(200));
+      } finally {
+         allocator.stop();
+      }
+   }
+
+   public void testBlocksDoNotOverlap() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator(1);
+      try {
+         int count = 5_000;
+         Set<Long> addresses = new HashSet<>();
+         for (int i = 0; i < count; ++i) {
+            long address = allocator.allocate(24);
+            OffHeapMemory.INSTANCE.putLong(address, 0, i);
+            OffHeapMemory.INSTANCE.putLong(address, 8, i);
+            OffHeapMemory.INSTANCE.putLong(address, 16, i);
+            assertTrue(addresses.add(address));
+         }
+         int i = 0;
+         for (long address : addresses) {
+            long value = OffHeapMemory.INSTANCE.getLong(address, 0);
+            assertEquals(value, OffHeapMemory.INSTANCE.getLong(address, 16));
+            allocator.deallocate(address, 24);
+            i++;
+         }
+         assertEquals(count, i);
+         assertEquals(0, allocator.getUsedBytes());
+         assertEquals(allocator.getReservedBytes(), allocator.getFreeBytes());
+      } finally {
+         allocator.stop();
+      }
+   }
+
+   public void testMetrics() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator(3);
+      try {
+         assertEquals(4, allocator.getArenaCount());
+         assertEquals(0, allocator.getAllocatedAmount());
+         assertEquals(0d, allocator.getInternalFragmentation());
+         assertEquals(0d, allocator.getExternalFragmentation());
+
+         long pooled = allocator.allocate(40);
+         assertEquals(48, allocator.getUsedBytes());
+         assertEquals(40, allocator.getRequestedBytes());
+         assertEquals(1 - 40d / 48, allocator.getInternalFragmentation());
+         long reserved = allocator.getReservedBytes();
+         assertTrue(reserved >= 48);
+         assertEquals(reserved, allocator.getMaxArenaReservedBytes());
+         assertEquals(0, allocator.getMinArenaReservedBytes());
+         assertEquals(reserved - 48, allocator.getFreeBytes());
+
+         // Large blocks are allocated directly and freed right away when no unlocked read is running
+         long largeSize = PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1;
+         long estimatedLargeSize = UnpooledOffHeapMemoryAllocator.estimateSizeOverhead(largeSize);
+         long large = allocator.allocate(largeSize);
+         assertEquals(estimatedLargeSize, allocator.getDirectBytes());
+         assertEquals(reserved + estimatedLargeSize, allocator.getAllocatedAmount());
+         allocator.deallocate(large, largeSize);
+         assertEquals(0, allocator.getDirectBytes());
+         assertEquals(0, allocator.getRetiredBytes());
+
+         allocator.deallocate(pooled, 40);
+         assertEquals(0, allocator.getUsedBytes());
+         assertEquals(1d, allocator.getExternalFragmentation());
+         // Slabs are kept until the allocator is stopped
+         assertEquals(reserved, allocator.getAllocatedAmount());
+      } finally {
+         allocator.stop();
+      }
+      assertEquals(0, allocator.getAllocatedAmount());
+   }
+
+   public void testLargeBlockIsFreedAfterUnlockedRead() {
+      PooledOffHeapMemoryAllocator allocator = new PooledOffHeapMemoryAllocator(2);
+      try {
+         long largeSize = PooledOffHeapMemoryAllocator.MAX_POOLED_SIZE + 1;
+         long estimatedLargeSize = UnpooledOffHeapMemoryAllocator.estimateSizeOverhead(largeSize);
+         long large = allocator.allocate(largeSize);
+         OffHeapMemory.INSTANCE.putLong(large, 0, 42);
+
+         int token = allocator.enterUnlockedRead();
+         allocator.deallocate(large, largeSize);
+         // The reader may still follow the address, so the block is only retired
+         assertEquals(estimatedLargeSize, allocator.getRetiredBytes());
+         assertEquals(42, OffHeapMemory.INSTANCE.getLong(large, 0));
+         long other = allocator.allocate(largeSize);
+         assertEquals(estimatedLargeSize, allocator.getRetiredBytes());
+         allocator.exitUnlockedRead(token);
+
+         // A reader entering after the deallocation does not hold the first block back, only the second one
+         token = allocator.enterUnlockedRead();
+         allocator.deallocate(other, largeSize);
+         assertEquals(estimatedLargeSize, allocator.getRetiredBytes());
+         allocator.exitUnlockedRead(token);
+         allocator.deallocate(allocator.allocate(largeSize), largeSize);
+         assertEquals(0, allocator.getRetiredBytes());
+         assertEquals(0, allocator.getDirectBytes());
+         assertEquals(0, allocator.getAllocatedAmount());
+      } finally {
+         allocator.stop();
+      }
+   }
+}
@@ -0,0 +1,49 @@
+package org.infinispan.container.offheap;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the off-heap single node tests with the {@link PooledOffHeapMemoryAllocator}.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "container.offheap.PooledOffHeapSingleNodeTest")
+public class PooledOffHeapSingleNodeTest extends OffHeapSingleNodeTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder dcc = getDefaultClusteredCacheConfig(CacheMode.LOCAL, false);
+      dcc.memory().storage(StorageType.OFF_HEAP).pooledAllocation(true);
+      addClusterEnabledCacheManager(dcc);
+
+      configureTimeService();
+   }
+
+   public void testOverwritesReuseBlocks() {
+      Cache<String, String> cache = cache(0);
+      OffHeapMemoryAllocator allocator = TestingUtil.extractComponent(cache, OffHeapMemoryAllocator.class);
+      assertTrue(allocator instanceof PooledOffHeapMemoryAllocator);
+      PooledOffHeapMemoryAllocator pooled = (PooledOffHeapMemoryAllocator) allocator;
+
+      for (int i = 0; i < 100; ++i) {
+         cache.put("key" + i, "value" + i);
+      }
+      long reserved = pooled.getReservedBytes();
+      for (int round = 0; round < 10; ++round) {
+         for (int i = 0; i < 100; ++i) {
+            cache.put("key" + i, "value" + (i + round % 2));
+         }
+      }
+      // Overwritten entries are replaced by blocks freed by the previous writes
+      assertEquals(reserved, pooled.getReservedBytes());
+      assertEquals("value" + 1, cache.get("key0"));
+   }
+}
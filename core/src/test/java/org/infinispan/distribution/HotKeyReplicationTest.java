@@ -0,0 +1,91 @@
+package org.infinispan.distribution;
+
+import static org.infinispan.test.TestingUtil.extractComponent;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.impl.HotKeyManagerImpl;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestDataSCI;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that keys read often by a non-owner are replicated on that node, and that writes invalidate the replicas.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "distribution.HotKeyReplicationTest")
+public class HotKeyReplicationTest extends MultipleCacheManagersTest {
+   private static final int THRESHOLD = 3;
+   private static final int READS = 10;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hotKeyThreshold(THRESHOLD).hotKeyLifespan(1, TimeUnit.MINUTES);
+      createCluster(TestDataSCI.INSTANCE, builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testHotKeyReplicatedAndInvalidatedByOwnerWrite() {
+      Cache<MagicKey, String> nonOwner = cache(2);
+      MagicKey key = new MagicKey(cache(0), cache(1));
+      cache(0).put(key, "v1");
+
+      readOften(nonOwner, key, "v1");
+      assertTrue(isReplicated(nonOwner, key));
+      assertTrue(hotKeys(nonOwner).getReplicaHits() > 0);
+      assertTrue(hotKeys(cache(0)).getMaxHotKeyFanOut() + hotKeys(cache(1)).getMaxHotKeyFanOut() > 0);
+
+      cache(1).put(key, "v2");
+      assertFalse(isReplicated(nonOwner, key));
+      assertEquals("v2", nonOwner.get(key));
+   }
+
+   public void testHotKeyInvalidatedByNonOwnerWrite() {
+      Cache<MagicKey, String> nonOwner = cache(2);
+      MagicKey key = new MagicKey(cache(0), cache(1));
+      cache(0).put(key, "v1");
+
+      readOften(nonOwner, key, "v1");
+      assertTrue(isReplicated(nonOwner, key));
+
+      nonOwner.put(key, "v2");
+      assertFalse(isReplicated(nonOwner, key));
+      assertEquals("v2", nonOwner.get(key));
+      assertEquals("v2", cache(0).get(key));
+
+      nonOwner.remove(key);
+      assertNull(nonOwner.get(key));
+   }
+
+   public void testColdKeyNotReplicated() {
+      Cache<MagicKey, String> nonOwner = cache(2);
+      MagicKey key = new MagicKey(cache(0), cache(1));
+      cache(0).put(key, "v1");
+
+      assertEquals("v1", nonOwner.get(key));
+      assertFalse(isReplicated(nonOwner, key));
+   }
+
+   private static void readOften(Cache<MagicKey, String> cache, MagicKey key, String expectedValue) {
+      for (int i = 0; i < READS; i++) {
+         assertEquals(expectedValue, cache.get(key));
+      }
+   }
+
+   private static boolean isReplicated(Cache<?, ?> cache, MagicKey key) {
+      return hotKeys(cache).getHotKeys().contains(key.toString());
+   }
+
+   private static HotKeyManagerImpl hotKeys(Cache<?, ?> cache) {
+      return (HotKeyManagerImpl) extractComponent(cache, HotKeyManager.class);
+   }
+}
@@ -0,0 +1,129 @@
+package org.infinispan.distribution.ch.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the load balancing and the number of moved segments of {@link LoadAwareConsistentHashFactory}.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "distribution.ch.LoadAwareConsistentHashFactoryTest")
+public class LoadAwareConsistentHashFactoryTest extends AbstractInfinispanTest {
+   private static final int NUM_SEGMENTS = 40;
+   private static final int NUM_OWNERS = 2;
+
+   private final LoadAwareConsistentHashFactory chf = new LoadAwareConsistentHashFactory();
+
+   public void testWithoutLoadsBehavesLikeDefault() {
+      List<Address> members = createMembers(4);
+      DefaultConsistentHash ch = chf.create(NUM_OWNERS, NUM_SEGMENTS, members, null);
+      assertEquals(new DefaultConsistentHashFactory().create(NUM_OWNERS, NUM_SEGMENTS, members, null), ch);
+      assertSame(ch, chf.rebalance(ch, null));
+   }
+
+   public void testUniformLoadsKeepConsistentHash() {
+      DefaultConsistentHash ch = chf.create(NUM_OWNERS, NUM_SEGMENTS, createMembers(4), null);
+      float[] loads = new float[NUM_SEGMENTS];
+      Arrays.fill(loads, 1f / NUM_SEGMENTS);
+      assertSame(ch, chf.rebalance(ch, loads));
+   }
+
+   public void testHotSegmentsAreSpread() {
+      List<Address> members = createMembers(4);
+      DefaultConsistentHash ch = chf.create(NUM_OWNERS, NUM_SEGMENTS, members, null);
+
+      // Make the first 5 segments primary-owned by the first member much heavier than the others
+      Address hotMember = members.get(0);
+      float[] loads = new float[NUM_SEGMENTS];
+      Arrays.fill(loads, 1);
+      int hotSegments = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS && hotSegments < 5; segment++) {
+         if (ch.locatePrimaryOwnerForSegment(segment).equals(hotMember)) {
+            loads[segment] = 20;
+            hotSegments++;
+         }
+      }
+      assertTrue(maxSkew(ch, loads) > chf.getMaxLoadSkew());
+
+      DefaultConsistentHash balancedCH = chf.rebalance(ch, loads);
+      assertTrue(maxSkew(balancedCH, loads) < chf.getMaxLoadSkew());
+      assertTrue(maxPrimarySkew(balancedCH, loads) < chf.getMaxLoadSkew());
+
+      int movedOwners = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+         List<Address> owners = balancedCH.locateOwnersForSegment(segment);
+         assertEquals(NUM_OWNERS, owners.size());
+         for (Address owner : owners) {
+            if (!ch.isSegmentLocalToNode(owner, segment)) {
+               movedOwners++;
+            }
+         }
+      }
+      assertTrue("Moved " + movedOwners + " owners", movedOwners < NUM_SEGMENTS * NUM_OWNERS / 4);
+
+      // Without changes in the loads, another rebalance doesn't move anything
+      assertSame(balancedCH, chf.rebalance(balancedCH, loads));
+   }
+
+   public void testJoinerReceivesLoad() {
+      List<Address> members = createMembers(4);
+      DefaultConsistentHash ch = chf.create(NUM_OWNERS, NUM_SEGMENTS, members.subList(0, 3), null);
+      float[] loads = new float[NUM_SEGMENTS];
+      for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+         loads[segment] = segment % 4 == 0 ? 10 : 1;
+      }
+      DefaultConsistentHash updatedCH = chf.updateMembers(ch, members, null);
+      DefaultConsistentHash balancedCH = chf.rebalance(updatedCH, loads);
+      assertTrue(balancedCH.getSegmentsForOwner(members.get(3)).size() > 0);
+      assertTrue(maxSkew(balancedCH, loads) < chf.getMaxLoadSkew());
+   }
+
+   public void testComputeSegmentLoads() {
+      assertNull(LoadAwareConsistentHashFactory.computeSegmentLoads(2, Collections.emptyList()));
+      assertNull(LoadAwareConsistentHashFactory.computeSegmentLoads(2, Collections.singletonList(new long[4])));
+
+      // Sizes {100, 300} from two owners and accesses {30, 10} + {10, 30}
+      List<long[]> statistics = new ArrayList<>();
+      statistics.add(new long[]{100, 300, 30, 10});
+      statistics.add(new long[]{50, 300, 10, 30});
+      float[] loads = LoadAwareConsistentHashFactory.computeSegmentLoads(2, statistics);
+      assertEquals(1, loads[0] + loads[1], 0.0001);
+      assertTrue(loads[1] > loads[0]);
+   }
+
+   private static float maxSkew(DefaultConsistentHash ch, float[] loads) {
+      Map<Address, Float> skew = LoadAwareConsistentHashFactory.computeLoadSkew(ch, loads);
+      return Collections.max(skew.values());
+   }
+
+   private static float maxPrimarySkew(DefaultConsistentHash ch, float[] loads) {
+      SegmentLoadStatistics stats = new SegmentLoadStatistics(ch, ch.getMembers(), loads);
+      float maxSkew = 0;
+      for (Address member : ch.getMembers()) {
+         maxSkew = Math.max(maxSkew, stats.getPrimaryLoadSkew(member, null, ch.getMembers().size()));
+      }
+      return maxSkew;
+   }
+
+   private static List<Address> createMembers(int count) {
+      List<Address> members = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         members.add(new TestAddress(i, "LA"));
+      }
+      return members;
+   }
+}
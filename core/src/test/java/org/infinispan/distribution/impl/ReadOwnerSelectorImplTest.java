@@ -0,0 +1,95 @@
+package org.infinispan.distribution.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.ReadPolicy;
+import org.infinispan.distribution.TestTopologyAwareAddress;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.ControlledTimeService;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the owner ordering of {@link ReadOwnerSelectorImpl} for each {@link ReadPolicy}.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "distribution.impl.ReadOwnerSelectorImplTest")
+public class ReadOwnerSelectorImplTest extends AbstractInfinispanTest {
+   private final Address a = new TestTopologyAwareAddress(0, "s1", "r1", "m1");
+   private final Address b = new TestTopologyAwareAddress(1, "s1", "r1", "m2");
+   private final Address c = new TestTopologyAwareAddress(2, "s1", "r2", "m3");
+   private final ControlledTimeService timeService = new ControlledTimeService();
+
+   public void testRoundRobinRotatesOwners() {
+      ReadOwnerSelectorImpl selector = createSelector(ReadPolicy.ROUND_ROBIN, a);
+      List<Address> owners = Arrays.asList(a, b, c);
+
+      assertEquals(Arrays.asList(a, b, c), selector.orderReadOwners(owners));
+      assertEquals(Arrays.asList(b, c, a), selector.orderReadOwners(owners));
+      assertEquals(Arrays.asList(c, a, b), selector.orderReadOwners(owners));
+   }
+
+   public void testRoundRobinSkipsSlowOwner() {
+      ReadOwnerSelectorImpl selector = createSelector(ReadPolicy.ROUND_ROBIN, a);
+      recordRead(selector, a, 1);
+      recordRead(selector, b, 10);
+
+      assertEquals(a, selector.orderReadOwners(Arrays.asList(a, b)).get(0));
+      // b's turn, but it is too slow
+      assertEquals(a, selector.orderReadOwners(Arrays.asList(a, b)).get(0));
+
+      // The latencies are forgotten after a while
+      timeService.advance(2 * TimeUnit.NANOSECONDS.toMillis(ReadOwnerSelectorImpl.STALE_LATENCY_NANOS));
+      assertEquals(a, selector.orderReadOwners(Arrays.asList(a, b)).get(0));
+      assertEquals(b, selector.orderReadOwners(Arrays.asList(a, b)).get(0));
+   }
+
+   public void testLeastOutstandingPrefersIdleOwner() {
+      ReadOwnerSelectorImpl selector = createSelector(ReadPolicy.LEAST_OUTSTANDING, a);
+      assertEquals(Arrays.asList(a, b), selector.orderReadOwners(Arrays.asList(a, b)));
+
+      long start = selector.readStarted(a);
+      assertEquals(Arrays.asList(b, a), selector.orderReadOwners(Arrays.asList(a, b)));
+
+      selector.readCompleted(a, start);
+      assertEquals(Arrays.asList(a, b), selector.orderReadOwners(Arrays.asList(a, b)));
+   }
+
+   public void testNearestPrefersSameMachineThenSameRack() {
+      ReadOwnerSelectorImpl selector = createSelector(ReadPolicy.NEAREST, new TestTopologyAwareAddress(3, "s1", "r1", "m2"));
+
+      assertEquals(Arrays.asList(b, a, c), selector.orderReadOwners(Arrays.asList(c, a, b)));
+   }
+
+   private void recordRead(ReadOwnerSelectorImpl selector, Address target, long millis) {
+      long start = selector.readStarted(target);
+      timeService.advance(millis);
+      selector.readCompleted(target, start);
+   }
+
+   private ReadOwnerSelectorImpl createSelector(ReadPolicy policy, Address self) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC).readPolicy(policy);
+      RpcManager rpcManager = mock(RpcManager.class);
+      when(rpcManager.getAddress()).thenReturn(self);
+
+      ReadOwnerSelectorImpl selector = new ReadOwnerSelectorImpl();
+      selector.configuration = builder.build();
+      selector.rpcManager = rpcManager;
+      selector.timeService = timeService;
+      selector.cacheNotifier = mock(CacheNotifier.class);
+      selector.start();
+      return selector;
+   }
+}
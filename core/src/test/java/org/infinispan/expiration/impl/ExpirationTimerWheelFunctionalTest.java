@@ -0,0 +1,209 @@
+package org.infinispan.expiration.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.time.TimeService;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.IntSets;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.container.impl.InternalDataContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.TransportFlags;
+import org.infinispan.util.ControlledTimeService;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies that the reaper only removes the entries indexed by the timer wheel when it is enabled.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "expiration.impl.ExpirationTimerWheelFunctionalTest")
+public class ExpirationTimerWheelFunctionalTest extends SingleCacheManagerTest {
+   private static final int SIZE = 10;
+   private static final long WAKE_UP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+   private static final String BOUNDED_CACHE_NAME = "bounded";
+
+   private final ControlledTimeService timeService = new ControlledTimeService();
+   private CacheMode cacheMode;
+   private StorageType storage;
+   private ExpirationManagerImpl<Object, Object> expirationManager;
+
+   @Factory
+   public Object[] factory() {
+      return new Object[]{
+            new ExpirationTimerWheelFunctionalTest().cacheMode(CacheMode.LOCAL).withStorage(StorageType.OBJECT),
+            new ExpirationTimerWheelFunctionalTest().cacheMode(CacheMode.LOCAL).withStorage(StorageType.OFF_HEAP),
+            new ExpirationTimerWheelFunctionalTest().cacheMode(CacheMode.DIST_SYNC).withStorage(StorageType.OBJECT),
+      };
+   }
+
+   private ExpirationTimerWheelFunctionalTest cacheMode(CacheMode cacheMode) {
+      this.cacheMode = cacheMode;
+      return this;
+   }
+
+   private ExpirationTimerWheelFunctionalTest withStorage(StorageType storage) {
+      this.storage = storage;
+      return this;
+   }
+
+   @Override
+   protected String parameters() {
+      return "[" + cacheMode + ", " + storage + "]";
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.clustering().cacheMode(cacheMode)
+            .expiration().enableReaper().wakeUpInterval(WAKE_UP_INTERVAL).timerWheel(true)
+            .memory().storageType(storage);
+      EmbeddedCacheManager cm;
+      if (cacheMode.isClustered()) {
+         cm = TestCacheManagerFactory.createClusteredCacheManager(false,
+               GlobalConfigurationBuilder.defaultClusteredBuilder(), builder, new TransportFlags());
+      } else {
+         cm = TestCacheManagerFactory.createCacheManager(new GlobalConfigurationBuilder().nonClusteredDefault(), builder,
+               false);
+      }
+      builder.memory().maxCount(SIZE);
+      cm.defineConfiguration(BOUNDED_CACHE_NAME, builder.build());
+      TestingUtil.replaceComponent(cm, TimeService.class, timeService, true);
+      cache = cm.getCache();
+      expirationManager = (ExpirationManagerImpl<Object, Object>) cache.getAdvancedCache().getExpirationManager();
+      return cm;
+   }
+
+   private void processExpiration() {
+      expirationManager.processExpiration();
+   }
+
+   private int containerSize() {
+      return cache.getAdvancedCache().getDataContainer().sizeIncludingExpired();
+   }
+
+   public void testReaperRemovesDueEntries() {
+      cache.clear();
+      processExpiration();
+      long backlog = expirationManager.getTimerWheelBacklog();
+      for (int i = 0; i < SIZE; i++) {
+         cache.put("mortal-" + i, "value-" + i, 30, TimeUnit.SECONDS);
+         cache.put("immortal-" + i, "value-" + i);
+      }
+      cache.put("late", "value", 10, TimeUnit.MINUTES);
+      assertEquals(backlog + SIZE + 1, expirationManager.getTimerWheelBacklog());
+
+      // Timers fire on the first wake up interval after the expiration
+      timeService.advance(TimeUnit.MINUTES.toMillis(2));
+      processExpiration();
+      assertEquals(SIZE + 1, containerSize());
+      assertTrue(expirationManager.getReaperTime() >= 0);
+
+      timeService.advance(TimeUnit.MINUTES.toMillis(10));
+      processExpiration();
+      assertEquals(SIZE, containerSize());
+   }
+
+   public void testTouchedEntryIsScheduledAgain() {
+      cache.clear();
+      processExpiration();
+      cache.put("idle", "value", -1, TimeUnit.MILLISECONDS, 90, TimeUnit.SECONDS);
+      timeService.advance(TimeUnit.SECONDS.toMillis(60));
+      assertEquals("value", cache.get("idle"));
+
+      timeService.advance(TimeUnit.SECONDS.toMillis(60));
+      processExpiration();
+      assertEquals(1, containerSize());
+
+      timeService.advance(TimeUnit.MINUTES.toMillis(2));
+      processExpiration();
+      assertEquals(0, containerSize());
+   }
+
+   public void testUpdatedEntryIsScheduledAgain() {
+      cache.clear();
+      processExpiration();
+      cache.put("key", "value", 30, TimeUnit.SECONDS);
+      cache.put("key", "value", 5, TimeUnit.MINUTES);
+
+      timeService.advance(TimeUnit.MINUTES.toMillis(2));
+      processExpiration();
+      assertEquals(1, containerSize());
+
+      timeService.advance(TimeUnit.MINUTES.toMillis(4));
+      processExpiration();
+      assertEquals(0, containerSize());
+   }
+
+   public void testRemovedEntryCancelsTimer() {
+      cache.clear();
+      processExpiration();
+      long backlog = expirationManager.getTimerWheelBacklog();
+      cache.put("removed", "value", 5, TimeUnit.MINUTES);
+      cache.put("immortal", "value", 5, TimeUnit.MINUTES);
+      assertEquals(backlog + 2, expirationManager.getTimerWheelBacklog());
+
+      cache.remove("removed");
+      cache.put("immortal", "value");
+      assertEquals(backlog, expirationManager.getTimerWheelBacklog());
+   }
+
+   public void testClearCancelsTimers() {
+      cache.clear();
+      processExpiration();
+      for (int i = 0; i < SIZE; i++) {
+         cache.put("cleared-" + i, "value-" + i, 5, TimeUnit.MINUTES);
+      }
+      assertEquals(SIZE, expirationManager.getTimerWheelBacklog());
+
+      cache.clear();
+      assertEquals(0, expirationManager.getTimerWheelBacklog());
+   }
+
+   public void testSegmentRemovalCancelsTimers() {
+      cache.clear();
+      processExpiration();
+      for (int i = 0; i < SIZE; i++) {
+         cache.put("segment-" + i, "value-" + i, 5, TimeUnit.MINUTES);
+      }
+      assertEquals(SIZE, expirationManager.getTimerWheelBacklog());
+
+      InternalDataContainer<Object, Object> dataContainer = TestingUtil.extractComponent(cache, InternalDataContainer.class);
+      IntSet allSegments = IntSets.immutableRangeSet(cache.getCacheConfiguration().clustering().hash().numSegments());
+      if (cacheMode.isClustered()) {
+         // Segments are only removed from the container when the cache is distributed
+         dataContainer.removeSegments(allSegments);
+         dataContainer.addSegments(allSegments);
+      } else {
+         dataContainer.clear(allSegments);
+      }
+      assertEquals(0, containerSize());
+      assertEquals(0, expirationManager.getTimerWheelBacklog());
+   }
+
+   public void testEvictionCancelsTimers() {
+      Cache<Object, Object> bounded = cacheManager.getCache(BOUNDED_CACHE_NAME);
+      ExpirationManagerImpl<?, ?> boundedExpirationManager =
+            (ExpirationManagerImpl<?, ?>) bounded.getAdvancedCache().getExpirationManager();
+      for (int i = 0; i < 3 * SIZE; i++) {
+         bounded.put("evicted-" + i, "value-" + i, 5, TimeUnit.MINUTES);
+      }
+      InternalDataContainer<Object, Object> dataContainer =
+            TestingUtil.extractComponent(bounded, InternalDataContainer.class);
+      // Caffeine may delay the eviction when there are concurrent writers
+      dataContainer.cleanUp();
+      assertEquals(SIZE, dataContainer.sizeIncludingExpired());
+      assertEquals(SIZE, boundedExpirationManager.getTimerWheelBacklog());
+   }
+}
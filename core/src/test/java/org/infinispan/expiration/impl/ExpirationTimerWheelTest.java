@@ -0,0 +1,137 @@
+package org.infinispan.expiration.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.testng.annotations.Test;
+
+/**
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "expiration.impl.ExpirationTimerWheelTest")
+public class ExpirationTimerWheelTest {
+   private static final long START = 1_000_000;
+
+   private static Set<String> keys(List<ExpirationTimerWheel.Timer<String>> timers) {
+      Set<String> keys = new HashSet<>();
+      for (ExpirationTimerWheel.Timer<String> timer : timers) {
+         assertTrue(keys.add(timer.key()));
+      }
+      return keys;
+   }
+
+   public void testTimersFireWhenDue() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(4, 10, START);
+      wheel.schedule("a", 0, START + 15);
+      wheel.schedule("b", 1, START + 20);
+      wheel.schedule("c", 2, START + 1_000);
+      assertEquals(3, wheel.backlog());
+
+      assertEquals(0, wheel.advance(START + 19).size());
+      assertEquals(set("a", "b"), keys(wheel.advance(START + 20)));
+      assertEquals(1, wheel.backlog());
+      assertEquals(0, wheel.advance(START + 999).size());
+      assertEquals(set("c"), keys(wheel.advance(START + 1_000)));
+      assertEquals(0, wheel.backlog());
+   }
+
+   public void testPastExpirationFiresOnNextAdvance() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(1, 10, START);
+      wheel.schedule("a", 0, START - 100);
+      assertEquals(set("a"), keys(wheel.advance(START)));
+   }
+
+   public void testRescheduleMovesTimer() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(1, 10, START);
+      wheel.schedule("a", 0, START + 50);
+      wheel.schedule("a", 0, START + 5_000);
+      assertEquals(1, wheel.backlog());
+      assertEquals(0, wheel.advance(START + 100).size());
+      List<ExpirationTimerWheel.Timer<String>> due = wheel.advance(START + 5_000);
+      assertEquals(set("a"), keys(due));
+      assertEquals(START + 5_000, due.get(0).expiration());
+      assertEquals(0, due.get(0).segment());
+   }
+
+   public void testExpirationsBeyondTheWheel() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(1, 1, START);
+      long far = 1L << (6 * ExpirationTimerWheel.LEVELS + 2);
+      wheel.schedule("a", 0, START + far);
+      assertEquals(0, wheel.advance(START + far / 2).size());
+      assertEquals(0, wheel.advance(START + far - 1).size());
+      assertEquals(set("a"), keys(wheel.advance(START + far)));
+   }
+
+   public void testRandomExpirationsAcrossLevels() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(8, 1, START);
+      int count = 10_000;
+      long[] expirations = new long[count];
+      for (int i = 0; i < count; ++i) {
+         expirations[i] = START + 1 + random.nextLong(1 << 20);
+         wheel.schedule("k" + i, i & 7, expirations[i]);
+      }
+      long now = START;
+      int fired = 0;
+      while (fired < count) {
+         long previous = now;
+         now += 1 + random.nextInt(5_000);
+         for (ExpirationTimerWheel.Timer<String> timer : wheel.advance(now)) {
+            int i = Integer.parseInt(timer.key().substring(1));
+            assertTrue(expirations[i] > previous && expirations[i] <= now);
+            assertEquals(i & 7, timer.segment());
+            fired++;
+         }
+      }
+      assertEquals(count, fired);
+      assertEquals(0, wheel.backlog());
+   }
+
+   public void testCancelledTimerDoesNotFire() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(2, 10, START);
+      wheel.schedule("a", 0, START + 15);
+      wheel.schedule("b", 0, START + 15);
+      wheel.schedule("c", 1, START - 100);
+      wheel.cancel("a", 0);
+      wheel.cancel("c", 1);
+      // Unknown keys and segments without a wheel are ignored
+      wheel.cancel("a", 0);
+      wheel.cancel("d", 1);
+      assertEquals(1, wheel.backlog());
+      assertEquals(set("b"), keys(wheel.advance(START + 20)));
+      assertEquals(0, wheel.backlog());
+   }
+
+   public void testCancelledSegmentDoesNotFire() {
+      ExpirationTimerWheel<String> wheel = new ExpirationTimerWheel<>(3, 10, START);
+      wheel.schedule("a", 0, START + 15);
+      wheel.schedule("b", 0, START + 100_000);
+      wheel.schedule("c", 0, START - 100);
+      wheel.schedule("d", 1, START + 15);
+      wheel.cancelSegment(0);
+      // Segments without a wheel are ignored
+      wheel.cancelSegment(2);
+      assertEquals(1, wheel.backlog());
+      // The segment can be used again
+      wheel.schedule("a", 0, START + 15);
+      assertEquals(set("a", "d"), keys(wheel.advance(START + 100_000)));
+
+      wheel.schedule("e", 1, START + 200_000);
+      wheel.cancelAll();
+      assertEquals(0, wheel.backlog());
+      assertEquals(0, wheel.advance(START + 200_000).size());
+   }
+
+   private static Set<String> set(String... keys) {
+      Set<String> set = new HashSet<>();
+      for (String key : keys) {
+         set.add(key);
+      }
+      return set;
+   }
+}
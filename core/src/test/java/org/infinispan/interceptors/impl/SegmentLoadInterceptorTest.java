@@ -0,0 +1,106 @@
+package org.infinispan.interceptors.impl;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Arrays;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.distribution.ch.impl.LoadAwareConsistentHashFactory;
+import org.infinispan.statetransfer.OutboundTransferTask;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the segment sizes estimated by {@link SegmentLoadInterceptor} follow the writes without iterating the
+ * data container.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "interceptors.impl.SegmentLoadInterceptorTest")
+public class SegmentLoadInterceptorTest extends MultipleCacheManagersTest {
+   private static final int NUM_SEGMENTS = 16;
+
+   private ConfigurationBuilder builder;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC);
+      builder.clustering().hash().numSegments(NUM_SEGMENTS).numOwners(1)
+             .consistentHashFactory(new LoadAwareConsistentHashFactory());
+      createClusteredCaches(2, builder);
+   }
+
+   public void testSegmentSizesFollowWrites() {
+      for (int i = 0; i < 100; i++) {
+         cache(0).put("k" + i, "v" + i);
+      }
+      for (int i = 0; i < 100; i += 3) {
+         cache(1).put("k" + i, "a longer value " + i);
+      }
+      for (int i = 0; i < 100; i += 5) {
+         cache(0).remove("k" + i);
+      }
+      assertSizes(cache(0));
+      assertSizes(cache(1));
+
+      cache(0).clear();
+      assertSizes(cache(0));
+      assertSizes(cache(1));
+   }
+
+   public void testRebalanceDoesNotChangeAccesses() {
+      for (int i = 0; i < 100; i++) {
+         cache(i % 2).put("rebalance" + i, "v" + i);
+      }
+      long[] accessesBefore = sumAccesses(2);
+
+      addClusterEnabledCacheManager(builder);
+      try {
+         waitForClusterToForm();
+         // The state transfer puts on the joiner and the removal of the transferred segments are not accesses
+         assertEquals(Arrays.toString(new long[NUM_SEGMENTS]), Arrays.toString(accesses(cache(2))));
+         assertEquals(Arrays.toString(accessesBefore), Arrays.toString(sumAccesses(2)));
+         assertSizes(cache(2));
+      } finally {
+         killMember(2);
+      }
+   }
+
+   public void testLoadSkewWithoutSegmentLoads() {
+      assertEquals(1.0, interceptor(cache(0)).getLoadSkew());
+   }
+
+   private void assertSizes(Cache<Object, Object> cache) {
+      KeyPartitioner keyPartitioner = TestingUtil.extractComponent(cache, KeyPartitioner.class);
+      long[] expected = new long[NUM_SEGMENTS];
+      for (InternalCacheEntry<Object, Object> ice : cache.getAdvancedCache().getDataContainer()) {
+         expected[keyPartitioner.getSegment(ice.getKey())] += OutboundTransferTask.estimateSize(ice);
+      }
+      long[] loads = interceptor(cache).getSegmentLoads();
+      assertEquals(Arrays.toString(expected), Arrays.toString(Arrays.copyOf(loads, NUM_SEGMENTS)));
+   }
+
+   private long[] sumAccesses(int numNodes) {
+      long[] sum = new long[NUM_SEGMENTS];
+      for (int i = 0; i < numNodes; i++) {
+         long[] accesses = accesses(cache(i));
+         for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+            sum[segment] += accesses[segment];
+         }
+      }
+      return sum;
+   }
+
+   private long[] accesses(Cache<?, ?> cache) {
+      return Arrays.copyOfRange(interceptor(cache).getSegmentLoads(), NUM_SEGMENTS, 2 * NUM_SEGMENTS);
+   }
+
+   private SegmentLoadInterceptor interceptor(Cache<?, ?> cache) {
+      return TestingUtil.findInterceptor(cache, SegmentLoadInterceptor.class);
+   }
+}
@@ -43,11 +43,13 @@
 import org.infinispan.commands.write.PutMapCommand;
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
+import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.marshall.AdvancedExternalizer;
 import org.infinispan.commons.marshall.MarshallingException;
 import org.infinispan.commons.marshall.PojoWithSerializeWith;
 import org.infinispan.commons.marshall.SerializeWith;
 import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.test.Exceptions;
 import org.infinispan.commons.util.EnumUtil;
 import org.infinispan.commons.util.FastCopyHashMap;
 import org.infinispan.commons.util.Immutables;
@@ -324,6 +326,41 @@ public void testLongPutKeyValueCommand() throws Exception {
       marshallAndAssertEquality(c);
    }
 
+   public void testBufferNotReusedAfterMarshalling() throws Exception {
+      PutKeyValueCommand small = new PutKeyValueCommand("k1", new byte[100], false,
+            new EmbeddedMetadata.Builder().build(), 0, EnumUtil.EMPTY_BIT_SET, CommandInvocationId.generateId(null));
+      // Between the predictor maximum and the initial scratch buffer size
+      PutKeyValueCommand medium = new PutKeyValueCommand("k2", new byte[100 * 1024], false,
+            new EmbeddedMetadata.Builder().build(), 0, EnumUtil.EMPTY_BIT_SET, CommandInvocationId.generateId(null));
+      // Grows the scratch buffer
+      PutKeyValueCommand large = new PutKeyValueCommand("k3", new byte[1024 * 1024], false,
+            new EmbeddedMetadata.Builder().build(), 0, EnumUtil.EMPTY_BIT_SET, CommandInvocationId.generateId(null));
+      // Above the maximum scratch buffer size
+      PutKeyValueCommand huge = new PutKeyValueCommand("k4", new byte[4 * 1024 * 1024], false,
+            new EmbeddedMetadata.Builder().build(), 0, EnumUtil.EMPTY_BIT_SET, CommandInvocationId.generateId(null));
+
+      ByteBuffer mediumBytes = marshaller.objectToBuffer(medium);
+      assertEquals(mediumBytes.getLength(), mediumBytes.getBuf().length);
+      ByteBuffer smallBytes = marshaller.objectToBuffer(small);
+      ByteBuffer largeBytes = marshaller.objectToBuffer(large);
+      assertEquals(largeBytes.getLength(), largeBytes.getBuf().length);
+      ByteBuffer hugeBytes = marshaller.objectToBuffer(huge);
+      // A failure must give the scratch buffer back too
+      Exceptions.expectException(MarshallingException.class, () -> marshaller.objectToBuffer(new Object()));
+      ByteBuffer otherMediumBytes = marshaller.objectToBuffer(medium);
+      assertEquals(otherMediumBytes.getLength(), otherMediumBytes.getBuf().length);
+
+      assertEquals("k1", ((PutKeyValueCommand) unmarshall(smallBytes)).getKey());
+      assertEquals("k2", ((PutKeyValueCommand) unmarshall(mediumBytes)).getKey());
+      assertEquals("k3", ((PutKeyValueCommand) unmarshall(largeBytes)).getKey());
+      assertEquals("k4", ((PutKeyValueCommand) unmarshall(hugeBytes)).getKey());
+      assertEquals("k2", ((PutKeyValueCommand) unmarshall(otherMediumBytes)).getKey());
+   }
+
+   private Object unmarshall(ByteBuffer bytes) throws Exception {
+      return marshaller.objectFromByteBuffer(bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+   }
+
    public void testExceptionResponse() throws Exception {
       ExceptionResponse er = new ExceptionResponse(new TimeoutException());
       byte[] bytes = marshaller.objectToByteBuffer(er);
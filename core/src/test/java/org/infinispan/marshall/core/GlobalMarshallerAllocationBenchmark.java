@@ -0,0 +1,76 @@
+package org.infinispan.marshall.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commands.CommandInvocationId;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.test.TestingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of marshalling a {@link PutKeyValueCommand} into the buffer of a JGroups message, as
+ * {@link org.infinispan.remoting.transport.jgroups.JGroupsTransport} does, and of reading it back from the message
+ * buffer. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per command.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 4, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class GlobalMarshallerAllocationBenchmark {
+
+   @Param({ "1024", "16384", "98304", "262144", "1048576" })
+   public int valueSize;
+
+   private DefaultCacheManager cacheManager;
+   private GlobalMarshaller marshaller;
+   private PutKeyValueCommand command;
+   private ByteBuffer marshalledCommand;
+
+   @Setup(Level.Trial)
+   public void init() throws Exception {
+      cacheManager = new DefaultCacheManager();
+      marshaller = TestingUtil.extractGlobalMarshaller(cacheManager);
+
+      byte[] value = new byte[valueSize];
+      ThreadLocalRandom.current().nextBytes(value);
+      command = new PutKeyValueCommand(new WrappedByteArray("key".getBytes()), new WrappedByteArray(value), false,
+                                       new EmbeddedMetadata.Builder().build(), 0, 0,
+                                       CommandInvocationId.DUMMY_INVOCATION_ID);
+      marshalledCommand = marshaller.objectToBuffer(command);
+   }
+
+   @TearDown(Level.Trial)
+   public void destroy() {
+      cacheManager.stop();
+   }
+
+   @Benchmark
+   public ByteBuffer marshall() throws Exception {
+      return marshaller.objectToBuffer(command);
+   }
+
+   @Benchmark
+   public Object unmarshall() throws Exception {
+      return marshaller.objectFromByteBuffer(marshalledCommand.getBuf(), marshalledCommand.getOffset(),
+                                             marshalledCommand.getLength());
+   }
+}
@@ -2,6 +2,7 @@
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -208,6 +209,40 @@ public CompletionStage<Void> write(int segment, MarshallableEntry entry) {
       return CompletableFutures.completedNull();
    }
 
+   @Override
+   public CompletionStage<SegmentIngestion<Object, Object>> startIngestion(int segment) {
+      assertRunning();
+      Map<Object, byte[]> map = mapForSegment(segment);
+      if (!configuration.bulkIngest() || !configuration.segmented() || !map.isEmpty()) {
+         return CompletableFutures.completedNull();
+      }
+      record("startIngestion");
+      Map<Object, byte[]> ingested = new HashMap<>();
+      return CompletableFuture.completedFuture(new SegmentIngestion<Object, Object>() {
+         @Override
+         public CompletionStage<Void> add(Collection<MarshallableEntry<Object, Object>> entries) {
+            for (MarshallableEntry<Object, Object> entry : entries) {
+               ingested.put(entry.getKey(), serialize(entry));
+            }
+            return CompletableFutures.completedNull();
+         }
+
+         @Override
+         public CompletionStage<Void> complete() {
+            if (log.isTraceEnabled()) log.tracef("Ingested %d entries in segment %d", ingested.size(), segment);
+            // Keys written since the ingestion started are newer
+            ingested.forEach(map::putIfAbsent);
+            return CompletableFutures.completedNull();
+         }
+
+         @Override
+         public CompletionStage<Void> abort() {
+            ingested.clear();
+            return CompletableFutures.completedNull();
+         }
+      });
+   }
+
    @Override
    public CompletionStage<Void> clear() {
       assertRunning();
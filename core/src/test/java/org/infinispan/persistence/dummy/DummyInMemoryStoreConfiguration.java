@@ -15,8 +15,9 @@ public class DummyInMemoryStoreConfiguration extends AbstractStoreConfiguration
    static final AttributeDefinition<Boolean> SLOW = AttributeDefinition.builder("slow", false).immutable().build();
    static final AttributeDefinition<String> STORE_NAME = AttributeDefinition.builder("storeName", null, String.class).immutable().build();
    static final AttributeDefinition<Integer> START_FAILURES = AttributeDefinition.builder("startFailures", 0).immutable().build();
+   static final AttributeDefinition<Boolean> BULK_INGEST = AttributeDefinition.builder("bulkIngest", false).immutable().build();
    public static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(DummyInMemoryStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), SLOW, STORE_NAME, START_FAILURES);
+      return new AttributeSet(DummyInMemoryStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), SLOW, STORE_NAME, START_FAILURES, BULK_INGEST);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new ElementDefinition() {
@@ -56,4 +57,8 @@ public String storeName() {
    public int startFailures() {
       return attributes.attribute(START_FAILURES).get();
    }
+
+   public boolean bulkIngest() {
+      return attributes.attribute(BULK_INGEST).get();
+   }
 }
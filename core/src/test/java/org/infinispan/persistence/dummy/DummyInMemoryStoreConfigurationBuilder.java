@@ -1,5 +1,6 @@
 package org.infinispan.persistence.dummy;
 
+import static org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration.BULK_INGEST;
 import static org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration.SLOW;
 import static org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration.START_FAILURES;
 import static org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration.STORE_NAME;
@@ -49,6 +50,14 @@ public DummyInMemoryStoreConfigurationBuilder startFailures(int failures) {
       return this;
    }
 
+   /**
+    * If true, the segments received through state transfer are ingested in bulk when they are empty.
+    */
+   public DummyInMemoryStoreConfigurationBuilder bulkIngest(boolean bulkIngest) {
+      attributes.attribute(BULK_INGEST).set(bulkIngest);
+      return this;
+   }
+
    @Override
    public DummyInMemoryStoreConfiguration create() {
       return new DummyInMemoryStoreConfiguration(attributes.protect(), async.create());
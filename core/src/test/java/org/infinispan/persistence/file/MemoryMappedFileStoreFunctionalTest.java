@@ -0,0 +1,96 @@
+package org.infinispan.persistence.file;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.infinispan.commons.test.CommonsTestingUtil;
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfiguration;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.configuration.cache.StoreConfiguration;
+import org.infinispan.configuration.parsing.ConfigurationBuilderHolder;
+import org.infinispan.configuration.parsing.ParserRegistry;
+import org.infinispan.persistence.BaseStoreFunctionalTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Memory-mapped file cache store functional test.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "persistence.file.MemoryMappedFileStoreFunctionalTest")
+public class MemoryMappedFileStoreFunctionalTest extends BaseStoreFunctionalTest {
+
+   private String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = CommonsTestingUtil.tmpDirectory(this.getClass());
+      Util.recursiveFileRemove(tmpDirectory);
+   }
+
+   @AfterClass
+   protected void clearTempDir() {
+      Util.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   @Override
+   protected PersistenceConfigurationBuilder createCacheStoreConfig(PersistenceConfigurationBuilder persistence, boolean preload) {
+      persistence
+         .addStore(MemoryMappedFileStoreConfigurationBuilder.class)
+         .location(tmpDirectory)
+         .preload(preload);
+      return persistence;
+   }
+
+   public void testParsingEmptyElement() throws Exception {
+      String config = TestingUtil.wrapXMLWithSchema(
+            "<cache-container default-cache=\"default\">" +
+            "   <local-cache name=\"default\">\n" +
+            "      <persistence passivation=\"false\"> \n" +
+            "         <memory-mapped-file-store shared=\"false\" preload=\"true\"/> \n" +
+            "      </persistence>\n" +
+            "   </local-cache>\n" +
+            "</cache-container>");
+      ConfigurationBuilderHolder holder = new ParserRegistry().parse(config);
+      List<StoreConfiguration> storeConfigs = holder.getDefaultConfigurationBuilder().build().persistence().stores();
+      assertEquals(1, storeConfigs.size());
+      MemoryMappedFileStoreConfiguration storeConfig = (MemoryMappedFileStoreConfiguration) storeConfigs.get(0);
+      assertNull(storeConfig.location());
+      assertEquals(MemoryMappedFileStoreConfiguration.MAX_FILE_SIZE.getDefaultValue().intValue(), storeConfig.maxFileSize());
+      assertFalse(storeConfig.syncWrites());
+   }
+
+   public void testParsingElement() throws Exception {
+      String config = TestingUtil.wrapXMLWithSchema(
+            "<cache-container default-cache=\"default\">" +
+            "   <local-cache name=\"default\">\n" +
+            "      <persistence passivation=\"false\"> \n" +
+            "         <memory-mapped-file-store path=\"other-location\" max-file-size=\"65536\" compaction-threshold=\"0.25\"" +
+            "               index-partitions=\"8\" index-initial-capacity=\"128\" sync-writes=\"true\"/> \n" +
+            "      </persistence>\n" +
+            "   </local-cache>\n" +
+            "</cache-container>");
+      ConfigurationBuilderHolder holder = new ParserRegistry().parse(config);
+      List<StoreConfiguration> storeConfigs = holder.getDefaultConfigurationBuilder().build().persistence().stores();
+      assertEquals(1, storeConfigs.size());
+      MemoryMappedFileStoreConfiguration storeConfig = (MemoryMappedFileStoreConfiguration) storeConfigs.get(0);
+      assertEquals("other-location", storeConfig.location());
+      assertEquals(65536, storeConfig.maxFileSize());
+      assertEquals(0.25, storeConfig.compactionThreshold(), 0d);
+      assertEquals(8, storeConfig.indexPartitions());
+      assertEquals(128, storeConfig.indexInitialCapacity());
+      assertTrue(storeConfig.syncWrites());
+      Util.recursiveFileRemove("other-location");
+   }
+}
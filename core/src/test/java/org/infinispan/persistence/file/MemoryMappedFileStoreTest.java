@@ -0,0 +1,227 @@
+package org.infinispan.persistence.file;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.List;
+
+import org.infinispan.commons.test.CommonsTestingUtil;
+import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.IntSets;
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.MemoryMappedFileStoreConfigurationBuilder;
+import org.infinispan.persistence.BaseNonBlockingStoreTest;
+import org.infinispan.persistence.spi.NonBlockingStore;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+/**
+ * Low level memory-mapped file store tests.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "persistence.file.MemoryMappedFileStoreTest")
+public class MemoryMappedFileStoreTest extends BaseNonBlockingStoreTest {
+
+   private static final int MAX_FILE_SIZE = 4096;
+
+   protected String tmpDirectory;
+   private boolean syncWrites;
+   private MemoryMappedFileStore<Object, Object> mmapStore;
+
+   public MemoryMappedFileStoreTest syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   @Factory
+   public Object[] factory() {
+      return new Object[]{
+            new MemoryMappedFileStoreTest().syncWrites(false),
+            new MemoryMappedFileStoreTest().syncWrites(true),
+      };
+   }
+
+   @Override
+   protected String parameters() {
+      return "[syncWrites=" + syncWrites + "]";
+   }
+
+   @BeforeClass(alwaysRun = true)
+   protected void setUpTempDir() {
+      tmpDirectory = CommonsTestingUtil.tmpDirectory(getClass());
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      Util.recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected NonBlockingStore createStore() {
+      clearTempDir();
+      mmapStore = new MemoryMappedFileStore<>();
+      return mmapStore;
+   }
+
+   @Override
+   protected Configuration buildConfig(ConfigurationBuilder configurationBuilder) {
+      configurationBuilder.clustering().hash().numSegments(16);
+      configurationBuilder
+            .persistence()
+               .addStore(MemoryMappedFileStoreConfigurationBuilder.class)
+                  .location(this.tmpDirectory)
+                  .maxFileSize(MAX_FILE_SIZE)
+                  .indexPartitions(4)
+                  .indexInitialCapacity(4)
+                  .syncWrites(syncWrites);
+      return configurationBuilder.build();
+   }
+
+   private MemoryMappedFileStore<Object, Object> store() {
+      return mmapStore;
+   }
+
+   private long size() {
+      return store.sizeWait(IntSets.immutableRangeSet(segmentCount));
+   }
+
+   private void restart() {
+      store.stopAndWait();
+      store.startAndWait(createContext(configuration));
+   }
+
+   public void testIndexGrowsAndSurvivesRestart() {
+      long initialMemory = store().indexMemoryUsage();
+      int numEntries = 1000;
+      for (int i = 0; i < numEntries; i++) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+      }
+      assertEquals(numEntries, size());
+      assertTrue(store().indexMemoryUsage() > initialMemory);
+      assertTrue(store().fileCount() > 1);
+
+      restart();
+      assertEquals(numEntries, size());
+      for (int i = 0; i < numEntries; i++) {
+         assertEquals("v" + i, store.loadEntry("k" + i).getValue());
+      }
+   }
+
+   public void testOverwriteAndRemoveSurviveRestart() {
+      for (int round = 0; round < 5; round++) {
+         for (int i = 0; i < 100; i++) {
+            store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i + "-" + round, -1)));
+         }
+      }
+      for (int i = 0; i < 100; i += 2) {
+         assertTrue(store.delete("k" + i));
+      }
+      assertFalse(store.delete("k0"));
+
+      restart();
+      assertEquals(50, size());
+      for (int i = 0; i < 100; i++) {
+         if (i % 2 == 0) {
+            assertNull(store.loadEntry("k" + i));
+         } else {
+            assertEquals("v" + i + "-4", store.loadEntry("k" + i).getValue());
+         }
+      }
+   }
+
+   public void testCompactionReclaimsFiles() throws Exception {
+      for (int round = 0; round < 20; round++) {
+         for (int i = 0; i < 50; i++) {
+            store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i + "-" + round, -1)));
+         }
+      }
+      // Remove half of the keys, the tombstones must keep them removed after compaction and restart
+      for (int i = 0; i < 50; i += 2) {
+         store.delete("k" + i);
+      }
+      int filesBefore = store().fileCount();
+      store.purge();
+      assertTrue(store().fileCount() < filesBefore);
+
+      restart();
+      assertEquals(25, size());
+      for (int i = 0; i < 50; i++) {
+         if (i % 2 == 0) {
+            assertNull(store.loadEntry("k" + i));
+         } else {
+            assertEquals("v" + i + "-19", store.loadEntry("k" + i).getValue());
+         }
+      }
+   }
+
+   public void testExpiredOverwriteNotResurrectedAfterCompactionAndRestart() {
+      // The first value stays in a file that is mostly live, so it is not compacted
+      store.write(marshalledEntry(internalCacheEntry("k", "v1", -1)));
+      for (int i = 0; i < 100; i++) {
+         store.write(marshalledEntry(internalCacheEntry("a" + i, "a" + i, -1)));
+      }
+      // The overwrite goes to a file that becomes mostly garbage
+      for (int round = 0; round < 4; round++) {
+         if (round == 1) {
+            store.write(marshalledEntry(internalCacheEntry("k", "v2", 10)));
+         }
+         for (int i = 0; i < 100; i++) {
+            store.write(marshalledEntry(internalCacheEntry("b" + i, "b" + i + "-" + round, -1)));
+         }
+      }
+      timeService.advance(11);
+      int filesBefore = store().fileCount();
+      store.purge();
+      assertTrue(store().fileCount() < filesBefore);
+      assertNull(store.loadEntry("k"));
+
+      restart();
+      assertNull(store.loadEntry("k"));
+      assertEquals(200, size());
+      assertEquals("a0", store.loadEntry("a0").getValue());
+   }
+
+   public void testLargeEntryGetsOwnFile() {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < MAX_FILE_SIZE * 2; i++) {
+         sb.append((char) ('a' + i % 26));
+      }
+      String value = sb.toString();
+      store.write(marshalledEntry(internalCacheEntry("big", value, -1)));
+      store.write(marshalledEntry(internalCacheEntry("small", "v", -1)));
+      assertEquals(value, store.loadEntry("big").getValue());
+      assertEquals("v", store.loadEntry("small").getValue());
+   }
+
+   public void testSegmentsAreFilteredAndRemoved() {
+      for (int i = 0; i < 100; i++) {
+         store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+      }
+      IntSet evenSegments = IntSets.mutableEmptySet(segmentCount);
+      for (int segment = 0; segment < segmentCount; segment += 2) {
+         evenSegments.set(segment);
+      }
+      List<Object> evenKeys = store.publishKeysWait(evenSegments, null);
+      for (Object key : evenKeys) {
+         assertTrue(evenSegments.contains(keyPartitioner.getSegment(key)));
+      }
+      assertEquals(evenKeys.size(), store.sizeWait(evenSegments));
+
+      store.join(store.removeSegments(evenSegments));
+      assertEquals(100 - evenKeys.size(), size());
+      assertTrue(store.publishKeysWait(evenSegments, null).isEmpty());
+
+      restart();
+      assertEquals(100 - evenKeys.size(), size());
+      for (Object key : evenKeys) {
+         assertNull(store.loadEntry(key));
+      }
+   }
+}
@@ -0,0 +1,126 @@
+package org.infinispan.persistence.manager;
+
+import static org.infinispan.test.TestingUtil.extractComponent;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.util.IntSets;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.ch.KeyPartitioner;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.persistence.impl.MarshalledEntryUtil;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.CompletionStages;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the {@link StoreBloomFilter} skips the loads of the keys that were never written to the stores.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "persistence.manager.StoreBloomFilterTest")
+@CleanupAfterMethod
+public class StoreBloomFilterTest extends SingleCacheManagerTest {
+   private static final int KEYS = 100;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(false);
+      cfg.persistence().bloomFilterKeys(1000).addStore(DummyInMemoryStoreConfigurationBuilder.class);
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   public void testAbsentKeysSkipTheStore() {
+      StoreBloomFilter bloomFilter = extractComponent(cache, StoreBloomFilter.class);
+      DummyInMemoryStore store = TestingUtil.getFirstStore(cache);
+      assertTrue(bloomFilter.isEnabled());
+      for (int i = 0; i < KEYS; ++i) {
+         cache.put("k" + i, "v" + i);
+      }
+      cache.getAdvancedCache().getDataContainer().clear();
+      // The filters are built in the background when the cache starts
+      eventually(() -> {
+         assertNull(cache.get("absent"));
+         return bloomFilter.getSkippedLoads() > 0;
+      });
+
+      store.clearStats();
+      bloomFilter.resetStatistics();
+      for (int i = 0; i < KEYS; ++i) {
+         assertNull(cache.get("absent" + i));
+      }
+      int loads = store.stats().get("load");
+      assertEquals(KEYS, bloomFilter.getLookups());
+      assertEquals(KEYS - loads, bloomFilter.getSkippedLoads());
+      assertTrue("Too many loads: " + loads, loads < KEYS / 10);
+
+      store.clearStats();
+      for (int i = 0; i < KEYS; ++i) {
+         assertEquals("v" + i, cache.get("k" + i));
+      }
+      assertEquals(KEYS, (int) store.stats().get("load"));
+      assertTrue(bloomFilter.getMemoryFootprint() > 0);
+   }
+
+   public void testFiltersRebuiltWithAddedSegments() {
+      StoreBloomFilter bloomFilter = extractComponent(cache, StoreBloomFilter.class);
+      PersistenceManager persistenceManager = extractComponent(cache, PersistenceManager.class);
+      KeyPartitioner keyPartitioner = extractComponent(cache, KeyPartitioner.class);
+      DummyInMemoryStore store = TestingUtil.getFirstStore(cache);
+      eventually(() -> {
+         assertNull(cache.get("absent"));
+         return bloomFilter.getSkippedLoads() > 0;
+      });
+
+      // Written behind the back of the persistence manager, the filter does not know about it
+      String key = "hidden";
+      CompletionStages.join(store.write(keyPartitioner.getSegment(key), MarshalledEntryUtil.create(key, "v", cache)));
+      int segment = keyPartitioner.getSegment(key);
+      assertNull(cache.get(key));
+
+      CompletionStages.join(persistenceManager.addSegments(IntSets.immutableSet(segment)));
+      eventually(() -> "v".equals(cache.get(key)));
+   }
+
+   public void testFiltersRebuiltAfterClear() {
+      StoreBloomFilter bloomFilter = extractComponent(cache, StoreBloomFilter.class);
+      cache.put("k", "v");
+      cache.clear();
+      eventually(() -> {
+         assertNull(cache.get("k"));
+         return bloomFilter.getSkippedLoads() > 0;
+      });
+      cache.put("k", "v2");
+      cache.getAdvancedCache().getDataContainer().clear();
+      assertEquals("v2", cache.get("k"));
+   }
+
+   public void testKeysWithSameHashCodeAreToldApart() {
+      assertEquals("Aa".hashCode(), "BB".hashCode());
+      // A single segment, so that both keys use the same filter
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(false);
+      cfg.clustering().hash().numSegments(1);
+      cfg.persistence().bloomFilterKeys(1000).addStore(DummyInMemoryStoreConfigurationBuilder.class);
+      cacheManager.defineConfiguration("single-segment", cfg.build());
+      Cache<String, String> singleSegmentCache = cacheManager.getCache("single-segment");
+      StoreBloomFilter bloomFilter = extractComponent(singleSegmentCache, StoreBloomFilter.class);
+      eventually(() -> {
+         assertNull(singleSegmentCache.get("absent"));
+         return bloomFilter.getSkippedLoads() > 0;
+      });
+
+      singleSegmentCache.put("Aa", "v");
+      singleSegmentCache.getAdvancedCache().getDataContainer().clear();
+      bloomFilter.resetStatistics();
+      assertNull(singleSegmentCache.get("BB"));
+      assertEquals(1, bloomFilter.getSkippedLoads());
+      assertEquals("v", singleSegmentCache.get("Aa"));
+   }
+}
@@ -28,6 +28,7 @@
 import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.marshall.persistence.impl.MarshalledEntryUtil;
 import org.infinispan.persistence.async.AsyncNonBlockingStore;
+import org.infinispan.persistence.async.WriteBehindStatistics;
 import org.infinispan.persistence.dummy.DummyInMemoryStore;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfiguration;
 import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
@@ -362,6 +363,42 @@ public void testModificationQueueSize(final Method m) {
       }
    }
 
+   public void testCoalescedParallelFlush(final Method m) {
+      int keys = 20;
+      int overwrites = 5;
+      DelayableStore underlying = new DelayableStore();
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence()
+            .addStore(new LockableStoreConfigurationBuilder(builder.persistence()))
+            // The modifications of a non segmented store are split by key
+            .segmented(false)
+            .async()
+               .flushParallelism(4);
+
+      WriteBehindStatistics statistics = new WriteBehindStatistics();
+      store = new AsyncNonBlockingStore<>(underlying, statistics);
+      InitializationContext ctx = PersistenceMockUtil.createContext(getClass(), builder.build(), marshaller);
+      CompletionStages.join(store.start(ctx));
+      // Hold the first batch so the following writes are coalesced in the next one
+      underlying.delayedFuture = new CompletableFuture<>();
+      CompletionStages.join(store.write(0, MarshalledEntryUtil.create(k(m, 0), v(m, 0), marshaller)));
+      for (int round = 1; round <= overwrites; ++round) {
+         for (int i = 1; i <= keys; i++) {
+            CompletionStages.join(store.write(0, MarshalledEntryUtil.create(k(m, i), v(m, round), marshaller)));
+         }
+      }
+      assertEquals(keys + 1, statistics.getBacklog());
+
+      underlying.delayedFuture.complete(null);
+      eventuallyEquals(0L, statistics::getBacklog);
+      eventuallyEquals(2L, statistics::getFlushes);
+      assertEquals(keys + 1, underlying.size());
+      for (int i = 1; i <= keys; i++) {
+         assertEquals(v(m, overwrites), underlying.loadEntry(k(m, i)).getValue());
+      }
+      assertEquals((keys * overwrites + 1) / (double) (keys + 1), statistics.getCoalescingRatio(), 0.001);
+   }
+
    private static abstract class OneEntryCacheManagerCallable extends CacheManagerCallable {
       protected final Cache<String, String> cache;
       protected final DelayableStore store;
@@ -0,0 +1,95 @@
+package org.infinispan.remoting.transport.jgroups;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.infinispan.Cache;
+import org.infinispan.context.Flag;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the replication of commands batched by {@link CommandBatcher}.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "remoting.transport.jgroups.JGroupsTransportCommandBatchingTest")
+public class JGroupsTransportCommandBatchingTest extends MultipleCacheManagersTest {
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      GlobalConfigurationBuilder globalBuilder = GlobalConfigurationBuilder.defaultClusteredBuilder();
+      globalBuilder.transport()
+            .addProperty(JGroupsTransport.COMMAND_BATCH_WINDOW, "100")
+            .addProperty(JGroupsTransport.COMMAND_BATCH_SIZE, "1024");
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(cacheMode);
+      // With 3 nodes and 2 owners, the distributed writes are unicasts to the backup owner
+      createCluster(globalBuilder, builder, 3);
+      waitForClusterToForm();
+   }
+
+   @Override
+   public Object[] factory() {
+      return new Object[]{
+            new JGroupsTransportCommandBatchingTest().cacheMode(CacheMode.REPL_SYNC),
+            new JGroupsTransportCommandBatchingTest().cacheMode(CacheMode.DIST_SYNC),
+      };
+   }
+
+   public void testConcurrentWritesAreReplicated() throws Exception {
+      Cache<String, String> cache0 = cache(0);
+      Cache<String, String> cache1 = cache(1);
+      List<CompletableFuture<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+         futures.add(cache0.putAsync("k" + i, "v" + i));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+      for (int i = 0; i < 200; i++) {
+         assertEquals("v" + i, cache1.get("k" + i));
+      }
+   }
+
+   public void testConcurrentWritesReachEveryOwner() throws Exception {
+      List<CompletableFuture<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+         futures.add(this.<String, String>cache(i % 3).putAsync("owner" + i, "v" + i));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+      for (int i = 0; i < 300; i++) {
+         String key = "owner" + i;
+         int owners = 0;
+         for (Cache<String, String> cache : this.<String, String>caches()) {
+            if (cache.getAdvancedCache().getDistributionManager().getCacheTopology().isWriteOwner(key)) {
+               assertEquals("v" + i, cache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key));
+               owners++;
+            }
+         }
+         assertEquals(cacheMode.isReplicated() ? 3 : 2, owners);
+      }
+   }
+
+   public void testLargeCommandsAreSentInOrder() {
+      Cache<String, String> cache0 = cache(0);
+      Cache<String, String> cache1 = cache(1);
+      StringBuilder largeValue = new StringBuilder();
+      for (int i = 0; i < 4096; i++) {
+         largeValue.append('x');
+      }
+      cache0.put("large", "small");
+      cache0.put("large", largeValue.toString());
+      assertEquals(largeValue.toString(), cache1.get("large"));
+      cache1.put("large", "small");
+      assertEquals("small", cache0.get("large"));
+      assertTrue(cache0.containsKey("large"));
+   }
+}
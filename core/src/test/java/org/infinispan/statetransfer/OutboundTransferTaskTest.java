@@ -0,0 +1,105 @@
+package org.infinispan.statetransfer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.statetransfer.StateResponseCommand;
+import org.infinispan.commons.marshall.WrappedByteArray;
+import org.infinispan.commons.util.IntSets;
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.ByteString;
+import org.testng.annotations.Test;
+
+import io.reactivex.rxjava3.core.Flowable;
+
+/**
+ * Tests the chunking of {@link OutboundTransferTask}.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "statetransfer.OutboundTransferTaskTest")
+public class OutboundTransferTaskTest extends AbstractInfinispanTest {
+   private static final int NUM_ENTRIES = 40;
+   private static final int VALUE_BYTES = 100 * 1024;
+
+   public void testChunksAreLimitedBySize() throws Exception {
+      List<Collection<StateChunk>> sentChunks = new ArrayList<>();
+      OutboundTransferTask task = createTask(sentChunks);
+
+      List<InternalCacheEntry<Object, Object>> entries = new ArrayList<>();
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         entries.add(new ImmortalCacheEntry(new WrappedByteArray(new byte[]{(byte) i}),
+                                            new WrappedByteArray(new byte[VALUE_BYTES])));
+      }
+      task.execute(Flowable.fromIterable(entries)).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+      // The entry count limit alone would send everything in a single chunk
+      assertTrue(sentChunks.size() > 1);
+      int totalEntries = 0;
+      for (int i = 0; i < sentChunks.size(); i++) {
+         Collection<StateChunk> chunks = sentChunks.get(i);
+         assertEquals(1, chunks.size());
+         StateChunk chunk = chunks.iterator().next();
+         long chunkBytes = 0;
+         for (InternalCacheEntry<?, ?> ice : chunk.getCacheEntries()) {
+            chunkBytes += OutboundTransferTask.estimateSize((InternalCacheEntry<Object, Object>) ice);
+         }
+         assertTrue(chunkBytes < OutboundTransferTask.MAX_CHUNK_BYTES + VALUE_BYTES * 2);
+         assertEquals(i == sentChunks.size() - 1, chunk.isLastChunk());
+         totalEntries += chunk.getCacheEntries().size();
+      }
+      assertEquals(NUM_ENTRIES, totalEntries);
+   }
+
+   public void testEmptyTransferSendsLastChunk() throws Exception {
+      List<Collection<StateChunk>> sentChunks = new ArrayList<>();
+      OutboundTransferTask task = createTask(sentChunks);
+
+      task.execute(Flowable.empty()).toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+      assertEquals(1, sentChunks.size());
+      StateChunk chunk = sentChunks.get(0).iterator().next();
+      assertTrue(chunk.isLastChunk());
+      assertTrue(chunk.getCacheEntries().isEmpty());
+      assertFalse(task.isCancelled());
+   }
+
+   private OutboundTransferTask createTask(List<Collection<StateChunk>> sentChunks) {
+      Address destination = new TestAddress(1);
+      RpcManager rpcManager = mock(RpcManager.class);
+      CommandsFactory commandsFactory = mock(CommandsFactory.class);
+      when(commandsFactory.buildStateResponseCommand(anyInt(), any(), anyBoolean(), anyBoolean()))
+            .thenAnswer(invocation -> {
+               int topologyId = invocation.getArgument(0);
+               Collection<StateChunk> chunks = new ArrayList<>((Collection<StateChunk>) invocation.getArgument(1));
+               synchronized (sentChunks) {
+                  sentChunks.add(chunks);
+               }
+               return new StateResponseCommand(ByteString.fromString("testCache"), topologyId, chunks, true, false);
+            });
+      when(rpcManager.invokeCommand(any(Address.class), any(), any(), any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                  SuccessfulResponse.create(OutboundTransferTask.MAX_CHUNKS_IN_FLIGHT)));
+      return new OutboundTransferTask(destination, IntSets.immutableSet(0), 1, 512, 1, key -> 0, chunks -> {},
+                                      rpcManager, commandsFactory, 10000, "testCache", true, false);
+   }
+}
@@ -164,10 +164,11 @@ public void test1() throws Exception {
       when(persistenceManager.addSegments(any())).thenReturn(CompletableFuture.completedFuture(false));
       when(persistenceManager.publishKeys(any(), any())).thenReturn(Flowable.empty());
 
-      when(commandsFactory.buildStateTransferStartCommand(anyInt(), any(IntSet.class)))
+      when(commandsFactory.buildStateTransferStartCommand(anyInt(), any(IntSet.class), any()))
             .thenAnswer(invocation -> new StateTransferStartCommand(ByteString.fromString("cache1"),
                   (Integer) invocation.getArguments()[0],
-                  (IntSet) invocation.getArguments()[1]));
+                  (IntSet) invocation.getArguments()[1],
+                  (Map<Integer, Long>) invocation.getArguments()[2]));
 
       when(commandsFactory.buildStateTransferGetTransactionsCommand(anyInt(), any(IntSet.class)))
             .thenAnswer(invocation -> new StateTransferGetTransactionsCommand(ByteString.fromString("cache1"),
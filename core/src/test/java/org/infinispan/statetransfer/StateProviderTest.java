@@ -14,13 +14,17 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 import org.infinispan.Cache;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.statetransfer.StateResponseCommand;
+import org.infinispan.commons.dataconversion.MediaType;
+import org.infinispan.commons.marshall.WrappedByteArray;
 import org.infinispan.commons.util.IntSet;
 import org.infinispan.commons.util.IntSets;
 import org.infinispan.commons.util.SmallIntSet;
@@ -29,6 +33,7 @@
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.MortalCacheEntry;
 import org.infinispan.container.impl.InternalDataContainer;
 import org.infinispan.container.impl.InternalEntryFactory;
 import org.infinispan.distribution.DistributionManager;
@@ -38,8 +43,10 @@
 import org.infinispan.distribution.ch.impl.DefaultConsistentHash;
 import org.infinispan.distribution.ch.impl.DefaultConsistentHashFactory;
 import org.infinispan.distribution.ch.impl.HashFunctionPartitioner;
+import org.infinispan.encoding.impl.StorageConfigurationManager;
 import org.infinispan.notifications.cachelistener.cluster.ClusterCacheNotifier;
 import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.remoting.responses.SuccessfulResponse;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.commons.test.Exceptions;
@@ -296,4 +303,93 @@ public void test2() {
 
       assertFalse(stateProvider.isStateTransferInProgress());
    }
+
+   public void testUnchangedSegmentsAreNotSent() {
+      // The first byte of the key is its segment
+      KeyPartitioner keyPartitioner = key -> ((WrappedByteArray) key).getBytes()[0];
+      List<Collection<StateChunk>> sentChunks = Collections.synchronizedList(new ArrayList<>());
+      when(commandsFactory.buildStateResponseCommand(anyInt(), any(), anyBoolean(), anyBoolean()))
+            .thenAnswer(invocation -> {
+               Collection<StateChunk> chunks = new ArrayList<>((Collection<StateChunk>) invocation.getArgument(1));
+               sentChunks.add(chunks);
+               return new StateResponseCommand(ByteString.fromString("testCache"), 1, chunks, true, false);
+            });
+      when(rpcManager.getAddress()).thenReturn(A);
+      when(rpcManager.invokeCommand(any(Address.class), any(), any(), any()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                  SuccessfulResponse.create(OutboundTransferTask.MAX_CHUNKS_IN_FLIGHT)));
+
+      StateProviderImpl stateProvider = new StateProviderImpl();
+      TestingUtil.inject(stateProvider, configuration, rpcManager, commandsFactory, cacheNotifier, persistenceManager,
+                         dataContainer, transactionTable, stateTransferLock, distributionManager, ef, keyPartitioner,
+                         TransactionOriginatorChecker.LOCAL, binaryStorage());
+      stateProvider.start();
+
+      List<InternalCacheEntry<Object, Object>> cacheEntries = new ArrayList<>();
+      cacheEntries.add(new ImmortalCacheEntry(bytes(0, 1), bytes(1)));
+      cacheEntries.add(new ImmortalCacheEntry(bytes(0, 2), bytes(2)));
+      cacheEntries.add(new ImmortalCacheEntry(bytes(1, 3), bytes(3)));
+      when(dataContainer.iterator(any())).thenAnswer(invocation -> {
+         IntSet segments = invocation.getArgument(0);
+         return cacheEntries.stream().filter(ice -> segments.contains(keyPartitioner.getSegment(ice.getKey())))
+                            .iterator();
+      });
+      when(persistenceManager.publishEntries(any(IntSet.class), any(), anyBoolean(), anyBoolean(), any()))
+            .thenReturn(Flowable.empty());
+
+      // The destination holds the same entries of segment 0, and an older version of segment 1
+      IntSet segments = IntSets.mutableSet(0, 1);
+      List<InternalCacheEntry<Object, Object>> destinationEntries = new ArrayList<>(cacheEntries);
+      destinationEntries.set(2, new ImmortalCacheEntry(cacheEntries.get(2).getKey(), bytes(0)));
+      Map<Integer, Long> segmentDigests =
+            CompletionStages.join(SegmentDigests.compute(Flowable.fromIterable(destinationEntries), keyPartitioner,
+                                                         segments));
+      assertEquals(2, segmentDigests.size());
+
+      stateProvider.startOutboundTransfer(F, 1, segments, true, segmentDigests);
+      // The mocks complete synchronously
+      assertFalse(stateProvider.isStateTransferInProgress());
+
+      Map<Integer, List<Object>> sentKeys = new HashMap<>();
+      for (Collection<StateChunk> chunks : sentChunks) {
+         for (StateChunk chunk : chunks) {
+            List<Object> keys = sentKeys.computeIfAbsent(chunk.getSegmentId(), s -> new ArrayList<>());
+            chunk.getCacheEntries().forEach(ice -> keys.add(ice.getKey()));
+         }
+      }
+      assertEquals(Collections.emptyList(), sentKeys.get(0));
+      assertEquals(Collections.singletonList(cacheEntries.get(2).getKey()), sentKeys.get(1));
+
+      stateProvider.stop();
+   }
+
+   public void testSegmentDigests() {
+      KeyPartitioner keyPartitioner = key -> 0;
+      IntSet segments = IntSets.immutableSet(0);
+      // The creation timestamp is different on every owner
+      Map<Integer, Long> digests = CompletionStages.join(SegmentDigests.compute(
+            Flowable.just(new MortalCacheEntry(bytes(1), bytes(2), 1000, 1)), keyPartitioner, segments));
+      Map<Integer, Long> otherDigests = CompletionStages.join(SegmentDigests.compute(
+            Flowable.just(new MortalCacheEntry(bytes(1), bytes(2), 1000, 2)), keyPartitioner, segments));
+      assertEquals(digests, otherDigests);
+
+      // The hash code of other objects is not the same on every node
+      Exceptions.expectCompletionException(IllegalArgumentException.class, SegmentDigests.compute(
+            Flowable.just(new ImmortalCacheEntry("key", "value")), keyPartitioner, segments));
+   }
+
+   private static WrappedByteArray bytes(int... values) {
+      byte[] bytes = new byte[values.length];
+      for (int i = 0; i < values.length; i++) {
+         bytes[i] = (byte) values[i];
+      }
+      return new WrappedByteArray(bytes);
+   }
+
+   private static StorageConfigurationManager binaryStorage() {
+      StorageConfigurationManager storageConfigurationManager = mock(StorageConfigurationManager.class);
+      when(storageConfigurationManager.getKeyStorageMediaType()).thenReturn(MediaType.APPLICATION_PROTOSTREAM);
+      when(storageConfigurationManager.getValueStorageMediaType()).thenReturn(MediaType.APPLICATION_PROTOSTREAM);
+      return storageConfigurationManager;
+   }
 }
@@ -0,0 +1,65 @@
+package org.infinispan.statetransfer;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the segments received through state transfer are ingested in bulk by the stores that support it.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "statetransfer.StateTransferIngestionTest")
+@CleanupAfterMethod
+public class StateTransferIngestionTest extends MultipleCacheManagersTest {
+   private static final int KEYS = 100;
+   private int storeId;
+
+   @Override
+   protected void createCacheManagers() {
+      createCluster(createConfiguration(), 1);
+   }
+
+   private ConfigurationBuilder createConfiguration() {
+      ConfigurationBuilder cfg = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      cfg.clustering().hash().numOwners(2);
+      cfg.persistence().addStore(DummyInMemoryStoreConfigurationBuilder.class)
+            .storeName(getClass().getSimpleName() + storeId++)
+            .bulkIngest(true)
+            .segmented(true)
+            .fetchPersistentState(true);
+      return cfg;
+   }
+
+   public void testSegmentsIngestedOnJoin() {
+      for (int i = 0; i < KEYS; ++i) {
+         cache(0).put("k" + i, "v" + i);
+      }
+
+      addClusterEnabledCacheManager(createConfiguration());
+      waitForClusterToForm();
+
+      Cache<Object, Object> joiner = cache(1);
+      DummyInMemoryStore store = TestingUtil.getFirstStore(joiner);
+      assertTrue(store.stats().get("startIngestion") > 0);
+      assertEquals(0, (int) store.stats().get("write"));
+      for (int i = 0; i < KEYS; ++i) {
+         String key = "k" + i;
+         // The ingested entries are only in the store
+         assertFalse(joiner.getAdvancedCache().getDataContainer().containsKey(key));
+         assertTrue(store.contains(key));
+         assertEquals("v" + i, joiner.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key));
+      }
+   }
+}
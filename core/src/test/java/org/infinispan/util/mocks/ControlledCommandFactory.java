@@ -51,6 +51,7 @@
 import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.remote.InvalidateHotKeysCommand;
 import org.infinispan.commands.remote.RenewBiasCommand;
 import org.infinispan.commands.remote.RevokeBiasCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -58,6 +59,7 @@
 import org.infinispan.commands.remote.recovery.GetInDoubtTransactionsCommand;
 import org.infinispan.commands.remote.recovery.GetInDoubtTxInfoCommand;
 import org.infinispan.commands.remote.recovery.TxCompletionNotificationCommand;
+import org.infinispan.commands.statetransfer.ConflictResolutionDigestCommand;
 import org.infinispan.commands.statetransfer.ConflictResolutionStartCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateConfirmRevokedCommand;
 import org.infinispan.commands.statetransfer.ScatteredStateGetKeysCommand;
@@ -351,6 +353,11 @@ public ConflictResolutionStartCommand buildConflictResolutionStartCommand(int to
       return actual.buildConflictResolutionStartCommand(topologyId, segments);
    }
 
+   @Override
+   public ConflictResolutionDigestCommand buildConflictResolutionDigestCommand(int topologyId, IntSet segments) {
+      return actual.buildConflictResolutionDigestCommand(topologyId, segments);
+   }
+
    @Override
    public StateTransferCancelCommand buildStateTransferCancelCommand(int topologyId, IntSet segments) {
       return actual.buildStateTransferCancelCommand(topologyId, segments);
@@ -367,8 +374,9 @@ public StateTransferGetTransactionsCommand buildStateTransferGetTransactionsComm
    }
 
    @Override
-   public StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments) {
-      return actual.buildStateTransferStartCommand(topologyId, segments);
+   public StateTransferStartCommand buildStateTransferStartCommand(int topologyId, IntSet segments,
+                                                                   Map<Integer, Long> segmentDigests) {
+      return actual.buildStateTransferStartCommand(topologyId, segments, segmentDigests);
    }
 
    @Override
@@ -597,6 +605,11 @@ public RenewBiasCommand buildRenewBiasCommand(Object[] keys) {
       return actual.buildRenewBiasCommand(keys);
    }
 
+   @Override
+   public InvalidateHotKeysCommand buildInvalidateHotKeysCommand(Collection<?> keys) {
+      return actual.buildInvalidateHotKeysCommand(keys);
+   }
+
 
    @Override
    public SingleKeyBackupWriteCommand buildSingleKeyBackupWriteCommand() {
@@ -0,0 +1,51 @@
+package org.infinispan.persistence.jdbc;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.annotations.InfinispanModule;
+import org.infinispan.jmx.CacheJmxRegistration;
+import org.infinispan.lifecycle.ModuleLifecycle;
+import org.infinispan.metrics.impl.CacheMetricsRegistration;
+import org.infinispan.persistence.jdbc.stringbased.JdbcStoreStatistics;
+import org.infinispan.persistence.jdbc.stringbased.JdbcStringBasedStore;
+import org.infinispan.persistence.manager.PersistenceManager;
+
+/**
+ * Exposes the statistics of the JDBC string based stores of a cache through JMX and metrics.
+ *
+ * @since 12.1
+ */
+@InfinispanModule(name = "cachestore-jdbc", requiredModules = "core")
+public class LifecycleCallbacks implements ModuleLifecycle {
+
+   @Override
+   public void cacheStarted(ComponentRegistry cr, String cacheName) {
+      PersistenceManager persistenceManager = cr.getComponent(PersistenceManager.class);
+      if (persistenceManager == null) {
+         return;
+      }
+      GlobalConfiguration globalConfig = cr.getGlobalComponentRegistry().getGlobalConfiguration();
+      CacheMetricsRegistration cacheMetricsRegistration = cr.getComponent(CacheMetricsRegistration.class);
+      int storeIndex = 0;
+      for (JdbcStringBasedStore<?, ?> store : persistenceManager.getStores(JdbcStringBasedStore.class)) {
+         JdbcStoreStatistics statistics = store.getStatistics();
+         // A cache may have several JDBC stores, the position of the store keeps their names apart
+         int index = storeIndex++;
+         if (statistics == null) {
+            continue;
+         }
+         if (globalConfig.jmx().enabled()) {
+            CacheJmxRegistration jmxRegistration = cr.getComponent(CacheJmxRegistration.class);
+            try {
+               jmxRegistration.registerMBean(statistics, jmxRegistration.getGroupName() + ",store=" + index);
+            } catch (Exception e) {
+               throw new CacheException("Unable to register JdbcStringBasedStore MBean", e);
+            }
+         }
+         if (cacheMetricsRegistration != null && cacheMetricsRegistration.metricsEnabled()) {
+            cacheMetricsRegistration.registerMetrics(statistics, "persistence_store_" + index, "JdbcStringBasedStore");
+         }
+      }
+   }
+}
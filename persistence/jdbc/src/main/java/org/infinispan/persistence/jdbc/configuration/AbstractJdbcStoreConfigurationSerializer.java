@@ -35,6 +35,9 @@ private void writeJDBCStoreConnection(XMLExtendedStreamWriter writer, PooledConn
       writeOptional(writer, Attribute.DRIVER_CLASS, configuration.driverClass());
       writeOptional(writer, Attribute.USERNAME, configuration.username());
       writeOptional(writer, Attribute.PASSWORD, configuration.password());
+      if (configuration.statementCacheSize() > 0) {
+         writer.writeAttribute(Attribute.STATEMENT_CACHE_SIZE, Integer.toString(configuration.statementCacheSize()));
+      }
       writer.writeEndElement();
    }
 
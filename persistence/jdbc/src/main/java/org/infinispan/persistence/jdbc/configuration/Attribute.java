@@ -29,6 +29,7 @@ public enum Attribute {
    PASSWORD("password"),
    PREFIX("prefix"),
    PROPERTIES_FILE("properties-file"),
+   STATEMENT_CACHE_SIZE("statement-cache-size"),
    TYPE("type"),
    USERNAME("username")
    ;
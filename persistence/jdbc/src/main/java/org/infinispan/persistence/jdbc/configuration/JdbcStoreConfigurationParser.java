@@ -147,6 +147,10 @@ private void parseConnectionPoolAttributes(XMLExtendedStreamReader reader,
                builder.username(value);
                break;
             }
+            case STATEMENT_CACHE_SIZE: {
+               builder.statementCacheSize(Integer.parseInt(value));
+               break;
+            }
             default: {
                throw ParseUtils.unexpectedAttribute(reader, i);
             }
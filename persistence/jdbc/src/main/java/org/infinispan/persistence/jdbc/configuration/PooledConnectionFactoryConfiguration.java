@@ -15,18 +15,21 @@
 public class PooledConnectionFactoryConfiguration extends AbstractUnmanagedConnectionFactoryConfiguration {
 
    public static final AttributeDefinition<String> PROPERTY_FILE = AttributeDefinition.builder("propertyFile", null, String.class).immutable().build();
+   public static final AttributeDefinition<Integer> STATEMENT_CACHE_SIZE = AttributeDefinition.builder("statementCacheSize", 0).immutable().build();
 
    public static AttributeSet attributeSet() {
-      return new AttributeSet(PooledConnectionFactoryConfiguration.class, AbstractUnmanagedConnectionFactoryConfiguration.attributeSet(), PROPERTY_FILE);
+      return new AttributeSet(PooledConnectionFactoryConfiguration.class, AbstractUnmanagedConnectionFactoryConfiguration.attributeSet(), PROPERTY_FILE, STATEMENT_CACHE_SIZE);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(CONNECTION_POOL.getLocalName());
 
    private final Attribute<String> propertyFile;
+   private final Attribute<Integer> statementCacheSize;
 
    protected PooledConnectionFactoryConfiguration(AttributeSet attributes) {
       super(attributes);
       this.propertyFile = attributes.attribute(PROPERTY_FILE);
+      this.statementCacheSize = attributes.attribute(STATEMENT_CACHE_SIZE);
    }
 
    @Override
@@ -38,6 +41,10 @@ public String propertyFile() {
       return propertyFile.get();
    }
 
+   public int statementCacheSize() {
+      return statementCacheSize.get();
+   }
+
    @Override
    public Class<? extends ConnectionFactory> connectionFactoryClass() {
       return PooledConnectionFactory.class;
@@ -6,6 +6,7 @@
 import static org.infinispan.persistence.jdbc.configuration.AbstractUnmanagedConnectionFactoryConfiguration.USERNAME;
 import static org.infinispan.persistence.jdbc.configuration.PooledConnectionFactoryConfiguration.ELEMENT_DEFINITION;
 import static org.infinispan.persistence.jdbc.configuration.PooledConnectionFactoryConfiguration.PROPERTY_FILE;
+import static org.infinispan.persistence.jdbc.configuration.PooledConnectionFactoryConfiguration.STATEMENT_CACHE_SIZE;
 
 import java.sql.Driver;
 
@@ -71,6 +72,17 @@ public PooledConnectionFactoryConfigurationBuilder<S> password(String password)
       return this;
    }
 
+   /**
+    * The number of prepared statements cached by each connection of the pool, so that the statements of the store
+    * are parsed and planned once per connection instead of once per operation. The cache is provided by the JDBC
+    * driver and is only enabled for the drivers which support it (Postgres, MySQL, MariaDB, Oracle, SQL Server and DB2)
+    * when the pool is not configured through a properties file. Defaults to 0, which keeps the driver settings.
+    */
+   public PooledConnectionFactoryConfigurationBuilder<S> statementCacheSize(int statementCacheSize) {
+      attributes.attribute(STATEMENT_CACHE_SIZE).set(statementCacheSize);
+      return this;
+   }
+
    @Override
    public void validate() {
       // If a propertyFile is specified, then no exceptions are thrown for an incorrect config until the pool is created
@@ -79,6 +91,9 @@ public void validate() {
       if (propertyFile == null && connectionUrl == null) {
          throw new CacheConfigurationException("Missing connectionUrl parameter");
       }
+      if (attributes.attribute(STATEMENT_CACHE_SIZE).get() < 0) {
+         throw new CacheConfigurationException("statementCacheSize must not be negative");
+      }
    }
 
    @Override
@@ -3,6 +3,9 @@
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.infinispan.commons.util.Util;
 import org.infinispan.persistence.jdbc.JdbcUtil;
@@ -53,17 +56,20 @@ public void start(ConnectionFactoryConfiguration config, ClassLoader classLoader
             Class<?> driverClass = Util.loadClass(poolConfig.driverClass(), null);
             // Default Agroal configuration with metrics disabled
             String password = poolConfig.password() != null ? poolConfig.password() : "";
+            Map<String, String> statementCacheProperties = statementCacheProperties(poolConfig.driverClass(), poolConfig.statementCacheSize());
             AgroalDataSourceConfigurationSupplier configuration = new AgroalDataSourceConfigurationSupplier()
                   .connectionPoolConfiguration(cp -> cp
                         .maxSize(10)
                         .acquisitionTimeout(Duration.ofSeconds(30))
-                        .connectionFactoryConfiguration(cf -> cf
-                              .jdbcUrl(poolConfig.connectionUrl())
-                              .connectionProviderClass(driverClass)
-                              .jdbcTransactionIsolation(AgroalConnectionFactoryConfiguration.TransactionIsolation.UNDEFINED)
-                              .principal(new NamePrincipal(poolConfig.username()))
-                              .credential(new SimplePassword(password))
-                        ));
+                        .connectionFactoryConfiguration(cf -> {
+                           cf.jdbcUrl(poolConfig.connectionUrl())
+                                 .connectionProviderClass(driverClass)
+                                 .jdbcTransactionIsolation(AgroalConnectionFactoryConfiguration.TransactionIsolation.UNDEFINED)
+                                 .principal(new NamePrincipal(poolConfig.username()))
+                                 .credential(new SimplePassword(password));
+                           statementCacheProperties.forEach(cf::jdbcProperty);
+                           return cf;
+                        }));
 
             dataSource = AgroalDataSource.from(configuration);
          }
@@ -99,6 +105,44 @@ public void releaseConnection(Connection conn) {
       logAfter(conn, false);
    }
 
+   /**
+    * The driver properties which enable the prepared statement cache of each connection, as neither Agroal nor JDBC
+    * offer a driver independent one.
+    */
+   static Map<String, String> statementCacheProperties(String driverClass, int size) {
+      if (size <= 0 || driverClass == null) {
+         return Collections.emptyMap();
+      }
+      String cacheSize = Integer.toString(size);
+      Map<String, String> properties = new HashMap<>();
+      switch (driverClass) {
+         case "org.postgresql.Driver":
+            properties.put("preparedStatementCacheQueries", cacheSize);
+            break;
+         case "com.mysql.jdbc.Driver":
+         case "com.mysql.cj.jdbc.Driver":
+         case "org.mariadb.jdbc.Driver":
+            properties.put("useServerPrepStmts", "true");
+            properties.put("cachePrepStmts", "true");
+            properties.put("prepStmtCacheSize", cacheSize);
+            break;
+         case "oracle.jdbc.OracleDriver":
+         case "oracle.jdbc.driver.OracleDriver":
+            properties.put("oracle.jdbc.implicitStatementCacheSize", cacheSize);
+            break;
+         case "com.microsoft.sqlserver.jdbc.SQLServerDriver":
+            properties.put("disableStatementPooling", "false");
+            properties.put("statementPoolingCacheSize", cacheSize);
+            break;
+         case "com.ibm.db2.jcc.DB2Driver":
+            properties.put("maxStatements", cacheSize);
+            break;
+         default:
+            log.debugf("No prepared statement cache is known for the driver %s", driverClass);
+      }
+      return properties;
+   }
+
    public int getMaxPoolSize() {
       return dataSource.getConfiguration().connectionPoolConfiguration().maxSize();
    }
@@ -35,6 +35,8 @@ public abstract class AbstractTableManager implements TableManager {
    private static final String DEFAULT_IDENTIFIER_QUOTE_STRING = "\"";
    private static final String META_TABLE_SUFFIX = "_META";
    private static final String META_TABLE_DATA_COLUMN = "data";
+   // The lowest limit of the bind parameters of a statement amongst the databases supporting multi-row statements (Postgres)
+   protected static final int MAX_STATEMENT_PARAMETERS = Short.MAX_VALUE;
 
    private final Log log;
    protected final InitializationContext ctx;
@@ -416,6 +418,35 @@ public String getDeleteRowSql() {
       return deleteRowSql;
    }
 
+   @Override
+   public int getMaxDeleteRows() {
+      return MAX_STATEMENT_PARAMETERS;
+   }
+
+   @Override
+   public String getDeleteRowsSql(int numKeys) {
+      StringBuilder stringBuilder = new StringBuilder("DELETE FROM ");
+      stringBuilder.append(dataTableName);
+      stringBuilder.append(" WHERE ");
+      stringBuilder.append(config.idColumnName());
+      stringBuilder.append(" IN (");
+      stringBuilder.append(getIdParameter());
+
+      for (int i = 1; i < numKeys; ++i) {
+         stringBuilder.append(',').append(getIdParameter());
+      }
+      stringBuilder.append(")");
+
+      return stringBuilder.toString();
+   }
+
+   /**
+    * @return the parameter marker of a key compared with the id column
+    */
+   protected String getIdParameter() {
+      return "?";
+   }
+
    @Override
    public String getDeleteRowsSqlForSegments(int numSegments) {
       StringBuilder stringBuilder = new StringBuilder("DELETE FROM ");
@@ -526,6 +557,37 @@ public String getUpsertRowSql() {
       return upsertRowSql;
    }
 
+   @Override
+   public int getMaxUpsertRows() {
+      return 0;
+   }
+
+   @Override
+   public String getUpsertRowsSql(int numRows) {
+      return null;
+   }
+
+   /**
+    * @return the number of parameters of each row of an insert or upsert statement
+    */
+   protected int getRowParameters() {
+      return dbMetadata.isSegmentedDisabled() ? 3 : 4;
+   }
+
+   /**
+    * @return the insert statement of {@link #initInsertRowSql()} with {@code numRows} rows in its {@code VALUES} clause
+    */
+   protected String getInsertRowsSql(int numRows) {
+      String insertRowSql = getInsertRowSql();
+      String rowValues = insertRowSql.substring(insertRowSql.lastIndexOf('('));
+      StringBuilder stringBuilder = new StringBuilder(insertRowSql.length() + (rowValues.length() + 1) * (numRows - 1));
+      stringBuilder.append(insertRowSql);
+      for (int i = 1; i < numRows; ++i) {
+         stringBuilder.append(',').append(rowValues);
+      }
+      return stringBuilder.toString();
+   }
+
    @Override
    public boolean isStringEncodingRequired() {
       return false;
@@ -538,11 +600,17 @@ public String encodeString(String string) {
 
    @Override
    public void prepareUpsertStatement(PreparedStatement ps, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException {
-      ps.setBinaryStream(1, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
-      ps.setLong(2, timestamp);
-      ps.setString(3, key);
+      prepareUpsertStatement(ps, 0, key, timestamp, segment, byteBuffer);
+   }
+
+   @Override
+   public void prepareUpsertStatement(PreparedStatement ps, int row, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException {
+      int offset = row * getRowParameters();
+      ps.setBinaryStream(offset + 1, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
+      ps.setLong(offset + 2, timestamp);
+      ps.setString(offset + 3, key);
       if (!dbMetadata.isSegmentedDisabled()) {
-         ps.setInt(4, segment);
+         ps.setInt(offset + 4, segment);
       }
    }
 
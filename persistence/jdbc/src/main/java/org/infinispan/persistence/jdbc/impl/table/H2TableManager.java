@@ -31,6 +31,22 @@ protected String initUpsertRowSql() {
       }
    }
 
+   @Override
+   public int getMaxUpsertRows() {
+      return isUpsertSupported() ? MAX_STATEMENT_PARAMETERS / getRowParameters() : 0;
+   }
+
+   @Override
+   public String getUpsertRowsSql(int numRows) {
+      String upsertRowSql = getUpsertRowSql();
+      String rowValues = upsertRowSql.substring(upsertRowSql.lastIndexOf('('));
+      StringBuilder stringBuilder = new StringBuilder(upsertRowSql);
+      for (int i = 1; i < numRows; ++i) {
+         stringBuilder.append(", ").append(rowValues);
+      }
+      return stringBuilder.toString();
+   }
+
    @Override
    protected void dropIndex(Connection conn, String indexName) throws PersistenceException {
       String dropIndexDdl = String.format("DROP INDEX IF EXISTS  %s", getIndexName(true, indexName));
@@ -23,12 +23,26 @@ public int getFetchSize() {
 
    @Override
    public String initUpsertRowSql() {
-         // Assumes that config.idColumnName is the primary key
+      return getUpsertSql(getInsertRowSql());
+   }
+
+   @Override
+   public int getMaxUpsertRows() {
+      return isUpsertSupported() ? MAX_STATEMENT_PARAMETERS / getRowParameters() : 0;
+   }
+
+   @Override
+   public String getUpsertRowsSql(int numRows) {
+      return getUpsertSql(getInsertRowsSql(numRows));
+   }
+
+   private String getUpsertSql(String insertSql) {
+      // Assumes that config.idColumnName is the primary key
       if (dbMetadata.isSegmentedDisabled()) {
-         return String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s)", getInsertRowSql(),
+         return String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s)", insertSql,
                config.dataColumnName(), config.timestampColumnName());
       } else {
-         return String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s), %4$s = VALUES(%4$s)", getInsertRowSql(),
+         return String.format("%1$s ON DUPLICATE KEY UPDATE %2$s = VALUES(%2$s), %3$s = VALUES(%3$s), %4$s = VALUES(%4$s)", insertSql,
                config.dataColumnName(), config.timestampColumnName(), config.segmentColumnName());
       }
    }
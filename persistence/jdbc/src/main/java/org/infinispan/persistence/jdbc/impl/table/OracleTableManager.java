@@ -26,6 +26,8 @@ class OracleTableManager extends AbstractTableManager {
 
    private static final int MAX_INDEX_IDENTIFIER_SIZE = 30;
    private static final String INDEX_PREFIX = "IDX";
+   // Oracle does not accept more than 1000 expressions in an IN list
+   private static final int MAX_IN_EXPRESSIONS = 1000;
 
    OracleTableManager(InitializationContext ctx, ConnectionFactory connectionFactory, TableManipulationConfiguration config, DbMetaData metaData, String cacheName) {
       super(ctx, connectionFactory, config, metaData, cacheName, log);
@@ -108,30 +110,54 @@ protected String initUpdateRowSql() {
 
    @Override
    public String initUpsertRowSql() {
+      return getUpsertRowsSql(1);
+   }
+
+   @Override
+   public int getMaxUpsertRows() {
+      return isUpsertSupported() ? MAX_IN_EXPRESSIONS : 0;
+   }
+
+   @Override
+   public String getUpsertRowsSql(int numRows) {
+      // Every row is selected from dual, UNION ALL keeps the BLOB values as they are
+      String selectRow = dbMetadata.isSegmentedDisabled() ? "SELECT ?, ?, ? FROM dual" : "SELECT ?, ?, ?, ? FROM dual";
+      StringBuilder rows = new StringBuilder(dbMetadata.isSegmentedDisabled() ?
+            String.format("SELECT ? %s, ? %s, ? %s FROM dual", config.idColumnName(), config.timestampColumnName(), config.dataColumnName()) :
+            String.format("SELECT ? %s, ? %s, ? %s, ? %s FROM dual", config.idColumnName(), config.timestampColumnName(), config.dataColumnName(), config.segmentColumnName()));
+      for (int i = 1; i < numRows; ++i) {
+         rows.append(" UNION ALL ").append(selectRow);
+      }
       if (dbMetadata.isSegmentedDisabled()) {
          return String.format("MERGE INTO %1$s t " +
-                     "USING (SELECT ? %2$s, ? %3$s, ? %4$s from dual) tmp ON (t.%2$s = tmp.%2$s) " +
+                     "USING (%5$s) tmp ON (t.%2$s = tmp.%2$s) " +
                      "WHEN MATCHED THEN UPDATE SET t.%3$s = tmp.%3$s, t.%4$s = tmp.%4$s " +
                      "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s)",
-               dataTableName, config.idColumnName(), config.timestampColumnName(), config.dataColumnName());
+               dataTableName, config.idColumnName(), config.timestampColumnName(), config.dataColumnName(), rows);
       } else {
          return String.format("MERGE INTO %1$s t " +
-                     "USING (SELECT ? %2$s, ? %3$s, ? %4$s, ? %5$s from dual) tmp ON (t.%2$s = tmp.%2$s) " +
+                     "USING (%6$s) tmp ON (t.%2$s = tmp.%2$s) " +
                      "WHEN MATCHED THEN UPDATE SET t.%3$s = tmp.%3$s, t.%4$s = tmp.%4$s " +
                      "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s, %5$s) VALUES (tmp.%2$s, tmp.%3$s, tmp.%4$s, tmp.%5$s)",
                dataTableName, config.idColumnName(), config.timestampColumnName(), config.dataColumnName(),
-               config.segmentColumnName());
+               config.segmentColumnName(), rows);
       }
    }
 
    @Override
-   public void prepareUpsertStatement(PreparedStatement ps, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException {
-      ps.setString(1, key);
-      ps.setLong(2, timestamp);
+   public int getMaxDeleteRows() {
+      return MAX_IN_EXPRESSIONS;
+   }
+
+   @Override
+   public void prepareUpsertStatement(PreparedStatement ps, int row, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException {
+      int offset = row * getRowParameters();
+      ps.setString(offset + 1, key);
+      ps.setLong(offset + 2, timestamp);
       // We must use BLOB here to avoid ORA-01461 caused by implicit casts on dual
-      ps.setBlob(3, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
+      ps.setBlob(offset + 3, new ByteArrayInputStream(byteBuffer.getBuf(), byteBuffer.getOffset(), byteBuffer.getLength()), byteBuffer.getLength());
       if (!dbMetadata.isSegmentedDisabled()) {
-         ps.setInt(4, segment);
+         ps.setInt(offset + 4, segment);
       }
    }
 
@@ -62,8 +62,27 @@ public boolean isUpsertSupported() {
 
    @Override
    public String initUpsertRowSql() {
+      return getUpsertSql(getInsertRowSql());
+   }
+
+   @Override
+   public int getMaxUpsertRows() {
+      return isUpsertSupported() ? MAX_STATEMENT_PARAMETERS / getRowParameters() : 0;
+   }
+
+   @Override
+   public String getUpsertRowsSql(int numRows) {
+      return getUpsertSql(getInsertRowsSql(numRows));
+   }
+
+   private String getUpsertSql(String insertSql) {
       return String.format("%1$s ON CONFLICT (%2$s) DO UPDATE SET %3$s = EXCLUDED.%3$s, %4$s = EXCLUDED.%4$s",
-               getInsertRowSql(), config.idColumnName(), config.dataColumnName(),
+               insertSql, config.idColumnName(), config.dataColumnName(),
                config.timestampColumnName());
    }
+
+   @Override
+   protected String getIdParameter() {
+      return String.format("cast(? as %s)", config.idColumnType());
+   }
 }
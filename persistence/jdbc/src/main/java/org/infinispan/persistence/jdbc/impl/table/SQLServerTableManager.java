@@ -13,6 +13,8 @@
 class SQLServerTableManager extends AbstractTableManager {
 
    private static final Log log = LogFactory.getLog(MySQLTableManager.class, Log.class);
+   // SQL Server accepts at most 2100 parameters per statement
+   private static final int MAX_DELETE_ROWS = 2000;
 
    SQLServerTableManager(InitializationContext ctx, ConnectionFactory connectionFactory, TableManipulationConfiguration config, DbMetaData metaData, String cacheName) {
       super(ctx, connectionFactory, config, metaData, cacheName, log);
@@ -40,6 +42,11 @@ public String initUpsertRowSql() {
       }
    }
 
+   @Override
+   public int getMaxDeleteRows() {
+      return MAX_DELETE_ROWS;
+   }
+
    @Override
    protected String initSelectOnlyExpiredRowsSql() {
       String loadAll = String.format("%s WITH (UPDLOCK)", getLoadAllRowsSql());
@@ -12,6 +12,8 @@
 class SQLiteTableManager extends AbstractTableManager {
 
    private static final Log log = LogFactory.getLog(SQLiteTableManager.class, Log.class);
+   // The default SQLITE_MAX_VARIABLE_NUMBER of the versions before 3.32
+   private static final int MAX_DELETE_ROWS = 999;
 
    SQLiteTableManager(InitializationContext ctx, ConnectionFactory connectionFactory, TableManipulationConfiguration config, DbMetaData metaData, String cacheName) {
       super(ctx, connectionFactory, config, metaData, cacheName, log);
@@ -24,6 +26,11 @@ public boolean isUpsertSupported() {
                                                  (dbMetadata.getMajorVersion() >= 3 && dbMetadata.getMinorVersion() >= 9));
    }
 
+   @Override
+   public int getMaxDeleteRows() {
+      return MAX_DELETE_ROWS;
+   }
+
    @Override
    public String initUpsertRowSql() {
       if (dbMetadata.isSegmentedDisabled()) {
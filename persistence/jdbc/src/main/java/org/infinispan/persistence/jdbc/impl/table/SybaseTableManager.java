@@ -18,6 +18,8 @@
  */
 class SybaseTableManager extends AbstractTableManager {
    private static final Log log = LogFactory.getLog(SybaseTableManager.class, Log.class);
+   // Sybase ASE accepts at most 2048 parameters per statement
+   private static final int MAX_DELETE_ROWS = 2000;
 
    SybaseTableManager(InitializationContext ctx, ConnectionFactory connectionFactory, TableManipulationConfiguration config, DbMetaData metaData, String cacheName) {
       super(ctx, connectionFactory, config, metaData, cacheName, log);
@@ -54,6 +56,16 @@ protected String initDeleteRowSql() {
                dataTableName, config.idColumnName(), config.idColumnType());
    }
 
+   @Override
+   protected String getIdParameter() {
+      return String.format("convert(%s,?)", config.idColumnType());
+   }
+
+   @Override
+   public int getMaxDeleteRows() {
+      return MAX_DELETE_ROWS;
+   }
+
    @Override
    protected String initUpsertRowSql() {
       if (dbMetadata.isSegmentedDisabled()) {
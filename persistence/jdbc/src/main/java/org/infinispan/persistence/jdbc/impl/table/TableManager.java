@@ -59,6 +59,21 @@ default void dropTables(Connection conn) throws PersistenceException {
 
    String getUpsertRowSql();
 
+   /**
+    * @return the maximum number of rows that a single statement returned by {@link #getUpsertRowsSql(int)} can write,
+    * or {@code 0} when the database does not support multi-row upserts.
+    */
+   int getMaxUpsertRows();
+
+   /**
+    * @param numRows the number of rows written by the statement, between 1 and {@link #getMaxUpsertRows()}
+    * @return a statement that inserts or updates {@code numRows} rows at once. The parameters of every row are
+    * populated with {@link #prepareUpsertStatement(PreparedStatement, int, String, long, int, ByteBuffer)}. The keys of
+    * the rows must be distinct. Multi-row upserts are optional, {@code null} is returned when
+    * {@link #getMaxUpsertRows()} is {@code 0}.
+    */
+   String getUpsertRowsSql(int numRows);
+
    String getSelectRowSql();
 
    String getSelectIdRowSql();
@@ -69,6 +84,17 @@ default void dropTables(Connection conn) throws PersistenceException {
 
    String getDeleteRowSql();
 
+   /**
+    * @return the maximum number of keys that a single statement returned by {@link #getDeleteRowsSql(int)} can delete
+    */
+   int getMaxDeleteRows();
+
+   /**
+    * @param numKeys the number of keys deleted by the statement, between 1 and {@link #getMaxDeleteRows()}
+    * @return a statement that deletes the rows of {@code numKeys} keys at once, with one parameter per key
+    */
+   String getDeleteRowsSql(int numKeys);
+
    String getLoadNonExpiredAllRowsSql();
 
    String getLoadNonExpiredRowsSqlForSegments(int numSegments);
@@ -87,6 +113,12 @@ default void dropTables(Connection conn) throws PersistenceException {
 
    void prepareUpsertStatement(PreparedStatement ps, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException;
 
+   /**
+    * Populates the parameters of the row {@code row}, starting from 0, of a statement returned by
+    * {@link #getUpsertRowsSql(int)}.
+    */
+   void prepareUpsertStatement(PreparedStatement ps, int row, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException;
+
    void prepareUpdateStatement(PreparedStatement ps, String key, long timestamp, int segment, ByteBuffer byteBuffer) throws SQLException;
 
    interface Metadata {
@@ -0,0 +1,210 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.microprofile.metrics.Timer;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.persistence.jdbc.impl.connectionfactory.PooledConnectionFactory;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * Statistics of a {@link JdbcStringBasedStore}: the time spent waiting for a connection of the pool, the time spent
+ * preparing statements and the latency of the store operations.
+ * <p>
+ * Registered as an MBean and as metrics of the cache by {@link org.infinispan.persistence.jdbc.LifecycleCallbacks},
+ * named after the position of the store among the JDBC stores of the cache. The operation latencies are also exported
+ * as metric timers when histograms are enabled.
+ *
+ * @since 12.1
+ */
+@ThreadSafe
+@MBean(objectName = "JdbcStringBasedStore", description = "Statistics of the JDBC string based store")
+public class JdbcStoreStatistics {
+   private final ConnectionFactory connectionFactory;
+
+   final Operation connectionWait = new Operation();
+   final Operation statementPrepare = new Operation();
+   final Operation load = new Operation();
+   final Operation write = new Operation();
+   final Operation delete = new Operation();
+   final Operation batchWrite = new Operation();
+   final Operation batchDelete = new Operation();
+
+   JdbcStoreStatistics(ConnectionFactory connectionFactory) {
+      this.connectionFactory = connectionFactory;
+   }
+
+   static final class Operation {
+      private final LongAdder count = new LongAdder();
+      private final LongAdder nanos = new LongAdder();
+      private volatile Timer timer;
+
+      void record(long durationNanos) {
+         count.increment();
+         nanos.add(durationNanos);
+         Timer timer = this.timer;
+         if (timer != null) timer.update(durationNanos, TimeUnit.NANOSECONDS);
+      }
+
+      long count() {
+         return count.sum();
+      }
+
+      long averageMicros() {
+         long count = this.count.sum();
+         return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos.sum() / count);
+      }
+
+      void reset() {
+         count.reset();
+         nanos.reset();
+      }
+   }
+
+   @ManagedAttribute(
+         description = "Number of connections obtained from the connection factory",
+         displayName = "Connection acquisitions",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getConnectionAcquisitions() {
+      return connectionWait.count();
+   }
+
+   @ManagedAttribute(
+         description = "Average time waiting for a connection of the connection factory",
+         displayName = "Average connection wait time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageConnectionWaitTime() {
+      return connectionWait.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Number of connections of the pool in use, -1 if the connections are not pooled",
+         displayName = "Active connections"
+   )
+   public long getActiveConnections() {
+      return connectionFactory instanceof PooledConnectionFactory ?
+            ((PooledConnectionFactory) connectionFactory).getActiveConnections() : -1;
+   }
+
+   @ManagedAttribute(
+         description = "Number of statements prepared",
+         displayName = "Prepared statements",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getPreparedStatements() {
+      return statementPrepare.count();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to prepare a statement",
+         displayName = "Average statement preparation time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageStatementPrepareTime() {
+      return statementPrepare.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to load an entry from the database",
+         displayName = "Average load time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageLoadTime() {
+      return load.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to write an entry to the database",
+         displayName = "Average write time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageWriteTime() {
+      return write.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to delete an entry from the database",
+         displayName = "Average delete time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageDeleteTime() {
+      return delete.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to write a batch of entries to the database",
+         displayName = "Average batch write time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageBatchWriteTime() {
+      return batchWrite.averageMicros();
+   }
+
+   @ManagedAttribute(
+         description = "Average time to delete a batch of entries from the database",
+         displayName = "Average batch delete time",
+         units = Units.MICROSECONDS
+   )
+   public long getAverageBatchDeleteTime() {
+      return batchDelete.averageMicros();
+   }
+
+   @ManagedAttribute(description = "Connection wait times", displayName = "Connection wait times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setConnectionWaitTimes(Timer timer) {
+      connectionWait.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Statement preparation times", displayName = "Statement preparation times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setStatementPrepareTimes(Timer timer) {
+      statementPrepare.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Load times", displayName = "Load times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setLoadTimes(Timer timer) {
+      load.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Write times", displayName = "Write times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setWriteTimes(Timer timer) {
+      write.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Delete times", displayName = "Delete times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setDeleteTimes(Timer timer) {
+      delete.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Batch write times", displayName = "Batch write times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setBatchWriteTimes(Timer timer) {
+      batchWrite.timer = timer;
+   }
+
+   @ManagedAttribute(description = "Batch delete times", displayName = "Batch delete times", dataType = DataType.TIMER, units = Units.NANOSECONDS)
+   public void setBatchDeleteTimes(Timer timer) {
+      batchDelete.timer = timer;
+   }
+
+   @ManagedOperation(
+         description = "Resets statistics gathered by this component",
+         displayName = "Reset statistics"
+   )
+   public void resetStatistics() {
+      connectionWait.reset();
+      statementPrepare.reset();
+      load.reset();
+      write.reset();
+      delete.reset();
+      batchWrite.reset();
+      batchDelete.reset();
+   }
+}
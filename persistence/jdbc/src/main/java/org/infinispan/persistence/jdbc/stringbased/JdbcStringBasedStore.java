@@ -10,6 +10,9 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PrimitiveIterator;
@@ -53,7 +56,6 @@
 import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.TransactionalCacheWriter;
 import org.infinispan.persistence.support.BatchModification;
-import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.logging.LogFactory;
 import org.reactivestreams.Publisher;
 
@@ -103,6 +105,7 @@
    private TableManager tableManager;
    private TimeService timeService;
    private KeyPartitioner keyPartitioner;
+   private JdbcStoreStatistics statistics;
 
    @Override
    public void init(InitializationContext ctx) {
@@ -124,11 +127,12 @@ public void start() {
          tableManager = getTableManager(cacheName);
          tableManager.start();
       }
+      statistics = new JdbcStoreStatistics(connectionFactory);
 
       if (!configuration.table().createOnStart()) {
          Connection connection = null;
          try {
-            connection = connectionFactory.getConnection();
+            connection = getConnection();
             // If meta exists, then ensure that the stored configuration is compatible with the current settings
             if (tableManager.metaTableExists(connection)) {
                TableManager.Metadata meta = tableManager.getMetadata(connection);
@@ -185,15 +189,15 @@ private void migrateFromV11() throws SQLException {
       PreparedStatement ps = null;
       ResultSet rs = null;
       try {
-         conn = connectionFactory.getConnection();
+         conn = getConnection();
          conn.setAutoCommit(false);
          String sql = tableManager.getLoadNonExpiredAllRowsSql();
-         ps = conn.prepareStatement(sql);
+         ps = prepareStatement(conn, sql);
          ps.setLong(1, timeService.wallClockTime());
          rs = ps.executeQuery();
 
          Marshaller userMarshaller = marshaller.getUserMarshaller();
-         try (PreparedStatement upsertBatch = conn.prepareStatement(tableManager.getUpdateRowSql())) {
+         try (PreparedStatement upsertBatch = prepareStatement(conn, tableManager.getUpdateRowSql())) {
             int batchSize = 0;
             while (rs.next()) {
                batchSize++;
@@ -264,7 +268,7 @@ public boolean isAvailable() {
 
       Connection connection = null;
       try {
-         connection = connectionFactory.getConnection();
+         connection = getConnection();
          return connection != null && connection.isValid(10);
       } catch (SQLException e) {
          return false;
@@ -285,6 +289,24 @@ public ConnectionFactory getConnectionFactory() {
       return connectionFactory;
    }
 
+   public JdbcStoreStatistics getStatistics() {
+      return statistics;
+   }
+
+   private Connection getConnection() {
+      long start = timeService.time();
+      Connection connection = connectionFactory.getConnection();
+      statistics.connectionWait.record(timeService.time() - start);
+      return connection;
+   }
+
+   private PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+      long start = timeService.time();
+      PreparedStatement ps = connection.prepareStatement(sql);
+      statistics.statementPrepare.record(timeService.time() - start);
+      return ps;
+   }
+
    private int getSegment(MarshallableEntry entry) {
       if (keyPartitioner == null) {
          return -1;
@@ -299,10 +321,11 @@ public void write(int segment, MarshallableEntry<? extends K, ? extends V> entry
 
    @Override
    public void write(MarshallableEntry<? extends K, ? extends V> entry) {
+      long start = timeService.time();
       Connection connection = null;
       String keyStr = key2Str(entry.getKey());
       try {
-         connection = connectionFactory.getConnection();
+         connection = getConnection();
          write(entry, connection, keyStr, getSegment(entry));
       } catch (SQLException ex) {
          PERSISTENCE.sqlFailureStoringKey(keyStr, ex);
@@ -314,6 +337,7 @@ public void write(MarshallableEntry<? extends K, ? extends V> entry) {
          Thread.currentThread().interrupt();
       } finally {
          connectionFactory.releaseConnection(connection);
+         statistics.write.record(timeService.time() - start);
       }
    }
 
@@ -336,7 +360,7 @@ private void executeUpsert(Connection connection, MarshallableEntry entry, Strin
       if (log.isTraceEnabled()) {
          log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
       } try {
-         ps = connection.prepareStatement(sql);
+         ps = prepareStatement(connection, sql);
          prepareUpsertStatement(entry, keyStr, segment, ps);
          ps.executeUpdate();
       } finally {
@@ -352,7 +376,7 @@ private void executeLegacyUpdate(Connection connection, MarshallableEntry entry,
       }
       PreparedStatement ps = null;
       try {
-         ps = connection.prepareStatement(sql);
+         ps = prepareStatement(connection, sql);
          ps.setString(1, keyStr);
          ResultSet rs = ps.executeQuery();
          boolean update = rs.next();
@@ -366,7 +390,7 @@ private void executeLegacyUpdate(Connection connection, MarshallableEntry entry,
          if (log.isTraceEnabled()) {
             log.tracef("Running sql '%s'. Key string is '%s'", sql, keyStr);
          }
-         ps = connection.prepareStatement(sql);
+         ps = prepareStatement(connection, sql);
          prepareStatement(entry, keyStr, segment, ps, !update);
          ps.executeUpdate();
       } finally {
@@ -387,60 +411,150 @@ public CompletionStage<Void> bulkUpdate(Publisher<MarshallableEntry<? extends K,
 
       CompletableFuture<Void> future = new CompletableFuture<>();
       Flowable
-            .using(() -> {
-                     Connection connection = connectionFactory.getConnection();
-                     PreparedStatement upsertBatch = connection.prepareStatement(tableManager.getUpsertRowSql());
-                     return new KeyValuePair<>(connection, upsertBatch);
-                  },
-                  kvp -> createBatchFlowable(kvp.getValue(), publisher),
-                  kvp -> {
-                     JdbcUtil.safeClose(kvp.getValue());
-                     connectionFactory.releaseConnection(kvp.getKey());
-                  })
+            .using(this::getConnection,
+                  connection -> createBatchFlowable(connection, publisher),
+                  connectionFactory::releaseConnection)
             .subscribe(RxJavaInterop.emptyConsumer(), future::completeExceptionally, () -> future.complete(null));
       return future;
    }
 
-   private Flowable<List<MarshallableEntry<? extends K, ? extends V>>> createBatchFlowable(PreparedStatement upsertBatch, Publisher<MarshallableEntry<? extends K, ? extends V>> publisher) {
+   private Flowable<List<MarshallableEntry<? extends K, ? extends V>>> createBatchFlowable(Connection connection, Publisher<MarshallableEntry<? extends K, ? extends V>> publisher) {
       return Flowable.fromPublisher(publisher)
             .buffer(configuration.maxBatchSize())
-            .doOnNext(entries -> {
-               for (MarshallableEntry<? extends K, ? extends V> entry : entries) {
-                  String keyStr = key2Str(entry.getKey());
-                  prepareUpsertStatement(entry, keyStr, getSegment(entry), upsertBatch);
-                  upsertBatch.addBatch();
-               }
-               upsertBatch.executeBatch();
-               upsertBatch.clearBatch();
-            })
+            .doOnNext(entries -> executeBatchUpsert(connection, entries))
             .doOnError(e -> {
                throw PERSISTENCE.sqlFailureWritingBatch(e);
             });
    }
 
-   @Override
-   public void deleteBatch(Iterable<Object> keys) {
-      Connection connection = null;
+   /**
+    * Writes the entries with as few statements as possible. When the database supports multi-row upserts, up to
+    * {@link TableManager#getMaxUpsertRows()} entries are written by a single statement, otherwise a JDBC batch of
+    * single-row upserts is used.
+    */
+   private void executeBatchUpsert(Connection connection, Iterable<? extends MarshallableEntry<?, ?>> entries) throws SQLException {
+      long start = timeService.time();
       try {
-         connection = connectionFactory.getConnection();
-         try (PreparedStatement deleteBatch = connection.prepareStatement(tableManager.getDeleteRowSql())) {
+         executeBatchUpsert(connection, entries, Math.min(tableManager.getMaxUpsertRows(), configuration.maxBatchSize()));
+      } finally {
+         statistics.batchWrite.record(timeService.time() - start);
+      }
+   }
+
+   private void executeBatchUpsert(Connection connection, Iterable<? extends MarshallableEntry<?, ?>> entries, int maxRows) throws SQLException {
+      // The only place that checks for multi-row upsert support, getUpsertRowsSql returns null without it
+      if (maxRows <= 1) {
+         try (PreparedStatement upsertBatch = prepareStatement(connection, tableManager.getUpsertRowSql())) {
             int batchSize = 0;
-            for (Object key : keys) {
-               String keyStr = key2Str(key);
-               deleteBatch.setString(1, keyStr);
-               deleteBatch.addBatch();
+            for (MarshallableEntry<?, ?> entry : entries) {
+               prepareUpsertStatement(entry, key2Str(entry.getKey()), getSegment(entry), upsertBatch);
+               upsertBatch.addBatch();
                batchSize++;
 
                if (batchSize == configuration.maxBatchSize()) {
                   batchSize = 0;
-                  deleteBatch.executeBatch();
-                  deleteBatch.clearBatch();
+                  upsertBatch.executeBatch();
+                  upsertBatch.clearBatch();
                }
             }
-
             if (batchSize != 0)
-               deleteBatch.executeBatch();
+               upsertBatch.executeBatch();
+         }
+         return;
+      }
+
+      // A multi-row statement cannot update the same row twice, only the last write of a key is kept
+      Map<String, MarshallableEntry<?, ?>> rows = new LinkedHashMap<>();
+      for (MarshallableEntry<?, ?> entry : entries) {
+         String keyStr = key2Str(entry.getKey());
+         rows.remove(keyStr);
+         rows.put(keyStr, entry);
+      }
+      Iterator<Map.Entry<String, MarshallableEntry<?, ?>>> iterator = rows.entrySet().iterator();
+      PreparedStatement fullUpsert = null;
+      try {
+         int remaining = rows.size();
+         while (remaining > 0) {
+            int numRows = Math.min(remaining, maxRows);
+            PreparedStatement ps;
+            if (numRows == maxRows) {
+               if (fullUpsert == null) {
+                  fullUpsert = prepareStatement(connection, tableManager.getUpsertRowsSql(maxRows));
+               }
+               ps = fullUpsert;
+            } else {
+               ps = prepareStatement(connection, tableManager.getUpsertRowsSql(numRows));
+            }
+            try {
+               for (int row = 0; row < numRows; ++row) {
+                  Map.Entry<String, MarshallableEntry<?, ?>> e = iterator.next();
+                  MarshallableEntry<?, ?> entry = e.getValue();
+                  ByteBuffer byteBuffer = marshall(entry.getMarshalledValue(), marshaller);
+                  tableManager.prepareUpsertStatement(ps, row, e.getKey(), entry.expiryTime(), getSegment(entry), byteBuffer);
+               }
+               ps.executeUpdate();
+            } finally {
+               if (ps != fullUpsert) {
+                  JdbcUtil.safeClose(ps);
+               }
+            }
+            remaining -= numRows;
+         }
+      } finally {
+         JdbcUtil.safeClose(fullUpsert);
+      }
+   }
+
+   /**
+    * Deletes the keys with {@code DELETE ... WHERE id IN (...)} statements of up to
+    * {@link TableManager#getMaxDeleteRows()} keys.
+    */
+   private void executeBatchDelete(Connection connection, Iterable<?> keys) throws SQLException {
+      long start = timeService.time();
+      try {
+         executeBatchDelete(connection, keys, Math.max(1, Math.min(tableManager.getMaxDeleteRows(), configuration.maxBatchSize())));
+      } finally {
+         statistics.batchDelete.record(timeService.time() - start);
+      }
+   }
+
+   private void executeBatchDelete(Connection connection, Iterable<?> keys, int maxKeys) throws SQLException {
+      List<String> keyStrs = new ArrayList<>(maxKeys);
+      PreparedStatement fullDelete = null;
+      try {
+         for (Object key : keys) {
+            keyStrs.add(key2Str(key));
+            if (keyStrs.size() == maxKeys) {
+               if (fullDelete == null) {
+                  fullDelete = prepareStatement(connection, tableManager.getDeleteRowsSql(maxKeys));
+               }
+               executeDelete(fullDelete, keyStrs);
+            }
+         }
+         if (!keyStrs.isEmpty()) {
+            try (PreparedStatement ps = prepareStatement(connection, tableManager.getDeleteRowsSql(keyStrs.size()))) {
+               executeDelete(ps, keyStrs);
+            }
          }
+      } finally {
+         JdbcUtil.safeClose(fullDelete);
+      }
+   }
+
+   private void executeDelete(PreparedStatement ps, List<String> keyStrs) throws SQLException {
+      for (int i = 0; i < keyStrs.size(); ++i) {
+         ps.setString(i + 1, keyStrs.get(i));
+      }
+      ps.executeUpdate();
+      keyStrs.clear();
+   }
+
+   @Override
+   public void deleteBatch(Iterable<Object> keys) {
+      Connection connection = null;
+      try {
+         connection = getConnection();
+         executeBatchDelete(connection, keys);
       } catch (SQLException e) {
          throw PERSISTENCE.sqlFailureDeletingBatch(keys, e);
       } finally {
@@ -455,6 +569,7 @@ public MarshallableEntry<K, V> get(int segment, Object key) {
 
    @Override
    public MarshallableEntry<K, V> loadEntry(Object key) {
+      long start = timeService.time();
       String lockingKey = key2Str(key);
       Connection conn = null;
       PreparedStatement ps = null;
@@ -462,8 +577,8 @@ public MarshallableEntry<K, V> loadEntry(Object key) {
       MarshallableEntry<K, V> entry = null;
       try {
          String sql = tableManager.getSelectRowSql();
-         conn = connectionFactory.getConnection();
-         ps = conn.prepareStatement(sql);
+         conn = getConnection();
+         ps = prepareStatement(conn, sql);
          ps.setString(1, lockingKey);
          rs = ps.executeQuery();
          if (rs.next()) {
@@ -480,6 +595,7 @@ public MarshallableEntry<K, V> loadEntry(Object key) {
          JdbcUtil.safeClose(rs);
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(conn);
+         statistics.load.record(timeService.time() - start);
       }
       if (entry != null && entry.getMetadata() != null &&
             entry.isExpired(timeService.wallClockTime())) {
@@ -494,7 +610,7 @@ public void clear() {
       Statement statement = null;
       try {
          String sql = tableManager.getDeleteAllRowsSql();
-         conn = connectionFactory.getConnection();
+         conn = getConnection();
          statement = conn.createStatement();
          int result = statement.executeUpdate(sql);
          if (log.isTraceEnabled()) {
@@ -515,8 +631,8 @@ public void clear(IntSet segments) {
       PreparedStatement ps = null;
       try {
          String sql = tableManager.getDeleteRowsSqlForSegments(segments.size());
-         conn = connectionFactory.getConnection();
-         ps = conn.prepareStatement(sql);
+         conn = getConnection();
+         ps = prepareStatement(conn, sql);
          int offset = 0;
          for (PrimitiveIterator.OfInt segIter = segments.iterator(); segIter.hasNext(); ) {
             ps.setInt(++offset, segIter.nextInt());
@@ -541,6 +657,7 @@ public boolean delete(int segment, Object key) {
 
    @Override
    public boolean delete(Object key) {
+      long start = timeService.time();
       Connection connection = null;
       PreparedStatement ps = null;
       String keyStr = key2Str(key);
@@ -549,8 +666,8 @@ public boolean delete(Object key) {
          if (log.isTraceEnabled()) {
             log.tracef("Running sql '%s' on %s", sql, keyStr);
          }
-         connection = connectionFactory.getConnection();
-         ps = connection.prepareStatement(sql);
+         connection = getConnection();
+         ps = prepareStatement(connection, sql);
          ps.setString(1, keyStr);
          return ps.executeUpdate() == 1;
       } catch (SQLException ex) {
@@ -559,6 +676,7 @@ public boolean delete(Object key) {
       } finally {
          JdbcUtil.safeClose(ps);
          connectionFactory.releaseConnection(connection);
+         statistics.delete.record(timeService.time() - start);
       }
    }
 
@@ -569,13 +687,13 @@ public void purge(Executor executor, PurgeListener purgeListener) {
       ResultSet rs = null;
       try {
          String sql = tableManager.getSelectOnlyExpiredRowsSql();
-         conn = connectionFactory.getConnection();
+         conn = getConnection();
          conn.setAutoCommit(false);
-         ps = conn.prepareStatement(sql);
+         ps = prepareStatement(conn, sql);
          ps.setLong(1, timeService.wallClockTime());
          rs = ps.executeQuery();
 
-         try (PreparedStatement batchDelete = conn.prepareStatement(tableManager.getDeleteRowSql())) {
+         try (PreparedStatement batchDelete = prepareStatement(conn, tableManager.getDeleteRowSql())) {
             int affectedRows = 0;
             boolean twoWayMapperExists = key2StringMapper instanceof TwoWayKey2StringMapper;
             while (rs.next()) {
@@ -638,7 +756,7 @@ private <P> Flowable<P> publish(IntSet segments, Function<ResultSet, Flowable<P>
          if (log.isTraceEnabled()) {
             log.tracef("Running sql %s", sql);
          }
-         return new FlowableConnection(connectionFactory, sql);
+         return new FlowableConnection(sql);
       }, fc -> {
          PreparedStatement ps = fc.statement;
          int offset = 1;
@@ -654,17 +772,18 @@ private <P> Flowable<P> publish(IntSet segments, Function<ResultSet, Flowable<P>
       }, FlowableConnection::close);
    }
 
-   static class FlowableConnection {
+   class FlowableConnection {
       final boolean autoCommit;
-      final ConnectionFactory factory;
       final Connection connection;
       final PreparedStatement statement;
 
-      FlowableConnection(ConnectionFactory factory, String sql) throws SQLException {
-         this.factory = factory;
-         this.connection = factory.getConnection();
+      FlowableConnection(String sql) throws SQLException {
+         this.connection = getConnection();
          this.autoCommit = connection.getAutoCommit();
-         this.statement = connection.prepareStatement(sql);
+         // Forward only and read only, so that the drivers can stream the rows with a server side cursor
+         long start = timeService.time();
+         this.statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+         statistics.statementPrepare.record(timeService.time() - start);
 
          // Some JDBC drivers require auto commit disabled to do paging, however before calling setAutoCommit(false)
          // we must ensure that we're not running in a managed transaction by ensuring that getAutoCommit is true.
@@ -682,7 +801,7 @@ void close() {
                PERSISTENCE.sqlFailureTxRollback(e);
             }
          }
-         factory.releaseConnection(connection);
+         connectionFactory.releaseConnection(connection);
       }
    }
 
@@ -712,33 +831,16 @@ public void prepareWithModifications(Transaction transaction, BatchModification
          Connection connection = getTxConnection(transaction);
          connection.setAutoCommit(false);
 
-         boolean upsertSupported = tableManager.isUpsertSupported();
-         try (PreparedStatement upsertBatch = upsertSupported ? connection.prepareStatement(tableManager.getUpsertRowSql()) : null;
-              PreparedStatement deleteBatch = connection.prepareStatement(tableManager.getDeleteRowSql())) {
-
+         if (tableManager.isUpsertSupported()) {
+            executeBatchUpsert(connection, batchModification.getMarshallableEntries());
+         } else {
             for (MarshallableEntry entry : batchModification.getMarshallableEntries()) {
-               int segment = getSegment(entry);
-               if (upsertSupported) {
-                  String keyStr = key2Str(entry.getKey());
-                  prepareUpsertStatement(entry, keyStr, segment, upsertBatch);
-                  upsertBatch.addBatch();
-               } else {
-                  write(entry, connection, segment);
-               }
-            }
-
-            for (Object key : batchModification.getKeysToRemove()) {
-               String keyStr = key2Str(key);
-               deleteBatch.setString(1, keyStr);
-               deleteBatch.addBatch();
+               write(entry, connection, getSegment(entry));
             }
-
-            if (upsertSupported && !batchModification.getMarshallableEntries().isEmpty())
-               upsertBatch.executeBatch();
-
-            if (!batchModification.getKeysToRemove().isEmpty())
-               deleteBatch.executeUpdate();
          }
+
+         if (!batchModification.getKeysToRemove().isEmpty())
+            executeBatchDelete(connection, batchModification.getKeysToRemove());
          // We do not call connection.close() in the event of an exception, as close() on active Tx behaviour is implementation
          // dependent. See https://docs.oracle.com/javase/8/docs/api/java/sql/Connection.html#close--
       } catch (SQLException | InterruptedException e) {
@@ -777,7 +879,7 @@ public void rollback(Transaction tx) {
    private Connection getTxConnection(Transaction tx) {
       Connection connection = transactionConnectionMap.get(tx);
       if (connection == null) {
-         connection = connectionFactory.getConnection();
+         connection = getConnection();
          transactionConnectionMap.put(tx, connection);
       }
       return connection;
@@ -795,9 +897,9 @@ public int size() {
       PreparedStatement ps = null;
       ResultSet rs = null;
       try {
-         conn = connectionFactory.getConnection();
+         conn = getConnection();
          String sql = tableManager.getCountNonExpiredRowsSql();
-         ps = conn.prepareStatement(sql);
+         ps = prepareStatement(conn, sql);
          ps.setLong(1, timeService.wallClockTime());
          rs = ps.executeQuery();
          rs.next();
@@ -818,9 +920,9 @@ public int size(IntSet segments) {
       PreparedStatement ps = null;
       ResultSet rs = null;
       try {
-         conn = connectionFactory.getConnection();
+         conn = getConnection();
          String sql = tableManager.getCountNonExpiredRowsSqlForSegments(segments.size());
-         ps = conn.prepareStatement(sql);
+         ps = prepareStatement(conn, sql);
          int offset = 1;
          ps.setLong(offset, timeService.wallClockTime());
          for (PrimitiveIterator.OfInt segIter = segments.iterator(); segIter.hasNext(); ) {
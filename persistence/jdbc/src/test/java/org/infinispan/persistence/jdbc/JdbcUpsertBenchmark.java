@@ -0,0 +1,170 @@
+package org.infinispan.persistence.jdbc;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.Cache;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.io.ByteBufferImpl;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.persistence.jdbc.impl.connectionfactory.SimpleConnectionFactory;
+import org.infinispan.persistence.jdbc.impl.table.TableManager;
+import org.infinispan.persistence.jdbc.impl.table.TableManagerFactory;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares writing a batch of entries with a JDBC batch of single-row upserts, as the JDBC store does for the dialects
+ * without multi-row upserts, and with the multi-row upserts of {@link TableManager#getUpsertRowsSql(int)}.
+ * <p>
+ * H2 runs in memory. PostgreSQL is used with {@code -p database=POSTGRES} and must be reachable at the URL of the
+ * {@code infinispan.benchmark.jdbc.url} system property, authenticating with the {@code infinispan.benchmark.jdbc.user}
+ * and {@code infinispan.benchmark.jdbc.password} system properties.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class JdbcUpsertBenchmark {
+
+   private static final int KEY_SPACE = 100_000;
+
+   @Param({ "H2", "POSTGRES" })
+   public DatabaseType database;
+   @Param({ "false", "true" })
+   public boolean multiRow;
+   @Param({ "100", "1000" })
+   public int batchSize;
+   @Param({ "100", "4096" })
+   public int valueSize;
+
+   private ConnectionFactory connectionFactory;
+   private Connection connection;
+   private TableManager tableManager;
+   private ByteBuffer value;
+
+   @Setup(Level.Trial)
+   public void init() throws Exception {
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = TestCacheManagerFactory
+            .getDefaultCacheConfiguration(false)
+            .persistence()
+            .addStore(JdbcStringBasedStoreConfigurationBuilder.class);
+      storeBuilder.dialect(database);
+      storeBuilder.table()
+            .tableNamePrefix("ISPN_BENCHMARK")
+            .idColumnName("ID_COLUMN")
+            .idColumnType("VARCHAR(255)")
+            .dataColumnName("DATA_COLUMN")
+            .dataColumnType(database == DatabaseType.POSTGRES ? "BYTEA" : "BLOB")
+            .timestampColumnName("TIMESTAMP_COLUMN")
+            .timestampColumnType("BIGINT")
+            .segmentColumnName("SEGMENT_COLUMN")
+            .segmentColumnType("INTEGER");
+      if (database == DatabaseType.POSTGRES) {
+         storeBuilder.simpleConnection()
+               .driverClass("org.postgresql.Driver")
+               .connectionUrl(System.getProperty("infinispan.benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/infinispan"))
+               .username(System.getProperty("infinispan.benchmark.jdbc.user", "infinispan"))
+               .password(System.getProperty("infinispan.benchmark.jdbc.password", "infinispan"));
+      } else {
+         storeBuilder.simpleConnection()
+               .driverClass(org.h2.Driver.class)
+               .connectionUrl("jdbc:h2:mem:JdbcUpsertBenchmark;DB_CLOSE_DELAY=-1")
+               .username("sa");
+      }
+
+      connectionFactory = ConnectionFactory.getConnectionFactory(SimpleConnectionFactory.class);
+      connectionFactory.start(storeBuilder.create().connectionFactory(), connectionFactory.getClass().getClassLoader());
+      connection = connectionFactory.getConnection();
+      connection.setAutoCommit(false);
+
+      Cache<?, ?> cache = mock(Cache.class);
+      when(cache.getCacheConfiguration()).thenReturn(new ConfigurationBuilder().build());
+      DummyInitializationContext ctx = new DummyInitializationContext(null, cache, new TestObjectStreamMarshaller(),
+            null, null, null, null, null, null);
+      tableManager = TableManagerFactory.getManager(ctx, connectionFactory, storeBuilder.create(), "benchmark");
+      if (multiRow && tableManager.getMaxUpsertRows() <= 1) {
+         throw new IllegalStateException(database + " does not support multi-row upserts");
+      }
+      if (tableManager.tableExists(connection, tableManager.getDataTableName())) {
+         tableManager.dropDataTable(connection);
+      }
+      tableManager.createDataTable(connection);
+      connection.commit();
+
+      byte[] bytes = new byte[valueSize];
+      ThreadLocalRandom.current().nextBytes(bytes);
+      value = ByteBufferImpl.create(bytes);
+   }
+
+   @TearDown(Level.Trial)
+   public void destroy() throws Exception {
+      tableManager.dropDataTable(connection);
+      connection.commit();
+      connectionFactory.releaseConnection(connection);
+      connectionFactory.stop();
+   }
+
+   /**
+    * Writes {@link #batchSize} distinct keys, part of them already in the table, in a single transaction.
+    */
+   @Benchmark
+   public void upsert() throws SQLException {
+      int firstKey = ThreadLocalRandom.current().nextInt(KEY_SPACE - batchSize);
+      if (multiRow) {
+         upsertRows(firstKey);
+      } else {
+         upsertBatch(firstKey);
+      }
+      connection.commit();
+   }
+
+   private void upsertBatch(int firstKey) throws SQLException {
+      try (PreparedStatement ps = connection.prepareStatement(tableManager.getUpsertRowSql())) {
+         for (int i = 0; i < batchSize; ++i) {
+            int key = firstKey + i;
+            tableManager.prepareUpsertStatement(ps, "key" + key, -1, key % 256, value);
+            ps.addBatch();
+         }
+         ps.executeBatch();
+      }
+   }
+
+   private void upsertRows(int firstKey) throws SQLException {
+      int maxRows = tableManager.getMaxUpsertRows();
+      for (int offset = 0; offset < batchSize; offset += maxRows) {
+         int numRows = Math.min(maxRows, batchSize - offset);
+         try (PreparedStatement ps = connection.prepareStatement(tableManager.getUpsertRowsSql(numRows))) {
+            for (int row = 0; row < numRows; ++row) {
+               int key = firstKey + offset + row;
+               tableManager.prepareUpsertStatement(ps, row, "key" + key, -1, key % 256, value);
+            }
+            ps.executeUpdate();
+         }
+      }
+   }
+}
@@ -11,6 +11,7 @@
 import java.util.Random;
 
 import org.infinispan.Cache;
+import org.infinispan.commons.io.ByteBufferImpl;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.marshall.TestObjectStreamMarshaller;
 import org.infinispan.persistence.DummyInitializationContext;
@@ -152,6 +153,44 @@ public void testTableQuoting() throws Exception {
       assert existsTable(connection, tableManager.getDataTableName());
    }
 
+   public void testMultiRowUpsertAndDelete() throws Exception {
+      if (!tableManager.tableExists(connection, tableManager.getDataTableName())) {
+         tableManager.createDataTable(connection);
+      }
+      int numRows = 3;
+      if (tableManager.getMaxUpsertRows() == 0) {
+         assert tableManager.getUpsertRowsSql(numRows) == null;
+         return;
+      }
+      assert tableManager.getMaxUpsertRows() >= numRows;
+      for (int i = 0; i < 2; i++) {
+         try (PreparedStatement ps = connection.prepareStatement(tableManager.getUpsertRowsSql(numRows))) {
+            for (int row = 0; row < numRows; row++) {
+               byte[] data = new byte[]{(byte) i, (byte) row};
+               tableManager.prepareUpsertStatement(ps, row, "multi" + row, -1, row, ByteBufferImpl.create(data));
+            }
+            ps.executeUpdate();
+         }
+      }
+      assert numRows == countRows(connection, tableManager.getDataTableName());
+
+      try (PreparedStatement ps = connection.prepareStatement(tableManager.getDeleteRowsSql(2))) {
+         ps.setString(1, "multi0");
+         ps.setString(2, "multi2");
+         assert 2 == ps.executeUpdate();
+      }
+      assert 1 == countRows(connection, tableManager.getDataTableName());
+      tableManager.executeUpdateSql(connection, tableManager.getDeleteAllRowsSql());
+   }
+
+   static int countRows(Connection connection, TableName tableName) throws Exception {
+      try (Statement st = connection.createStatement();
+           ResultSet rs = st.executeQuery("select count(*) from " + tableName)) {
+         rs.next();
+         return rs.getInt(1);
+      }
+   }
+
    static boolean existsTable(Connection connection, TableName tableName) throws Exception {
       Statement st = connection.createStatement();
       ResultSet rs = null;
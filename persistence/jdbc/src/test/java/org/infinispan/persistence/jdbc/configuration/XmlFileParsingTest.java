@@ -34,7 +34,7 @@ public void testStringKeyedJdbcStore() throws Exception {
             "     <persistence>\n" +
             "       <string-keyed-jdbc-store xmlns=\"urn:infinispan:config:store:jdbc:"+ Version.getSchemaVersion() + "\" key-to-string-mapper=\"DummyKey2StringMapper\" shared=\"true\" " +
             "                                preload=\"true\" read-only=\"false\" fetch-state=\"true\" dialect=\"H2\">\n" +
-            "         <connection-pool connection-url=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driver=\"org.h2.Driver\"/>\n" +
+            "         <connection-pool connection-url=\"jdbc:h2:mem:infinispan;DB_CLOSE_DELAY=-1\" username=\"dbuser\" password=\"dbpass\" driver=\"org.h2.Driver\" statement-cache-size=\"64\"/>\n" +
             "         <string-keyed-table prefix=\"entry\" fetch-size=\"34\" batch-size=\"128\" >\n" +
             "           <id-column name=\"id\" type=\"VARCHAR\" />\n" +
             "           <data-column name=\"datum\" type=\"BINARY\" />\n" +
@@ -67,6 +67,7 @@ public void testStringKeyedJdbcStore() throws Exception {
       assertEquals("org.h2.Driver", connectionFactory.driverClass());
       assertEquals("dbuser", connectionFactory.username());
       assertEquals("dbpass", connectionFactory.password());
+      assertEquals(64, connectionFactory.statementCacheSize());
       assertFalse(store.ignoreModifications());
       assertTrue(store.fetchPersistentState());
       assertFalse(store.purgeOnStartup());
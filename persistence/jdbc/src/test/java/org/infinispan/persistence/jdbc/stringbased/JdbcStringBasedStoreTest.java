@@ -3,8 +3,10 @@
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
 
 import org.infinispan.commons.util.Version;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
@@ -21,6 +23,8 @@
 import org.testng.annotations.Factory;
 import org.testng.annotations.Test;
 
+import io.reactivex.rxjava3.core.Flowable;
+
 /**
  * Tester class  for {@link JdbcStringBasedStore}.
  *
@@ -102,6 +106,27 @@ public void testNotCreateConnectionFactory() throws Exception {
       stringBasedCacheStore.stop();
    }
 
+   public void testStatistics() {
+      JdbcStoreStatistics statistics = ((JdbcStringBasedStore<?, ?>) cl).getStatistics();
+      statistics.resetStatistics();
+      cl.write(marshalledEntry("k1", "v1"));
+      cl.loadEntry("k1");
+      cl.delete("k1");
+      assertEquals(3, statistics.getConnectionAcquisitions());
+      assertEquals(3, statistics.getPreparedStatements());
+      assertEquals(1, statistics.load.count());
+      assertEquals(1, statistics.write.count());
+      assertEquals(1, statistics.delete.count());
+      assertTrue(statistics.getActiveConnections() >= 0);
+
+      // Availability checks and iterations acquire their connections through the store too
+      assertTrue(cl.isAvailable());
+      assertEquals(4, statistics.getConnectionAcquisitions());
+      assertEquals(0, Flowable.fromPublisher(cl.publishKeys(null)).count().blockingGet().intValue());
+      assertEquals(5, statistics.getConnectionAcquisitions());
+      assertEquals(4, statistics.getPreparedStatements());
+   }
+
    @Override
    protected boolean storePurgesAllExpired() {
       // expiration listener is not called for the entries
@@ -41,6 +41,7 @@
 import org.infinispan.commons.persistence.Store;
 import org.infinispan.commons.time.TimeService;
 import org.infinispan.commons.util.AbstractIterator;
+import org.infinispan.configuration.cache.AbstractStoreConfiguration;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.marshall.persistence.PersistenceMarshaller;
 import org.infinispan.metadata.Metadata;
@@ -196,6 +197,24 @@ private void mergeEntity(EntityManager em, Object entity) {
       }
    }
 
+   private List<Object> findEntities(Session session, List<?> keys) {
+      long begin = timeService.time();
+      try {
+         return (List<Object>) session.byMultipleIds(configuration.entityClass()).multiLoad((List) keys);
+      } finally {
+         stats.addEntityBatchFind(timeService.time() - begin);
+      }
+   }
+
+   private List<MetadataEntity> findMetadata(Session session, List<MetadataEntityKey> keys) {
+      long begin = timeService.time();
+      try {
+         return session.byMultipleIds(MetadataEntity.class).multiLoad(keys);
+      } finally {
+         stats.addMetadataBatchFind(timeService.time() - begin);
+      }
+   }
+
    private void mergeMetadata(EntityManager em, MetadataEntity metadata) {
       long begin = timeService.time();
       try {
@@ -356,7 +375,7 @@ public void deleteBatch(Iterable<Object> keys) {
                CriteriaDelete<MetadataEntity> metaQuery = cb.createCriteriaDelete(MetadataEntity.class);
                Root<MetadataEntity> metaRoot = metaQuery.from(MetadataEntity.class);
                id = getEntityId(em, MetadataEntity.class);
-               query.where(metaRoot.get(id).in(metaKeys));
+               metaQuery.where(metaRoot.get(id).in(metaKeys));
                em.createQuery(metaQuery).executeUpdate();
             }
             txn.commit();
@@ -454,20 +473,15 @@ public CompletionStage<Void> bulkUpdate(Publisher<MarshallableEntry<? extends K,
       return future;
    }
 
-   private Flowable<MarshallableEntry<? extends K, ? extends V>> createBatchFlowable(EntityManager em, EntityTransaction txn, Publisher<MarshallableEntry<? extends K, ? extends V>> publisher) {
+   private Flowable<List<MarshallableEntry<? extends K, ? extends V>>> createBatchFlowable(EntityManager em, EntityTransaction txn, Publisher<MarshallableEntry<? extends K, ? extends V>> publisher) {
       final long txnBegin = timeService.time();
+      Session session = em.unwrap(Session.class);
+      // Group the inserts and updates of every batch into JDBC batches
+      session.setJdbcBatchSize(getBatchSize());
       txn.begin();
       return Flowable.fromPublisher(publisher)
-            .doOnNext(entry -> {
-               Object entity = entry.getValue();
-               validateEntityIsAssignable(entity);
-               validateObjectId(entry);
-
-               MetadataEntity metadata = configuration.storeMetadata() ? new MetadataEntity(entry) : null;
-               mergeEntity(em, entity);
-               if (metadata != null && metadata.hasBytes())
-                  mergeMetadata(em, metadata);
-            })
+            .buffer(getBatchSize())
+            .doOnNext(entries -> writeBatch(em, session, entries))
             .doOnComplete(() -> {
                stats.addBatchWriteTxCommitted(timeService.time() - txnBegin);
                txn.commit();
@@ -479,6 +493,40 @@ public CompletionStage<Void> bulkUpdate(Publisher<MarshallableEntry<? extends K,
             });
    }
 
+   private void writeBatch(EntityManager em, Session session, List<MarshallableEntry<? extends K, ? extends V>> entries) {
+      List<Object> keys = new ArrayList<>(entries.size());
+      List<MetadataEntity> metadataEntities = new ArrayList<>(configuration.storeMetadata() ? entries.size() : 0);
+      for (MarshallableEntry<? extends K, ? extends V> entry : entries) {
+         validateEntityIsAssignable(entry.getValue());
+         validateObjectId(entry);
+         keys.add(entry.getKey());
+         if (configuration.storeMetadata()) {
+            MetadataEntity metadata = new MetadataEntity(entry);
+            if (metadata.hasBytes())
+               metadataEntities.add(metadata);
+         }
+      }
+      // Load the current state of the whole batch with a single query per table, so that the merges below find the
+      // entities in the persistence context instead of selecting them one by one
+      findEntities(session, keys);
+      if (!metadataEntities.isEmpty())
+         findMetadata(session, metadataEntities.stream().map(MetadataEntity::getKey).collect(Collectors.toList()));
+
+      for (MarshallableEntry<? extends K, ? extends V> entry : entries) {
+         mergeEntity(em, entry.getValue());
+      }
+      for (MetadataEntity metadata : metadataEntities) {
+         mergeMetadata(em, metadata);
+      }
+      // Send the JDBC batches and keep the persistence context bounded to a single batch
+      session.flush();
+      session.clear();
+   }
+
+   private int getBatchSize() {
+      return configuration.maxBatchSize() > 0 ? configuration.maxBatchSize() : AbstractStoreConfiguration.MAX_BATCH_SIZE.getDefaultValue();
+   }
+
    private void validateObjectId(MarshallableEntry entry) {
       Object id = emf.getPersistenceUnitUtil().getIdentifier(entry.getValue());
       if (!entry.getKey().equals(id)) {
@@ -638,11 +686,13 @@ public Flowable<MarshallableEntry<K, V>> entryPublisher(Predicate<? super K> fil
 
       if (fetchValue || innerFetchMetadata) {
          return keyPublisher
+               .buffer(getBatchSize())
                // Run the loading in parallel using executor since it will be blocking
                .parallel()
                .runOn(scheduler)
-               .map(k -> loadEntry(k, fetchValue, innerFetchMetadata))
-               .sequential();
+               .map(keys -> loadEntries(keys, fetchValue, innerFetchMetadata))
+               .sequential()
+               .flatMapIterable(entries -> entries);
       } else {
          return keyPublisher.map(k -> marshallerEntryFactory.create(k));
       }
@@ -799,45 +849,45 @@ private String toString(MetadataEntity metadata) {
       }
    }
 
-   private MarshallableEntry<K, V> loadEntry(Object key, boolean fetchValue, boolean fetchMetadata) {
-      Object entity;
-      Metadata metadata;
-      MetadataEntity metaEntity;
+   private List<MarshallableEntry<K, V>> loadEntries(List<K> keys, boolean fetchValue, boolean fetchMetadata) {
+      List<Object> entities;
+      List<MetadataEntity> metaEntities;
 
       // The loading of entries and metadata is offloaded to another thread.
       // We need second entity manager anyway because with MySQL we can't do streaming
       // in parallel with other queries using single connection
       EntityManager emExec = emf.createEntityManager();
       try {
-         metaEntity = fetchMetadata ? getMetadataEntity(key, emExec) : null;
-         metadata = getMetadata(metaEntity);
+         Session session = emExec.unwrap(Session.class);
+         session.setDefaultReadOnly(true);
+         // Fetch the whole batch of keys with a single query per table instead of a find per key
+         metaEntities = fetchMetadata ? findMetadata(session, keys.stream().map(this::getMetadataKey).collect(Collectors.toList())) : null;
+         entities = fetchValue ? findEntities(session, keys) : null;
          if (log.isTraceEnabled()) {
-            log.tracef("Fetched metadata (fetching? %s) %s", fetchMetadata, metadata);
-         }
-         if (metaEntity != null && isExpired(metaEntity)) {
-            return null;
-         }
-         if (fetchValue) {
-            entity = findEntity(emExec, key);
-            if (log.isTraceEnabled()) {
-               log.tracef("Fetched value %s", entity);
-            }
-         } else {
-            entity = null;
+            log.tracef("Fetched %d keys, values (fetching? %s) %s, metadata (fetching? %s) %s", keys.size(), fetchValue,
+                  entities, fetchMetadata, metaEntities);
          }
       } finally {
-         if (emExec != null) {
-            emExec.close();
-         }
+         emExec.close();
       }
+      List<MarshallableEntry<K, V>> entries = new ArrayList<>(keys.size());
       try {
-         return metaEntity == null ?
-               marshallerEntryFactory.create(key, entity) :
-               marshallerEntryFactory.create(key, entity, metadata, getInternalMetadata(metaEntity), metaEntity.getCreated(), metaEntity.getLastUsed());
+         for (int i = 0; i < keys.size(); ++i) {
+            MetadataEntity metaEntity = metaEntities != null ? metaEntities.get(i) : null;
+            if (metaEntity != null && isExpired(metaEntity)) {
+               continue;
+            }
+            K key = keys.get(i);
+            Object entity = entities != null ? entities.get(i) : null;
+            entries.add(metaEntity == null ?
+                  marshallerEntryFactory.create(key, entity) :
+                  marshallerEntryFactory.create(key, entity, getMetadata(metaEntity), getInternalMetadata(metaEntity), metaEntity.getCreated(), metaEntity.getLastUsed()));
+         }
       } catch (Exception e) {
          PERSISTENCE.errorExecutingParallelStoreTask(e);
          throw e;
       }
+      return entries;
    }
 
    private class ScrollableResultsIterator extends AbstractIterator<K> {
@@ -28,6 +28,8 @@ public String toString() {
    private final Operation entityMerge = new Operation();
    private final Operation entityRemove = new Operation();
    private final Operation metadataFind = new Operation();
+   private final Operation entityBatchFind = new Operation();
+   private final Operation metadataBatchFind = new Operation();
    private final Operation metadataMerge = new Operation();
    private final Operation metadataRemove = new Operation();
    private final Operation txReadCommitted = new Operation();
@@ -66,6 +68,14 @@ public void addMetadataFind(long duration) {
       metadataFind.add(duration);
    }
 
+   public void addEntityBatchFind(long duration) {
+      entityBatchFind.add(duration);
+   }
+
+   public void addMetadataBatchFind(long duration) {
+      metadataBatchFind.add(duration);
+   }
+
    public void addReadTxCommitted(long duration) {
       txReadCommitted.add(duration);
    }
@@ -113,6 +123,8 @@ public String toString() {
             "\nentityMerge=" + entityMerge +
             "\nentityRemove=" + entityRemove +
             "\nmetadataFind=" + metadataFind +
+            "\nentityBatchFind=" + entityBatchFind +
+            "\nmetadataBatchFind=" + metadataBatchFind +
             "\nmetadataMerge=" + metadataMerge +
             "\nmetadataRemove=" + metadataRemove +
             "\ntxReadCommitted=" + txReadCommitted +
@@ -5,6 +5,7 @@
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -16,8 +17,10 @@
 
 import org.infinispan.persistence.spi.MarshallableEntry;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.util.concurrent.CompletionStages;
 import org.testng.annotations.Test;
 
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.functions.Consumer;
 
 /**
@@ -132,6 +135,25 @@ public void testStoreAndRemoveAll() {
       assertFalse(cs.contains(obj4.getKey()));
    }
 
+   public void testBulkUpdateAndDeleteBatch() {
+      TestObject obj1 = createTestObject("testBulkUpdateAndDeleteBatch1");
+      TestObject obj2 = createTestObject("testBulkUpdateAndDeleteBatch2");
+      TestObject obj3 = createTestObject("testBulkUpdateAndDeleteBatch3");
+      cs.write(createEntry(obj1));
+
+      CompletionStages.join(cs.bulkUpdate(Flowable.just(createEntry(obj1), createEntry(obj2), createEntry(obj3))));
+      assertEquals(cs.size(), 3);
+      assertEquals(cs.loadEntry(obj1.getKey()).getValue(), obj1.getValue());
+      assertEquals(cs.loadEntry(obj2.getKey()).getValue(), obj2.getValue());
+      assertEquals(cs.loadEntry(obj3.getKey()).getValue(), obj3.getValue());
+
+      cs.deleteBatch(Arrays.asList(obj1.getKey(), obj3.getKey()));
+      assertEquals(cs.size(), 1);
+      assertFalse(cs.contains(obj1.getKey()));
+      assertTrue(cs.contains(obj2.getKey()));
+      assertFalse(cs.contains(obj3.getKey()));
+   }
+
    public void testStoreValuesViaNonJpaCacheStore() {
       TestObject obj1 = createTestObject("testStoreViaNonJpaCacheStore1");
       TestObject obj2 = createTestObject("testStoreViaNonJpaCacheStore2");
@@ -0,0 +1,116 @@
+package org.infinispan.persistence.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.persistence.impl.MarshalledEntryFactoryImpl;
+import org.infinispan.persistence.DummyInitializationContext;
+import org.infinispan.persistence.jpa.configuration.JpaStoreConfigurationBuilder;
+import org.infinispan.persistence.jpa.entity.KeyValueEntity;
+import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.persistence.spi.MarshallableEntryFactory;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.BlockingManager;
+import org.infinispan.util.concurrent.CompletionStages;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.reactivex.rxjava3.core.Flowable;
+
+/**
+ * Compares writing a batch of entities to the {@link JpaStore} one at a time, with a transaction per entity, and with a
+ * single {@link JpaStore#bulkUpdate} that uses Hibernate JDBC batching. Runs against the database of the test
+ * persistence unit, H2 in memory unless one of the database profiles is enabled.
+ */
+@State(Scope.Benchmark)
+@Fork(2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 4, time = 1)
+@Measurement(iterations = 8, time = 1)
+public class JpaStoreBatchBenchmark {
+
+   private static final int KEY_SPACE = 10_000;
+
+   @Param({ "100", "1000" })
+   public int batchSize;
+   @Param({ "20", "100" })
+   public int maxBatchSize;
+
+   private EmbeddedCacheManager cacheManager;
+   private JpaStore<Object, Object> store;
+   private MarshallableEntryFactory<Object, Object> entryFactory;
+
+   @Setup(Level.Trial)
+   public void init() {
+      cacheManager = TestCacheManagerFactory.createCacheManager(JpaSCI.INSTANCE);
+      entryFactory = new MarshalledEntryFactoryImpl(cacheManager.getCache().getAdvancedCache().getComponentRegistry()
+            .getPersistenceMarshaller());
+
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().addStore(JpaStoreConfigurationBuilder.class)
+            .persistenceUnitName(AbstractJpaStoreTest.PERSISTENCE_UNIT_NAME)
+            .entityClass(KeyValueEntity.class)
+            .maxBatchSize(maxBatchSize)
+            .segmented(false);
+      store = new JpaStore<>();
+      store.init(new DummyInitializationContext(builder.persistence().stores().get(0).create(), cacheManager.getCache(),
+            cacheManager.getCache().getAdvancedCache().getComponentRegistry().getPersistenceMarshaller(), null,
+            entryFactory, new WithinThreadExecutor(), cacheManager.getCacheManagerConfiguration(),
+            cacheManager.getGlobalComponentRegistry().getComponent(BlockingManager.class),
+            cacheManager.getGlobalComponentRegistry().getTimeService()));
+      store.start();
+      store.clear();
+   }
+
+   @TearDown(Level.Trial)
+   public void destroy() {
+      store.clear();
+      store.stop();
+      cacheManager.stop();
+   }
+
+   /**
+    * Writes {@link #batchSize} distinct keys, part of them already in the store, with a transaction per entity.
+    */
+   @Benchmark
+   public void writeEach() {
+      for (MarshallableEntry<Object, Object> entry : nextEntries()) {
+         store.write(entry);
+      }
+   }
+
+   /**
+    * Writes {@link #batchSize} distinct keys, part of them already in the store, in a single transaction.
+    */
+   @Benchmark
+   public void bulkUpdate() {
+      CompletionStages.join(store.bulkUpdate(Flowable.fromIterable(nextEntries())));
+   }
+
+   private List<MarshallableEntry<Object, Object>> nextEntries() {
+      int firstKey = ThreadLocalRandom.current().nextInt(KEY_SPACE - batchSize);
+      List<MarshallableEntry<Object, Object>> entries = new ArrayList<>(batchSize);
+      for (int i = 0; i < batchSize; ++i) {
+         String key = "key" + (firstKey + i);
+         entries.add(entryFactory.create(key, new KeyValueEntity(key, "value" + i)));
+      }
+      return entries;
+   }
+}
@@ -1,6 +1,10 @@
 package org.infinispan.persistence.remote;
 
+import java.net.SocketAddress;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -27,6 +31,7 @@
 import org.infinispan.commons.marshall.WrappedByteArray;
 import org.infinispan.commons.util.EnumUtil;
 import org.infinispan.commons.util.IntSet;
+import org.infinispan.commons.util.IntSets;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.ClusteringConfiguration;
 import org.infinispan.configuration.cache.Configuration;
@@ -84,6 +89,7 @@
    private InternalEntryFactory iceFactory;
    private static final String LIFESPAN = "lifespan";
    private static final String MAXIDLE = "maxidle";
+   private static final int ITERATION_BATCH_SIZE = 512;
    protected InitializationContext ctx;
    private MarshallableEntryFactory<K, V> entryFactory;
    private BlockingManager blockingManager;
@@ -256,8 +262,8 @@ public CompletionStage<Boolean> containsKey(int segment, Object key) {
    public Flowable<K> publishKeys(IntSet segments, Predicate<? super K> filter) {
       // We assume our segments don't map to the remote node when segmentation is disabled
       IntSet segmentsToUse = configuration.segmented() ? segments : null;
-      Flowable<K> keyFlowable = Flowable.fromPublisher(remoteCache.publishEntries(Codec27.EMPTY_VALUE_CONVERTER,
-            null, segmentsToUse, 512))
+      Flowable<K> keyFlowable = publishPerOwner(segmentsToUse,
+            ownerSegments -> remoteCache.<Object>publishEntries(Codec27.EMPTY_VALUE_CONVERTER, null, ownerSegments, ITERATION_BATCH_SIZE))
             .map(Map.Entry::getKey)
             .map(RemoteStore::wrap);
 
@@ -272,7 +278,8 @@ public Publisher<MarshallableEntry<K, V>> publishEntries(IntSet segments, Predic
       // We assume our segments don't map to the remote node when segmentation is disabled
       IntSet segmentsToUse = configuration.segmented() ? segments : null;
       if (configuration.rawValues()) {
-         Flowable<Map.Entry<Object, MetadataValue<Object>>> entryFlowable = Flowable.fromPublisher(remoteCache.publishEntriesWithMetadata(segmentsToUse, 512));
+         Flowable<Map.Entry<Object, MetadataValue<Object>>> entryFlowable = publishPerOwner(segmentsToUse,
+               ownerSegments -> remoteCache.publishEntriesWithMetadata(ownerSegments, ITERATION_BATCH_SIZE));
          if (filter != null) {
             entryFlowable = entryFlowable.filter(e -> filter.test(wrap(e.getKey())));
          }
@@ -288,8 +295,8 @@ public Publisher<MarshallableEntry<K, V>> publishEntries(IntSet segments, Predic
             return entryFactory.create(wrap(e.getKey()), wrap(realValue), metadata, null, created, lastUsed);
          });
       } else {
-         Flowable<Map.Entry<Object, Object>> entryFlowable = Flowable.fromPublisher(
-               remoteCache.publishEntries(null, null, segmentsToUse, 512));
+         Flowable<Map.Entry<Object, Object>> entryFlowable = publishPerOwner(segmentsToUse,
+               ownerSegments -> remoteCache.publishEntries(null, null, ownerSegments, ITERATION_BATCH_SIZE));
          if (filter != null) {
             entryFlowable = entryFlowable.filter(e -> filter.test(wrap(e.getKey())));
          }
@@ -298,6 +305,41 @@ public Publisher<MarshallableEntry<K, V>> publishEntries(IntSet segments, Predic
       }
    }
 
+   /**
+    * Iterates the remote cache with one publisher per primary owner of the requested segments, so that every server
+    * streams a full batch per round trip in parallel. A single remote publisher splits its batch size among all the
+    * servers instead. A {@code null} segment set requests all the segments of the remote cache.
+    */
+   private <E> Flowable<Map.Entry<Object, E>> publishPerOwner(IntSet segments,
+         Function<Set<Integer>, Publisher<Map.Entry<Object, E>>> publisherFunction) {
+      Map<SocketAddress, Set<Integer>> segmentsByServer = remoteCache.getOperationsFactory().getPrimarySegmentsByAddress();
+      List<Set<Integer>> ownerSegments = new ArrayList<>(segmentsByServer.size() + 1);
+      IntSet remaining = segments != null ? IntSets.mutableCopyFrom(segments) : null;
+      for (Set<Integer> serverSegments : segmentsByServer.values()) {
+         IntSet needed = IntSets.mutableEmptySet();
+         for (int segment : serverSegments) {
+            if (remaining == null || remaining.remove(segment)) {
+               needed.set(segment);
+            }
+         }
+         if (!needed.isEmpty()) {
+            ownerSegments.add(needed);
+         }
+      }
+      // Segments without a known owner are retried by the remote publisher until the topology is updated
+      if (remaining != null && !remaining.isEmpty()) {
+         ownerSegments.add(remaining);
+      }
+      if (ownerSegments.size() <= 1) {
+         return Flowable.fromPublisher(publisherFunction.apply(segments));
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Iterating remote cache %s with segments %s", remoteCache.getName(), ownerSegments);
+      }
+      return Flowable.fromIterable(ownerSegments)
+            .flatMap(publisherFunction::apply, ownerSegments.size());
+   }
+
    private static <T> T wrap(Object obj) {
       if (obj instanceof byte[]) {
          obj = new WrappedByteArray((byte[]) obj);
@@ -355,29 +397,37 @@ private Object getValue(MarshallableEntry entry) {
    @Override
    public CompletionStage<Void> batch(int publisherCount, Publisher<SegmentedPublisher<Object>> removePublisher,
          Publisher<SegmentedPublisher<MarshallableEntry<K, V>>> writePublisher) {
+      // Hot Rod has no bulk remove, so pipeline up to a batch worth of removes instead of one at a time
       Completable removeCompletable = Flowable.fromPublisher(removePublisher)
             .flatMap(Flowable::fromPublisher, publisherCount)
             .map(RemoteStore::unwrap)
-            .flatMapCompletable(key -> Completable.fromCompletionStage(remoteCache.removeAsync(key)), false, 10);
+            .flatMapCompletable(key -> Completable.fromCompletionStage(remoteCache.removeAsync(key)), false,
+                  configuration.maxBatchSize());
 
+      // Only the lifespan and max idle are sent with putAll, so entries with different metadata (e.g. versions) can
+      // share the same batch as long as they expire the same way
       Completable putCompletable = Flowable.fromPublisher(writePublisher)
             .flatMap(Flowable::fromPublisher, publisherCount)
-            .groupBy(MarshallableEntry::getMetadata)
+            .groupBy(this::getExpiration)
             .flatMapCompletable(meFlowable -> meFlowable.buffer(configuration.maxBatchSize())
                   .flatMapCompletable(meList -> {
-                     Map<Object, Object> map = meList.stream().collect(Collectors.toMap(this::getKey, this::getValue));
-
-                     Metadata metadata = meFlowable.getKey();
-                     long lifespan = metadata != null ? toSeconds(metadata.lifespan(), "batch", LIFESPAN) : -1;
-                     long maxIdle = metadata != null ? toSeconds(metadata.maxIdle(), "batch", MAXIDLE) : -1;
+                     Map<Object, Object> map = meList.stream().collect(Collectors.toMap(this::getKey, this::getValue, (v1, v2) -> v2));
 
-                     return Completable.fromCompletionStage(remoteCache.putAllAsync(map, lifespan, TimeUnit.SECONDS,
-                           maxIdle, TimeUnit.SECONDS));
+                     Map.Entry<Long, Long> expiration = meFlowable.getKey();
+                     return Completable.fromCompletionStage(remoteCache.putAllAsync(map, expiration.getKey(), TimeUnit.SECONDS,
+                           expiration.getValue(), TimeUnit.SECONDS));
                   }));
       return removeCompletable.mergeWith(putCompletable)
             .toCompletionStage(null);
    }
 
+   private Map.Entry<Long, Long> getExpiration(MarshallableEntry<K, V> entry) {
+      Metadata metadata = entry.getMetadata();
+      long lifespan = metadata != null ? toSeconds(metadata.lifespan(), "batch", LIFESPAN) : -1;
+      long maxIdle = metadata != null ? toSeconds(metadata.maxIdle(), "batch", MAXIDLE) : -1;
+      return new AbstractMap.SimpleImmutableEntry<>(lifespan, maxIdle);
+   }
+
    @Override
    public CompletionStage<Void> clear() {
       return remoteCache.clearAsync();
@@ -2,14 +2,22 @@
 
 import static org.infinispan.server.hotrod.test.HotRodTestingUtil.hotRodCacheConfiguration;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.infinispan.AdvancedCache;
+import org.infinispan.client.hotrod.impl.InternalRemoteCache;
 import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
 import org.infinispan.commons.dataconversion.MediaType;
 import org.infinispan.commons.marshall.ProtoStreamMarshaller;
@@ -28,6 +36,7 @@
 import org.infinispan.persistence.BaseNonBlockingStoreTest;
 import org.infinispan.persistence.internal.PersistenceUtil;
 import org.infinispan.persistence.remote.configuration.RemoteStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.MarshallableEntry;
 import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.protostream.ProtobufUtil;
@@ -51,6 +60,8 @@ public class RemoteStoreTest extends BaseNonBlockingStoreTest {
    private EmbeddedCacheManager localCacheManager;
    private AdvancedCache<Object, Object> localCache;
    private HotRodServer hrServer;
+   private Configuration remoteCacheConfiguration;
+   private RemoteStore<Object, Object> remoteStore;
    private boolean segmented;
    private MediaType cacheMediaType;
    private boolean isRawValues;
@@ -98,15 +109,11 @@ protected Configuration buildConfig(ConfigurationBuilder cb) {
 
       // Unfortunately BaseNonBlockingStore stops and restarts the store, which can start a second hrServer - prevent that
       if (hrServer == null) {
-         GlobalConfigurationBuilder globalConfig = new GlobalConfigurationBuilder().clusteredDefault();
-         globalConfig.defaultCacheName(REMOTE_CACHE);
-
          ConfigurationBuilder configurationBuilder = hotRodCacheConfiguration(cb);
          configurationBuilder.encoding().mediaType(cacheMediaType.toString());
          configurationBuilder.clustering().cacheMode(CacheMode.DIST_SYNC);
-         localCacheManager = TestCacheManagerFactory.createClusteredCacheManager(
-               globalConfig, configurationBuilder);
-         TestingUtil.replaceComponent(localCacheManager, TimeService.class, timeService, true);
+         remoteCacheConfiguration = configurationBuilder.build();
+         localCacheManager = createRemoteCacheManager();
 
          localCache = localCacheManager.getCache(REMOTE_CACHE).getAdvancedCache()
                .withMediaType(MediaType.APPLICATION_OBJECT, MediaType.APPLICATION_OBJECT);
@@ -135,9 +142,19 @@ protected Configuration buildConfig(ConfigurationBuilder cb) {
       return cb.build();
    }
 
+   private EmbeddedCacheManager createRemoteCacheManager() {
+      GlobalConfigurationBuilder globalConfig = new GlobalConfigurationBuilder().clusteredDefault();
+      globalConfig.defaultCacheName(REMOTE_CACHE);
+      EmbeddedCacheManager cacheManager = TestCacheManagerFactory.createClusteredCacheManager(
+            globalConfig, new ConfigurationBuilder().read(remoteCacheConfiguration));
+      TestingUtil.replaceComponent(cacheManager, TimeService.class, timeService, true);
+      return cacheManager;
+   }
+
    @Override
    protected NonBlockingStore createStore() {
-      return new RemoteStore();
+      remoteStore = new RemoteStore<>();
+      return remoteStore;
    }
 
    @Override
@@ -253,6 +270,80 @@ public void testPublishEntriesWithSegments() {
       });
    }
 
+   public void testPublishPerOwnerWithTwoServers() {
+      EmbeddedCacheManager otherCacheManager = createRemoteCacheManager();
+      HotRodServer otherServer = HotRodClientTestingUtil.startHotRodServer(otherCacheManager);
+      try {
+         TestingUtil.blockUntilViewsReceived(10000, localCacheManager, otherCacheManager);
+         TestingUtil.waitForNoRebalance(localCacheManager.getCache(REMOTE_CACHE), otherCacheManager.getCache(REMOTE_CACHE));
+
+         int numEntries = 200;
+         for (int i = 0; i < numEntries; i++) {
+            store.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+         }
+         // The client learns about the second server from the topology sent with the responses
+         InternalRemoteCache<Object, Object> remoteCache = (InternalRemoteCache<Object, Object>) remoteStore.getRemoteCache();
+         eventually(() -> {
+            store.contains(keyToStorage("k0"));
+            return remoteCache.getOperationsFactory().getPrimarySegmentsByAddress().size() == 2;
+         });
+
+         // Every owner is iterated separately, the union must contain every key exactly once
+         List<Object> keys = store.publishKeysWait(null, null);
+         assertEquals(numEntries, keys.size());
+         assertEquals(numEntries, new HashSet<>(keys).size());
+
+         // Only the requested segments are returned, even though they are split among both servers
+         int maxSegments = localCache.getCacheConfiguration().clustering().hash().numSegments();
+         IntSet evenSegments = IntSets.mutableEmptySet(maxSegments);
+         for (int i = 0; i < maxSegments; i += 2) {
+            evenSegments.set(i);
+         }
+         Set<Object> expected = new HashSet<>();
+         for (int i = 0; i < numEntries; i++) {
+            if (evenSegments.contains(getKeySegment("k" + i))) {
+               expected.add(keyToStorage("k" + i));
+            }
+         }
+         List<Object> evenKeys = segmented ? store.publishKeysWait(evenSegments, null) :
+               store.publishKeysWait(null, PersistenceUtil.<Object>combinePredicate(evenSegments, keyPartitioner, null));
+         assertEquals(expected.size(), evenKeys.size());
+         assertEquals(expected, new HashSet<>(evenKeys));
+
+         List<MarshallableEntry<Object, Object>> evenEntries = Flowable.fromPublisher(segmented ?
+               store.publishEntries(evenSegments, null, true) :
+               store.publishEntries(null, PersistenceUtil.<Object>combinePredicate(evenSegments, keyPartitioner, null), true))
+               .toList().blockingGet();
+         assertEquals(expected.size(), evenEntries.size());
+         assertEquals(expected, evenEntries.stream().map(MarshallableEntry::getKey).collect(Collectors.toSet()));
+      } finally {
+         HotRodClientTestingUtil.killServers(otherServer);
+         TestingUtil.killCacheManagers(otherCacheManager);
+      }
+   }
+
+   public void testBatchRemovesAboveMaxBatchSize() {
+      int numEntries = configuration.persistence().stores().get(0).maxBatchSize() * 3 + 7;
+      store.batchUpdate(segmentCount, Flowable.empty(),
+            TestingUtil.multipleSegmentPublisher(Flowable.range(0, numEntries).map(i -> marshalledEntry(internalCacheEntry(i.toString(), "Val" + i, -1))),
+                  MarshallableEntry::getKey, keyPartitioner));
+      IntSet allSegments = IntSets.immutableRangeSet(segmentCount);
+      assertEquals(numEntries, TestingUtil.allEntries(store, allSegments).size());
+
+      // Remove every entry and write as many new ones in the same batch, so the removes overlap with the writes
+      List<Object> keys = IntStream.range(0, numEntries).mapToObj(Integer::toString).map(this::keyToStorage).collect(Collectors.toList());
+      store.batchUpdate(segmentCount, TestingUtil.multipleSegmentPublisher(Flowable.fromIterable(keys), Function.identity(), keyPartitioner),
+            TestingUtil.multipleSegmentPublisher(Flowable.range(0, numEntries).map(i -> marshalledEntry(internalCacheEntry("new" + i, "Val" + i, -1))),
+                  MarshallableEntry::getKey, keyPartitioner));
+
+      Set<MarshallableEntry<Object, Object>> entries = TestingUtil.allEntries(store, allSegments);
+      assertEquals(numEntries, entries.size());
+      for (Object key : keys) {
+         assertNull(store.loadEntry(key));
+      }
+      assertNotNull(store.loadEntry(keyToStorage("new" + (numEntries - 1))));
+   }
+
    @Override
    @Test(enabled = false)
    public void testLoadAndStoreBytesValues() throws PersistenceException, IOException, InterruptedException {
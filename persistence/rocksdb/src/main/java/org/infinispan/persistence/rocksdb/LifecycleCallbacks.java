@@ -0,0 +1,34 @@
+package org.infinispan.persistence.rocksdb;
+
+import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.factories.GlobalComponentRegistry;
+import org.infinispan.factories.annotations.InfinispanModule;
+import org.infinispan.lifecycle.ModuleLifecycle;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration;
+
+/**
+ * Creates the {@link RocksDBResources} shared by the RocksDB stores, when the cache container configures them.
+ *
+ * @since 12.1
+ */
+@InfinispanModule(name = "cachestore-rocksdb", requiredModules = "core")
+public class LifecycleCallbacks implements ModuleLifecycle {
+
+   @Override
+   public void cacheManagerStarting(GlobalComponentRegistry gcr, GlobalConfiguration globalConfiguration) {
+      RocksDBResourcesConfiguration configuration = globalConfiguration.module(RocksDBResourcesConfiguration.class);
+      if (configuration != null) {
+         RocksDBResources resources = new RocksDBResources(configuration);
+         resources.start();
+         gcr.registerComponent(resources, RocksDBResources.class);
+      }
+   }
+
+   @Override
+   public void cacheManagerStopping(GlobalComponentRegistry gcr) {
+      RocksDBResources resources = gcr.getComponent(RocksDBResources.class);
+      if (resources != null) {
+         resources.stop();
+      }
+   }
+}
@@ -0,0 +1,209 @@
+package org.infinispan.persistence.rocksdb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
+import org.infinispan.persistence.rocksdb.configuration.BlockCacheType;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.Cache;
+import org.rocksdb.ClockCache;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.RateLimiter;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+import org.rocksdb.WriteBufferManager;
+
+import net.jcip.annotations.ThreadSafe;
+
+/**
+ * The RocksDB resources shared by all the {@link RocksDBStore} instances of a cache manager, so that the memory and
+ * the background I/O of the stores are bounded as a whole instead of per cache.
+ * <p>
+ * Registered by {@link LifecycleCallbacks} when the cache container configures a
+ * {@link RocksDBResourcesConfiguration}, the stores apply it to the options of their databases.
+ *
+ * @since 12.1
+ */
+@ThreadSafe
+@Scope(Scopes.GLOBAL)
+@MBean(objectName = "RocksDBResources", description = "RocksDB resources shared by the RocksDB stores")
+public class RocksDBResources {
+   private final RocksDBResourcesConfiguration configuration;
+
+   private Cache blockCache;
+   private WriteBufferManager writeBufferManager;
+   private RateLimiter rateLimiter;
+   private Statistics statistics;
+
+   RocksDBResources(RocksDBResourcesConfiguration configuration) {
+      this.configuration = configuration;
+   }
+
+   void start() {
+      RocksDB.loadLibrary();
+      long blockCacheSize = configuration.blockCacheSize();
+      if (blockCacheSize > 0) {
+         blockCache = configuration.blockCacheType() == BlockCacheType.CLOCK ?
+               new ClockCache(blockCacheSize) : new LRUCache(blockCacheSize);
+         if (configuration.writeBufferSize() > 0) {
+            writeBufferManager = new WriteBufferManager(configuration.writeBufferSize(), blockCache);
+         }
+      }
+      if (configuration.rateLimit() > 0) {
+         rateLimiter = new RateLimiter(configuration.rateLimit());
+      }
+      if (configuration.statistics()) {
+         statistics = new Statistics();
+      }
+   }
+
+   void stop() {
+      // The stores are stopped with their caches, before the cache manager
+      if (statistics != null) {
+         statistics.close();
+      }
+      if (rateLimiter != null) {
+         rateLimiter.close();
+      }
+      if (writeBufferManager != null) {
+         writeBufferManager.close();
+      }
+      if (blockCache != null) {
+         blockCache.close();
+      }
+   }
+
+   /**
+    * Makes a database use the shared write buffer manager, rate limiter and statistics.
+    */
+   DBOptions configure(DBOptions options) {
+      if (writeBufferManager != null) {
+         options.setWriteBufferManager(writeBufferManager);
+      }
+      if (rateLimiter != null) {
+         options.setRateLimiter(rateLimiter);
+      }
+      if (statistics != null) {
+         options.setStatistics(statistics);
+      }
+      return options;
+   }
+
+   /**
+    * Makes a column family use the shared block cache. It replaces the table format configured through the store
+    * properties.
+    */
+   ColumnFamilyOptions configure(ColumnFamilyOptions options) {
+      if (blockCache != null) {
+         options.setTableFormatConfig(new BlockBasedTableConfig().setBlockCache(blockCache));
+      }
+      return options;
+   }
+
+   private long ticker(TickerType type) {
+      return statistics == null ? 0 : statistics.getTickerCount(type);
+   }
+
+   @ManagedAttribute(
+         description = "Capacity of the block cache shared by the RocksDB stores",
+         displayName = "Shared block cache capacity",
+         units = Units.BYTES
+   )
+   public long getBlockCacheCapacity() {
+      return blockCache == null ? 0 : configuration.blockCacheSize();
+   }
+
+   @ManagedAttribute(
+         description = "Number of reads of the RocksDB stores served by the block cache",
+         displayName = "Block cache hits",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getBlockCacheHits() {
+      return ticker(TickerType.BLOCK_CACHE_HIT);
+   }
+
+   @ManagedAttribute(
+         description = "Number of reads of the RocksDB stores that missed the block cache",
+         displayName = "Block cache misses",
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getBlockCacheMisses() {
+      return ticker(TickerType.BLOCK_CACHE_MISS);
+   }
+
+   @ManagedAttribute(
+         description = "Bytes written by the RocksDB stores",
+         displayName = "Bytes written",
+         units = Units.BYTES,
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getBytesWritten() {
+      return ticker(TickerType.BYTES_WRITTEN);
+   }
+
+   @ManagedAttribute(
+         description = "Bytes read by the RocksDB stores",
+         displayName = "Bytes read",
+         units = Units.BYTES,
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getBytesRead() {
+      return ticker(TickerType.BYTES_READ);
+   }
+
+   @ManagedAttribute(
+         description = "Bytes written by the compactions of the RocksDB stores",
+         displayName = "Compaction bytes written",
+         units = Units.BYTES,
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getCompactionBytesWritten() {
+      return ticker(TickerType.COMPACT_WRITE_BYTES);
+   }
+
+   @ManagedAttribute(
+         description = "Time the writes of the RocksDB stores were stalled waiting for flushes and compactions",
+         displayName = "Write stall time",
+         units = Units.MILLISECONDS,
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getWriteStallTime() {
+      return TimeUnit.MICROSECONDS.toMillis(ticker(TickerType.STALL_MICROS));
+   }
+
+   @ManagedAttribute(
+         description = "Bytes written by the flushes and compactions through the shared rate limiter",
+         displayName = "Rate limited bytes",
+         units = Units.BYTES,
+         measurementType = MeasurementType.TRENDSUP
+   )
+   public long getRateLimitedBytes() {
+      return rateLimiter == null ? 0 : rateLimiter.getTotalBytesThrough();
+   }
+
+   @ManagedOperation(
+         description = "Resets statistics gathered by this component",
+         displayName = "Reset statistics"
+   )
+   public void resetStatistics() {
+      if (statistics != null) {
+         try {
+            statistics.reset();
+         } catch (RocksDBException e) {
+            throw new PersistenceException(e);
+         }
+      }
+   }
+}
@@ -9,18 +9,28 @@
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -34,6 +44,7 @@
 import org.infinispan.commons.reactive.RxJavaInterop;
 import org.infinispan.commons.time.TimeService;
 import org.infinispan.commons.util.AbstractIterator;
+import org.infinispan.commons.util.ByRef;
 import org.infinispan.commons.util.IntSet;
 import org.infinispan.commons.util.IntSets;
 import org.infinispan.commons.util.Util;
@@ -44,6 +55,7 @@
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.PrivateMetadata;
 import org.infinispan.persistence.internal.PersistenceUtil;
+import org.infinispan.persistence.rocksdb.configuration.ExpirationMode;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration;
 import org.infinispan.persistence.rocksdb.logging.Log;
 import org.infinispan.persistence.spi.InitializationContext;
@@ -65,11 +77,15 @@
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
+import org.rocksdb.EnvOptions;
+import org.rocksdb.IngestExternalFileOptions;
 import org.rocksdb.Options;
 import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.SstFileWriter;
+import org.rocksdb.TtlDB;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
@@ -88,7 +104,11 @@
    static final String DATABASE_PROPERTY_NAME_WITH_SUFFIX = "database.";
    static final String COLUMN_FAMILY_PROPERTY_NAME_WITH_SUFFIX = "data.";
    static final byte[] META_COLUMN_FAMILY = "meta-cf".getBytes();
+   // The meta column family of the stores in TTL expiration mode, whose values have the TtlDB timestamp suffix
+   static final byte[] META_TTL_COLUMN_FAMILY = "meta-ttl-cf".getBytes();
    static final byte[] META_COLUMN_FAMILY_KEY = "metadata".getBytes();
+   static final int PURGE_BATCH_SIZE = 128;
+   static final long INGESTION_BUFFER_SIZE = 32 * 1024 * 1024;
 
    protected RocksDBStoreConfiguration configuration;
    private RocksDB db;
@@ -96,7 +116,16 @@
    private InitializationContext ctx;
    private TimeService timeService;
    private WriteOptions dataWriteOptions;
+   private WriteOptions purgeWriteOptions;
+   private ExpirationMode expirationMode;
+   private int ttlSeconds;
+   private long ttlLifespan;
    private RocksDBHandler handler;
+   // Only with bulk ingestion: the writes of a segment hold the read lock, an ingestion holds the write lock while it
+   // checks the keys written during the transfer and moves its file in
+   private ReadWriteLock[] ingestionLocks;
+   private AtomicReferenceArray<SstIngestion> ingestions;
+   private RocksDBResources resources;
    private Properties databaseProperties;
    private Properties columnFamilyProperties;
    private Marshaller marshaller;
@@ -115,6 +144,25 @@ public CompletionStage<Void> start(InitializationContext ctx) {
       this.keyPartitioner = ctx.getKeyPartitioner();
 
       ctx.getPersistenceMarshaller().register(new PersistenceContextInitializerImpl());
+      // Only registered when the cache container configures the shared resources
+      this.resources = ctx.getCache().getAdvancedCache().getComponentRegistry().getGlobalComponentRegistry()
+            .getComponent(RocksDBResources.class);
+
+      this.expirationMode = configuration.expirationMode();
+      if (configuration.bulkIngest() && configuration.segmented()) {
+         int numSegments = ctx.getCache().getCacheConfiguration().clustering().hash().numSegments();
+         ingestionLocks = new ReadWriteLock[numSegments];
+         for (int i = 0; i < numSegments; ++i) {
+            ingestionLocks[i] = new ReentrantReadWriteLock();
+         }
+         ingestions = new AtomicReferenceArray<>(numSegments);
+      }
+      if (expirationMode == ExpirationMode.TTL) {
+         // The configuration builder made sure the cache has a lifespan
+         ttlLifespan = ctx.getCache().getCacheConfiguration().expiration().lifespan();
+         // RocksDB TTLs are in seconds, round up so that entries are never dropped before they expire
+         ttlSeconds = (int) Math.min(Integer.MAX_VALUE, (ttlLifespan + 999) / 1000);
+      }
 
       // Has to be done before we open the database, so we can pass the properties
       Properties allProperties = configuration.properties();
@@ -135,8 +183,24 @@ public CompletionStage<Void> start(InitializationContext ctx) {
 
       return blockingManager.runBlocking(() -> {
          try {
+            checkExistingExpirationMode();
+            if (expirationMode != ExpirationMode.DATABASE) {
+               // Left over by a store that tracked the mortal entries in a separate database, their expiration
+               // metadata is in the stored values as well
+               Util.recursiveFileRemove(getExpirationLocation());
+            }
+            // SST files of the ingestions interrupted by a crash
+            Util.recursiveFileRemove(getIngestionLocation());
             initDefaultHandler();
             MetadataImpl existingMeta = handler.loadMetadata();
+            if (existingMeta != null && existingMeta.expirationMode != null) {
+               ExpirationMode existingMode = ExpirationMode.valueOf(existingMeta.expirationMode);
+               // The mortal entries written in VALUE mode are missing from the separate expiration database
+               if (existingMode == ExpirationMode.VALUE && expirationMode == ExpirationMode.DATABASE) {
+                  handler.close();
+                  throw log.rocksDBExpirationModeChanged(ctx.getCache().getName(), existingMode.name(), expirationMode);
+               }
+            }
             if (existingMeta == null && !configuration.purgeOnStartup()) {
                String cacheName = ctx.getCache().getName();
                // Metadata does not exist, therefore we must be reading from a pre-12.x store. Migrate the old data
@@ -146,18 +210,58 @@ public CompletionStage<Void> start(InitializationContext ctx) {
             }
             // Update the metadata entry to use the current Infinispan version
             handler.writeMetadata();
+         } catch (CacheConfigurationException e) {
+            throw e;
          } catch (Exception e) {
             throw new CacheConfigurationException("Unable to open database", e);
          }
       }, "rocksdb-open");
    }
 
+   /**
+    * Refuses to open an existing database across the TTL boundary before anything is opened: TtlDB would read the
+    * last bytes of the plain values as timestamps and its compactions would drop the entries, while the values
+    * written by TtlDB would not unmarshall without it.
+    */
+   private void checkExistingExpirationMode() throws RocksDBException {
+      Path location = getLocation();
+      if (!location.resolve("CURRENT").toFile().exists()) {
+         return;
+      }
+      List<byte[]> columnFamilies;
+      try (Options options = new Options()) {
+         columnFamilies = RocksDB.listColumnFamilies(options, location.toString());
+      }
+      boolean ttl = columnFamilies.stream().anyMatch(name -> Arrays.equals(name, META_TTL_COLUMN_FAMILY));
+      if (ttl != (expirationMode == ExpirationMode.TTL)) {
+         String existingMode = ttl ? ExpirationMode.TTL.name() : ExpirationMode.VALUE + " or " + ExpirationMode.DATABASE;
+         throw log.rocksDBExpirationModeChanged(ctx.getCache().getName(), existingMode, expirationMode);
+      }
+   }
+
+   /**
+    * TtlDB drops the entries older than the cache lifespan, so the entries that could live longer are refused
+    * instead of silently disappearing.
+    */
+   private void checkTtl(MarshallableEntry<?, ?> entry) {
+      if (expirationMode == ExpirationMode.TTL) {
+         Metadata metadata = entry.getMetadata();
+         long lifespan = metadata == null ? -1 : metadata.lifespan();
+         if (lifespan <= 0 || lifespan > ttlLifespan) {
+            throw log.rocksDBLifespanExceedsTtl(entry.getKey(), lifespan, ttlLifespan);
+         }
+      }
+   }
+
    private void initDefaultHandler() throws RocksDBException {
-      this.handler = createHandler(getLocation(), getExpirationLocation());
+      this.handler = createHandler(getLocation(), expirationMode == ExpirationMode.DATABASE ? getExpirationLocation() : null);
       this.db = handler.db;
       this.expiredDb = handler.expiredDb;
    }
 
+   /**
+    * @param expired the location of the database of the mortal entries, or {@code null} if they are not tracked
+    */
    private RocksDBHandler createHandler(Path data, Path expired) throws RocksDBException {
       AdvancedCache<?, ?> cache = ctx.getCache().getAdvancedCache();
       if (configuration.segmented()) {
@@ -181,9 +285,10 @@ private void migrateFromV11() throws IOException, RocksDBException {
 
       Path newDbLocation = getQualifiedLocation("new_data");
       Path newExpiredDbLocation = getQualifiedLocation("new_expired");
+      boolean trackExpiry = expirationMode == ExpirationMode.DATABASE;
       try {
          // Create new DB and open handle
-         RocksDBHandler migrationHandler = createHandler(newDbLocation, newExpiredDbLocation);
+         RocksDBHandler migrationHandler = createHandler(newDbLocation, trackExpiry ? newExpiredDbLocation : null);
 
          Function<RocksIterator, Flowable<MarshallableEntry<K, V>>> function =
                it -> Flowable.fromIterable(() -> new RocksLegacyEntryIterator(it));
@@ -199,7 +304,7 @@ private void migrateFromV11() throws IOException, RocksDBException {
                .subscribe(e -> {
                   ColumnFamilyHandle handle = migrationHandler.getHandle(keyPartitioner.getSegment(e.getKey()));
                   batch.put(handle, e.getKeyBytes().copy().getBuf(), marshall(e.getMarshalledValue()));
-                  if (e.expiryTime() > 1)
+                  if (trackExpiry && e.expiryTime() > 1)
                      expirableEntries.add(e);
                });
 
@@ -220,7 +325,9 @@ private void migrateFromV11() throws IOException, RocksDBException {
          Util.recursiveFileRemove(dataLocation);
          Util.recursiveFileRemove(expirationLocation);
          Files.move(newDbLocation, dataLocation, StandardCopyOption.REPLACE_EXISTING);
-         Files.move(newExpiredDbLocation, expirationLocation, StandardCopyOption.REPLACE_EXISTING);
+         if (trackExpiry) {
+            Files.move(newExpiredDbLocation, expirationLocation, StandardCopyOption.REPLACE_EXISTING);
+         }
 
          // Open db handle to new db at original location
          initDefaultHandler();
@@ -243,12 +350,23 @@ private Path getExpirationLocation() {
       return getQualifiedLocation("expired");
    }
 
+   private Path getIngestionLocation() {
+      return getQualifiedLocation("ingest");
+   }
+
    private WriteOptions dataWriteOptions() {
       if (dataWriteOptions == null)
          dataWriteOptions = new WriteOptions().setDisableWAL(false);
       return dataWriteOptions;
    }
 
+   private WriteOptions purgeWriteOptions() {
+      if (purgeWriteOptions == null)
+         // Low priority writes are throttled when the compactions fall behind, instead of the foreground writes
+         purgeWriteOptions = new WriteOptions().setDisableWAL(false).setLowPri(true);
+      return purgeWriteOptions;
+   }
+
    protected DBOptions dataDbOptions() {
       DBOptions dbOptions;
       if (databaseProperties != null) {
@@ -259,6 +377,9 @@ protected DBOptions dataDbOptions() {
       } else {
          dbOptions = new DBOptions();
       }
+      if (resources != null) {
+         resources.configure(dbOptions);
+      }
       return dbOptions
             .setCreateIfMissing(true)
             // We have to create missing column families on open.
@@ -297,7 +418,8 @@ public Set<Characteristic> characteristics() {
 
    @Override
    public CompletionStage<Boolean> isAvailable() {
-      return blockingManager.supplyBlocking(() -> getLocation().toFile().exists() && getExpirationLocation().toFile().exists(),
+      return blockingManager.supplyBlocking(() -> getLocation().toFile().exists() &&
+                  (expirationMode != ExpirationMode.DATABASE || getExpirationLocation().toFile().exists()),
             "rocksdb-available");
    }
 
@@ -354,28 +476,51 @@ public CompletionStage<Void> batch(int publisherCount, Publisher<SegmentedPublis
          Publisher<SegmentedPublisher<MarshallableEntry<K, V>>> writePublisher) {
       WriteBatch batch = new WriteBatch();
       Set<MarshallableEntry<K, V>> expirableEntries = new HashSet<>();
+      ByRef<PersistenceException> refused = new ByRef<>(null);
+      Map<Integer, List<byte[]>> keysBySegment = ingestionLocks != null ? new TreeMap<>() : null;
       Flowable.fromPublisher(removePublisher)
             .subscribe(sp -> {
                ColumnFamilyHandle handle = handler.getHandle(sp.getSegment());
                Flowable.fromPublisher(sp)
-                     .subscribe(removed -> batch.delete(handle, marshall(removed)));
+                     .subscribe(removed -> {
+                        byte[] keyBytes = marshall(removed);
+                        batch.delete(handle, keyBytes);
+                        if (keysBySegment != null) {
+                           keysBySegment.computeIfAbsent(sp.getSegment(), ignored -> new ArrayList<>()).add(keyBytes);
+                        }
+                     });
             });
       Flowable.fromPublisher(writePublisher)
             .subscribe(sp -> {
                ColumnFamilyHandle handle = handler.getHandle(sp.getSegment());
                Flowable.fromPublisher(sp)
                      .subscribe(me -> {
-                        batch.put(handle, marshall(me.getKey()), marshall(me.getMarshalledValue()));
-                        if (me.expiryTime() > -1) {
+                        try {
+                           checkTtl(me);
+                        } catch (PersistenceException e) {
+                           refused.set(e);
+                           return;
+                        }
+                        byte[] keyBytes = marshall(me.getKey());
+                        batch.put(handle, keyBytes, marshall(me.getMarshalledValue()));
+                        if (keysBySegment != null) {
+                           keysBySegment.computeIfAbsent(sp.getSegment(), ignored -> new ArrayList<>()).add(keyBytes);
+                        }
+                        if (expiredDb != null && me.expiryTime() > -1) {
                            expirableEntries.add(me);
                         }
                      });
             });
+      if (refused.get() != null) {
+         batch.close();
+         return CompletableFutures.completedExceptionFuture(refused.get());
+      }
       if (batch.count() <= 0) {
          batch.close();
          return CompletableFutures.completedNull();
       }
       return blockingManager.runBlocking(() -> {
+         List<Lock> locks = lockForWrite(keysBySegment);
          try {
             db.write(dataWriteOptions(), batch);
             for (MarshallableEntry<K, V> me : expirableEntries) {
@@ -383,16 +528,62 @@ public CompletionStage<Void> batch(int publisherCount, Publisher<SegmentedPublis
             }
          } catch (RocksDBException e) {
             throw new PersistenceException(e);
+         } finally {
+            locks.forEach(Lock::unlock);
          }
       }, "rocksdb-batch").whenComplete((ignore, t) -> batch.close());
    }
 
+   /**
+    * Locks the segment against the ingestion of its file and records the key if the segment is being ingested, so that
+    * the write is not overwritten by the transferred value.
+    *
+    * @return the lock to release after the write, or {@code null} if the store does not ingest segments
+    */
+   private Lock lockForWrite(int segment, byte[] keyBytes) {
+      if (ingestionLocks == null) {
+         return null;
+      }
+      Lock lock = ingestionLocks[segment].readLock();
+      lock.lock();
+      SstIngestion ingestion = ingestions.get(segment);
+      if (ingestion != null) {
+         ingestion.written.add(keyBytes);
+      }
+      return lock;
+   }
+
+   private List<Lock> lockForWrite(Map<Integer, List<byte[]>> keysBySegment) {
+      if (keysBySegment == null) {
+         return Collections.emptyList();
+      }
+      // In segment order, the map is sorted
+      List<Lock> locks = new ArrayList<>(keysBySegment.size());
+      keysBySegment.forEach((segment, keys) -> {
+         Lock lock = ingestionLocks[segment].readLock();
+         lock.lock();
+         locks.add(lock);
+         SstIngestion ingestion = ingestions.get(segment);
+         if (ingestion != null) {
+            ingestion.written.addAll(keys);
+         }
+      });
+      return locks;
+   }
+
+   private static void unlock(Lock lock) {
+      if (lock != null) {
+         lock.unlock();
+      }
+   }
+
    @Override
    public Publisher<MarshallableEntry<K, V>> purgeExpired() {
       Publisher<List<MarshallableEntry<K, V>>> purgedBatches = blockingManager.blockingPublisher(Flowable.defer(() -> {
          // We check expiration based on time of subscription only
          long now = timeService.wallClockTime();
-         return actualPurgeExpired(now)
+         Flowable<MarshallableEntry<K, V>> expired = expiredDb != null ? actualPurgeExpired(now) : scanPurgeExpired(now);
+         return expired
                // We return a buffer of expired entries emitted to the non blocking thread
                // This prevents waking up the non blocking thread for every entry as they will most likely be
                // consumed much faster than emission (since each emission performs a get and remove)
@@ -475,6 +666,21 @@ protected byte[] getNext() {
       return expiredEntryFlowable;
    }
 
+   /**
+    * Finds the expired entries by scanning the data column families, as their expiration metadata is in the values.
+    */
+   private Flowable<MarshallableEntry<K, V>> scanPurgeExpired(long now) {
+      Flowable<MarshallableEntry<K, V>> expiredEntryFlowable = handler.dataHandles()
+            .concatMap(handle -> Flowable.using(() -> new PurgeIterator(handle, now),
+                  iterator -> Flowable.fromIterable(() -> iterator),
+                  PurgeIterator::close));
+      if (log.isTraceEnabled()) {
+         expiredEntryFlowable = expiredEntryFlowable
+               .doOnSubscribe(subscription -> log.tracef("Purging entries from RocksDBStore"));
+      }
+      return expiredEntryFlowable;
+   }
+
    private MarshalledValue handlePossiblyExpiredKey(ColumnFamilyHandle columnFamilyHandle, byte[] marshalledKey,
          long now) throws RocksDBException {
       byte[] valueBytes = db.get(columnFamilyHandle, marshalledKey);
@@ -504,6 +710,39 @@ public CompletionStage<Void> removeSegments(IntSet segments) {
       return handler.removeSegments(segments);
    }
 
+   @Override
+   public CompletionStage<SegmentIngestion<K, V>> startIngestion(int segment) {
+      // The SST files contain the values as they are, without the TTL suffix of TtlDB and without the entries of the
+      // separate expiration database
+      if (!configuration.bulkIngest() || !configuration.segmented() || expirationMode != ExpirationMode.VALUE) {
+         return CompletableFutures.completedNull();
+      }
+      return blockingManager.supplyBlocking(() -> {
+         ColumnFamilyHandle handle = handler.getHandle(segment);
+         if (handle == null) {
+            return null;
+         }
+         // No write can happen between the check and the registration, the later ones are recorded
+         Lock lock = ingestionLocks[segment].writeLock();
+         lock.lock();
+         try (ReadOptions readOptions = new ReadOptions().setFillCache(false);
+              RocksIterator iterator = db.newIterator(handle, readOptions)) {
+            iterator.seekToFirst();
+            if (iterator.isValid()) {
+               return null;
+            }
+            if (log.isTraceEnabled()) {
+               log.tracef("Starting the ingestion of segment %d", segment);
+            }
+            SstIngestion ingestion = new SstIngestion(segment, handle);
+            ingestions.set(segment, ingestion);
+            return ingestion;
+         } finally {
+            lock.unlock();
+         }
+      }, "rocksdb-startIngestion");
+   }
+
    private byte[] marshall(Object entry) {
       try {
          return marshaller.objectToByteBuffer(entry);
@@ -551,6 +790,86 @@ private void addNewExpiry(RocksDB expiredDb, MarshallableEntry<? extends K, ? ex
       putExpireDbData(expiredDb, new ExpiryEntry(expiry, keyBytes));
    }
 
+   /**
+    * Iterates over a data column family and returns its expired entries, which are deleted in batches of
+    * {@link #PURGE_BATCH_SIZE} with low priority writes. The entries are only returned once they are deleted.
+    */
+   private class PurgeIterator extends AbstractIterator<MarshallableEntry<K, V>> implements AutoCloseable {
+      private final ColumnFamilyHandle handle;
+      private final long now;
+      private final ReadOptions readOptions;
+      private final RocksIterator iterator;
+      private final List<byte[]> keys = new ArrayList<>(PURGE_BATCH_SIZE);
+      private final List<byte[]> values = new ArrayList<>(PURGE_BATCH_SIZE);
+      private final List<MarshalledValue> expired = new ArrayList<>(PURGE_BATCH_SIZE);
+      private final Deque<MarshallableEntry<K, V>> purged = new ArrayDeque<>(PURGE_BATCH_SIZE);
+
+      PurgeIterator(ColumnFamilyHandle handle, long now) {
+         this.handle = handle;
+         this.now = now;
+         this.readOptions = new ReadOptions().setFillCache(false);
+         this.iterator = db.newIterator(handle, readOptions);
+         iterator.seekToFirst();
+      }
+
+      @Override
+      protected MarshallableEntry<K, V> getNext() {
+         try {
+            while (purged.isEmpty() && iterator.isValid()) {
+               while (iterator.isValid() && keys.size() < PURGE_BATCH_SIZE) {
+                  byte[] keyBytes = iterator.key();
+                  byte[] valueBytes = iterator.value();
+                  iterator.next();
+                  MarshalledValue mv = unmarshall(valueBytes);
+                  if (mv == null || mv.getMetadataBytes() == null) {
+                     continue;
+                  }
+                  Metadata metadata = unmarshall(MarshallUtil.toByteArray(mv.getMetadataBytes()));
+                  if (MarshallableEntryImpl.isExpired(metadata, now, mv.getCreated(), mv.getLastUsed())) {
+                     keys.add(keyBytes);
+                     values.add(valueBytes);
+                     expired.add(mv);
+                  }
+               }
+               flush();
+            }
+            return purged.poll();
+         } catch (RocksDBException e) {
+            throw new PersistenceException(e);
+         }
+      }
+
+      private void flush() throws RocksDBException {
+         if (keys.isEmpty()) {
+            return;
+         }
+         try (WriteBatch batch = new WriteBatch()) {
+            for (int i = 0; i < keys.size(); ++i) {
+               // The entry may have been written again since the iterator read it, only the same value is deleted.
+               // This leaves the same window between the read and the delete as a single entry purge.
+               byte[] keyBytes = keys.get(i);
+               if (Arrays.equals(values.get(i), db.get(handle, readOptions, keyBytes))) {
+                  batch.delete(handle, keyBytes);
+                  purged.add(entryFactory.create(unmarshall(keyBytes), expired.get(i)));
+               }
+            }
+            if (batch.count() > 0) {
+               db.write(purgeWriteOptions(), batch);
+            }
+         } finally {
+            keys.clear();
+            values.clear();
+            expired.clear();
+         }
+      }
+
+      @Override
+      public void close() {
+         iterator.close();
+         readOptions.close();
+      }
+   }
+
    @ProtoTypeId(ProtoStreamTypeIds.ROCKSDB_EXPIRY_BUCKET)
    static final class ExpiryBucket {
       @ProtoField(number = 1, collectionImplementation = ArrayList.class)
@@ -570,9 +889,14 @@ static final class MetadataImpl {
       @ProtoField(number = 1, defaultValue = "-1")
       short version;
 
+      // Null for the stores written before the expiration modes, they tracked the mortal entries in a separate database
+      @ProtoField(number = 2)
+      String expirationMode;
+
       @ProtoFactory
-      MetadataImpl(short version) {
+      MetadataImpl(short version, String expirationMode) {
          this.version = version;
+         this.expirationMode = expirationMode;
       }
    }
 
@@ -686,8 +1010,41 @@ private abstract class RocksDBHandler {
 
       abstract ColumnFamilyHandle getHandleForMarshalledKey(byte[] marshalledKey);
 
+      /**
+       * @return the handles of the column families holding the cache entries
+       */
+      abstract Flowable<ColumnFamilyHandle> dataHandles();
+
+      /**
+       * Opens the database, with the given TTLs in seconds when the expiration mode is {@link ExpirationMode#TTL}.
+       */
+      RocksDB openDatabase(Path location, DBOptions options, List<ColumnFamilyDescriptor> descriptors,
+            List<ColumnFamilyHandle> handles, List<Integer> ttls) throws RocksDBException {
+         if (expirationMode == ExpirationMode.TTL) {
+            return TtlDB.open(options, location.toString(), descriptors, handles, ttls, false);
+         }
+         return RocksDB.open(options, location.toString(), descriptors, handles);
+      }
+
+      byte[] metaColumnFamily() {
+         return expirationMode == ExpirationMode.TTL ? META_TTL_COLUMN_FAMILY : META_COLUMN_FAMILY;
+      }
+
+      ColumnFamilyHandle createColumnFamily(ColumnFamilyDescriptor descriptor) throws RocksDBException {
+         if (expirationMode == ExpirationMode.TTL) {
+            return ((TtlDB) db).createColumnFamilyWithTtl(descriptor, ttlSeconds);
+         }
+         return db.createColumnFamily(descriptor);
+      }
+
+      void closeExpiredDb() {
+         if (expiredDb != null) {
+            expiredDb.close();
+         }
+      }
+
       void writeMetadata() throws RocksDBException {
-         MetadataImpl metadata = new MetadataImpl(Version.getVersionShort());
+         MetadataImpl metadata = new MetadataImpl(Version.getVersionShort(), expirationMode.name());
          db.put(metaColumnFamilyHandle, META_COLUMN_FAMILY_KEY, marshall(metadata));
       }
 
@@ -705,6 +1062,9 @@ ColumnFamilyDescriptor newDescriptor(byte[] name) {
          } else {
             columnFamilyOptions = new ColumnFamilyOptions();
          }
+         if (resources != null) {
+            resources.configure(columnFamilyOptions);
+         }
          if (configuration.attributes().attribute(RocksDBStoreConfiguration.COMPRESSION_TYPE).isModified()) {
             columnFamilyOptions.setCompressionType(configuration.compressionType().getValue());
          }
@@ -743,17 +1103,21 @@ CompletionStage<Void> write(int segment, MarshallableEntry<? extends K, ? extend
             log.trace("Ignoring write as handle is not currently configured");
             return CompletableFutures.completedNull();
          }
+         checkTtl(me);
          try {
             byte[] marshalledKey = MarshallUtil.toByteArray(me.getKeyBytes());
             byte[] marshalledValue = marshall(me.getMarshalledValue());
             return blockingManager.runBlocking(() -> {
+               Lock lock = lockForWrite(segment, marshalledKey);
                try {
                   db.put(handle, marshalledKey, marshalledValue);
-                  if (me.expiryTime() > -1) {
+                  if (expiredDb != null && me.expiryTime() > -1) {
                      addNewExpiry(expiredDb, me);
                   }
                } catch (RocksDBException e) {
                   throw new PersistenceException(e);
+               } finally {
+                  unlock(lock);
                }
             }, "rocksdb-write");
 
@@ -767,6 +1131,8 @@ CompletionStage<Boolean> delete(int segment, Object key) {
             byte[] keyBytes = marshall(key);
             ColumnFamilyHandle handle = getHandle(segment);
             return blockingManager.supplyBlocking(() -> {
+               // Recorded even if the key is not there yet, so that an ingestion does not bring it back
+               Lock lock = lockForWrite(segment, keyBytes);
                try {
                   if (db.get(handle, keyBytes) == null) {
                      return Boolean.FALSE;
@@ -775,6 +1141,8 @@ CompletionStage<Boolean> delete(int segment, Object key) {
                   return Boolean.TRUE;
                } catch (RocksDBException e) {
                   throw new PersistenceException(e);
+               } finally {
+                  unlock(lock);
                }
             }, "rocksdb-delete");
          } catch (Exception e) {
@@ -824,7 +1192,7 @@ private final class NonSegmentedRocksDBHandler extends RocksDBHandler {
 
       private NonSegmentedRocksDBHandler(Path data, Path expired, KeyPartitioner keyPartitioner) throws RocksDBException {
          this.db = open(data, dataDbOptions());
-         this.expiredDb = openDatabase(expired, expiredDbOptions());
+         this.expiredDb = expired == null ? null : RocksDBStore.openDatabase(expired, expiredDbOptions());
          this.keyPartitioner = keyPartitioner;
       }
 
@@ -843,6 +1211,11 @@ ColumnFamilyHandle getHandleForMarshalledKey(byte[] marshalledKey) {
          return defaultColumnFamilyHandle;
       }
 
+      @Override
+      Flowable<ColumnFamilyHandle> dataHandles() {
+         return Flowable.just(defaultColumnFamilyHandle);
+      }
+
       @Override
       RocksDB open(Path location, DBOptions options) throws RocksDBException {
          File dir = location.toFile();
@@ -850,8 +1223,8 @@ RocksDB open(Path location, DBOptions options) throws RocksDBException {
          List<ColumnFamilyDescriptor> descriptors = new ArrayList<>(2);
          List<ColumnFamilyHandle> handles = new ArrayList<>(2);
          descriptors.add(newDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY));
-         descriptors.add(newDescriptor(META_COLUMN_FAMILY));
-         RocksDB rocksDB = RocksDB.open(options, location.toString(), descriptors, handles);
+         descriptors.add(newDescriptor(metaColumnFamily()));
+         RocksDB rocksDB = openDatabase(location, options, descriptors, handles, Arrays.asList(ttlSeconds, 0));
 
          defaultColumnFamilyHandle = handles.get(0);
          metaColumnFamilyHandle = handles.get(1);
@@ -891,7 +1264,7 @@ void close() {
          defaultColumnFamilyHandle.close();
 
          db.close();
-         expiredDb.close();
+         closeExpiredDb();
       }
 
       protected RocksIterator wrapIterator(RocksDB db, ReadOptions readOptions, int segment) {
@@ -933,7 +1306,7 @@ private class SegmentedRocksDBHandler extends RocksDBHandler {
       private SegmentedRocksDBHandler(Path data, Path expired, int segmentCount) throws RocksDBException {
          this.handles = new AtomicReferenceArray<>(segmentCount);
          this.db = open(data, dataDbOptions());
-         this.expiredDb = openDatabase(expired, expiredDbOptions());
+         this.expiredDb = expired == null ? null : RocksDBStore.openDatabase(expired, expiredDbOptions());
       }
 
       byte[] byteArrayFromInt(int val) {
@@ -960,6 +1333,12 @@ ColumnFamilyHandle getHandleForMarshalledKey(byte[] marshalledKey) {
          return getHandle(unmarshall(marshalledKey));
       }
 
+      @Override
+      Flowable<ColumnFamilyHandle> dataHandles() {
+         return Flowable.range(0, handles.length())
+               .concatMapMaybe(segment -> Maybe.fromCallable(() -> handles.get(segment)));
+      }
+
       @Override
       RocksDB open(Path location, DBOptions options) throws RocksDBException {
          File dir = location.toFile();
@@ -971,13 +1350,17 @@ RocksDB open(Path location, DBOptions options) throws RocksDBException {
          descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, new ColumnFamilyOptions()));
 
          // Create the meta column family
-         descriptors.add(new ColumnFamilyDescriptor(META_COLUMN_FAMILY, new ColumnFamilyOptions()));
+         descriptors.add(new ColumnFamilyDescriptor(metaColumnFamily(), new ColumnFamilyOptions()));
 
+         List<Integer> ttls = new ArrayList<>(segmentCount + 2);
+         ttls.add(0);
+         ttls.add(0);
          for (int i = 0; i < segmentCount; ++i) {
             descriptors.add(newDescriptor(byteArrayFromInt(i)));
+            ttls.add(ttlSeconds);
          }
 
-         RocksDB rocksDB = RocksDB.open(options, location.toString(), descriptors, outHandles);
+         RocksDB rocksDB = openDatabase(location, options, descriptors, outHandles, ttls);
          metaColumnFamilyHandle = outHandles.get(1);
          for (int i = 0; i < segmentCount; ++i) {
             handles.set(i, outHandles.get(i + 2));
@@ -1013,7 +1396,7 @@ void close() {
          }
 
          db.close();
-         expiredDb.close();
+         closeExpiredDb();
       }
 
       @Override
@@ -1067,7 +1450,7 @@ CompletionStage<Void> addSegments(IntSet segments) {
             }
             byte[] cfName = byteArrayFromInt(segment);
             try {
-               ColumnFamilyHandle handle = db.createColumnFamily(newDescriptor(cfName));
+               ColumnFamilyHandle handle = createColumnFamily(newDescriptor(cfName));
                handles.set(segment, handle);
             } catch (RocksDBException e) {
                throw new PersistenceException(e);
@@ -1097,6 +1480,157 @@ CompletionStage<Void> removeSegments(IntSet segments) {
       }
    }
 
+   /**
+    * Sorts the entries of a segment in memory and writes them to SST files with {@link SstFileWriter}, which are moved
+    * into the column family of the segment by {@link RocksDB#ingestExternalFile}. A file is ingested every
+    * {@link #INGESTION_BUFFER_SIZE} bytes, which is fine as the segment is not read until the state transfer completes.
+    * Keys written to the column family since the ingestion started are newer than the transferred ones, so they are
+    * left out of the files.
+    */
+   private class SstIngestion implements SegmentIngestion<K, V> {
+      private final int segment;
+      private final ColumnFamilyHandle handle;
+      private final TreeMap<byte[], byte[]> buffer = new TreeMap<>(RocksDBStore::compareUnsigned);
+      // The keys written or removed since the ingestion started, their transferred values are dropped
+      final Set<byte[]> written = new ConcurrentSkipListSet<>(RocksDBStore::compareUnsigned);
+      private long bufferedBytes;
+      private int fileCount;
+
+      SstIngestion(int segment, ColumnFamilyHandle handle) {
+         this.segment = segment;
+         this.handle = handle;
+      }
+
+      @Override
+      public CompletionStage<Void> add(Collection<MarshallableEntry<K, V>> entries) {
+         List<byte[]> marshalled = new ArrayList<>(entries.size() * 2);
+         for (MarshallableEntry<K, V> me : entries) {
+            marshalled.add(MarshallUtil.toByteArray(me.getKeyBytes()));
+            marshalled.add(marshall(me.getMarshalledValue()));
+         }
+         return blockingManager.runBlocking(() -> {
+            for (int i = 0; i < marshalled.size(); i += 2) {
+               byte[] key = marshalled.get(i);
+               byte[] value = marshalled.get(i + 1);
+               buffer.put(key, value);
+               bufferedBytes += key.length + value.length;
+            }
+            if (bufferedBytes >= INGESTION_BUFFER_SIZE) {
+               ingestBuffer();
+            }
+         }, "rocksdb-ingest");
+      }
+
+      @Override
+      public CompletionStage<Void> complete() {
+         return blockingManager.runBlocking(() -> {
+            try {
+               ingestBuffer();
+            } finally {
+               ingestions.compareAndSet(segment, this, null);
+            }
+         }, "rocksdb-ingest");
+      }
+
+      @Override
+      public CompletionStage<Void> abort() {
+         return blockingManager.runBlocking(() -> {
+            ingestions.compareAndSet(segment, this, null);
+            buffer.clear();
+            bufferedBytes = 0;
+         }, "rocksdb-ingest");
+      }
+
+      private void ingestBuffer() {
+         if (buffer.isEmpty()) {
+            return;
+         }
+         Path file = getIngestionLocation().resolve(segment + "-" + fileCount++ + ".sst");
+         try (EnvOptions envOptions = new EnvOptions();
+              Options options = sstFileOptions();
+              SstFileWriter writer = new SstFileWriter(envOptions, options)) {
+            Files.createDirectories(file.getParent());
+            writer.open(file.toString());
+            // The column family was empty when the ingestion started, so only the written keys can exist
+            for (Iterator<Map.Entry<byte[], byte[]>> it = buffer.entrySet().iterator(); it.hasNext(); ) {
+               Map.Entry<byte[], byte[]> entry = it.next();
+               if (written.contains(entry.getKey())) {
+                  it.remove();
+               } else {
+                  writer.put(entry.getKey(), entry.getValue());
+               }
+            }
+            // An SST file cannot be empty
+            if (buffer.isEmpty()) {
+               return;
+            }
+            writer.finish();
+            // The ingested values are newer than anything in the column family, so no write may happen from the last
+            // check of the written keys until the file is in
+            Lock lock = ingestionLocks[segment].writeLock();
+            lock.lock();
+            try {
+               if (handler.getHandle(segment) != handle) {
+                  // The segment was removed in the meantime
+                  return;
+               }
+               if (written.stream().anyMatch(buffer::containsKey)) {
+                  // Some keys were written while the file was prepared, write the others as usual instead
+                  try (WriteBatch batch = new WriteBatch()) {
+                     for (Map.Entry<byte[], byte[]> entry : buffer.entrySet()) {
+                        if (!written.contains(entry.getKey())) {
+                           batch.put(handle, entry.getKey(), entry.getValue());
+                        }
+                     }
+                     db.write(dataWriteOptions(), batch);
+                  }
+               } else {
+                  try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions().setMoveFiles(true)) {
+                     db.ingestExternalFile(handle, Collections.singletonList(file.toString()), ingestOptions);
+                  }
+               }
+            } finally {
+               lock.unlock();
+            }
+            if (log.isTraceEnabled()) {
+               log.tracef("Ingested %d entries in segment %d", buffer.size(), segment);
+            }
+         } catch (RocksDBException | IOException e) {
+            throw new PersistenceException(e);
+         } finally {
+            buffer.clear();
+            bufferedBytes = 0;
+            try {
+               Files.deleteIfExists(file);
+            } catch (IOException e) {
+               log.debugf(e, "Cannot delete the SST file %s", file);
+            }
+         }
+      }
+   }
+
+   private Options sstFileOptions() {
+      Options options = new Options();
+      if (configuration.attributes().attribute(RocksDBStoreConfiguration.COMPRESSION_TYPE).isModified()) {
+         options.setCompressionType(configuration.compressionType().getValue());
+      }
+      return options;
+   }
+
+   /**
+    * Compares the keys in the order of the default RocksDB comparator.
+    */
+   private static int compareUnsigned(byte[] a, byte[] b) {
+      int length = Math.min(a.length, b.length);
+      for (int i = 0; i < length; ++i) {
+         int cmp = (a[i] & 0xff) - (b[i] & 0xff);
+         if (cmp != 0) {
+            return cmp;
+         }
+      }
+      return a.length - b.length;
+   }
+
    private void putExpireDbData(RocksDB expiredDb, ExpiryEntry entry) throws RocksDBException {
       final byte[] expiryBytes = marshall(entry.expiry);
       final byte[] existingBytes = expiredDb.get(expiryBytes);
@@ -12,7 +12,10 @@ public enum Attribute {
    // must be first
    UNKNOWN(null),
 
+   BLOCK_CACHE_SIZE("block-cache-size"),
+   BLOCK_CACHE_TYPE("block-cache-type"),
    BLOCK_SIZE("block-size"),
+   BULK_INGEST("bulk-ingest"),
    CACHE_SIZE("cache-size"),
    CLEAR_THRESHOLD("clear-threshold"),
    COMPRESSION_TYPE("compressionType"),
@@ -20,10 +23,14 @@ public enum Attribute {
    EXPIRY_QUEUE_SIZE("expiryQueueSize"),
    IMPLEMENTATION_TYPE("implementationType"),
    LOCATION("location"),
+   MODE("mode"),
    PATH("path"),
+   RATE_LIMIT("rate-limit"),
    RELATIVE_TO("relative-to"),
    QUEUE_SIZE("queue-size"),
+   STATISTICS("statistics"),
    TYPE("type"),
+   WRITE_BUFFER_SIZE("write-buffer-size"),
    ;
 
    private final String name;
@@ -0,0 +1,17 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+/**
+ * The implementation of the block cache shared by the RocksDB stores of a cache manager.
+ *
+ * @since 12.1
+ */
+public enum BlockCacheType {
+   /**
+    * A least recently used cache.
+    */
+   LRU,
+   /**
+    * A cache with the CLOCK algorithm, which scales better with concurrent reads.
+    */
+   CLOCK
+}
@@ -14,6 +14,7 @@ public enum Element {
 
    COMPRESSION("compression"),
    EXPIRATION("expiration"),
+   ROCKSDB_RESOURCES("rocksdb-resources"),
    ROCKSDB_STORE("rocksdb-store"),
    ;
 
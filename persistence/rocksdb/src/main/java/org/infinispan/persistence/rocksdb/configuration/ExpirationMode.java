@@ -0,0 +1,31 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+/**
+ * How the {@link org.infinispan.persistence.rocksdb.RocksDBStore} finds and removes the expired entries.
+ * <p>
+ * The mode of an existing store can only be changed from {@link #DATABASE} to {@link #VALUE}: the values are stored in
+ * a different format in {@link #TTL} mode, and the mortal entries written in {@link #VALUE} mode are missing from the
+ * database of the {@link #DATABASE} mode. The store refuses to start in another mode.
+ *
+ * @since 12.1
+ */
+public enum ExpirationMode {
+   /**
+    * Mortal entries are also written to a separate database ordered by expiration time, which the purge reads to find
+    * the expired entries. Every write of a mortal entry costs two writes.
+    */
+   DATABASE,
+   /**
+    * The expiration metadata is only kept in the stored values. The purge scans the data column families without
+    * filling the block cache and deletes the expired entries in batches, so a mortal entry costs a single write.
+    */
+   VALUE,
+   /**
+    * The data column families are opened with a RocksDB TTL equal to the lifespan of the cache, and the entries older
+    * than the lifespan are dropped by the RocksDB compactions, without raising expiration events. The cache must have
+    * a lifespan and the store refuses to write entries that are immortal or have a longer lifespan, as they would be
+    * dropped as well. Entries with a shorter lifespan or a max idle are still removed by the purge, as with
+    * {@link #VALUE}.
+    */
+   TTL
+}
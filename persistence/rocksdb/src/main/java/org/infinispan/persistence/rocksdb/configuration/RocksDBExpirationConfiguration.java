@@ -16,21 +16,24 @@ public class RocksDBExpirationConfiguration implements ConfigurationInfo {
 
    final static AttributeDefinition<String> EXPIRED_LOCATION = AttributeDefinition.builder("path", null, String.class).immutable().autoPersist(false).xmlName("path").build();
    final static AttributeDefinition<Integer> EXPIRY_QUEUE_SIZE = AttributeDefinition.builder("queueSize", 10000).immutable().autoPersist(false).build();
+   final static AttributeDefinition<ExpirationMode> MODE = AttributeDefinition.builder("mode", ExpirationMode.VALUE).immutable().autoPersist(false).build();
    private final AttributeSet attributes;
 
    public static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(RocksDBExpirationConfiguration.class, EXPIRED_LOCATION, EXPIRY_QUEUE_SIZE);
+      return new AttributeSet(RocksDBExpirationConfiguration.class, EXPIRED_LOCATION, EXPIRY_QUEUE_SIZE, MODE);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(EXPIRATION.getLocalName());
 
    private final Attribute<String> expiredLocation;
    private final Attribute<Integer> expiryQueueSize;
+   private final Attribute<ExpirationMode> mode;
 
    RocksDBExpirationConfiguration(AttributeSet attributes) {
       this.attributes = attributes;
       expiredLocation = attributes.attribute(EXPIRED_LOCATION);
       expiryQueueSize = attributes.attribute(EXPIRY_QUEUE_SIZE);
+      mode = attributes.attribute(MODE);
    }
 
    @Override
@@ -47,6 +50,13 @@ public String expiredLocation() {
       return expiredLocation.get();
    }
 
+   /**
+    * @return how the store finds and removes the expired entries
+    */
+   public ExpirationMode mode() {
+      return mode.get();
+   }
+
    /**
     * @deprecated Since 10.1, there is no more queue in {@link org.infinispan.persistence.rocksdb.RocksDBStore}
     */
@@ -0,0 +1,78 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+import org.infinispan.commons.configuration.BuiltBy;
+import org.infinispan.commons.configuration.attributes.AttributeDefinition;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.configuration.serializing.SerializedWith;
+
+/**
+ * The RocksDB resources shared by all the {@link org.infinispan.persistence.rocksdb.RocksDBStore} instances of a cache
+ * manager: a block cache, a write buffer manager that bounds the memory of the memtables, a rate limiter of the
+ * flushes and compactions and the RocksDB statistics.
+ *
+ * @since 12.1
+ */
+@BuiltBy(RocksDBResourcesConfigurationBuilder.class)
+@SerializedWith(RocksDBResourcesConfigurationSerializer.class)
+public class RocksDBResourcesConfiguration {
+   static final AttributeDefinition<Long> BLOCK_CACHE_SIZE = AttributeDefinition.builder("blockCacheSize", 0L).immutable().build();
+   static final AttributeDefinition<BlockCacheType> BLOCK_CACHE_TYPE = AttributeDefinition.builder("blockCacheType", BlockCacheType.LRU).immutable().build();
+   static final AttributeDefinition<Long> WRITE_BUFFER_SIZE = AttributeDefinition.builder("writeBufferSize", 0L).immutable().build();
+   static final AttributeDefinition<Long> RATE_LIMIT = AttributeDefinition.builder("rateLimit", 0L).immutable().build();
+   static final AttributeDefinition<Boolean> STATISTICS = AttributeDefinition.builder("statistics", false).immutable().build();
+
+   static AttributeSet attributeDefinitionSet() {
+      return new AttributeSet(RocksDBResourcesConfiguration.class, BLOCK_CACHE_SIZE, BLOCK_CACHE_TYPE, WRITE_BUFFER_SIZE,
+            RATE_LIMIT, STATISTICS);
+   }
+
+   private final AttributeSet attributes;
+
+   RocksDBResourcesConfiguration(AttributeSet attributes) {
+      this.attributes = attributes;
+   }
+
+   AttributeSet attributes() {
+      return attributes;
+   }
+
+   /**
+    * @return the capacity in bytes of the shared block cache, or 0 if every column family uses its own block cache
+    */
+   public long blockCacheSize() {
+      return attributes.attribute(BLOCK_CACHE_SIZE).get();
+   }
+
+   public BlockCacheType blockCacheType() {
+      return attributes.attribute(BLOCK_CACHE_TYPE).get();
+   }
+
+   /**
+    * @return the total size in bytes of the memtables of all the stores, charged to the shared block cache, or 0 if the
+    * memtables are not bounded
+    */
+   public long writeBufferSize() {
+      return attributes.attribute(WRITE_BUFFER_SIZE).get();
+   }
+
+   /**
+    * @return the bytes per second that the flushes and compactions of all the stores may write, or 0 if unlimited
+    */
+   public long rateLimit() {
+      return attributes.attribute(RATE_LIMIT).get();
+   }
+
+   /**
+    * @return whether the RocksDB statistics of all the stores are collected and exposed
+    */
+   public boolean statistics() {
+      return attributes.attribute(STATISTICS).get();
+   }
+
+   @Override
+   public String toString() {
+      return "RocksDBResourcesConfiguration{" +
+            "attributes=" + attributes +
+            '}';
+   }
+}
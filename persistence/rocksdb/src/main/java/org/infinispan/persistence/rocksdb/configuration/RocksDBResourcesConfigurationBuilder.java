@@ -0,0 +1,98 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration.BLOCK_CACHE_SIZE;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration.BLOCK_CACHE_TYPE;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration.RATE_LIMIT;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration.STATISTICS;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration.WRITE_BUFFER_SIZE;
+
+import java.lang.invoke.MethodHandles;
+
+import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.configuration.attributes.AttributeSet;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.persistence.rocksdb.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Configures the RocksDB resources shared by all the RocksDB stores of a cache manager, add it with
+ * {@link GlobalConfigurationBuilder#addModule(Class)}.
+ *
+ * @since 12.1
+ */
+public class RocksDBResourcesConfigurationBuilder implements Builder<RocksDBResourcesConfiguration> {
+   private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass(), Log.class);
+
+   private final AttributeSet attributes;
+
+   public RocksDBResourcesConfigurationBuilder(GlobalConfigurationBuilder builder) {
+      attributes = RocksDBResourcesConfiguration.attributeDefinitionSet();
+   }
+
+   /**
+    * Sets the capacity in bytes of the block cache shared by the column families of all the stores. Defaults to 0, every
+    * column family then uses its own block cache.
+    */
+   public RocksDBResourcesConfigurationBuilder blockCacheSize(long blockCacheSize) {
+      attributes.attribute(BLOCK_CACHE_SIZE).set(blockCacheSize);
+      return this;
+   }
+
+   /**
+    * Sets the implementation of the shared block cache, defaults to {@link BlockCacheType#LRU}.
+    */
+   public RocksDBResourcesConfigurationBuilder blockCacheType(BlockCacheType blockCacheType) {
+      attributes.attribute(BLOCK_CACHE_TYPE).set(blockCacheType);
+      return this;
+   }
+
+   /**
+    * Bounds the total size in bytes of the memtables of all the stores. Their memory is charged to the shared block
+    * cache, which has to be configured as well. Defaults to 0, unbounded.
+    */
+   public RocksDBResourcesConfigurationBuilder writeBufferSize(long writeBufferSize) {
+      attributes.attribute(WRITE_BUFFER_SIZE).set(writeBufferSize);
+      return this;
+   }
+
+   /**
+    * Limits the bytes per second written by the flushes and compactions of all the stores, so that they leave some I/O
+    * to the foreground reads. Defaults to 0, unlimited.
+    */
+   public RocksDBResourcesConfigurationBuilder rateLimit(long rateLimit) {
+      attributes.attribute(RATE_LIMIT).set(rateLimit);
+      return this;
+   }
+
+   /**
+    * Enables the collection of the RocksDB statistics of all the stores, exposed through JMX and metrics.
+    */
+   public RocksDBResourcesConfigurationBuilder statistics(boolean statistics) {
+      attributes.attribute(STATISTICS).set(statistics);
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      long blockCacheSize = attributes.attribute(BLOCK_CACHE_SIZE).get();
+      long writeBufferSize = attributes.attribute(WRITE_BUFFER_SIZE).get();
+      long rateLimit = attributes.attribute(RATE_LIMIT).get();
+      if (blockCacheSize < 0 || writeBufferSize < 0 || rateLimit < 0) {
+         throw log.rocksDBNegativeResourceSize();
+      }
+      if (writeBufferSize > 0 && blockCacheSize == 0) {
+         throw log.rocksDBWriteBufferRequiresBlockCache();
+      }
+   }
+
+   @Override
+   public RocksDBResourcesConfiguration create() {
+      return new RocksDBResourcesConfiguration(attributes.protect());
+   }
+
+   @Override
+   public RocksDBResourcesConfigurationBuilder read(RocksDBResourcesConfiguration template) {
+      attributes.read(template.attributes());
+      return this;
+   }
+}
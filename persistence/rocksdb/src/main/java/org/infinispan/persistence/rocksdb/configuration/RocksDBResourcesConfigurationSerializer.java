@@ -0,0 +1,23 @@
+package org.infinispan.persistence.rocksdb.configuration;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.infinispan.commons.util.Version;
+import org.infinispan.configuration.serializing.ConfigurationSerializer;
+import org.infinispan.configuration.serializing.XMLExtendedStreamWriter;
+
+/**
+ * Serializes the RocksDB resources shared by the stores of a cache manager.
+ *
+ * @since 12.1
+ */
+public class RocksDBResourcesConfigurationSerializer implements ConfigurationSerializer<RocksDBResourcesConfiguration> {
+
+   @Override
+   public void serialize(XMLExtendedStreamWriter writer, RocksDBResourcesConfiguration configuration) throws XMLStreamException {
+      writer.writeStartElement(Element.ROCKSDB_RESOURCES);
+      writer.writeDefaultNamespace(RocksDBStoreConfigurationParser.NAMESPACE + Version.getMajorMinor());
+      configuration.attributes().write(writer);
+      writer.writeEndElement();
+   }
+}
@@ -33,10 +33,11 @@ public class RocksDBStoreConfiguration extends AbstractStoreConfiguration implem
    final static AttributeDefinition<Integer> BLOCK_SIZE = AttributeDefinition.builder("blockSize", 0).immutable().build();
    final static AttributeDefinition<Long> CACHE_SIZE = AttributeDefinition.builder("cacheSize", 0l).immutable().build();
    final static AttributeDefinition<Integer> CLEAR_THRESHOLD = AttributeDefinition.builder("clearThreshold", 10000).immutable().build();
+   final static AttributeDefinition<Boolean> BULK_INGEST = AttributeDefinition.builder("bulkIngest", false).immutable().build();
 
    public static AttributeSet attributeDefinitionSet() {
       return new AttributeSet(RocksDBStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), LOCATION, COMPRESSION_TYPE,
-            BLOCK_SIZE, CACHE_SIZE, CLEAR_THRESHOLD);
+            BLOCK_SIZE, CACHE_SIZE, CLEAR_THRESHOLD, BULK_INGEST);
    }
 
    public static final ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(ROCKSDB_STORE.getLocalName(), true, false);
@@ -46,6 +47,7 @@ public static AttributeSet attributeDefinitionSet() {
    private final Attribute<Integer> blockSize;
    private final Attribute<Long> cacheSize;
    private final Attribute<Integer> clearThreshold;
+   private final Attribute<Boolean> bulkIngest;
    private final RocksDBExpirationConfiguration expiration;
 
    public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguration async, RocksDBExpirationConfiguration expiration) {
@@ -55,6 +57,7 @@ public RocksDBStoreConfiguration(AttributeSet attributes, AsyncStoreConfiguratio
       blockSize = attributes.attribute(BLOCK_SIZE);
       cacheSize = attributes.attribute(CACHE_SIZE);
       clearThreshold = attributes.attribute(CLEAR_THRESHOLD);
+      bulkIngest = attributes.attribute(BULK_INGEST);
       this.expiration = expiration;
    }
 
@@ -85,6 +88,10 @@ public String expiredLocation() {
       return expiration.expiredLocation();
    }
 
+   public ExpirationMode expirationMode() {
+      return expiration.mode();
+   }
+
    public CompressionType compressionType() {
       return compressionType.get();
    }
@@ -97,6 +104,10 @@ public Long cacheSize() {
       return cacheSize.get();
    }
 
+   public boolean bulkIngest() {
+      return bulkIngest.get();
+   }
+
    /**
     * @deprecated There is no more queue in {@link org.infinispan.persistence.rocksdb.RocksDBStore}
     */
@@ -1,12 +1,15 @@
 package org.infinispan.persistence.rocksdb.configuration;
 
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBExpirationConfiguration.EXPIRED_LOCATION;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBExpirationConfiguration.MODE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.BLOCK_SIZE;
+import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.BULK_INGEST;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.CACHE_SIZE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.CLEAR_THRESHOLD;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.COMPRESSION_TYPE;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration.LOCATION;
 
+import java.lang.invoke.MethodHandles;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -15,9 +18,12 @@
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.commons.configuration.elements.ElementDefinition;
 import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.ExpirationConfiguration;
 import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.rocksdb.logging.Log;
+import org.infinispan.util.logging.LogFactory;
 
 /**
  *
@@ -26,6 +32,7 @@
  */
 public class RocksDBStoreConfigurationBuilder extends AbstractStoreConfigurationBuilder<RocksDBStoreConfiguration, RocksDBStoreConfigurationBuilder>
       implements ConfigurationBuilderInfo {
+   private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass(), Log.class);
 
    protected RocksDBExpirationConfigurationBuilder expiration = new RocksDBExpirationConfigurationBuilder();
 
@@ -62,6 +69,14 @@ public RocksDBStoreConfigurationBuilder expiredLocation(String expiredLocation)
       return self();
    }
 
+   /**
+    * Sets how the store finds and removes the expired entries, defaults to {@link ExpirationMode#VALUE}.
+    */
+   public RocksDBStoreConfigurationBuilder expirationMode(ExpirationMode mode) {
+      expiration.mode(mode);
+      return self();
+   }
+
    public RocksDBStoreConfigurationBuilder blockSize(int blockSize) {
       attributes.attribute(BLOCK_SIZE).set(blockSize);
       return self();
@@ -72,6 +87,16 @@ public RocksDBStoreConfigurationBuilder cacheSize(long cacheSize) {
       return self();
    }
 
+   /**
+    * Enables loading the segments received through state transfer into the empty column families as SST files, instead
+    * of writing the entries one by one. Only used by segmented stores with the {@link ExpirationMode#VALUE} expiration
+    * mode. Defaults to false.
+    */
+   public RocksDBStoreConfigurationBuilder bulkIngest(boolean bulkIngest) {
+      attributes.attribute(BULK_INGEST).set(bulkIngest);
+      return self();
+   }
+
    /**
     * @deprecated Since 10.1, there is no more queue in {@link org.infinispan.persistence.rocksdb.RocksDBStore}
     */
@@ -100,6 +125,12 @@ public void validate() {
       // how do you validate required attributes?
       super.validate();
       expiration.validate();
+      // TtlDB drops every entry older than a single TTL, the cache lifespan, and the store refuses the entries that
+      // could outlive it
+      if (expiration.attributes().attribute(MODE).get() == ExpirationMode.TTL &&
+            getBuilder().expiration().attributes().attribute(ExpirationConfiguration.LIFESPAN).get() <= 0) {
+         throw log.rocksDBTtlRequiresLifespan();
+      }
    }
 
    @Override
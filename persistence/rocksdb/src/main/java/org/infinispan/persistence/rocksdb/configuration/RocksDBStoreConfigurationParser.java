@@ -1,6 +1,7 @@
 package org.infinispan.persistence.rocksdb.configuration;
 
 import static org.infinispan.configuration.parsing.ParseUtils.ignoreAttribute;
+import static org.infinispan.util.logging.Log.CONFIG;
 import static org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationParser.NAMESPACE;
 
 import javax.xml.stream.XMLStreamConstants;
@@ -13,6 +14,7 @@
 import org.infinispan.configuration.parsing.Namespace;
 import org.infinispan.configuration.parsing.ParseUtils;
 import org.infinispan.configuration.parsing.Parser;
+import org.infinispan.configuration.parsing.ParserScope;
 import org.infinispan.configuration.parsing.XMLExtendedStreamReader;
 import org.kohsuke.MetaInfServices;
 
@@ -24,6 +26,8 @@
 @MetaInfServices
 @Namespace(root = "rocksdb-store")
 @Namespace(uri = NAMESPACE + "*", root = "rocksdb-store", since = "9.0")
+@Namespace(root = "rocksdb-resources")
+@Namespace(uri = NAMESPACE + "*", root = "rocksdb-resources", since = "12.1")
 public class RocksDBStoreConfigurationParser implements ConfigurationParser {
 
    static final String NAMESPACE = Parser.NAMESPACE + "store:rocksdb:";
@@ -33,13 +37,20 @@ public RocksDBStoreConfigurationParser() {
 
    @Override
    public void readElement(XMLExtendedStreamReader reader, ConfigurationBuilderHolder holder) throws XMLStreamException {
-      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
       Element element = Element.forName(reader.getLocalName());
       switch (element) {
          case ROCKSDB_STORE: {
+            ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
             parseRocksDBCacheStore(reader, builder.persistence().addStore(RocksDBStoreConfigurationBuilder.class));
             break;
          }
+         case ROCKSDB_RESOURCES: {
+            if (!holder.inScope(ParserScope.CACHE_CONTAINER)) {
+               throw CONFIG.invalidScope(ParserScope.CACHE_CONTAINER.name(), holder.getScope());
+            }
+            parseResources(reader, holder.getGlobalConfigurationBuilder().addModule(RocksDBResourcesConfigurationBuilder.class));
+            break;
+         }
          default: {
             throw ParseUtils.unexpectedElement(reader);
          }
@@ -80,6 +91,14 @@ private void parseRocksDBCacheStore(XMLExtendedStreamReader reader, RocksDBStore
                builder.cacheSize(Long.parseLong(value));
                break;
             }
+            case BULK_INGEST: {
+               if (reader.getSchema().since(12, 1)) {
+                  builder.bulkIngest(Boolean.parseBoolean(value));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
+            }
             default: {
                Parser.parseStoreAttribute(reader, i, builder);
             }
@@ -108,6 +127,39 @@ private void parseRocksDBCacheStore(XMLExtendedStreamReader reader, RocksDBStore
       }
    }
 
+   private void parseResources(XMLExtendedStreamReader reader, RocksDBResourcesConfigurationBuilder builder) throws XMLStreamException {
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = reader.getAttributeValue(i);
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+            case BLOCK_CACHE_SIZE: {
+               builder.blockCacheSize(Long.parseLong(value));
+               break;
+            }
+            case BLOCK_CACHE_TYPE: {
+               builder.blockCacheType(BlockCacheType.valueOf(value));
+               break;
+            }
+            case WRITE_BUFFER_SIZE: {
+               builder.writeBufferSize(Long.parseLong(value));
+               break;
+            }
+            case RATE_LIMIT: {
+               builder.rateLimit(Long.parseLong(value));
+               break;
+            }
+            case STATISTICS: {
+               builder.statistics(Boolean.parseBoolean(value));
+               break;
+            }
+            default:
+               throw ParseUtils.unexpectedAttribute(reader, i);
+         }
+      }
+      ParseUtils.requireNoContent(reader);
+   }
+
    private void parseExpiry(XMLExtendedStreamReader reader, RocksDBStoreConfigurationBuilder builder) throws XMLStreamException {
       for (int i = 0; i < reader.getAttributeCount(); i++) {
          String value = reader.getAttributeValue(i);
@@ -117,6 +169,14 @@ private void parseExpiry(XMLExtendedStreamReader reader, RocksDBStoreConfigurati
                builder.expiredLocation(value);
                break;
             }
+            case MODE: {
+               if (reader.getSchema().since(12, 1)) {
+                  builder.expirationMode(ExpirationMode.valueOf(value));
+               } else {
+                  throw ParseUtils.unexpectedAttribute(reader, i);
+               }
+               break;
+            }
             case QUEUE_SIZE: {
                if (!reader.getSchema().since(12, 0)) {
                   ignoreAttribute(reader, i);
@@ -1,6 +1,8 @@
 package org.infinispan.persistence.rocksdb.logging;
 
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.persistence.rocksdb.configuration.ExpirationMode;
+import org.infinispan.persistence.spi.PersistenceException;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
@@ -21,4 +23,19 @@ public interface Log extends BasicLogger {
 
    @Message(value = "RocksDB properties %s, contains an unknown property", id = 294)
    CacheConfigurationException rocksDBUnknownPropertiesSupplied(String properties);
+
+   @Message(value = "The RocksDB TTL expiration mode requires a cache lifespan", id = 295)
+   CacheConfigurationException rocksDBTtlRequiresLifespan();
+
+   @Message(value = "The sizes and the rate limit of the shared RocksDB resources cannot be negative", id = 296)
+   CacheConfigurationException rocksDBNegativeResourceSize();
+
+   @Message(value = "The RocksDB write buffer size requires a shared block cache, as the memtables are charged to it", id = 297)
+   CacheConfigurationException rocksDBWriteBufferRequiresBlockCache();
+
+   @Message(value = "Cannot write key %s with lifespan %d to the RocksDB store in TTL expiration mode, the lifespan must be positive and at most the cache lifespan %d", id = 298)
+   PersistenceException rocksDBLifespanExceedsTtl(Object key, long lifespan, long cacheLifespan);
+
+   @Message(value = "The RocksDB store of cache '%s' was created with the %s expiration mode and cannot be opened with the %s expiration mode", id = 299)
+   CacheConfigurationException rocksDBExpirationModeChanged(String cacheName, String existingMode, ExpirationMode mode);
 }
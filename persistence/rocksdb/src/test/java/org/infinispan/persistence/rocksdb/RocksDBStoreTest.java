@@ -1,21 +1,29 @@
 package org.infinispan.persistence.rocksdb;
 
 import static java.util.Collections.singletonList;
+import static org.infinispan.commons.test.Exceptions.expectCompletionException;
+import static org.infinispan.commons.test.Exceptions.expectException;
 import static org.infinispan.commons.util.IntSets.immutableSet;
 import static org.infinispan.util.concurrent.CompletionStages.join;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.io.ByteBufferImpl;
 import org.infinispan.commons.test.CommonsTestingUtil;
 import org.infinispan.commons.util.IntSet;
@@ -26,10 +34,13 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.marshall.persistence.impl.MarshalledEntryUtil;
 import org.infinispan.persistence.BaseNonBlockingStoreTest;
+import org.infinispan.persistence.rocksdb.configuration.ExpirationMode;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
 import org.infinispan.persistence.spi.MarshallableEntry;
 import org.infinispan.persistence.spi.NonBlockingStore;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.testng.AssertJUnit;
 import org.testng.annotations.AfterClass;
@@ -43,8 +54,10 @@ public class RocksDBStoreTest extends BaseNonBlockingStoreTest {
 
    private String tmpDirectory = CommonsTestingUtil.tmpDirectory(this.getClass());
    private boolean segmented;
+   private ExpirationMode expirationMode = ExpirationMode.VALUE;
    public static final String KEY_1 = "key1";
    public static final String KEY_2 = "key2";
+   private static final long TTL_LIFESPAN = TimeUnit.MINUTES.toMillis(10);
 
    @AfterClass(alwaysRun = true)
    protected void clearTempDir() {
@@ -56,17 +69,24 @@ public RocksDBStoreTest segmented(boolean segmented) {
       return this;
    }
 
+   public RocksDBStoreTest expirationMode(ExpirationMode expirationMode) {
+      this.expirationMode = expirationMode;
+      return this;
+   }
+
    @Factory
    public Object[] factory() {
       return new Object[] {
             new RocksDBStoreTest().segmented(false),
             new RocksDBStoreTest().segmented(true),
+            new RocksDBStoreTest().segmented(false).expirationMode(ExpirationMode.DATABASE),
+            new RocksDBStoreTest().segmented(true).expirationMode(ExpirationMode.DATABASE),
       };
    }
 
    @Override
    protected String parameters() {
-      return "[" + segmented + "]";
+      return "[" + segmented + ", " + expirationMode + "]";
    }
 
    @Override
@@ -82,6 +102,8 @@ protected RocksDBStoreConfigurationBuilder createCacheStoreConfig(PersistenceCon
       cfg.segmented(segmented);
       cfg.location(tmpDirectory);
       cfg.expiredLocation(tmpDirectory);
+      cfg.expirationMode(expirationMode);
+      cfg.bulkIngest(true);
       cfg.clearThreshold(2);
       return cfg;
    }
@@ -201,6 +223,123 @@ public void testClear() {
       assertEmpty(null);
    }
 
+   public void testIngestion() {
+      int segment = keyPartitioner.getSegment(KEY_1);
+      NonBlockingStore.SegmentIngestion<Object, Object> ingestion = join(store.startIngestion(segment));
+      if (!segmented || expirationMode != ExpirationMode.VALUE) {
+         assertNull(ingestion);
+         return;
+      }
+      assertNotNull(ingestion);
+      String otherKey = KEY_2;
+      for (int i = 0; keyPartitioner.getSegment(otherKey) != segment; ++i) {
+         otherKey = "key" + i;
+      }
+      join(ingestion.add(Arrays.asList(marshallableEntryFactory.create(KEY_1, "ingested"),
+            marshallableEntryFactory.create(otherKey, "ingested"))));
+      // Not visible until the ingestion is complete
+      assertFalse(join(store.containsKey(segment, KEY_1)));
+
+      // Written after the ingestion started, so newer than the ingested value
+      store.write(segment, marshallableEntryFactory.create(otherKey, "written"));
+      join(ingestion.complete());
+      assertEquals("ingested", store.loadEntry(KEY_1).getValue());
+      assertEquals("written", store.loadEntry(otherKey).getValue());
+
+      // Only empty segments are ingested
+      assertNull(join(store.startIngestion(segment)));
+   }
+
+   public void testIngestionConcurrentWrites() throws Exception {
+      int segment = keyPartitioner.getSegment(KEY_1);
+      NonBlockingStore.SegmentIngestion<Object, Object> ingestion = join(store.startIngestion(segment));
+      if (ingestion == null) {
+         return;
+      }
+      List<String> keys = new ArrayList<>();
+      for (int i = 0; keys.size() < 1000; ++i) {
+         if (keyPartitioner.getSegment("key" + i) == segment) {
+            keys.add("key" + i);
+         }
+      }
+      List<MarshallableEntry<Object, Object>> entries = new ArrayList<>();
+      for (String key : keys) {
+         entries.add(marshallableEntryFactory.create(key, "ingested"));
+      }
+      join(ingestion.add(entries));
+      // The first half of the keys is written or removed while the ingestion completes, these operations must win
+      // whatever their order with the ingestion
+      Future<Void> writes = fork(() -> {
+         for (int i = 0; i < keys.size() / 2; ++i) {
+            if (i % 2 == 0) {
+               store.write(marshallableEntryFactory.create(keys.get(i), "written"));
+            } else {
+               store.delete(keys.get(i));
+            }
+         }
+      });
+      join(ingestion.complete());
+      writes.get(10, TimeUnit.SECONDS);
+      for (int i = 0; i < keys.size(); ++i) {
+         MarshallableEntry<Object, Object> entry = store.loadEntry(keys.get(i));
+         if (i >= keys.size() / 2) {
+            assertEquals("ingested", entry.getValue());
+         } else if (i % 2 == 0) {
+            assertEquals("written", entry.getValue());
+         } else {
+            assertNull(keys.get(i), entry);
+         }
+      }
+   }
+
+   public void testExpirationModeCannotChange() {
+      store.write(marshallableEntryFactory.create(KEY_1, "value"));
+      store.stopAndWait();
+      expectCompletionException(CacheConfigurationException.class,
+            store.start(createContext(ttlConfiguration(ExpirationMode.TTL, tmpDirectory))));
+      if (expirationMode == ExpirationMode.VALUE) {
+         // The entries written in VALUE mode are missing from the expiration database
+         expectCompletionException(CacheConfigurationException.class,
+               store.start(createContext(ttlConfiguration(ExpirationMode.DATABASE, tmpDirectory))));
+         store.startAndWait(createContext(configuration));
+      } else {
+         store.startAndWait(createContext(ttlConfiguration(ExpirationMode.VALUE, tmpDirectory)));
+      }
+      assertEquals("value", store.loadEntry(KEY_1).getValue());
+   }
+
+   public void testTtlModeRefusesLongerLifespans() {
+      String ttlLocation = tmpDirectory + "/ttl";
+      store.stopAndWait();
+      store.startAndWait(createContext(ttlConfiguration(ExpirationMode.TTL, ttlLocation)));
+      store.write(marshalledEntry(internalCacheEntry(KEY_1, "value", TTL_LIFESPAN)));
+      expectException(PersistenceException.class,
+            () -> store.write(marshalledEntry(internalCacheEntry(KEY_2, "value", -1))));
+      expectException(PersistenceException.class,
+            () -> store.write(marshalledEntry(internalCacheEntry(KEY_2, "value", TTL_LIFESPAN + 1))));
+      expectException(CompletionException.class, PersistenceException.class,
+            () -> store.batchUpdate(segmentCount, Flowable.empty(), TestingUtil.multipleSegmentPublisher(
+                  Flowable.just(marshalledEntry(internalCacheEntry(KEY_2, "value", -1))),
+                  MarshallableEntry::getKey, keyPartitioner)));
+      assertEquals("value", store.loadEntry(KEY_1).getValue());
+      assertNull(store.loadEntry(KEY_2));
+
+      // The TTL store only opens in TTL mode
+      store.stopAndWait();
+      expectCompletionException(CacheConfigurationException.class,
+            store.start(createContext(ttlConfiguration(ExpirationMode.VALUE, ttlLocation))));
+      store.startAndWait(createContext(ttlConfiguration(ExpirationMode.TTL, ttlLocation)));
+      assertEquals("value", store.loadEntry(KEY_1).getValue());
+   }
+
+   private Configuration ttlConfiguration(ExpirationMode mode, String location) {
+      ConfigurationBuilder cb = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      cb.clustering().hash().numSegments(16);
+      cb.expiration().lifespan(TTL_LIFESPAN);
+      createCacheStoreConfig(cb.persistence()).expirationMode(mode).location(location);
+      return cb.build();
+   }
+
    private void assertEmpty(IntSet segments) {
       assertEquals(0, (long) join(store.size(segments)));
 
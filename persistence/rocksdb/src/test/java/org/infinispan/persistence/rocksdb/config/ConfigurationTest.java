@@ -6,9 +6,12 @@
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.concurrent.TimeUnit;
 
 import org.infinispan.Cache;
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.test.CommonsTestingUtil;
+import org.infinispan.commons.test.Exceptions;
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
@@ -19,6 +22,9 @@
 import org.infinispan.configuration.parsing.ParserRegistry;
 import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.rocksdb.configuration.BlockCacheType;
+import org.infinispan.persistence.rocksdb.configuration.ExpirationMode;
+import org.infinispan.persistence.rocksdb.configuration.RocksDBResourcesConfiguration;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfiguration;
 import org.infinispan.persistence.rocksdb.configuration.RocksDBStoreConfigurationBuilder;
 import org.infinispan.test.AbstractInfinispanTest;
@@ -63,6 +69,16 @@ public void testConfigBuilder() {
       cacheManager.stop();
    }
 
+   public void testTtlModeRequiresLifespan() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().addStore(RocksDBStoreConfigurationBuilder.class).location(tmpDataDirectory)
+            .expirationMode(ExpirationMode.TTL);
+      Exceptions.expectException(CacheConfigurationException.class, builder::build);
+
+      builder.expiration().lifespan(1, TimeUnit.MINUTES);
+      assertEquals(ExpirationMode.TTL, ((RocksDBStoreConfiguration) builder.build().persistence().stores().get(0)).expirationMode());
+   }
+
    public void testXmlConfig() throws IOException {
       URL config = ConfigurationTest.class.getResource("/config/rocksdb-config.xml");
       ConfigurationBuilderHolder configHolder = new ParserRegistry().parse(config);
@@ -82,5 +98,20 @@ public void testXmlConfig() throws IOException {
       RocksDBStoreConfiguration rocksdbConfig = (RocksDBStoreConfiguration) cacheLoaderConfig;
       assertEquals("/tmp/rocksdb/52/data", rocksdbConfig.location());
       assertEquals("/tmp/rocksdb/52/expired", rocksdbConfig.expiredLocation());
+      assertEquals(ExpirationMode.DATABASE, rocksdbConfig.expirationMode());
+      assertTrue(rocksdbConfig.bulkIngest());
+   }
+
+   public void testResourcesXmlConfig() throws IOException {
+      URL config = ConfigurationTest.class.getResource("/config/rocksdb-resources-config.xml");
+      ConfigurationBuilderHolder configHolder = new ParserRegistry().parse(config);
+
+      RocksDBResourcesConfiguration resources = configHolder.getGlobalConfigurationBuilder().build()
+            .module(RocksDBResourcesConfiguration.class);
+      assertEquals(64 * 1024 * 1024, resources.blockCacheSize());
+      assertEquals(BlockCacheType.CLOCK, resources.blockCacheType());
+      assertEquals(32 * 1024 * 1024, resources.writeBufferSize());
+      assertEquals(10 * 1024 * 1024, resources.rateLimit());
+      assertTrue(resources.statistics());
    }
 }
@@ -1,13 +1,17 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 import org.infinispan.commons.marshall.Marshaller;
 import org.infinispan.commons.time.TimeService;
@@ -17,14 +21,27 @@
  * Component keeping the data about log file usage - as soon as entries from some file are overwritten so that the file
  * becomes cluttered with old records, the valid records are moved to another file and the old ones are dropped.
  * Expired records are moved as tombstones without values (records of entry removal).
+ * <p>
+ * Several worker threads compact different files concurrently, each of them writing to its own output file. The
+ * scheduled file with the highest ratio of free space is compacted first. When the latency of the writes of the log
+ * appenders rises well above its usual value, only the first worker keeps picking new files so that the compaction
+ * does not compete with the foreground writes.
+ * <p>
+ * A record is dropped only when no other file could still hold an older record of the same key: while other files
+ * are being compacted, expired records and tombstones are moved instead, otherwise a crash between the deletions of
+ * the compacted files could bring back an old value.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
-class Compactor extends Thread {
+class Compactor {
    private static final Log log = LogFactory.getLog(Compactor.class, Log.class);
+   private static final long POLL_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+   private static final long THROTTLE_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
 
    private final ConcurrentMap<Integer, Stats> fileStats = new ConcurrentHashMap<Integer, Stats>();
-   private final BlockingQueue<Integer> scheduledCompaction = new LinkedBlockingQueue<Integer>();
+   // Files waiting for compaction, guarded by itself together with compactingFiles
+   private final Set<Integer> scheduledCompaction = new HashSet<>();
+   private final Set<Integer> compactingFiles = new HashSet<>();
    private final BlockingQueue<IndexRequest> indexQueue;
    private final FileProvider fileProvider;
    private final TemporaryTable temporaryTable;
@@ -32,8 +49,16 @@ class Compactor extends Thread {
    private final TimeService timeService;
    private final int maxFileSize;
    private final double compactionThreshold;
+   private final Worker[] workers;
 
    private Index index;
+   private volatile LongSupplier writeLatency = () -> 0;
+   // Usual latency of the foreground writes, follows slowly the current one, guarded by scheduledCompaction
+   private long writeLatencyBaseline;
+   private volatile boolean throttled;
+   private final LongAdder compactedFiles = new LongAdder();
+   private final LongAdder compactedBytes = new LongAdder();
+   private final LongAdder compactionNanos = new LongAdder();
    // as processing single scheduled compaction takes a lot of time, we don't use the queue to signalize
    private volatile boolean clearSignal = false;
    private volatile boolean terminateSignal = false;
@@ -44,8 +69,8 @@ class Compactor extends Thread {
    public Compactor(FileProvider fileProvider,
                     TemporaryTable temporaryTable,
                     BlockingQueue<IndexRequest> indexQueue,
-                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold) {
-      super("BCS-Compactor");
+                    Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold,
+                    int threads) {
       this.fileProvider = fileProvider;
       this.temporaryTable = temporaryTable;
       this.indexQueue = indexQueue;
@@ -53,13 +78,24 @@ public Compactor(FileProvider fileProvider,
       this.timeService = timeService;
       this.maxFileSize = maxFileSize;
       this.compactionThreshold = compactionThreshold;
-      this.start();
+      this.workers = new Worker[threads];
+      for (int i = 0; i < threads; ++i) {
+         workers[i] = new Worker(threads == 1 ? "BCS-Compactor" : "BCS-Compactor-" + i, i);
+         workers[i].start();
+      }
    }
 
    public void setIndex(Index index) {
       this.index = index;
    }
 
+   /**
+    * Sets the source of the current latency of the foreground writes, in nanoseconds, used to throttle the compaction.
+    */
+   public void setWriteLatency(LongSupplier writeLatency) {
+      this.writeLatency = writeLatency;
+   }
+
    public void releaseStats(int file) {
       fileStats.remove(file);
    }
@@ -78,6 +114,51 @@ public void completeFile(int file) {
       }
    }
 
+   /**
+    * @return the number of files waiting for compaction
+    */
+   public int getBacklog() {
+      synchronized (scheduledCompaction) {
+         return scheduledCompaction.size();
+      }
+   }
+
+   /**
+    * @return the size of the files waiting for compaction, in bytes
+    */
+   public long getBacklogBytes() {
+      long bytes = 0;
+      synchronized (scheduledCompaction) {
+         for (Integer file : scheduledCompaction) {
+            Stats stats = fileStats.get(file);
+            if (stats != null) {
+               bytes += Math.max(0, stats.getTotal());
+            }
+         }
+      }
+      return bytes;
+   }
+
+   public long getCompactedFiles() {
+      return compactedFiles.sum();
+   }
+
+   public long getCompactedBytes() {
+      return compactedBytes.sum();
+   }
+
+   /**
+    * @return the number of bytes read from the compacted files per second spent compacting them
+    */
+   public long getThroughput() {
+      long nanos = compactionNanos.sum();
+      return nanos == 0 ? 0 : (long) (compactedBytes.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+   }
+
+   public boolean isThrottled() {
+      return throttled;
+   }
+
    private Stats getStats(int file) {
       Stats stats = fileStats.get(file);
       if (stats == null) {
@@ -107,232 +188,105 @@ private void recordFreeSpace(Stats stats, int file, int size) {
    }
 
    private void schedule(int file, Stats stats) {
-      try {
-         synchronized (stats) {
-            if (!stats.isScheduled()) {
-               log.debug(String.format("Scheduling file %d for compaction: %d/%d free", file, stats.free.get(), stats.total));
-               stats.setScheduled();
-               scheduledCompaction.put(file);
+      synchronized (stats) {
+         if (!stats.isScheduled()) {
+            log.debug(String.format("Scheduling file %d for compaction: %d/%d free", file, stats.free.get(), stats.total));
+            stats.setScheduled();
+            synchronized (scheduledCompaction) {
+               scheduledCompaction.add(file);
+               scheduledCompaction.notifyAll();
             }
          }
-      } catch (InterruptedException e) {
-         Thread.currentThread().interrupt();
-         throw new RuntimeException(e);
       }
    }
 
-   @Override
-   public void run() {
-      try {
-         FileProvider.Log logFile = null;
-         int currentOffset = 0;
-         for(;;) {
-            Integer scheduledFile = null;
-            try {
-               scheduledFile = scheduledCompaction.poll(1, TimeUnit.MINUTES);
-            } catch (InterruptedException e) {
+   /**
+    * Waits until there is a file to compact, and removes the one with the highest ratio of free space.
+    *
+    * @return the file to compact or null if there is none after the timeout or if the worker was signalled
+    */
+   private Integer take(int worker) throws InterruptedException {
+      long deadline = System.nanoTime() + POLL_TIMEOUT;
+      synchronized (scheduledCompaction) {
+         for (;;) {
+            if (clearSignal || terminateSignal) {
+               return null;
             }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
+            long wait = deadline - System.nanoTime();
+            if (!scheduledCompaction.isEmpty()) {
+               // The first worker never stops, the others only compact when the foreground writes are not slowed down
+               if (worker == 0 || !checkThrottled()) {
+                  Integer file = selectFile();
+                  compactingFiles.add(file);
+                  return file;
                }
-               break;
-            }
-            if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-               continue;
-            }
-            if (scheduledFile == null) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
-                  logFile = null;
-               }
-               continue;
+               wait = Math.min(wait, THROTTLE_CHECK_INTERVAL);
+            } else if (wait <= 0) {
+               return null;
             }
+            TimeUnit.NANOSECONDS.timedWait(scheduledCompaction, Math.max(wait, 1));
+         }
+      }
+   }
 
-            log.debugf("Compacting file %d", scheduledFile);
-            int scheduledOffset = 0;
-            FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
-            if (handle == null) {
-               throw new IllegalStateException("Compactor should not get deleted file for compaction!");
-            }
-            try {
-               while (!clearSignal && !terminateSignal) {
-                  EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
-                  if (header == null) {
-                     break;
-                  }
-                  byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
-                  if (serializedKey == null) {
-                     throw new IllegalStateException("End of file reached when reading key on "
-                           + handle.getFileId() + ":" + scheduledOffset);
-                  }
-                  Object key = marshaller.objectFromByteBuffer(serializedKey);
-
-                  int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
-                  boolean drop = true;
-                  boolean truncate = false;
-                  EntryPosition entry = temporaryTable.get(key);
-                  if (entry != null) {
-                     synchronized (entry) {
-                        if (log.isTraceEnabled()) {
-                           log.tracef("Key for %d:%d was found in temporary table on %d:%d",
-                                 scheduledFile, scheduledOffset, entry.file, entry.offset);
-                        }
-                        if (entry.file == scheduledFile && entry.offset == indexedOffset) {
-                           // It's quite unlikely that we would compact a record that is not indexed yet,
-                           // but let's handle that
-                           if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
-                              truncate = true;
-                           }
-                        } else {
-                           truncate = true;
-                        }
-                     }
-                     // When we have found the entry in temporary table, it's possible that the delete operation
-                     // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
-                     // we could remove the entry and delete would not find it
-                     drop = false;
-                  } else {
-                     EntryInfo info = index.getInfo(key, serializedKey);
-                     assert info != null : String.format("Index does not recognize entry on %d:%d");
-                     assert info.numRecords > 0;
-                     if (info.file == scheduledFile && info.offset == scheduledOffset) {
-                        assert header.valueLength() > 0;
-                        // live record with data
-                        truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
-                        if (log.isTraceEnabled()) {
-                           log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
-                        }
-                        if (!truncate || info.numRecords > 1) {
-                           drop = false;
-                        }
-                        // Drop only when it is expired and has single record
-                     } else if (info.file == scheduledFile && info.offset == ~scheduledOffset && info.numRecords > 1) {
-                        // just tombstone but there are more non-compacted records for this key so we have to keep it
-                        drop = false;
-                     } else if (log.isTraceEnabled()) {
-                        log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
-                              scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
-                     }
-                  }
-                  if (drop) {
-                     if (log.isTraceEnabled()) {
-                        log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
-                              header.valueLength() > 0 ? "record" : "tombstone");
-                     }
-                     indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
-                  } else {
-                     if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
-                        if (logFile != null) {
-                           logFile.close();
-                           completeFile(logFile.fileId);
-                        }
-                        currentOffset = 0;
-                        logFile = fileProvider.getFileForLog();
-                        log.debugf("Compacting to %d", (Object) logFile.fileId);
-                     }
+   private Integer selectFile() {
+      Integer selected = null;
+      double selectedRatio = -1;
+      for (Iterator<Integer> it = scheduledCompaction.iterator(); it.hasNext(); ) {
+         Integer file = it.next();
+         Stats stats = fileStats.get(file);
+         double ratio = stats == null || stats.getTotal() <= 0 ? 1 : stats.getFree() / (double) stats.getTotal();
+         if (ratio > selectedRatio) {
+            selected = file;
+            selectedRatio = ratio;
+         }
+      }
+      scheduledCompaction.remove(selected);
+      return selected;
+   }
 
-                     byte[] serializedValue = null;
-                     EntryMetadata metadata = null;
-                     byte[] serializedInternalMetadata = null;
-                     int entryOffset;
-                     int writtenLength;
-                     if (header.valueLength() > 0 && !truncate) {
-                        if (header.metadataLength() > 0) {
-                           metadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
-                        }
-                        serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
-                        if (header.internalMetadataLength() > 0) {
-                           serializedInternalMetadata = EntryRecord.readInternalMetadata(handle, header, scheduledOffset);
-                        }
-                        entryOffset = currentOffset;
-                        writtenLength = header.totalLength();
-                     } else {
-                        entryOffset = ~currentOffset;
-                        writtenLength = header.getHeaderLength() + header.keyLength();
-                     }
-                     EntryRecord.writeEntry(logFile.fileChannel, serializedKey, metadata, serializedValue, serializedInternalMetadata, header.seqId(), header.expiryTime());
-                     TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
-                     if (lockedEntry == null) {
-                        if (log.isTraceEnabled()) {
-                           log.trace("Found entry in temporary table");
-                        }
-                     } else {
-                        boolean update = false;
-                        try {
-                           EntryInfo info = index.getInfo(key, serializedKey);
-                           if (info == null) {
-                              throw new IllegalStateException(String.format(
-                                    "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
-                           } else {
-                              update = info.file == scheduledFile && info.offset == indexedOffset;
-                           }
-                           if (log.isTraceEnabled()) {
-                              log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
-                           }
-                        } finally {
-                           if (update) {
-                              temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
-                           } else {
-                              temporaryTable.removeAndUnlock(lockedEntry, key);
-                           }
-                        }
-                     }
-                     if (log.isTraceEnabled()) {
-                        log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
-                              logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
-                     }
-                     // entryFile cannot be used as we have to report the file due to free space statistics
-                     indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
-                           scheduledFile, indexedOffset));
+   /**
+    * Compares the current latency of the foreground writes with its usual value, which rises slowly when the latency
+    * stays high so that a permanently slower disk does not stop the compaction.
+    * This method should only be invoked while holding the scheduledCompaction monitor.
+    */
+   private boolean checkThrottled() {
+      long latency = writeLatency.getAsLong();
+      if (latency <= 0) {
+         throttled = false;
+      } else if (writeLatencyBaseline == 0 || latency < writeLatencyBaseline) {
+         writeLatencyBaseline = latency;
+         throttled = false;
+      } else {
+         writeLatencyBaseline += (latency - writeLatencyBaseline) >> 8;
+         throttled = latency > 2 * writeLatencyBaseline;
+      }
+      return throttled;
+   }
 
-                     currentOffset += writtenLength;
-                  }
-                  scheduledOffset += header.totalLength();
-               }
-            } finally {
-               handle.close();
-            }
-            if (terminateSignal) {
-               if (logFile != null) {
-                  logFile.close();
-                  completeFile(logFile.fileId);
-               }
-               return;
-            } else if (clearSignal) {
-               pauseCompactor(logFile);
-               logFile = null;
-            } else {
-               // The deletion must be executed only after the index is fully updated.
-               log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
-               indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
-            }
-         }
-      } catch (Exception e) {
-         log.compactorFailed(e);
+   private boolean isCompactingConcurrently() {
+      synchronized (scheduledCompaction) {
+         return compactingFiles.size() > 1;
       }
    }
 
-   private void pauseCompactor(FileProvider.Log logFile) throws IOException, InterruptedException {
-      if (logFile != null) {
-         logFile.close();
-         completeFile(logFile.fileId);
+   private void finishCompaction(int file) {
+      synchronized (scheduledCompaction) {
+         compactingFiles.remove(file);
       }
-      compactorStop.countDown();
-      compactorResume.await();
    }
 
    public void clearAndPause() throws InterruptedException {
       compactorResume = new CountDownLatch(1);
-      compactorStop = new CountDownLatch(1);
+      compactorStop = new CountDownLatch(workers.length);
       clearSignal = true;
-      scheduledCompaction.put(-1);
+      synchronized (scheduledCompaction) {
+         scheduledCompaction.notifyAll();
+      }
       compactorStop.await();
-      scheduledCompaction.clear();
+      synchronized (scheduledCompaction) {
+         scheduledCompaction.clear();
+      }
       fileStats.clear();
    }
 
@@ -343,8 +297,239 @@ public void resumeAfterPause() {
 
    public void stopOperations() throws InterruptedException {
       terminateSignal = true;
-      scheduledCompaction.put(-1);
-      this.join();
+      synchronized (scheduledCompaction) {
+         scheduledCompaction.notifyAll();
+      }
+      for (Worker worker : workers) {
+         worker.join();
+      }
+   }
+
+   private class Worker extends Thread {
+      private final int id;
+      private FileProvider.Log logFile;
+      private int currentOffset;
+
+      Worker(String name, int id) {
+         super(name);
+         this.id = id;
+      }
+
+      @Override
+      public void run() {
+         try {
+            for (;;) {
+               Integer scheduledFile = null;
+               try {
+                  scheduledFile = take(id);
+               } catch (InterruptedException e) {
+               }
+               if (terminateSignal) {
+                  closeLogFile();
+                  break;
+               }
+               if (clearSignal) {
+                  pauseCompactor();
+                  continue;
+               }
+               if (scheduledFile == null) {
+                  closeLogFile();
+                  continue;
+               }
+
+               log.debugf("Compacting file %d", scheduledFile);
+               long start = System.nanoTime();
+               try {
+                  int compacted = compact(scheduledFile);
+                  if (terminateSignal) {
+                     closeLogFile();
+                     return;
+                  } else if (clearSignal) {
+                     pauseCompactor();
+                  } else {
+                     // The deletion must be executed only after the index is fully updated, and before the other
+                     // workers can drop records of the keys in this file
+                     log.debugf("Finished compacting %d, scheduling delete", scheduledFile);
+                     indexQueue.put(IndexRequest.deleteFileRequest(scheduledFile));
+                     compactedFiles.increment();
+                     compactedBytes.add(compacted);
+                     compactionNanos.add(System.nanoTime() - start);
+                  }
+               } finally {
+                  finishCompaction(scheduledFile);
+               }
+            }
+         } catch (Exception e) {
+            log.compactorFailed(e);
+         }
+      }
+
+      private void closeLogFile() throws IOException {
+         if (logFile != null) {
+            logFile.close();
+            completeFile(logFile.fileId);
+            logFile = null;
+         }
+      }
+
+      private void pauseCompactor() throws IOException, InterruptedException {
+         closeLogFile();
+         compactorStop.countDown();
+         compactorResume.await();
+      }
+
+      /**
+       * Moves the live records of the file to the output file of this worker and drops the others.
+       *
+       * @return the number of bytes read from the file
+       */
+      private int compact(int scheduledFile) throws IOException, ClassNotFoundException, InterruptedException {
+         int scheduledOffset = 0;
+         FileProvider.Handle handle = fileProvider.getFile(scheduledFile);
+         if (handle == null) {
+            throw new IllegalStateException("Compactor should not get deleted file for compaction!");
+         }
+         try {
+            while (!clearSignal && !terminateSignal) {
+               EntryHeader header = EntryRecord.readEntryHeader(handle, scheduledOffset);
+               if (header == null) {
+                  break;
+               }
+               byte[] serializedKey = EntryRecord.readKey(handle, header, scheduledOffset);
+               if (serializedKey == null) {
+                  throw new IllegalStateException("End of file reached when reading key on "
+                        + handle.getFileId() + ":" + scheduledOffset);
+               }
+               Object key = marshaller.objectFromByteBuffer(serializedKey);
+
+               int indexedOffset = header.valueLength() > 0 ? scheduledOffset : ~scheduledOffset;
+               boolean drop = true;
+               boolean truncate = false;
+               EntryPosition entry = temporaryTable.get(key);
+               if (entry != null) {
+                  synchronized (entry) {
+                     if (log.isTraceEnabled()) {
+                        log.tracef("Key for %d:%d was found in temporary table on %d:%d",
+                              scheduledFile, scheduledOffset, entry.file, entry.offset);
+                     }
+                     if (entry.file == scheduledFile && entry.offset == indexedOffset) {
+                        // It's quite unlikely that we would compact a record that is not indexed yet,
+                        // but let's handle that
+                        if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+                           truncate = true;
+                        }
+                     } else {
+                        truncate = true;
+                     }
+                  }
+                  // When we have found the entry in temporary table, it's possible that the delete operation
+                  // (that was recorded in temporary table) will arrive to index after DROPPED - in that case
+                  // we could remove the entry and delete would not find it
+                  drop = false;
+               } else {
+                  EntryInfo info = index.getInfo(key, serializedKey);
+                  assert info != null : String.format("Index does not recognize entry on %d:%d");
+                  assert info.numRecords > 0;
+                  if (info.file == scheduledFile && info.offset == scheduledOffset) {
+                     assert header.valueLength() > 0;
+                     // live record with data
+                     truncate = header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime();
+                     if (log.isTraceEnabled()) {
+                        log.tracef("Is %d:%d expired? %s, numRecords? %d", scheduledFile, scheduledOffset, truncate, info.numRecords);
+                     }
+                     if (!truncate || info.numRecords > 1 || isCompactingConcurrently()) {
+                        drop = false;
+                     }
+                     // Drop only when it is expired and has single record
+                  } else if (info.file == scheduledFile && info.offset == ~scheduledOffset
+                        && (info.numRecords > 1 || isCompactingConcurrently())) {
+                     // just tombstone but there are more non-compacted records for this key so we have to keep it
+                     drop = false;
+                  } else if (log.isTraceEnabled()) {
+                     log.tracef("Key for %d:%d was found in index on %d:%d, %d record => drop",
+                           scheduledFile, scheduledOffset, info.file, info.offset, info.numRecords);
+                  }
+               }
+               if (drop) {
+                  if (log.isTraceEnabled()) {
+                     log.tracef("Drop %d:%d (%s)", scheduledFile, (Object)scheduledOffset,
+                           header.valueLength() > 0 ? "record" : "tombstone");
+                  }
+                  indexQueue.put(IndexRequest.dropped(key, serializedKey, scheduledFile, scheduledOffset));
+               } else {
+                  if (logFile == null || currentOffset + header.totalLength() > maxFileSize) {
+                     if (logFile != null) {
+                        logFile.close();
+                        completeFile(logFile.fileId);
+                     }
+                     currentOffset = 0;
+                     logFile = fileProvider.getFileForLog();
+                     log.debugf("Compacting to %d", (Object) logFile.fileId);
+                  }
+
+                  byte[] serializedValue = null;
+                  EntryMetadata metadata = null;
+                  byte[] serializedInternalMetadata = null;
+                  int entryOffset;
+                  int writtenLength;
+                  if (header.valueLength() > 0 && !truncate) {
+                     if (header.metadataLength() > 0) {
+                        metadata = EntryRecord.readMetadata(handle, header, scheduledOffset);
+                     }
+                     serializedValue = EntryRecord.readValue(handle, header, scheduledOffset);
+                     if (header.internalMetadataLength() > 0) {
+                        serializedInternalMetadata = EntryRecord.readInternalMetadata(handle, header, scheduledOffset);
+                     }
+                     entryOffset = currentOffset;
+                     writtenLength = header.totalLength();
+                  } else {
+                     entryOffset = ~currentOffset;
+                     writtenLength = header.getHeaderLength() + header.keyLength();
+                  }
+                  EntryRecord.writeEntry(logFile.fileChannel, serializedKey, metadata, serializedValue, serializedInternalMetadata, header.seqId(), header.expiryTime());
+                  TemporaryTable.LockedEntry lockedEntry = temporaryTable.replaceOrLock(key, logFile.fileId, entryOffset, scheduledFile, indexedOffset);
+                  if (lockedEntry == null) {
+                     if (log.isTraceEnabled()) {
+                        log.trace("Found entry in temporary table");
+                     }
+                  } else {
+                     boolean update = false;
+                     try {
+                        EntryInfo info = index.getInfo(key, serializedKey);
+                        if (info == null) {
+                           throw new IllegalStateException(String.format(
+                                 "%s was not found in index but it was not in temporary table and there's entry on %d:%d", key, scheduledFile, indexedOffset));
+                        } else {
+                           update = info.file == scheduledFile && info.offset == indexedOffset;
+                        }
+                        if (log.isTraceEnabled()) {
+                           log.tracef("In index the key is on %d:%d (%s)", info.file, info.offset, String.valueOf(update));
+                        }
+                     } finally {
+                        if (update) {
+                           temporaryTable.updateAndUnlock(lockedEntry, logFile.fileId, entryOffset);
+                        } else {
+                           temporaryTable.removeAndUnlock(lockedEntry, key);
+                        }
+                     }
+                  }
+                  if (log.isTraceEnabled()) {
+                     log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, indexedOffset,
+                           logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
+                  }
+                  // entryFile cannot be used as we have to report the file due to free space statistics
+                  indexQueue.put(IndexRequest.moved(key, serializedKey, logFile.fileId, entryOffset, writtenLength,
+                        scheduledFile, indexedOffset));
+
+                  currentOffset += writtenLength;
+               }
+               scheduledOffset += header.totalLength();
+            }
+         } finally {
+            handle.close();
+         }
+         return scheduledOffset;
+      }
    }
 
    private static class Stats {
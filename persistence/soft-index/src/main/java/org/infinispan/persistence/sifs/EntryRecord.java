@@ -3,6 +3,7 @@
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.List;
 
 /**
  * Helper for reading/writing entries into file.
@@ -174,11 +175,15 @@ public static void writeEntry(FileChannel fileChannel, byte[] serializedKey, Ent
       }
    }
 
-   public static void writeEntry(FileChannel fileChannel, org.infinispan.commons.io.ByteBuffer serializedKey,
-                                 org.infinispan.commons.io.ByteBuffer serializedMetadata,
-                                 org.infinispan.commons.io.ByteBuffer serializedInternalMetadata,
-                                 org.infinispan.commons.io.ByteBuffer serializedValue,
-                                 long seqId, long expiration, long created, long lastUsed) throws IOException {
+   /**
+    * Adds the buffers of a record to the list, so that several records can be written with a single gathering write.
+    * The serialized key, metadata, value and internal metadata are wrapped, not copied.
+    */
+   public static void addEntryBuffers(List<ByteBuffer> buffers, org.infinispan.commons.io.ByteBuffer serializedKey,
+                                      org.infinispan.commons.io.ByteBuffer serializedMetadata,
+                                      org.infinispan.commons.io.ByteBuffer serializedInternalMetadata,
+                                      org.infinispan.commons.io.ByteBuffer serializedValue,
+                                      long seqId, long expiration, long created, long lastUsed) {
       ByteBuffer header = ByteBuffer.allocate(EntryHeader.HEADER_SIZE_11_0);
       EntryHeader.writeHeader(header,
             (short) serializedKey.getLength(),
@@ -187,17 +192,34 @@ public static void writeEntry(FileChannel fileChannel, org.infinispan.commons.io
             serializedInternalMetadata == null ? 0 : (short) serializedInternalMetadata.getLength(),
             seqId, expiration);
       header.flip();
-      write(fileChannel, header);
-      write(fileChannel, ByteBuffer.wrap(serializedKey.getBuf(), serializedKey.getOffset(), serializedKey.getLength()));
+      buffers.add(header);
+      buffers.add(ByteBuffer.wrap(serializedKey.getBuf(), serializedKey.getOffset(), serializedKey.getLength()));
       if (serializedMetadata != null) {
-         write(fileChannel, ByteBuffer.wrap(serializedMetadata.getBuf(), serializedMetadata.getOffset(), serializedMetadata.getLength()));
-         writeTimestamps(fileChannel, created, lastUsed);
+         buffers.add(ByteBuffer.wrap(serializedMetadata.getBuf(), serializedMetadata.getOffset(), serializedMetadata.getLength()));
+         ByteBuffer timestamps = ByteBuffer.allocate(EntryMetadata.TIMESTAMP_BYTES);
+         timestamps.putLong(created);
+         timestamps.putLong(lastUsed);
+         timestamps.flip();
+         buffers.add(timestamps);
       }
       if (serializedValue != null) {
-         write(fileChannel, ByteBuffer.wrap(serializedValue.getBuf(), serializedValue.getOffset(), serializedValue.getLength()));
+         buffers.add(ByteBuffer.wrap(serializedValue.getBuf(), serializedValue.getOffset(), serializedValue.getLength()));
       }
       if (serializedInternalMetadata != null) {
-         write(fileChannel, ByteBuffer.wrap(serializedInternalMetadata.getBuf(), serializedInternalMetadata.getOffset(), serializedInternalMetadata.getLength()));
+         buffers.add(ByteBuffer.wrap(serializedInternalMetadata.getBuf(), serializedInternalMetadata.getOffset(), serializedInternalMetadata.getLength()));
+      }
+   }
+
+   /**
+    * Writes all the buffers to the file, issuing as few system calls as possible.
+    */
+   public static void write(FileChannel fileChannel, ByteBuffer[] buffers) throws IOException {
+      long remaining = 0;
+      for (ByteBuffer buffer : buffers) {
+         remaining += buffer.remaining();
+      }
+      while (remaining > 0) {
+         remaining -= fileChannel.write(buffers);
       }
    }
 
@@ -55,6 +55,16 @@ public FileProvider(Path dataDir, int openFileLimit, String prefix) {
       this.prefix = prefix;
       //noinspection ResultOfMethodCallIgnored
       this.dataDir.mkdirs();
+      // new files always get higher ids than the existing ones, so that index checkpoints can refer to a log position
+      String regex = String.format(REGEX_FORMAT, prefix);
+      for (String file : this.dataDir.list()) {
+         if (file.matches(regex)) {
+            int fileId = Integer.parseInt(file.substring(prefix.length()));
+            if (fileId >= nextFileId && fileId < Integer.MAX_VALUE) {
+               nextFileId = fileId + 1;
+            }
+         }
+      }
    }
 
    public Handle getFile(int fileId) throws IOException {
@@ -199,6 +209,23 @@ public Log getFileForLog() throws IOException {
       }
    }
 
+   /**
+    * @return the id of the oldest file still open for writing, or the id the next file will get if there is none.
+    * The records of the files with lower ids were all written before this call.
+    */
+   public int getOldestLogFile() {
+      lock.readLock().lock();
+      try {
+         int oldest = nextFileId;
+         for (int fileId : logFiles) {
+            oldest = Math.min(oldest, fileId);
+         }
+         return oldest;
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
    public CloseableIterator<Integer> getFileIterator() {
       String regex = String.format(REGEX_FORMAT, prefix);
       lock.readLock().lock();
@@ -1,14 +1,20 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
@@ -16,6 +22,7 @@
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
 
 import org.infinispan.commons.time.TimeService;
 import org.infinispan.util.logging.LogFactory;
@@ -24,6 +31,12 @@
  * Keeps the entry positions persisted in a file. It consists of couple of segments, each for one modulo-range
  * of key's hashcodes (according to DataContainer's key equivalence configuration) - writes to each index segment
  * are performed by single thread, having multiple segments spreads the load between them.
+ * <p>
+ * When checkpoints are enabled, each segment periodically persists its root and free blocks into a checkpoint file,
+ * together with the id of the oldest data file that may contain records not yet applied to the index. Until the next
+ * checkpoint, the nodes reachable from the checkpointed root are neither overwritten nor reused, and the data files
+ * deleted by the compactor are kept. After a crash the segments are restored from their checkpoints and only the data
+ * files from that id on are read again.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
@@ -32,6 +45,8 @@ class Index {
    private static final int GRACEFULLY = 0x512ACEF0;
    private static final int DIRTY = 0xD112770C;
    private static final int INDEX_FILE_HEADER_SIZE = 30;
+   private static final int CHECKPOINT = 0xC4EC4901;
+   private static final int CHECKPOINT_HEADER_SIZE = 42;
 
    private final Path indexDir;
    private final FileProvider fileProvider;
@@ -41,22 +56,40 @@ class Index {
    private final ReadWriteLock lock = new ReentrantReadWriteLock();
    private final Segment[] segments;
    private final TimeService timeService;
+   private final IndexQueue indexQueue;
+   private final long checkpointInterval;
+   private final LongSupplier seqId;
+   // Files deleted by the compactor that the last checkpoint of some segment may still refer to
+   private final List<Integer> deferredDeletes = new ArrayList<>();
+   // Files to delete once all the segments have completed the checkpoint in progress
+   private volatile List<Integer> checkpointDeletes = Collections.emptyList();
+   private volatile boolean checkpointFailed;
+   private Checkpointer checkpointer;
 
    public Index(FileProvider fileProvider, Path indexDir, int segments, int minNodeSize, int maxNodeSize,
                 IndexQueue indexQueue, TemporaryTable temporaryTable, Compactor compactor,
-                TimeService timeService) throws IOException {
+                TimeService timeService, long checkpointInterval, LongSupplier seqId) throws IOException {
       this.fileProvider = fileProvider;
       this.compactor = compactor;
       this.timeService = timeService;
       this.indexDir = indexDir;
       this.minNodeSize = minNodeSize;
       this.maxNodeSize = maxNodeSize;
+      this.indexQueue = indexQueue;
+      this.checkpointInterval = checkpointInterval;
+      this.seqId = seqId;
       indexDir.toFile().mkdirs();
 
       this.segments = new Segment[segments];
       for (int i = 0; i < segments; ++i) {
          this.segments[i] = new Segment(i, indexQueue.subQueue(i), temporaryTable);
       }
+      if (!isRestored()) {
+         // the index will be built from all the data files, a segment must not count any record twice
+         for (Segment segment : this.segments) {
+            segment.reset();
+         }
+      }
    }
 
    /**
@@ -69,12 +102,89 @@ public boolean isLoaded() {
       return true;
    }
 
+   /**
+    * @return True if the index was loaded from well persisted state or restored from checkpoints, the data files
+    * starting at {@link #getReplayFrom()} have then to be read again.
+    */
+   public boolean isRestored() {
+      for (Segment segment : segments) {
+         if (!segment.restored) return false;
+      }
+      return true;
+   }
+
+   /**
+    * @return The id of the oldest data file whose records may be missing in the restored index
+    */
+   public int getReplayFrom() {
+      int replayFrom = Integer.MAX_VALUE;
+      for (Segment segment : segments) {
+         replayFrom = Math.min(replayFrom, segment.replayFrom);
+      }
+      return replayFrom;
+   }
+
+   /**
+    * @return The highest sequence id that may have been written before the last checkpoint, 0 if unknown
+    */
+   public long getMaxSeqId() {
+      long maxSeqId = 0;
+      for (Segment segment : segments) {
+         maxSeqId = Math.max(maxSeqId, segment.maxSeqId);
+      }
+      return maxSeqId;
+   }
+
    public void start() {
       for (Segment segment : segments) {
          segment.start();
       }
    }
 
+   /**
+    * Starts the periodic checkpoints, if enabled. This must be invoked only once all the data files written before
+    * were passed to the index.
+    */
+   public void startCheckpoints() {
+      if (checkpointInterval > 0) {
+         checkpointer = new Checkpointer();
+         checkpointer.start();
+      }
+   }
+
+   /**
+    * Schedules the deletion of a data file once no record in it is referenced by the index. With checkpoints, the
+    * file is kept until all the segments have checkpointed an index not referring to it.
+    */
+   void deleteFile(int file) {
+      if (checkpointInterval > 0) {
+         synchronized (deferredDeletes) {
+            deferredDeletes.add(file);
+         }
+      } else {
+         fileProvider.deleteFile(file);
+         compactor.releaseStats(file);
+      }
+   }
+
+   /**
+    * Checkpoints all the segments and waits until they are done.
+    *
+    * @return false if the checkpoint was aborted by a clear
+    */
+   boolean checkpoint() throws InterruptedException {
+      // the records of the older files were all queued before the checkpoint request
+      int replayFrom = fileProvider.getOldestLogFile();
+      synchronized (deferredDeletes) {
+         checkpointDeletes = new ArrayList<>(deferredDeletes);
+         deferredDeletes.clear();
+      }
+      checkpointFailed = false;
+      IndexRequest checkpoint = IndexRequest.checkpointRequest(replayFrom);
+      indexQueue.put(checkpoint);
+      return (Boolean) checkpoint.getResult();
+   }
+
    /**
     * Get record or null if expired
     */
@@ -114,9 +224,31 @@ public EntryInfo getInfo(Object key, byte[] serializedKey) throws IOException {
       }
    }
 
+   // invoked by the last segment that completed the checkpoint
+   private void completeCheckpoint(IndexRequest request) {
+      List<Integer> files = checkpointDeletes;
+      checkpointDeletes = Collections.emptyList();
+      if (checkpointFailed) {
+         // the previous checkpoint of some segment is still in use
+         synchronized (deferredDeletes) {
+            deferredDeletes.addAll(files);
+         }
+         request.setResult(false);
+      } else {
+         for (int file : files) {
+            fileProvider.deleteFile(file);
+            compactor.releaseStats(file);
+         }
+         request.setResult(true);
+      }
+   }
+
    public void clear() throws IOException {
       lock.writeLock().lock();
       try {
+         synchronized (deferredDeletes) {
+            deferredDeletes.clear();
+         }
          ArrayList<CountDownLatch> pauses = new ArrayList<>();
          for (Segment seg : segments) {
             pauses.add(seg.pauseAndClear());
@@ -133,8 +265,22 @@ public void clear() throws IOException {
    }
 
    public void stopOperations() throws InterruptedException {
+      if (checkpointer != null) {
+         checkpointer.interrupt();
+         checkpointer.join();
+         checkpointer = null;
+      }
+      // the segments checkpoint on shutdown, the files no longer referenced can be deleted afterwards
+      int replayFrom = fileProvider.getOldestLogFile();
       for (Segment seg : segments) {
-         seg.stopOperations();
+         seg.stopOperations(replayFrom);
+      }
+      synchronized (deferredDeletes) {
+         for (int file : deferredDeletes) {
+            fileProvider.deleteFile(file);
+            compactor.releaseStats(file);
+         }
+         deferredDeletes.clear();
       }
    }
 
@@ -152,10 +298,21 @@ class Segment extends Thread {
       private final TreeMap<Short, List<IndexSpace>> freeBlocks = new TreeMap<>();
       private final ReadWriteLock rootLock = new ReentrantReadWriteLock();
       private final File indexFileFile;
-      private final boolean loaded;
+      private final File checkpointFile;
+      private boolean loaded;
+      private boolean restored;
+      private int replayFrom = Integer.MAX_VALUE;
+      private long maxSeqId;
       private FileChannel indexFile;
       private long indexFileSize;
       private AtomicLong size = new AtomicLong();
+      // Spaces allocated since the last checkpoint, only these may be overwritten or reused once freed
+      private final Set<Long> allocatedSinceCheckpoint = new HashSet<>();
+      // Spaces freed since the last checkpoint that it may still refer to
+      private final List<IndexSpace> pendingFree = new ArrayList<>();
+      private IndexNode checkpointRootNode;
+      private IndexSpace checkpointRoot;
+      private volatile int stopReplayFrom;
 
       private volatile IndexNode root;
 
@@ -167,6 +324,7 @@ private Segment(int id, BlockingQueue<IndexRequest> indexQueue, TemporaryTable t
          this.temporaryTable = temporaryTable;
 
          this.indexFileFile = new File(indexDir.toFile(), "index." + id);
+         this.checkpointFile = new File(indexDir.toFile(), "index." + id + ".checkpoint");
          this.indexFile = new RandomAccessFile(indexFileFile, "rw").getChannel();
          indexFile.position(0);
          ByteBuffer buffer = ByteBuffer.allocate(INDEX_FILE_HEADER_SIZE);
@@ -176,16 +334,26 @@ private Segment(int id, BlockingQueue<IndexRequest> indexQueue, TemporaryTable t
             long freeBlocksOffset = buffer.getLong(14);
             size.set(buffer.getLong(22));
             root = new IndexNode(this, rootOffset, rootOccupied);
-            loadFreeBlocks(freeBlocksOffset);
+            indexFile.position(freeBlocksOffset);
+            readFreeBlocks(indexFile);
             indexFileSize = freeBlocksOffset;
+            checkpointRootNode = root;
+            checkpointRoot = new IndexSpace(rootOffset, rootOccupied);
             loaded = true;
-         } else {
+            restored = true;
+            // the checkpoint written on shutdown, if any, refers to the same root
+            maxSeqId = readCheckpointSeqId(rootOffset);
+         } else if (!loadCheckpoint()) {
             this.indexFile.truncate(0);
             root = IndexNode.emptyWithLeaves(this);
             loaded = false;
             // reserve space for shutdown
             indexFileSize = INDEX_FILE_HEADER_SIZE;
          }
+         if (checkpointInterval <= 0) {
+            // the nodes are overwritten in place from now on
+            Files.deleteIfExists(checkpointFile.toPath());
+         }
          buffer.putInt(0, DIRTY);
          buffer.position(0);
          buffer.limit(4);
@@ -238,8 +406,18 @@ public void run() {
                   case DELETE_FILE:
                      // the last segment that processes the delete request actually deletes the file
                      if (request.countDown()) {
-                        fileProvider.deleteFile(request.getFile());
-                        compactor.releaseStats(request.getFile());
+                        deleteFile(request.getFile());
+                     }
+                     continue;
+                  case CHECKPOINT:
+                     try {
+                        checkpoint(request.getFile());
+                     } catch (IOException e) {
+                        checkpointFailed = true;
+                        log.cannotCheckpointIndex(e);
+                     }
+                     if (request.countDown()) {
+                        completeCheckpoint(request);
                      }
                      continue;
                   case STOP:
@@ -322,13 +500,131 @@ public void setOverwritten(boolean overwritten, int prevFile, int prevOffset) {
       }
 
       private void shutdown() throws IOException {
-         IndexSpace rootSpace = allocateIndexSpace(root.length());
-         root.store(rootSpace);
+         IndexSpace rootSpace;
+         if (checkpointInterval > 0) {
+            checkpoint(stopReplayFrom);
+            rootSpace = checkpointRoot;
+         } else {
+            rootSpace = allocateIndexSpace(root.length());
+            root.store(rootSpace);
+         }
          indexFile.position(indexFileSize);
-         ByteBuffer buffer = ByteBuffer.allocate(4);
-         buffer.putInt(0, freeBlocks.size());
+         writeFreeBlocks(indexFile, freeBlocks);
+         int headerWithoutMagic = INDEX_FILE_HEADER_SIZE - 4;
+         ByteBuffer buffer = ByteBuffer.allocate(headerWithoutMagic);
+         buffer.position(0);
+         // we need to set limit ahead, otherwise the putLong could throw IndexOutOfBoundsException
+         buffer.limit(headerWithoutMagic);
+         buffer.putLong(0, rootSpace.offset);
+         buffer.putShort(8, rootSpace.length);
+         buffer.putLong(10, indexFileSize);
+         buffer.putLong(18, size.get());
+         indexFile.position(4);
+         write(indexFile, buffer);
+         buffer.position(0);
+         buffer.limit(4);
+         buffer.putInt(0, GRACEFULLY);
+         indexFile.position(0);
          write(indexFile, buffer);
+      }
+
+      /**
+       * Persists the root and the free blocks, so that the segment can be restored in this state after a crash. The
+       * spaces freed since the previous checkpoint are reused only once this one is written.
+       */
+      private void checkpoint(int replayFrom) throws IOException {
+         if (root != checkpointRootNode) {
+            checkpointRoot = allocateIndexSpace(root.length());
+            root.store(checkpointRoot);
+            checkpointRootNode = root;
+         }
+         // the nodes must be persisted before the checkpoint refers to them
+         indexFile.force(false);
+         TreeMap<Short, List<IndexSpace>> blocks = new TreeMap<>();
          for (Map.Entry<Short, List<IndexSpace>> entry : freeBlocks.entrySet()) {
+            blocks.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+         }
+         for (IndexSpace space : pendingFree) {
+            blocks.computeIfAbsent(space.length, k -> new ArrayList<>()).add(space);
+         }
+         File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+         try (FileChannel channel = new FileOutputStream(tmpFile).getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+            buffer.putInt(CHECKPOINT);
+            buffer.putLong(checkpointRoot.offset);
+            buffer.putShort(checkpointRoot.length);
+            buffer.putLong(indexFileSize);
+            buffer.putLong(size.get());
+            buffer.putInt(replayFrom);
+            buffer.putLong(seqId.getAsLong());
+            buffer.flip();
+            write(channel, buffer);
+            writeFreeBlocks(channel, blocks);
+            channel.force(false);
+         }
+         Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+               StandardCopyOption.REPLACE_EXISTING);
+         for (IndexSpace space : pendingFree) {
+            freeBlocks.computeIfAbsent(space.length, k -> new ArrayList<>()).add(space);
+         }
+         pendingFree.clear();
+         allocatedSinceCheckpoint.clear();
+         if (log.isTraceEnabled()) {
+            log.tracef("Checkpointed index segment %s, replay from file %d", getName(), replayFrom);
+         }
+      }
+
+      private boolean loadCheckpoint() throws IOException {
+         if (!checkpointFile.exists()) {
+            return false;
+         }
+         try (FileChannel channel = new RandomAccessFile(checkpointFile, "r").getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+            if (!read(channel, buffer) || buffer.getInt(0) != CHECKPOINT) {
+               return false;
+            }
+            long rootOffset = buffer.getLong(4);
+            short rootOccupied = buffer.getShort(12);
+            indexFileSize = buffer.getLong(14);
+            size.set(buffer.getLong(22));
+            replayFrom = buffer.getInt(30);
+            maxSeqId = buffer.getLong(34);
+            readFreeBlocks(channel);
+            // the nodes written after the checkpoint are not referenced
+            indexFile.truncate(indexFileSize);
+            root = new IndexNode(this, rootOffset, rootOccupied);
+            checkpointRootNode = root;
+            checkpointRoot = new IndexSpace(rootOffset, rootOccupied);
+         } catch (IOException e) {
+            log.debug("Cannot restore the index from checkpoint " + checkpointFile, e);
+            freeBlocks.clear();
+            size.set(0);
+            replayFrom = Integer.MAX_VALUE;
+            maxSeqId = 0;
+            return false;
+         }
+         restored = true;
+         return true;
+      }
+
+      private long readCheckpointSeqId(long rootOffset) throws IOException {
+         if (!checkpointFile.exists()) {
+            return 0;
+         }
+         try (FileChannel channel = new RandomAccessFile(checkpointFile, "r").getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+            if (read(channel, buffer) && buffer.getInt(0) == CHECKPOINT && buffer.getLong(4) == rootOffset) {
+               return buffer.getLong(34);
+            }
+            return 0;
+         }
+      }
+
+      private void writeFreeBlocks(FileChannel channel, Map<Short, List<IndexSpace>> blocks) throws IOException {
+         ByteBuffer buffer = ByteBuffer.allocate(4);
+         buffer.putInt(0, blocks.size());
+         write(channel, buffer);
+         for (Map.Entry<Short, List<IndexSpace>> entry : blocks.entrySet()) {
             List<IndexSpace> list = entry.getValue();
             int requiredSize = 8 + list.size() * 10;
             buffer = buffer.capacity() < requiredSize ? ByteBuffer.allocate(requiredSize) : buffer;
@@ -342,38 +638,21 @@ private void shutdown() throws IOException {
                buffer.putShort(space.length);
             }
             buffer.flip();
-            write(indexFile, buffer);
+            write(channel, buffer);
          }
-         int headerWithoutMagic = INDEX_FILE_HEADER_SIZE - 4;
-         buffer = buffer.capacity() < headerWithoutMagic ? ByteBuffer.allocate(headerWithoutMagic) : buffer;
-         buffer.position(0);
-         // we need to set limit ahead, otherwise the putLong could throw IndexOutOfBoundsException
-         buffer.limit(headerWithoutMagic);
-         buffer.putLong(0, rootSpace.offset);
-         buffer.putShort(8, rootSpace.length);
-         buffer.putLong(10, indexFileSize);
-         buffer.putLong(18, size.get());
-         indexFile.position(4);
-         write(indexFile, buffer);
-         buffer.position(0);
-         buffer.limit(4);
-         buffer.putInt(0, GRACEFULLY);
-         indexFile.position(0);
-         write(indexFile, buffer);
       }
 
-      private void loadFreeBlocks(long freeBlocksOffset) throws IOException {
-         indexFile.position(freeBlocksOffset);
+      private void readFreeBlocks(FileChannel channel) throws IOException {
          ByteBuffer buffer = ByteBuffer.allocate(8);
          buffer.limit(4);
-         if (!read(indexFile, buffer)) {
+         if (!read(channel, buffer)) {
             throw new IOException("Cannot read free blocks lists!");
          }
          int numLists = buffer.getInt(0);
          for (int i = 0; i < numLists; ++i) {
             buffer.position(0);
             buffer.limit(8);
-            if (!read(indexFile, buffer)) {
+            if (!read(channel, buffer)) {
                throw new IOException("Cannot read free blocks lists!");
             }
             // TODO: change this to short
@@ -384,7 +663,7 @@ private void loadFreeBlocks(long freeBlocksOffset) throws IOException {
             buffer = buffer.capacity() < requiredSize ? ByteBuffer.allocate(requiredSize) : buffer;
             buffer.position(0);
             buffer.limit(requiredSize);
-            if (!read(indexFile, buffer)) {
+            if (!read(channel, buffer)) {
                throw new IOException("Cannot read free blocks lists!");
             }
             buffer.flip();
@@ -405,9 +684,34 @@ CountDownLatch pauseAndClear() throws InterruptedException, IOException {
          indexFileSize = INDEX_FILE_HEADER_SIZE;
          freeBlocks.clear();
          size.set(0);
+         resetCheckpoint();
          return pause;
       }
 
+      /**
+       * Drops the restored state, the index has to be built from all the data files.
+       */
+      void reset() throws IOException {
+         root = IndexNode.emptyWithLeaves(this);
+         indexFile.truncate(0);
+         indexFileSize = INDEX_FILE_HEADER_SIZE;
+         freeBlocks.clear();
+         size.set(0);
+         resetCheckpoint();
+         loaded = false;
+         restored = false;
+         replayFrom = Integer.MAX_VALUE;
+         maxSeqId = 0;
+      }
+
+      private void resetCheckpoint() throws IOException {
+         Files.deleteIfExists(checkpointFile.toPath());
+         allocatedSinceCheckpoint.clear();
+         pendingFree.clear();
+         checkpointRootNode = null;
+         checkpointRoot = null;
+      }
+
       public long size() throws InterruptedException {
          IndexRequest sizeRequest = IndexRequest.sizeRequest();
          indexQueue.put(sizeRequest);
@@ -448,18 +752,33 @@ public int getMinNodeSize() {
       // this should be accessed only from the updater thread
       IndexSpace allocateIndexSpace(short length) {
          Map.Entry<Short, List<IndexSpace>> entry = freeBlocks.ceilingEntry(length);
+         IndexSpace space;
          if (entry == null || entry.getValue().isEmpty()) {
             long oldSize = indexFileSize;
             indexFileSize += length;
-            return new IndexSpace(oldSize, length);
+            space = new IndexSpace(oldSize, length);
          } else {
-            return entry.getValue().remove(entry.getValue().size() - 1);
+            space = entry.getValue().remove(entry.getValue().size() - 1);
          }
+         if (checkpointInterval > 0) {
+            allocatedSinceCheckpoint.add(space.offset);
+         }
+         return space;
+      }
+
+      // this should be accessed only from the updater thread
+      boolean canOverwrite(long offset) {
+         return offset < 0 || checkpointInterval <= 0 || allocatedSinceCheckpoint.contains(offset);
       }
 
       // this should be accessed only from the updater thread
       void freeIndexSpace(long offset, short length) {
          if (length <= 0) throw new IllegalArgumentException("Offset=" + offset + ", length=" + length);
+         if (checkpointInterval > 0 && !allocatedSinceCheckpoint.remove(offset)) {
+            // the last checkpoint may refer to this space
+            pendingFree.add(new IndexSpace(offset, length));
+            return;
+         }
          // TODO: fragmentation!
          // TODO: memory bounds!
          if (offset + length < indexFileSize) {
@@ -478,7 +797,8 @@ Lock rootReadLock() {
          return rootLock.readLock();
       }
 
-      void stopOperations() throws InterruptedException {
+      void stopOperations(int replayFrom) throws InterruptedException {
+         stopReplayFrom = replayFrom;
          indexQueue.put(IndexRequest.stopRequest());
          this.join();
       }
@@ -488,6 +808,25 @@ public TimeService getTimeService() {
       }
    }
 
+   private class Checkpointer extends Thread {
+      Checkpointer() {
+         super("BCS-IndexCheckpointer");
+         setDaemon(true);
+      }
+
+      @Override
+      public void run() {
+         try {
+            while (true) {
+               Thread.sleep(checkpointInterval);
+               checkpoint();
+            }
+         } catch (InterruptedException e) {
+            // stopped
+         }
+      }
+   }
+
    /**
     * Offset-length pair
     */
@@ -396,7 +396,7 @@ private static JoinSplitResult manageLength(Index.Segment segment, Stack<Path> s
          Path parent = stack.peek();
          if (parent.node.innerNodes.length == 1) {
             // we have no siblings - we can't merge with them even when we're really short
-            if (copy.length() <= node.occupiedSpace) {
+            if (copy.length() <= node.occupiedSpace && segment.canOverwrite(node.offset)) {
                node.replaceContent(copy);
                return null;
             } else {
@@ -439,15 +439,13 @@ private static JoinSplitResult manageLength(Index.Segment segment, Stack<Path> s
             to = joinWith;
          }
          garbage.push(joiner);
-      } else if (copy.length() <= node.occupiedSpace) {
-         if (copy.innerNodes != null && copy.innerNodes.length == 1 && stack.isEmpty()) {
-            IndexNode child = copy.innerNodes[0].getIndexNode(copy.segment);
-            return new JoinSplitResult(0, 0, Collections.singletonList(child));
-         } else {
-            // special case where we only overwrite the key
-            node.replaceContent(copy);
-            return null;
-         }
+      } else if (copy.length() <= node.occupiedSpace && copy.innerNodes != null && copy.innerNodes.length == 1 && stack.isEmpty()) {
+         IndexNode child = copy.innerNodes[0].getIndexNode(copy.segment);
+         return new JoinSplitResult(0, 0, Collections.singletonList(child));
+      } else if (copy.length() <= node.occupiedSpace && segment.canOverwrite(node.offset)) {
+         // special case where we only overwrite the key
+         node.replaceContent(copy);
+         return null;
       } else if (stack.isEmpty()) {
          from = to = 0;
       } else {
@@ -18,7 +18,8 @@ public enum Type {
       CLEAR,
       DELETE_FILE,
       STOP,
-      GET_SIZE
+      GET_SIZE,
+      CHECKPOINT
    }
 
    private final Type type;
@@ -72,6 +73,10 @@ public static IndexRequest stopRequest() {
       return new IndexRequest(Type.STOP, null, null, -1, -1, -1, -1, -1);
    }
 
+   public static IndexRequest checkpointRequest(int replayFrom) {
+      return new IndexRequest(Type.CHECKPOINT, null, null, replayFrom, -1, -1, -1, -1);
+   }
+
    public static IndexRequest sizeRequest() {
       return new IndexRequest(Type.GET_SIZE, null, null, -1, -1, -1, -1, -1);
    }
@@ -0,0 +1,41 @@
+package org.infinispan.persistence.sifs;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.annotations.InfinispanModule;
+import org.infinispan.jmx.CacheJmxRegistration;
+import org.infinispan.lifecycle.ModuleLifecycle;
+import org.infinispan.metrics.impl.CacheMetricsRegistration;
+import org.infinispan.persistence.manager.PersistenceManager;
+
+/**
+ * Exposes the statistics of the soft-index file stores of a cache through JMX and metrics.
+ *
+ * @since 12.1
+ */
+@InfinispanModule(name = "cachestore-sifs", requiredModules = "core")
+public class LifecycleCallbacks implements ModuleLifecycle {
+
+   @Override
+   public void cacheStarted(ComponentRegistry cr, String cacheName) {
+      PersistenceManager persistenceManager = cr.getComponent(PersistenceManager.class);
+      if (persistenceManager == null) {
+         return;
+      }
+      GlobalConfiguration globalConfig = cr.getGlobalComponentRegistry().getGlobalConfiguration();
+      CacheMetricsRegistration cacheMetricsRegistration = cr.getComponent(CacheMetricsRegistration.class);
+      for (SoftIndexFileStore store : persistenceManager.getStores(SoftIndexFileStore.class)) {
+         if (globalConfig.jmx().enabled()) {
+            try {
+               cr.getComponent(CacheJmxRegistration.class).registerMBean(store);
+            } catch (Exception e) {
+               throw new CacheException("Unable to register SoftIndexFileStore MBean", e);
+            }
+         }
+         if (cacheMetricsRegistration != null && cacheMetricsRegistration.metricsEnabled()) {
+            cacheMetricsRegistration.registerMetrics(store, "persistence", "SoftIndexFileStore");
+         }
+      }
+   }
+}
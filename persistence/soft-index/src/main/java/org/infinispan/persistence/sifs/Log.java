@@ -84,4 +84,20 @@ public interface Log extends BasicLogger {
 
    @Message(value = "Index looks corrupt.", id = 29020)
    PersistenceException indexLooksCorrupt(@Cause Exception e);
+
+   @Message(value = "The number of log files (%d) must be at least 1.", id = 29021)
+   CacheConfigurationException invalidLogFiles(int logFiles);
+
+   @Message(value = "The maximum size of a commit (%d) must be positive.", id = 29022)
+   CacheConfigurationException invalidCommitMaxBytes(int commitMaxBytes);
+
+   @Message(value = "The number of compaction threads (%d) must be at least 1.", id = 29023)
+   CacheConfigurationException invalidCompactionThreads(int compactionThreads);
+
+   @Message(value = "The index checkpoint interval (%d) must not be negative.", id = 29024)
+   CacheConfigurationException invalidCheckpointInterval(long checkpointInterval);
+
+   @LogMessage(level = Logger.Level.WARN)
+   @Message(value = "Cannot checkpoint the index, the previous checkpoint is kept", id = 29025)
+   void cannotCheckpointIndex(@Cause IOException e);
 }
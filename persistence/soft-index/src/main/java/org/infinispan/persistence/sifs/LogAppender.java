@@ -1,49 +1,83 @@
 package org.infinispan.persistence.sifs;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.util.logging.LogFactory;
 
 /**
- * This component has the only thread that polls the queue with requests to write some entry into the cache store.
- * It writes the records to append-only log files, inserts the entry position into TemporaryTable and queues the position
+ * This component has the only thread that polls its queue with requests to write some entry into the cache store.
+ * It writes the records to an append-only log file, inserts the entry position into TemporaryTable and queues the position
  * to be persisted in Index.
+ * <p>
+ * The records are written in batches (group commit): all the requests found in the queue are written with a single
+ * gathering write and, when writes are synchronous, a single fsync, before their producers are notified. A batch is
+ * committed once it reaches the configured number of bytes, and with synchronous writes it may wait up to the
+ * configured latency for more concurrent writers, bounded by half of the observed fsync duration.
+ * <p>
+ * The store may use several appenders, each with its own log file; all the writes of a key go to the same appender.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
 public class LogAppender extends Thread {
    private static final Log log = LogFactory.getLog(LogAppender.class, Log.class);
 
-   private final SyncProcessingQueue<LogRequest> queue;
+   private final SyncProcessingQueue<LogRequest> queue = new SyncProcessingQueue<>();
    private final BlockingQueue<IndexRequest> indexQueue;
    private final boolean syncWrites;
    private final TemporaryTable temporaryTable;
    private final int maxFileSize;
+   private final long maxCommitLatency;
+   private final int maxCommitBytes;
    private final Compactor compactor;
    private final FileProvider fileProvider;
+   // Shared by all the appenders, so that the latest record of a key can be found when the index is rebuilt
+   private final AtomicLong seqId;
    private LogRequest pausedRequest;
-   private long seqId = 0;
 
-   LogAppender(SyncProcessingQueue<LogRequest> inboundQueue,
-               BlockingQueue<IndexRequest> indexQueue,
+   // Requests written to the current file but not committed yet, their producers are still waiting
+   private final List<LogRequest> batch = new ArrayList<>();
+   private final List<java.nio.ByteBuffer> batchBuffers = new ArrayList<>();
+   private int batchOffset;
+   private int batchBytes;
+   private long batchStart;
+   private int lastBatchSize;
+   private volatile long fsyncLatency;
+   private volatile long commitLatency;
+
+   LogAppender(String name, BlockingQueue<IndexRequest> indexQueue,
                TemporaryTable temporaryTable,
                Compactor compactor,
-               FileProvider fileProvider, boolean syncWrites, int maxFileSize) {
-      super("BCS-LogAppender");
+               FileProvider fileProvider, AtomicLong seqId, boolean syncWrites, int maxFileSize,
+               long maxCommitLatency, TimeUnit unit, int maxCommitBytes) {
+      super(name);
       this.setDaemon(true);
-      this.queue = inboundQueue;
       this.indexQueue = indexQueue;
       this.temporaryTable = temporaryTable;
       this.compactor = compactor;
       this.fileProvider = fileProvider;
+      this.seqId = seqId;
       this.syncWrites = syncWrites;
       this.maxFileSize = maxFileSize;
+      this.maxCommitLatency = unit.toNanos(maxCommitLatency);
+      this.maxCommitBytes = maxCommitBytes;
       start();
    }
 
    public void setSeqId(long seqId) {
-      this.seqId = seqId;
+      this.seqId.set(seqId);
+   }
+
+   /**
+    * Passes the request to the appender thread and waits until it is written, and fsynced if configured so.
+    */
+   public void storeRequest(LogRequest request) throws InterruptedException {
+      queue.pushAndWait(request);
    }
 
    public void pause() throws InterruptedException {
@@ -63,6 +97,20 @@ public void resumeAfterPause() {
       pausedRequest = null;
    }
 
+   /**
+    * @return the moving average of the duration of the fsync of a batch of writes, in nanoseconds
+    */
+   long getFsyncLatency() {
+      return fsyncLatency;
+   }
+
+   /**
+    * @return the moving average of the duration of the write of a batch, including its fsync, in nanoseconds
+    */
+   long getCommitLatency() {
+      return commitLatency;
+   }
+
    @Override
    public void run() {
       try {
@@ -72,43 +120,57 @@ public void run() {
             LogRequest request = queue.pop();
             if (request != null) {
                if (request.isClear()) {
+                  commit(logFile);
                   logFile.close();
                   queue.notifyNoWait();
                   request.pause();
                   currentOffset = 0;
+                  batchOffset = 0;
                   logFile = fileProvider.getFileForLog();
                   log.debug("Appending records to " + logFile.fileId);
                   continue;
                } else if (request.isStop()) {
+                  commit(logFile);
                   queue.notifyNoWait();
                   break;
                } else if (request.isPause()) {
+                  commit(logFile);
                   queue.notifyNoWait();
                   request.pause();
                   continue;
                }
                if (currentOffset + request.length() > maxFileSize) {
                   // switch to next file
+                  commit(logFile);
                   logFile.close();
                   compactor.completeFile(logFile.fileId);
                   currentOffset = 0;
+                  batchOffset = 0;
                   logFile = fileProvider.getFileForLog();
                   log.debug("Appending records to " + logFile.fileId);
                }
-               long seqId = nextSeqId();
-               EntryRecord.writeEntry(logFile.fileChannel, request.getSerializedKey(), request.getSerializedMetadata(),
-                     request.getSerializedInternalMetadata(),
-                     request.getSerializedValue(), seqId, request.getExpiration(), request.getCreated(), request.getLastUsed());
-               int offset = request.getSerializedValue() == null ? ~currentOffset : currentOffset;
-               temporaryTable.set(request.getKey(), logFile.fileId, offset);
-               IndexRequest indexRequest = IndexRequest.update(request.getKey(), raw(request.getSerializedKey()),
-                     logFile.fileId, offset, request.length());
-               request.setIndexRequest(indexRequest);
-               indexQueue.put(indexRequest);
+               if (batch.isEmpty()) {
+                  batchStart = System.nanoTime();
+               }
+               EntryRecord.addEntryBuffers(batchBuffers, request.getSerializedKey(), request.getSerializedMetadata(),
+                     request.getSerializedInternalMetadata(), request.getSerializedValue(), seqId.getAndIncrement(),
+                     request.getExpiration(), request.getCreated(), request.getLastUsed());
+               batch.add(request);
+               batchBytes += request.length();
                currentOffset += request.length();
+               if (batchBytes >= maxCommitBytes) {
+                  commit(logFile);
+                  queue.notifyNoWait();
+               }
             } else {
-               if (syncWrites) {
-                  logFile.fileChannel.force(false);
+               if (!batch.isEmpty()) {
+                  long window = commitWindow();
+                  // Wait for more writers only while the batch is smaller than the previous one
+                  if (window > 0 && batch.size() < lastBatchSize &&
+                        queue.awaitNonEmpty(batchStart + window - System.nanoTime())) {
+                     continue;
+                  }
+                  commit(logFile);
                }
                queue.notifyAndWait();
             }
@@ -119,6 +181,59 @@ public void run() {
       }
    }
 
+   /**
+    * With synchronous writes, a batch is kept open for at most half of the average fsync duration, so that the
+    * concurrent writers share the fsync instead of waiting for the next one.
+    *
+    * @return how long a batch may wait for more writes since its first one, in nanoseconds
+    */
+   private long commitWindow() {
+      if (!syncWrites || maxCommitLatency <= 0) {
+         return 0;
+      }
+      return Math.min(maxCommitLatency, fsyncLatency >> 1);
+   }
+
+   /**
+    * Writes the batch with a single gathering write, forces it to disk if needed and only then makes the records
+    * visible in the temporary table and the index. The producers are not notified.
+    */
+   private void commit(FileProvider.Log logFile) throws IOException, InterruptedException {
+      if (batch.isEmpty()) {
+         return;
+      }
+      long writeStart = System.nanoTime();
+      EntryRecord.write(logFile.fileChannel, batchBuffers.toArray(new java.nio.ByteBuffer[0]));
+      if (syncWrites) {
+         long start = System.nanoTime();
+         logFile.fileChannel.force(false);
+         fsyncLatency = average(fsyncLatency, System.nanoTime() - start);
+      }
+      commitLatency = average(commitLatency, System.nanoTime() - writeStart);
+      int offset = batchOffset;
+      for (LogRequest request : batch) {
+         int indexedOffset = request.getSerializedValue() == null ? ~offset : offset;
+         temporaryTable.set(request.getKey(), logFile.fileId, indexedOffset);
+         IndexRequest indexRequest = IndexRequest.update(request.getKey(), raw(request.getSerializedKey()),
+               logFile.fileId, indexedOffset, request.length());
+         request.setIndexRequest(indexRequest);
+         indexQueue.put(indexRequest);
+         offset += request.length();
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Committed %d records (%d bytes) to %d:%d", batch.size(), batchBytes, logFile.fileId, batchOffset);
+      }
+      lastBatchSize = batch.size();
+      batchOffset = offset;
+      batchBytes = 0;
+      batch.clear();
+      batchBuffers.clear();
+   }
+
+   private static long average(long average, long latency) {
+      return average == 0 ? latency : average - (average >> 3) + (latency >> 3);
+   }
+
    private byte[] raw(ByteBuffer buffer) {
       if (buffer.getBuf().length == buffer.getLength()) {
          return buffer.getBuf();
@@ -129,10 +244,6 @@ private byte[] raw(ByteBuffer buffer) {
       }
    }
 
-   private long nextSeqId() {
-      return seqId++;
-   }
-
    public void stopOperations() throws InterruptedException {
       queue.pushAndWait(LogRequest.stopRequest());
       this.join();
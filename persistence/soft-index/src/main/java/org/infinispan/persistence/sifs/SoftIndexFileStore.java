@@ -6,9 +6,12 @@
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
@@ -22,6 +25,10 @@
 import org.infinispan.commons.util.AbstractIterator;
 import org.infinispan.commons.util.CloseableIterator;
 import org.infinispan.commons.util.Util;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.PrivateMetadata;
 import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration;
@@ -48,21 +55,27 @@
  *                 into append-only file, writes the offset into TemporaryTable
  *                 and enqueues request to update index into UpdateQueue.
  *                 The append-only files have limited size, when the file is full,
- *                 new file is started.
+ *                 new file is started. Writes are committed in batches, sharing
+ *                 a single write and fsync. There may be several LogAppenders, each
+ *                 appending to its own file; the writes of a key always go to the
+ *                 same one.
  * - IndexUpdater: Reads the UpdateQueue, applies the operation into B-tree-like
  *                 structure Index (exact description below) and then removes
  *                 the entry from TemporaryTable. When the Index is overwriten,
  *                 the current entry offset is retrieved and IndexUpdater increases
  *                 the unused space statistics in FileStats.
  * - Compactor:    When a limit of unused space in some file is reached (according
- *                 to FileStats), the Compactor starts reading this file sequentially,
+ *                 to FileStats), the Compactor schedules this file for compaction.
+ *                 Its worker threads pick the file with most unused space first,
+ *                 start reading this file sequentially,
  *                 querying TemporaryTable or Index for the current entry position
  *                 and copying the unchanged entries into another file. For the entries
  *                 that are still valid in the original file, a compare-and-set
  *                 (file-offset based) request is enqueued into UpdateQueue - therefore
  *                 this operation cannot interfere with concurrent writes overwriting
  *                 the entry. Multiple files can be merged into single file during
- *                 compaction.
+ *                 compaction. Only one worker picks new files while the writes of
+ *                 the LogAppenders are slower than usual.
  *
  * Structures:
  * - TemporaryTable: keeps the records about current entry location until this is
@@ -111,6 +124,7 @@
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
 @Store
+@MBean(objectName = "SoftIndexFileStore", description = "Soft-index file store")
 public class SoftIndexFileStore implements AdvancedLoadWriteStore<Object, Object> {
 
    private static final Log log = LogFactory.getLog(SoftIndexFileStore.class, Log.class);
@@ -124,9 +138,8 @@ public class SoftIndexFileStore implements AdvancedLoadWriteStore<Object, Object
    private boolean started = false;
    private TemporaryTable temporaryTable;
    private IndexQueue indexQueue;
-   private SyncProcessingQueue<LogRequest> storeQueue;
    private FileProvider fileProvider;
-   private LogAppender logAppender;
+   private LogAppender[] logAppenders;
    private Index index;
    private Compactor compactor;
    private Marshaller marshaller;
@@ -154,15 +167,30 @@ public synchronized void start() {
       }
       started = true;
       temporaryTable = new TemporaryTable(configuration.indexQueueLength() * configuration.indexSegments());
-      storeQueue = new SyncProcessingQueue<>();
       indexQueue = new IndexQueue(configuration.indexSegments(), configuration.indexQueueLength());
       fileProvider = new FileProvider(getDataLocation(), configuration.openFilesLimit(), PREFIX_LATEST);
-      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold());
-      logAppender = new LogAppender(storeQueue, indexQueue, temporaryTable, compactor, fileProvider, configuration.syncWrites(), configuration.maxFileSize());
+      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService,
+            configuration.maxFileSize(), configuration.compactionThreshold(), configuration.compactionThreads());
+      AtomicLong seqId = new AtomicLong();
+      logAppenders = new LogAppender[configuration.logFiles()];
+      for (int i = 0; i < logAppenders.length; i++) {
+         String name = logAppenders.length == 1 ? "BCS-LogAppender" : "BCS-LogAppender-" + i;
+         logAppenders[i] = new LogAppender(name, indexQueue, temporaryTable, compactor, fileProvider, seqId,
+               configuration.syncWrites(), configuration.maxFileSize(), configuration.commitMaxLatency(),
+               TimeUnit.MICROSECONDS, configuration.commitMaxBytes());
+      }
+      LogAppender[] appenders = logAppenders;
+      compactor.setWriteLatency(() -> {
+         long latency = 0;
+         for (LogAppender appender : appenders) {
+            latency = Math.max(latency, appender.getCommitLatency());
+         }
+         return latency;
+      });
       try {
          index = new Index(fileProvider, getIndexLocation(), configuration.indexSegments(),
                configuration.minNodeSize(), configuration.maxNodeSize(),
-               indexQueue, temporaryTable, compactor, timeService);
+               indexQueue, temporaryTable, compactor, timeService, configuration.checkpointInterval(), seqId::get);
       } catch (IOException e) {
          throw log.cannotOpenIndex(configuration.indexLocation(), e);
       }
@@ -184,16 +212,23 @@ public synchronized void start() {
             migrateData = true;
          } else if (index.isLoaded()) {
             log.debug("Not building the index - loaded from persisted state");
+            maxSeqId.set(index.getMaxSeqId());
+         } else if (index.isRestored()) {
+            int replayFrom = index.getReplayFrom();
+            log.debugf("Restored the index from checkpoint, replaying files from %d", replayFrom);
+            maxSeqId.set(index.getMaxSeqId());
+            buildIndex(replayFrom, maxSeqId);
          } else {
             log.debug("Building the index");
-            buildIndex(maxSeqId);
+            buildIndex(0, maxSeqId);
          }
       } else {
          log.debug("Not building the index - purge will be executed");
       }
       if (!migrateData) {
-         logAppender.setSeqId(maxSeqId.get() + 1);
+         logAppenders[0].setSeqId(maxSeqId.get() + 1);
       }
+      index.startCheckpoints();
    }
 
    private void migrateFromOldFormat(FileProvider oldFileProvider) {
@@ -235,11 +270,11 @@ private void migrateFromOldFormat(FileProvider oldFileProvider) {
                   // entry is null if expired or removed (tombstone), in both case, we can ignore it.
                   //noinspection ConstantConditions (entry is not null!)
                   if (entry.getValueBytes() != null) {
-                     // using the storeQueue (instead of binary copy) to avoid building the index later
-                     storeQueue.pushAndWait(LogRequest.storeRequest(entry));
+                     // using the log appender (instead of binary copy) to avoid building the index later
+                     logAppender(entry.getKey()).storeRequest(LogRequest.storeRequest(entry));
                   } else {
                      // delete the entry. The file is append only so we can have a put() and later a remove() for the same key
-                     storeQueue.pushAndWait(LogRequest.deleteRequest(entry.getKey(), entry.getKeyBytes()));
+                     logAppender(entry.getKey()).storeRequest(LogRequest.deleteRequest(entry.getKey(), entry.getKeyBytes()));
                   }
                   offset += header.totalLength();
                }
@@ -269,8 +304,21 @@ private <T> T unmarshallLegacy(ByteBuffer buf, boolean allowInternal) throws Cla
       }
    }
 
-   private void buildIndex(final AtomicLong maxSeqId) {
-      Flowable<Integer> filePublisher = filePublisher();
+   /**
+    * Reads the data files starting at the given id and passes their records to the index. The older files are
+    * already indexed.
+    */
+   private void buildIndex(int replayFrom, final AtomicLong maxSeqId) {
+      boolean restored = index.isRestored();
+      // the older files are compacted only after the replay, the replayed records may supersede theirs
+      List<Integer> indexedFiles = new ArrayList<>();
+      Flowable<Integer> filePublisher = filePublisher().filter(file -> {
+         if (file < replayFrom) {
+            indexedFiles.add(file);
+            return false;
+         }
+         return true;
+      });
       CompletionStage<Void> stage = handleFilePublisher(filePublisher.doAfterNext(compactor::completeFile), false, false,
             (file, offset, size, serializedKey, entryMetadata, serializedValue, serializedInternalMetadata, seqId, expiration) -> {
                long prevSeqId;
@@ -281,6 +329,10 @@ private void buildIndex(final AtomicLong maxSeqId) {
                   log.tracef("Loaded %d:%d (seqId %d, expiration %d)", file, offset, seqId, expiration);
                }
                try {
+                  if (restored && isIndexed(key, serializedKey, file, offset)) {
+                     // the record was applied before the checkpoint
+                     return null;
+                  }
                   // We may check the seqId safely as we are the only thread writing to index
                   if (isSeqIdOld(seqId, key, serializedKey)) {
                      indexQueue.put(IndexRequest.foundOld(key, serializedKey, file, offset));
@@ -296,6 +348,7 @@ private void buildIndex(final AtomicLong maxSeqId) {
             }).ignoreElements()
             .toCompletionStage(null);
       CompletionStages.join(stage);
+      indexedFiles.forEach(compactor::completeFile);
    }
 
    private Path getDataLocation() {
@@ -306,6 +359,11 @@ protected Path getIndexLocation() {
       return getQualifiedLocation(ctx.getGlobalConfiguration(), configuration.indexLocation(), ctx.getCache().getName(), "index");
    }
 
+   private boolean isIndexed(Object key, byte[] serializedKey, int file, int offset) throws IOException {
+      EntryInfo info = index.getInfo(key, serializedKey);
+      return info != null && info.file == file && (info.offset < 0 ? ~info.offset : info.offset) == (offset < 0 ? ~offset : offset);
+   }
+
    protected boolean isSeqIdOld(long seqId, Object key, byte[] serializedKey) throws IOException {
       for (; ; ) {
          EntryPosition entry = temporaryTable.get(key);
@@ -349,11 +407,46 @@ protected boolean isIndexLoaded() {
       return index.isLoaded();
    }
 
+   protected boolean isIndexRestored() {
+      return index.isRestored();
+   }
+
+   protected void checkpointIndex() throws InterruptedException {
+      // this call is extracted for better testability
+      index.checkpoint();
+   }
+
+   private LogAppender logAppender(Object key) {
+      if (logAppenders.length == 1) {
+         return logAppenders[0];
+      }
+      int h = key.hashCode();
+      return logAppenders[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % logAppenders.length];
+   }
+
+   private void stopLogAppenders() throws InterruptedException {
+      for (LogAppender logAppender : logAppenders) {
+         logAppender.stopOperations();
+      }
+      logAppenders = null;
+   }
+
+   private void pauseLogAppenders() throws InterruptedException {
+      for (LogAppender logAppender : logAppenders) {
+         logAppender.pause();
+      }
+   }
+
+   private void resumeLogAppenders() {
+      for (LogAppender logAppender : logAppenders) {
+         logAppender.resumeAfterPause();
+      }
+   }
+
    @Override
    public synchronized void stop() {
       try {
-         logAppender.stopOperations();
-         logAppender = null;
+         stopLogAppenders();
          compactor.stopOperations();
          compactor = null;
          index.stopOperations();
@@ -362,7 +455,6 @@ public synchronized void stop() {
          fileProvider = null;
          temporaryTable = null;
          indexQueue = null;
-         storeQueue = null;
       } catch (InterruptedException e) {
          Thread.currentThread().interrupt();
          throw log.interruptedWhileStopping(e);
@@ -374,8 +466,7 @@ public synchronized void stop() {
    @Override
    public synchronized void destroy() {
       try {
-         logAppender.stopOperations();
-         logAppender = null;
+         stopLogAppenders();
          compactor.stopOperations();
          compactor = null;
          try {
@@ -393,7 +484,6 @@ public synchronized void destroy() {
          fileProvider = null;
          temporaryTable = null;
          indexQueue = null;
-         storeQueue = null;
       } catch (InterruptedException e) {
          Thread.currentThread().interrupt();
          throw log.interruptedWhileStopping(e);
@@ -402,6 +492,64 @@ public synchronized void destroy() {
       }
    }
 
+   @ManagedAttribute(
+         description = "Number of data files waiting to be compacted",
+         displayName = "Compaction backlog"
+   )
+   public int getCompactionBacklog() {
+      Compactor compactor = this.compactor;
+      return compactor == null ? 0 : compactor.getBacklog();
+   }
+
+   @ManagedAttribute(
+         description = "Size of the data files waiting to be compacted",
+         displayName = "Compaction backlog size",
+         units = Units.BYTES
+   )
+   public long getCompactionBacklogBytes() {
+      Compactor compactor = this.compactor;
+      return compactor == null ? 0 : compactor.getBacklogBytes();
+   }
+
+   @ManagedAttribute(
+         description = "Number of data files compacted since the store was started",
+         displayName = "Compacted files"
+   )
+   public long getCompactedFiles() {
+      Compactor compactor = this.compactor;
+      return compactor == null ? 0 : compactor.getCompactedFiles();
+   }
+
+   @ManagedAttribute(
+         description = "Amount of data read from the compacted files since the store was started",
+         displayName = "Compacted bytes",
+         units = Units.BYTES
+   )
+   public long getCompactedBytes() {
+      Compactor compactor = this.compactor;
+      return compactor == null ? 0 : compactor.getCompactedBytes();
+   }
+
+   @ManagedAttribute(
+         description = "Amount of data compacted per second of compaction",
+         displayName = "Compaction throughput",
+         units = Units.PER_SECOND
+   )
+   public long getCompactionThroughput() {
+      Compactor compactor = this.compactor;
+      return compactor == null ? 0 : compactor.getThroughput();
+   }
+
+   @ManagedAttribute(
+         description = "Whether the compaction is limited to a single thread because the writes are slower than usual",
+         displayName = "Compaction throttled",
+         dataType = DataType.TRAIT
+   )
+   public boolean isCompactionThrottled() {
+      Compactor compactor = this.compactor;
+      return compactor != null && compactor.isThrottled();
+   }
+
    @Override
    public boolean isAvailable() {
       return new File(configuration.dataLocation()).exists() && new File(configuration.dataLocation()).exists();
@@ -410,7 +558,9 @@ public boolean isAvailable() {
    @Override
    public synchronized void clear() throws PersistenceException {
       try {
-         logAppender.clearAndPause();
+         for (LogAppender logAppender : logAppenders) {
+            logAppender.clearAndPause();
+         }
          compactor.clearAndPause();
       } catch (InterruptedException e) {
          Thread.currentThread().interrupt();
@@ -428,20 +578,20 @@ public synchronized void clear() throws PersistenceException {
       }
       temporaryTable.clear();
       compactor.resumeAfterPause();
-      logAppender.resumeAfterPause();
+      resumeLogAppenders();
    }
 
    @Override
    public synchronized int size() {
       try {
-         logAppender.pause();
+         pauseLogAppenders();
          long size = index.size();
          return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
       } catch (InterruptedException e) {
          Thread.currentThread().interrupt();
          throw log.sizeCalculationInterrupted(e);
       } finally {
-         logAppender.resumeAfterPause();
+         resumeLogAppenders();
       }
    }
 
@@ -458,7 +608,7 @@ public void write(MarshallableEntry<?, ?> entry) {
          throw log.keyIsTooLong(entry.getKey(), keyLength, configuration.maxNodeSize(), maxKeyLength);
       }
       try {
-         storeQueue.pushAndWait(LogRequest.storeRequest(entry));
+         logAppender(entry.getKey()).storeRequest(LogRequest.storeRequest(entry));
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
@@ -468,7 +618,7 @@ public void write(MarshallableEntry<?, ?> entry) {
    public boolean delete(Object key) {
       try {
          LogRequest request = LogRequest.deleteRequest(key, toBuffer(marshaller.objectToByteBuffer(key)));
-         storeQueue.pushAndWait(request);
+         logAppender(key).storeRequest(request);
          return (Boolean) request.getIndexRequest().getResult();
       } catch (Exception e) {
          throw new PersistenceException(e);
@@ -185,6 +185,33 @@ public boolean notifyAndWait() {
       return true;
    }
 
+   /**
+    * Waits until an element is pushed or the timeout elapses, <b>without</b> notifying the producers of the elements
+    * already popped. Used by the consumer to gather more elements before completing a batch.
+    *
+    * @return {@code true} if the queue is not empty
+    */
+   public boolean awaitNonEmpty(long timeoutNanos) {
+      final long deadline = System.nanoTime() + timeoutNanos;
+      final Thread currentThread = Thread.currentThread();
+      while (queue.isEmpty()) {
+         final long remaining = deadline - System.nanoTime();
+         if (remaining <= 0 || currentThread.isInterrupted()) {
+            return false;
+         }
+         blockedConsumer = currentThread;
+         try {
+            if (!queue.isEmpty()) {
+               return true;
+            }
+            LockSupport.parkNanos(this, remaining);
+         } finally {
+            blockedConsumer = null;
+         }
+      }
+      return true;
+   }
+
    public void notifyError() {
       error = true;
       // first cleanup already popped elements first
@@ -11,9 +11,14 @@
 public enum Attribute {
    // must be first
    UNKNOWN(null),
+   CHECKPOINT_INTERVAL("checkpoint-interval"),
+   COMMIT_MAX_BYTES("commit-max-bytes"),
+   COMMIT_MAX_LATENCY("commit-max-latency"),
+   COMPACTION_THREADS("compaction-threads"),
    COMPACTION_THRESHOLD("compaction-threshold"),
    PATH("path"),
    INDEX_QUEUE_LENGTH("max-queue-length"),
+   LOG_FILES("log-files"),
    SEGMENTS("segments"),
    MAX_FILE_SIZE("max-file-size"),
    MAX_NODE_SIZE("max-node-size"),
@@ -12,10 +12,14 @@ public class DataConfiguration implements ConfigurationInfo {
    public static final AttributeDefinition<String> DATA_LOCATION = AttributeDefinition.builder("dataLocation", null, String.class).immutable().autoPersist(false).xmlName("path").build();
    public static final AttributeDefinition<Integer> MAX_FILE_SIZE = AttributeDefinition.builder("maxFileSize", 16 * 1024 * 1024).immutable().autoPersist(false).build();
    public static final AttributeDefinition<Boolean> SYNC_WRITES = AttributeDefinition.builder("syncWrites", false).immutable().autoPersist(false).build();
+   public static final AttributeDefinition<Long> COMMIT_MAX_LATENCY = AttributeDefinition.builder("commitMaxLatency", 1000L).immutable().autoPersist(false).build();
+   public static final AttributeDefinition<Integer> COMMIT_MAX_BYTES = AttributeDefinition.builder("commitMaxBytes", 1024 * 1024).immutable().autoPersist(false).build();
+   public static final AttributeDefinition<Integer> LOG_FILES = AttributeDefinition.builder("logFiles", 1).immutable().autoPersist(false).build();
    private final AttributeSet attributes;
 
    public static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(DataConfiguration.class, DATA_LOCATION, MAX_FILE_SIZE, SYNC_WRITES);
+      return new AttributeSet(DataConfiguration.class, DATA_LOCATION, MAX_FILE_SIZE, SYNC_WRITES, COMMIT_MAX_LATENCY,
+            COMMIT_MAX_BYTES, LOG_FILES);
    }
 
    static ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(DATA.getLocalName());
@@ -42,6 +46,27 @@ public boolean syncWrites() {
       return attributes.attribute(SYNC_WRITES).get();
    }
 
+   /**
+    * @return the longest time a batch of synchronous writes may wait for other writes before it is fsynced, in microseconds
+    */
+   public long commitMaxLatency() {
+      return attributes.attribute(COMMIT_MAX_LATENCY).get();
+   }
+
+   /**
+    * @return the number of bytes after which a batch of writes is committed without waiting for more writes
+    */
+   public int commitMaxBytes() {
+      return attributes.attribute(COMMIT_MAX_BYTES).get();
+   }
+
+   /**
+    * @return the number of log files written in parallel
+    */
+   public int logFiles() {
+      return attributes.attribute(LOG_FILES).get();
+   }
+
    public String dataLocation() {
       return attributes.attribute(DATA_LOCATION).get();
    }
@@ -1,6 +1,9 @@
 package org.infinispan.persistence.sifs.configuration;
 
+import static org.infinispan.persistence.sifs.configuration.DataConfiguration.COMMIT_MAX_BYTES;
+import static org.infinispan.persistence.sifs.configuration.DataConfiguration.COMMIT_MAX_LATENCY;
 import static org.infinispan.persistence.sifs.configuration.DataConfiguration.DATA_LOCATION;
+import static org.infinispan.persistence.sifs.configuration.DataConfiguration.LOG_FILES;
 import static org.infinispan.persistence.sifs.configuration.DataConfiguration.MAX_FILE_SIZE;
 import static org.infinispan.persistence.sifs.configuration.DataConfiguration.SYNC_WRITES;
 
@@ -8,9 +11,13 @@
 import org.infinispan.commons.configuration.ConfigurationBuilderInfo;
 import org.infinispan.commons.configuration.attributes.AttributeSet;
 import org.infinispan.commons.configuration.elements.ElementDefinition;
+import org.infinispan.persistence.sifs.Log;
+import org.infinispan.util.logging.LogFactory;
 
 public class DataConfigurationBuilder implements ConfigurationBuilderInfo, Builder<DataConfiguration> {
 
+   private static final Log log = LogFactory.getLog(DataConfigurationBuilder.class, Log.class);
+
    private final AttributeSet attributes;
 
    public DataConfigurationBuilder() {
@@ -42,8 +49,31 @@ public DataConfigurationBuilder syncWrites(boolean syncWrites) {
       return this;
    }
 
+   public DataConfigurationBuilder commitMaxLatency(long commitMaxLatency) {
+      attributes.attribute(COMMIT_MAX_LATENCY).set(commitMaxLatency);
+      return this;
+   }
+
+   public DataConfigurationBuilder commitMaxBytes(int commitMaxBytes) {
+      attributes.attribute(COMMIT_MAX_BYTES).set(commitMaxBytes);
+      return this;
+   }
+
+   public DataConfigurationBuilder logFiles(int logFiles) {
+      attributes.attribute(LOG_FILES).set(logFiles);
+      return this;
+   }
+
    @Override
    public void validate() {
+      int logFiles = attributes.attribute(LOG_FILES).get();
+      if (logFiles < 1) {
+         throw log.invalidLogFiles(logFiles);
+      }
+      int commitMaxBytes = attributes.attribute(COMMIT_MAX_BYTES).get();
+      if (commitMaxBytes <= 0) {
+         throw log.invalidCommitMaxBytes(commitMaxBytes);
+      }
    }
 
    @Override
@@ -30,12 +30,13 @@ public class SoftIndexFileStoreConfiguration extends AbstractSegmentedStoreConfi
 
    public static final AttributeDefinition<Integer> OPEN_FILES_LIMIT = AttributeDefinition.builder("openFilesLimit", 1000).immutable().build();
    public static final AttributeDefinition<Double> COMPACTION_THRESHOLD = AttributeDefinition.builder("compactionThreshold", 0.5d).immutable().build();
+   public static final AttributeDefinition<Integer> COMPACTION_THREADS = AttributeDefinition.builder("compactionThreads", 2).immutable().build();
    private final IndexConfiguration index;
    private final DataConfiguration data;
    private final List<ConfigurationInfo> elements;
 
    public static AttributeSet attributeDefinitionSet() {
-      return new AttributeSet(SoftIndexFileStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), OPEN_FILES_LIMIT, COMPACTION_THRESHOLD);
+      return new AttributeSet(SoftIndexFileStoreConfiguration.class, AbstractStoreConfiguration.attributeDefinitionSet(), OPEN_FILES_LIMIT, COMPACTION_THRESHOLD, COMPACTION_THREADS);
    }
 
    public static final ElementDefinition ELEMENT_DEFINITION = new DefaultElementDefinition(SOFT_INDEX_FILE_STORE.getLocalName(), true, false);
@@ -112,10 +113,26 @@ public int indexQueueLength() {
       return index.indexQueueLength();
    }
 
+   public long checkpointInterval() {
+      return index.checkpointInterval();
+   }
+
    public boolean syncWrites() {
       return data.syncWrites();
    }
 
+   public long commitMaxLatency() {
+      return data.commitMaxLatency();
+   }
+
+   public int commitMaxBytes() {
+      return data.commitMaxBytes();
+   }
+
+   public int logFiles() {
+      return data.logFiles();
+   }
+
    public int openFilesLimit() {
       return attributes.attribute(OPEN_FILES_LIMIT).get();
    }
@@ -124,6 +141,13 @@ public double compactionThreshold() {
       return attributes.attribute(COMPACTION_THRESHOLD).get();
    }
 
+   /**
+    * @return the number of threads compacting data files concurrently
+    */
+   public int compactionThreads() {
+      return attributes.attribute(COMPACTION_THREADS).get();
+   }
+
    public IndexConfiguration index() {
       return index;
    }
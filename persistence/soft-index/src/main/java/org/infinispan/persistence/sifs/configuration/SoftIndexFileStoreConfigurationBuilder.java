@@ -1,6 +1,7 @@
 package org.infinispan.persistence.sifs.configuration;
 
 import static org.infinispan.configuration.cache.AbstractStoreConfiguration.SEGMENTED;
+import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THREADS;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.COMPACTION_THRESHOLD;
 import static org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration.OPEN_FILES_LIMIT;
 
@@ -126,6 +127,18 @@ public SoftIndexFileStoreConfigurationBuilder indexQueueLength(int indexQueueLen
       return this;
    }
 
+   /**
+    * Sets how often, in milliseconds, the index is checkpointed. After a crash, the index is restored from the last
+    * checkpoint and only the data files written since then are read again, instead of all of them.
+    * Setting it to <code>0</code> disables the checkpoints.
+    *
+    * Defaults to <code>0</code>.
+    */
+   public SoftIndexFileStoreConfigurationBuilder checkpointInterval(long checkpointInterval) {
+      index.checkpointInterval(checkpointInterval);
+      return this;
+   }
+
    /**
     * Sets whether writes shoud wait to be fsynced to disk.
     *
@@ -136,6 +149,39 @@ public SoftIndexFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
       return this;
    }
 
+   /**
+    * Sets the longest time, in microseconds, that a batch of synchronous writes may wait for more concurrent writes
+    * before it is fsynced. The actual wait adapts to the observed fsync duration and only happens when there are
+    * concurrent writers. Setting it to <code>0</code> fsyncs as soon as the writes queued so far are written.
+    *
+    * Defaults to <code>1000</code>.
+    */
+   public SoftIndexFileStoreConfigurationBuilder commitMaxLatency(long commitMaxLatency) {
+      data.commitMaxLatency(commitMaxLatency);
+      return this;
+   }
+
+   /**
+    * Sets the number of bytes after which a batch of writes is committed without waiting for more writes.
+    *
+    * Defaults to <code>1048576</code> (1MB).
+    */
+   public SoftIndexFileStoreConfigurationBuilder commitMaxBytes(int commitMaxBytes) {
+      data.commitMaxBytes(commitMaxBytes);
+      return this;
+   }
+
+   /**
+    * Sets the number of log files that are written in parallel, each by its own thread. All the writes of a key go
+    * to the same log file.
+    *
+    * Defaults to <code>1</code>.
+    */
+   public SoftIndexFileStoreConfigurationBuilder logFiles(int logFiles) {
+      data.logFiles(logFiles);
+      return this;
+   }
+
    /**
     * Sets the maximum number of open files.
     *
@@ -156,6 +202,17 @@ public SoftIndexFileStoreConfigurationBuilder compactionThreshold(double compact
       return this;
    }
 
+   /**
+    * Sets the number of threads compacting data files concurrently. The files with the most unused space are compacted
+    * first, and only one thread keeps compacting while the writes to the store are slowed down.
+    *
+    * Defaults to <code>2</code>.
+    */
+   public SoftIndexFileStoreConfigurationBuilder compactionThreads(int compactionThreads) {
+      attributes.attribute(COMPACTION_THREADS).set(compactionThreads);
+      return this;
+   }
+
    @Override
    public SoftIndexFileStoreConfiguration create() {
       return new SoftIndexFileStoreConfiguration(attributes.protect(), async.create(), index.create(), data.create());
@@ -183,10 +240,15 @@ protected void validate(boolean skipClassChecks) {
       }
       super.validate(skipClassChecks);
       index.validate();
+      data.validate();
       double compactionThreshold = attributes.attribute(COMPACTION_THRESHOLD).get();
       if (compactionThreshold <= 0 || compactionThreshold > 1) {
          throw log.invalidCompactionThreshold(compactionThreshold);
       }
+      int compactionThreads = attributes.attribute(COMPACTION_THREADS).get();
+      if (compactionThreads < 1) {
+         throw log.invalidCompactionThreads(compactionThreads);
+      }
    }
 
    @Override
@@ -65,6 +65,9 @@ private void parseSoftIndexFileStore(XMLExtendedStreamReader reader, SoftIndexFi
             case COMPACTION_THRESHOLD:
                builder.compactionThreshold(Double.parseDouble(value));
                break;
+            case COMPACTION_THREADS:
+               builder.compactionThreads(Integer.parseInt(value));
+               break;
             default:
                Parser.parseStoreAttribute(reader, i, builder);
                break;
@@ -110,6 +113,15 @@ private void parseData(XMLExtendedStreamReader reader, SoftIndexFileStoreConfigu
             case SYNC_WRITES:
                builder.syncWrites(Boolean.parseBoolean(value));
                break;
+            case COMMIT_MAX_LATENCY:
+               builder.commitMaxLatency(Long.parseLong(value));
+               break;
+            case COMMIT_MAX_BYTES:
+               builder.commitMaxBytes(Integer.parseInt(value));
+               break;
+            case LOG_FILES:
+               builder.logFiles(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -148,6 +160,9 @@ private void parseIndex(XMLExtendedStreamReader reader, SoftIndexFileStoreConfig
             case MAX_NODE_SIZE:
                builder.maxNodeSize(Integer.parseInt(value));
                break;
+            case CHECKPOINT_INTERVAL:
+               builder.checkpointInterval(Long.parseLong(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -0,0 +1,111 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.MarshallableEntry;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the low level store tests with frequent index checkpoints and checks that the index is restored from the last
+ * checkpoint after a crash.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "persistence.SoftIndexFileStoreCheckpointTest")
+public class SoftIndexFileStoreCheckpointTest extends SoftIndexFileStoreTest {
+   private static final int KEYS = 200;
+
+   @Override
+   protected void configureStore(SoftIndexFileStoreConfigurationBuilder builder) {
+      builder.checkpointInterval(50);
+   }
+
+   public void testRestoreFromCheckpointAfterCrash() throws Exception {
+      String liveLocation = Paths.get(tmpDirectory, "live").toString();
+      String crashedLocation = Paths.get(tmpDirectory, "crashed").toString();
+      SoftIndexFileStore live = createCheckpointedStore(liveLocation);
+      live.start();
+      try {
+         for (int i = 0; i < KEYS; ++i) {
+            live.write(marshalledEntry(internalCacheEntry(key(i), "v1", -1)));
+         }
+         live.checkpointIndex();
+         // written after the checkpoint, these have to be replayed
+         for (int i = 0; i < KEYS; ++i) {
+            if (i % 3 == 0) {
+               live.delete(key(i));
+            } else if (i % 3 == 1) {
+               live.write(marshalledEntry(internalCacheEntry(key(i), "v2", -1)));
+            }
+         }
+         for (int i = KEYS; i < 2 * KEYS; ++i) {
+            live.write(marshalledEntry(internalCacheEntry(key(i), "v3", -1)));
+         }
+         // the copy is what a crash would leave behind: the index is not shut down gracefully
+         Files.createDirectories(Paths.get(crashedLocation));
+         Util.recursiveDirectoryCopy(Paths.get(liveLocation), Paths.get(crashedLocation));
+      } finally {
+         live.stop();
+      }
+
+      SoftIndexFileStore restored = createCheckpointedStore(crashedLocation);
+      restored.start();
+      try {
+         assertFalse(restored.isIndexLoaded());
+         assertTrue(restored.isIndexRestored());
+         assertEntries(restored);
+
+         restored.write(marshalledEntry(internalCacheEntry(key(0), "v4", -1)));
+         restored.stop();
+         restored.start();
+         assertTrue(restored.isIndexLoaded());
+         assertEquals("v4", restored.loadEntry(key(0)).getValue());
+         restored.delete(key(0));
+         assertEntries(restored);
+      } finally {
+         restored.stop();
+      }
+   }
+
+   private void assertEntries(SoftIndexFileStore store) {
+      for (int i = 0; i < KEYS; ++i) {
+         MarshallableEntry entry = store.loadEntry(key(i));
+         if (i % 3 == 0) {
+            assertNull(key(i), entry);
+         } else {
+            assertNotNull(key(i), entry);
+            assertEquals(key(i), i % 3 == 1 ? "v2" : "v1", entry.getValue());
+         }
+      }
+      for (int i = KEYS; i < 2 * KEYS; ++i) {
+         MarshallableEntry entry = store.loadEntry(key(i));
+         assertNotNull(key(i), entry);
+         assertEquals(key(i), "v3", entry.getValue());
+      }
+   }
+
+   private SoftIndexFileStore createCheckpointedStore(String location) {
+      SoftIndexFileStore store = new SoftIndexFileStore();
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence()
+            .addStore(SoftIndexFileStoreConfigurationBuilder.class)
+            .indexLocation(location).dataLocation(location)
+            .maxFileSize(1000)
+            // only the explicit checkpoint is taken
+            .checkpointInterval(TimeUnit.HOURS.toMillis(1));
+      store.init(createContext(builder.build()));
+      return store;
+   }
+}
@@ -0,0 +1,93 @@
+package org.infinispan.persistence.sifs;
+
+import static org.infinispan.test.TestingUtil.getCacheObjectName;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.infinispan.commons.jmx.MBeanServerLookup;
+import org.infinispan.commons.jmx.TestMBeanServerLookup;
+import org.infinispan.commons.test.CommonsTestingUtil;
+import org.infinispan.commons.util.Util;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the compaction with several threads and its statistics.
+ *
+ * @since 12.1
+ */
+@Test(groups = "functional", testName = "persistence.sifs.SoftIndexFileStoreCompactionTest")
+public class SoftIndexFileStoreCompactionTest extends SingleCacheManagerTest {
+   private static final String JMX_DOMAIN = SoftIndexFileStoreCompactionTest.class.getSimpleName();
+   private static final String CACHE_NAME = "compacted";
+
+   private final MBeanServerLookup mBeanServerLookup = TestMBeanServerLookup.create();
+   private String tmpDirectory;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      tmpDirectory = CommonsTestingUtil.tmpDirectory(getClass());
+      Util.recursiveFileRemove(tmpDirectory);
+      GlobalConfigurationBuilder global = new GlobalConfigurationBuilder().nonClusteredDefault();
+      global.jmx().enabled(true).domain(JMX_DOMAIN).mBeanServerLookup(mBeanServerLookup);
+      global.globalState().persistentLocation(tmpDirectory);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence()
+            .addStore(SoftIndexFileStoreConfigurationBuilder.class)
+            .segmented(false)
+            .dataLocation(tmpDirectory + "/data").indexLocation(tmpDirectory + "/index")
+            .maxFileSize(1000)
+            .compactionThreads(3);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(global, null);
+      cm.defineConfiguration(CACHE_NAME, builder.build());
+      cache = cm.getCache(CACHE_NAME);
+      return cm;
+   }
+
+   @Override
+   protected void teardown() {
+      super.teardown();
+      Util.recursiveFileRemove(tmpDirectory);
+   }
+
+   public void testCompactionStatistics() throws Exception {
+      MBeanServer mBeanServer = mBeanServerLookup.getMBeanServer();
+      ObjectName name = getCacheObjectName(JMX_DOMAIN, CACHE_NAME + "(local)", "SoftIndexFileStore");
+      assertTrue(mBeanServer.isRegistered(name));
+
+      for (int round = 0; round < 20; ++round) {
+         for (int i = 0; i < 100; ++i) {
+            cache.put("k" + i, "value-" + round + "-" + i);
+         }
+         for (int i = 100; i < 120; ++i) {
+            cache.put("k" + i, "value-" + round + "-" + i);
+            cache.remove("k" + i);
+         }
+      }
+      eventually(() -> (Long) mBeanServer.getAttribute(name, "CompactedFiles") > 0);
+      assertTrue((Long) mBeanServer.getAttribute(name, "CompactedBytes") > 0);
+      assertTrue((Long) mBeanServer.getAttribute(name, "CompactionThroughput") > 0);
+      assertTrue((Integer) mBeanServer.getAttribute(name, "CompactionBacklog") >= 0);
+      assertTrue((Long) mBeanServer.getAttribute(name, "CompactionBacklogBytes") >= 0);
+      assertTrue(mBeanServer.getAttribute(name, "CompactionThrottled") instanceof Boolean);
+
+      // Reload everything from the store
+      cache.getAdvancedCache().getDataContainer().clear();
+      for (int i = 0; i < 100; ++i) {
+         assertEquals("value-19-" + i, cache.get("k" + i));
+      }
+      for (int i = 100; i < 120; ++i) {
+         assertEquals(null, cache.get("k" + i));
+      }
+
+      assertEquals(100, cache.size());
+   }
+}
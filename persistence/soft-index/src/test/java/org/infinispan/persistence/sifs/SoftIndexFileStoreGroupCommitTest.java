@@ -0,0 +1,73 @@
+package org.infinispan.persistence.sifs;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.infinispan.persistence.spi.MarshallableEntry;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the low level store tests with synchronous writes spread over several log files, so that concurrent writes are
+ * committed in groups.
+ *
+ * @since 12.1
+ */
+@Test(groups = "unit", testName = "persistence.SoftIndexFileStoreGroupCommitTest")
+public class SoftIndexFileStoreGroupCommitTest extends SoftIndexFileStoreTest {
+   private static final int THREADS = 8;
+   private static final int KEYS_PER_THREAD = 200;
+
+   @Override
+   protected void configureStore(SoftIndexFileStoreConfigurationBuilder builder) {
+      builder.syncWrites(true).logFiles(2).commitMaxLatency(200).commitMaxBytes(4096);
+   }
+
+   public void testConcurrentWritesSurviveRestart() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < THREADS; ++t) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+               for (int i = 0; i < KEYS_PER_THREAD; ++i) {
+                  String key = "k" + thread + "-" + i;
+                  store.write(marshalledEntry(internalCacheEntry(key, "v1", -1)));
+                  if (i % 3 == 0) {
+                     store.delete(key);
+                  } else if (i % 3 == 1) {
+                     store.write(marshalledEntry(internalCacheEntry(key, "v2", -1)));
+                  }
+               }
+            }));
+         }
+         for (Future<?> future : futures) {
+            future.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+      // The index is dropped on stop, so it has to be rebuilt from both log files
+      store.stop();
+      store.start();
+      for (int thread = 0; thread < THREADS; ++thread) {
+         for (int i = 0; i < KEYS_PER_THREAD; ++i) {
+            String key = "k" + thread + "-" + i;
+            MarshallableEntry entry = store.loadEntry(key);
+            if (i % 3 == 0) {
+               assertNull(key, entry);
+            } else {
+               assertNotNull(key, entry);
+               assertEquals(key, i % 3 == 1 ? "v2" : "v1", entry.getValue());
+            }
+         }
+      }
+   }
+}
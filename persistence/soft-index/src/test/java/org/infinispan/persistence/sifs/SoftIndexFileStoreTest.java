@@ -77,16 +77,19 @@ public void stop() {
       };
       ConfigurationBuilder builder = TestCacheManagerFactory
             .getDefaultCacheConfiguration(false);
-      builder.persistence()
+      configureStore(builder.persistence()
             .addStore(SoftIndexFileStoreConfigurationBuilder.class)
             .indexLocation(tmpDirectory).dataLocation(tmpDirectory)
-            .maxFileSize(1000);
+            .maxFileSize(1000));
 
       Configuration c = builder.build();
       store.init(createContext(c));
       return store;
    }
 
+   protected void configureStore(SoftIndexFileStoreConfigurationBuilder builder) {
+   }
+
    @Override
    protected boolean storePurgesAllExpired() {
       return false;
@@ -196,7 +199,7 @@ private void writeGibberish() {
       }
    }
 
-   private String key(int i) {
+   String key(int i) {
       return String.format("key%010d", i);
    }
 